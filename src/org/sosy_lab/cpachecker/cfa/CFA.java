@@ -68,6 +68,12 @@ public interface CFA {
 
   Optional<DependenceGraph> getDependenceGraph();
 
+  /**
+   * Get a compact index of the edges of this CFA for fast traversals.
+   * This is only available if the CFA is not modified anymore.
+   */
+  Optional<CFAAdjacency> getAdjacency();
+
   Language getLanguage();
 
   List<Path> getFileNames();
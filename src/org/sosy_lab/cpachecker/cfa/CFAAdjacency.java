@@ -0,0 +1,226 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cfa;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import org.sosy_lab.cpachecker.cfa.model.CFAEdge;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.util.CFAUtils;
+
+/**
+ * Immutable, compact index of the edges of a CFA for traversal-heavy algorithms.
+ *
+ * <p>Each node of the CFA is identified by a dense id between 0 (inclusive) and {@link #size()}
+ * (exclusive), in the natural order of CFA nodes. Successors and predecessors are stored in the
+ * compressed sparse row format, i.e., in one int array for all nodes with an array of offsets
+ * per node. Sets of nodes can be represented as {@link BitSet}s of ids.
+ *
+ * <p>Like {@link CFAUtils#allLeavingEdges(CFANode)} and {@link
+ * org.sosy_lab.cpachecker.util.CFATraversal}, this index contains summary edges.
+ *
+ * <p>An index is available only for CFAs that are not modified anymore, use {@link
+ * CFA#getAdjacency()} to retrieve it.
+ */
+public final class CFAAdjacency {
+
+  private final ImmutableList<CFANode> nodes;
+
+  /** Id of each node, indexed by node number minus {@link #minNodeNumber}, -1 if none. */
+  private final int[] idsByNodeNumber;
+
+  private final int minNodeNumber;
+
+  // successors of node i are successors[successorOffsets[i] ... successorOffsets[i+1]-1]
+  private final int[] successorOffsets;
+  private final int[] successors;
+  private final CFAEdge[] leavingEdges;
+
+  // predecessors of node i are predecessors[predecessorOffsets[i] ... predecessorOffsets[i+1]-1]
+  private final int[] predecessorOffsets;
+  private final int[] predecessors;
+  private final CFAEdge[] enteringEdges;
+
+  private CFAAdjacency(Collection<CFANode> pNodes) {
+    nodes = ImmutableList.copyOf(pNodes);
+    final int size = nodes.size();
+
+    int min = Integer.MAX_VALUE;
+    int max = Integer.MIN_VALUE;
+    int numEdges = 0;
+    for (CFANode node : nodes) {
+      min = Math.min(min, node.getNodeNumber());
+      max = Math.max(max, node.getNodeNumber());
+      numEdges += CFAUtils.allLeavingEdges(node).size();
+    }
+    minNodeNumber = min;
+    idsByNodeNumber = new int[size == 0 ? 0 : max - min + 1];
+    Arrays.fill(idsByNodeNumber, -1);
+    for (int i = 0; i < size; i++) {
+      idsByNodeNumber[nodes.get(i).getNodeNumber() - min] = i;
+    }
+
+    successorOffsets = new int[size + 1];
+    successors = new int[numEdges];
+    leavingEdges = new CFAEdge[numEdges];
+    int pos = 0;
+    for (int i = 0; i < size; i++) {
+      successorOffsets[i] = pos;
+      for (CFAEdge edge : CFAUtils.allLeavingEdges(nodes.get(i))) {
+        successors[pos] = getId(edge.getSuccessor());
+        leavingEdges[pos] = edge;
+        pos++;
+      }
+    }
+    successorOffsets[size] = pos;
+
+    predecessorOffsets = new int[size + 1];
+    predecessors = new int[numEdges];
+    enteringEdges = new CFAEdge[numEdges];
+    pos = 0;
+    for (int i = 0; i < size; i++) {
+      predecessorOffsets[i] = pos;
+      for (CFAEdge edge : CFAUtils.allEnteringEdges(nodes.get(i))) {
+        predecessors[pos] = getId(edge.getPredecessor());
+        enteringEdges[pos] = edge;
+        pos++;
+      }
+    }
+    predecessorOffsets[size] = pos;
+  }
+
+  /**
+   * Create the index for the given nodes, which need to be closed under successors and
+   * predecessors, and must not be modified afterwards.
+   */
+  static CFAAdjacency of(Collection<CFANode> pNodes) {
+    return new CFAAdjacency(pNodes);
+  }
+
+  /** Returns the number of nodes. */
+  public int size() {
+    return nodes.size();
+  }
+
+  /**
+   * Returns the id of the given node.
+   *
+   * @throws IllegalArgumentException if the node is not part of the index
+   */
+  public int getId(CFANode pNode) {
+    int index = pNode.getNodeNumber() - minNodeNumber;
+    checkArgument(
+        index >= 0 && index < idsByNodeNumber.length && idsByNodeNumber[index] >= 0,
+        "Node %s is not part of the CFA",
+        pNode);
+    int id = idsByNodeNumber[index];
+    checkArgument(nodes.get(id).equals(pNode), "Node %s is not part of the CFA", pNode);
+    return id;
+  }
+
+  public CFANode getNode(int pId) {
+    return nodes.get(pId);
+  }
+
+  /** Returns the number of leaving edges of the given node, including a summary edge. */
+  public int getNumLeavingEdges(int pId) {
+    return successorOffsets[pId + 1] - successorOffsets[pId];
+  }
+
+  /** Returns the id of the successor of the given node via its i-th leaving edge. */
+  public int getSuccessor(int pId, int pIndex) {
+    checkArgument(pIndex >= 0 && pIndex < getNumLeavingEdges(pId));
+    return successors[successorOffsets[pId] + pIndex];
+  }
+
+  public CFAEdge getLeavingEdge(int pId, int pIndex) {
+    checkArgument(pIndex >= 0 && pIndex < getNumLeavingEdges(pId));
+    return leavingEdges[successorOffsets[pId] + pIndex];
+  }
+
+  /** Returns the number of entering edges of the given node, including a summary edge. */
+  public int getNumEnteringEdges(int pId) {
+    return predecessorOffsets[pId + 1] - predecessorOffsets[pId];
+  }
+
+  /** Returns the id of the predecessor of the given node via its i-th entering edge. */
+  public int getPredecessor(int pId, int pIndex) {
+    checkArgument(pIndex >= 0 && pIndex < getNumEnteringEdges(pId));
+    return predecessors[predecessorOffsets[pId] + pIndex];
+  }
+
+  public CFAEdge getEnteringEdge(int pId, int pIndex) {
+    checkArgument(pIndex >= 0 && pIndex < getNumEnteringEdges(pId));
+    return enteringEdges[predecessorOffsets[pId] + pIndex];
+  }
+
+  /** Returns the ids of all nodes reachable from at least one of the given nodes. */
+  public BitSet getReachableIds(Iterable<CFANode> pStartNodes) {
+    return traverse(pStartNodes, successorOffsets, successors);
+  }
+
+  /** Returns the ids of all nodes from which at least one of the given nodes is reachable. */
+  public BitSet getBackwardsReachableIds(Iterable<CFANode> pStartNodes) {
+    return traverse(pStartNodes, predecessorOffsets, predecessors);
+  }
+
+  private BitSet traverse(Iterable<CFANode> pStartNodes, int[] pOffsets, int[] pNeighbors) {
+    BitSet visited = new BitSet(size());
+    int[] stack = new int[size()];
+    int top = 0;
+    for (CFANode start : pStartNodes) {
+      int id = getId(start);
+      if (!visited.get(id)) {
+        visited.set(id);
+        stack[top++] = id;
+      }
+    }
+
+    while (top > 0) {
+      int current = stack[--top];
+      for (int i = pOffsets[current]; i < pOffsets[current + 1]; i++) {
+        int neighbor = pNeighbors[i];
+        if (!visited.get(neighbor)) {
+          visited.set(neighbor);
+          stack[top++] = neighbor;
+        }
+      }
+    }
+    return visited;
+  }
+
+  /** Returns the nodes with the given ids. */
+  public ImmutableSet<CFANode> getNodes(BitSet pIds) {
+    ImmutableSet.Builder<CFANode> result = ImmutableSet.builder();
+    for (int id = pIds.nextSetBit(0); id >= 0; id = pIds.nextSetBit(id + 1)) {
+      result.add(nodes.get(id));
+    }
+    return result.build();
+  }
+}
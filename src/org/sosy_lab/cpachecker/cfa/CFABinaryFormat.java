@@ -0,0 +1,142 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cfa;
+
+/**
+ * Constants of the binary format in which {@link CFACache} stores CFAs of C programs, written by
+ * {@link CFABinaryWriter} and read by {@link CFABinaryReader}.
+ *
+ * <p>A file starts with {@link #MAGIC} and {@link #FORMAT_VERSION}, followed by the machine
+ * model, the language, and the file names of the program. Then all CFA nodes are listed (sorted by
+ * node number, except that function exit nodes precede their entry nodes), followed by all edges
+ * (summary edges first), the leaving and entering edges of each node (by index, in their original
+ * order), the function heads, the nodes that belong to the CFA, the main function, the loop
+ * structure, and the global declarations. The file ends with {@link #END}.
+ *
+ * <p>Types, declarations, AST nodes, and file locations are written as a tag followed by their
+ * content. Each such object gets the next index when it is complete (for types and declarations
+ * that may be referenced from their own content, before the content), and later occurrences of the
+ * same object are written as {@link #REFERENCE} to this index. This preserves sharing and allows
+ * cyclic types. Strings are stored in a table in the same way. Enum constants are stored by name.
+ *
+ * <p>Whenever the format changes, {@link #FORMAT_VERSION} needs to be incremented, such that
+ * cache entries written by previous versions are rejected.
+ */
+final class CFABinaryFormat {
+
+  private CFABinaryFormat() {}
+
+  static final int MAGIC = 0x43464143; // "CFAC"
+  static final int FORMAT_VERSION = 1;
+  static final int END = 0x454E4421; // "END!"
+
+  // general tags
+  static final byte NULL = 0;
+  static final byte REFERENCE = 1;
+  static final byte FILE_LOCATION = 2;
+  static final byte DUMMY_FILE_LOCATION = 3;
+  static final byte MULTIPLE_FILES_LOCATION = 4;
+
+  // types
+  static final byte ARRAY_TYPE = 10;
+  static final byte BIT_FIELD_TYPE = 11;
+  static final byte COMPOSITE_TYPE = 12;
+  static final byte ELABORATED_TYPE = 13;
+  static final byte ENUM_TYPE = 14;
+  static final byte FUNCTION_TYPE = 15;
+  static final byte FUNCTION_TYPE_WITH_NAMES = 16;
+  static final byte POINTER_TYPE = 17;
+  static final byte PROBLEM_TYPE = 18;
+  static final byte SIMPLE_TYPE = 19;
+  static final byte TYPEDEF_TYPE = 20;
+  static final byte VOID_TYPE = 21;
+
+  // modes for the real type of elaborated types
+  static final byte NO_REAL_TYPE = 0;
+  static final byte REAL_TYPE_BEFORE = 1;
+  static final byte REAL_TYPE_AFTER = 2;
+
+  // declarations
+  static final byte FUNCTION_DECLARATION = 30;
+  static final byte COMPLEX_TYPE_DECLARATION = 31;
+  static final byte TYPEDEF_DECLARATION = 32;
+  static final byte VARIABLE_DECLARATION = 33;
+  static final byte PARAMETER_DECLARATION = 34;
+  static final byte ENUMERATOR = 35;
+  static final byte ENUMERATOR_OF_TYPE = 36;
+
+  // expressions
+  static final byte ARRAY_SUBSCRIPT_EXPRESSION = 40;
+  static final byte FIELD_REFERENCE = 41;
+  static final byte ID_EXPRESSION = 42;
+  static final byte POINTER_EXPRESSION = 43;
+  static final byte COMPLEX_CAST_EXPRESSION = 44;
+  static final byte BINARY_EXPRESSION = 45;
+  static final byte CAST_EXPRESSION = 46;
+  static final byte CHAR_LITERAL_EXPRESSION = 47;
+  static final byte FLOAT_LITERAL_EXPRESSION = 48;
+  static final byte INTEGER_LITERAL_EXPRESSION = 49;
+  static final byte STRING_LITERAL_EXPRESSION = 50;
+  static final byte TYPE_ID_EXPRESSION = 51;
+  static final byte UNARY_EXPRESSION = 52;
+  static final byte IMAGINARY_LITERAL_EXPRESSION = 53;
+  static final byte ADDRESS_OF_LABEL_EXPRESSION = 54;
+  static final byte FUNCTION_CALL_EXPRESSION = 55;
+
+  // statements
+  static final byte EXPRESSION_STATEMENT = 60;
+  static final byte EXPRESSION_ASSIGNMENT_STATEMENT = 61;
+  static final byte FUNCTION_CALL_ASSIGNMENT_STATEMENT = 62;
+  static final byte FUNCTION_CALL_STATEMENT = 63;
+  static final byte THREAD_OPERATION_STATEMENT = 64;
+  static final byte THREAD_CREATE_STATEMENT = 65;
+  static final byte THREAD_JOIN_STATEMENT = 66;
+  static final byte RETURN_STATEMENT = 67;
+
+  // initializers and designators
+  static final byte INITIALIZER_EXPRESSION = 70;
+  static final byte INITIALIZER_LIST = 71;
+  static final byte DESIGNATED_INITIALIZER = 72;
+  static final byte ARRAY_DESIGNATOR = 73;
+  static final byte ARRAY_RANGE_DESIGNATOR = 74;
+  static final byte FIELD_DESIGNATOR = 75;
+
+  // nodes
+  static final byte NODE = 80;
+  static final byte LABEL_NODE = 81;
+  static final byte TERMINATION_NODE = 82;
+  static final byte FUNCTION_EXIT_NODE = 83;
+  static final byte FUNCTION_ENTRY_NODE = 84;
+
+  // edges
+  static final byte BLANK_EDGE = 90;
+  static final byte ASSUME_EDGE = 91;
+  static final byte DECLARATION_EDGE = 92;
+  static final byte STATEMENT_EDGE = 93;
+  static final byte FUNCTION_SUMMARY_STATEMENT_EDGE = 94;
+  static final byte RETURN_STATEMENT_EDGE = 95;
+  static final byte FUNCTION_CALL_EDGE = 96;
+  static final byte FUNCTION_RETURN_EDGE = 97;
+  static final byte FUNCTION_SUMMARY_EDGE = 98;
+}
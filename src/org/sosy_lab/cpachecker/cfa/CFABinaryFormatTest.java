@@ -0,0 +1,438 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cfa;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+import static org.junit.Assert.fail;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+import org.sosy_lab.common.ShutdownNotifier;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.FileOption;
+import org.sosy_lab.common.configuration.converters.FileTypeConverter;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.cfa.ast.AAstNode;
+import org.sosy_lab.cpachecker.cfa.ast.ADeclaration;
+import org.sosy_lab.cpachecker.cfa.model.AssumeEdge;
+import org.sosy_lab.cpachecker.cfa.model.CFAEdge;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.cfa.model.FunctionEntryNode;
+import org.sosy_lab.cpachecker.cfa.model.c.CDeclarationEdge;
+import org.sosy_lab.cpachecker.cfa.model.c.CLabelNode;
+import org.sosy_lab.cpachecker.util.LoopStructure;
+import org.sosy_lab.cpachecker.util.LoopStructure.Loop;
+import org.sosy_lab.cpachecker.util.Pair;
+import org.sosy_lab.cpachecker.util.test.TestDataTools;
+
+/**
+ * Tests for {@link CFABinaryWriter} and {@link CFABinaryReader}: CFAs of real programs need to be
+ * restored exactly, and corrupted data needs to be rejected.
+ */
+@RunWith(Parameterized.class)
+public class CFABinaryFormatTest {
+
+  @Parameters(name = "{0}")
+  public static Object[] getPrograms() {
+    return new Object[] {
+      "test/programs/simple/enum.c",
+      "test/programs/simple/loop1.c",
+      "test/programs/simple/recursion.c",
+      "test/programs/simple/function_pointer_false-unreach-label.c",
+      "test/programs/simple/struct-selfreference_false-unreach-label.c",
+      "test/programs/simple/struct_initializers_true-unreach-label.c",
+      "test/programs/simple/designatedRangeInitializer_true-unreach-label.c",
+      "test/programs/simple/union-initializer_false-unreach-label.c",
+      "test/programs/simple/label-as-value_true-unreach-label.c",
+      "test/programs/simple/modf_double_true-unreach-call.c",
+    };
+  }
+
+  @Parameter(0)
+  public String program;
+
+  @Rule public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private LogManager logger;
+  private CFA cfa;
+  private List<Pair<ADeclaration, String>> globalDeclarations;
+
+  @Before
+  public void createCFA() throws Exception {
+    logger = LogManager.createTestLogManager();
+    CFACreator creator =
+        new CFACreator(
+            TestDataTools.configurationForTest().build(), logger, ShutdownNotifier.createDummy());
+    cfa = creator.parseFileAndCreateCFA(ImmutableList.of(program));
+    globalDeclarations = getGlobalDeclarations(cfa);
+  }
+
+  /**
+   * Collect the global declarations in the form in which the parser returns them,
+   * from the declaration edges of the CFA.
+   */
+  private static List<Pair<ADeclaration, String>> getGlobalDeclarations(CFA pCfa) {
+    List<CFANode> nodes = new ArrayList<>(pCfa.getAllNodes());
+    Collections.sort(nodes);
+    List<Pair<ADeclaration, String>> result = new ArrayList<>();
+    for (CFANode node : nodes) {
+      for (int i = 0; i < node.getNumLeavingEdges(); i++) {
+        CFAEdge edge = node.getLeavingEdge(i);
+        if (edge instanceof CDeclarationEdge
+            && ((CDeclarationEdge) edge).getDeclaration().isGlobal()) {
+          result.add(Pair.of(((CDeclarationEdge) edge).getDeclaration(), edge.getRawStatement()));
+        }
+      }
+    }
+    return result;
+  }
+
+  private static byte[] write(CFA pCfa, List<Pair<ADeclaration, String>> pGlobalDeclarations)
+      throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      CFABinaryWriter.write(pCfa, pGlobalDeclarations, out);
+    }
+    return bytes.toByteArray();
+  }
+
+  private static Pair<MutableCFA, List<Pair<ADeclaration, String>>> read(byte[] pData)
+      throws IOException {
+    try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(pData))) {
+      return CFABinaryReader.read(in);
+    }
+  }
+
+  @Test
+  public void testRoundTrip() throws IOException {
+    byte[] data = write(cfa, globalDeclarations);
+    Pair<MutableCFA, List<Pair<ADeclaration, String>>> loaded = read(data);
+    CFA loadedCfa = loaded.getFirst();
+
+    Map<CFANode, CFANode> nodeMapping = assertSameCFA(cfa, loadedCfa);
+    assertSameLoopStructure(cfa.getLoopStructure(), loadedCfa.getLoopStructure(), nodeMapping);
+
+    List<Pair<ADeclaration, String>> loadedDeclarations = loaded.getSecond();
+    assertThat(loadedDeclarations).hasSize(globalDeclarations.size());
+    for (int i = 0; i < globalDeclarations.size(); i++) {
+      assertSameAst(globalDeclarations.get(i).getFirst(), loadedDeclarations.get(i).getFirst());
+      assertThat(loadedDeclarations.get(i).getSecond())
+          .isEqualTo(globalDeclarations.get(i).getSecond());
+    }
+
+    // Writing the loaded CFA needs to give exactly the same data,
+    // so everything that is written (including shared objects) is restored.
+    assertThat(write(loadedCfa, loadedDeclarations)).isEqualTo(data);
+  }
+
+  /**
+   * Check that both CFAs have the same structure and content, and return the mapping from the
+   * nodes of the expected CFA to the nodes of the actual CFA.
+   */
+  private static Map<CFANode, CFANode> assertSameCFA(CFA pExpected, CFA pActual) {
+    assertThat(pActual.getMachineModel()).isEqualTo(pExpected.getMachineModel());
+    assertThat(pActual.getLanguage()).isEqualTo(pExpected.getLanguage());
+    assertThat(pActual.getFileNames()).isEqualTo(pExpected.getFileNames());
+    assertThat(pActual.getAllFunctionNames()).isEqualTo(pExpected.getAllFunctionNames());
+    assertThat(pActual.getMainFunction().getFunctionName())
+        .isEqualTo(pExpected.getMainFunction().getFunctionName());
+
+    Map<CFANode, CFANode> mapping = new HashMap<>();
+    Deque<CFANode> waitlist = new ArrayDeque<>();
+    for (String function : pExpected.getAllFunctionNames()) {
+      addToMapping(
+          pExpected.getFunctionHead(function),
+          pActual.getFunctionHead(function),
+          mapping,
+          waitlist);
+    }
+
+    while (!waitlist.isEmpty()) {
+      CFANode expected = waitlist.pop();
+      CFANode actual = mapping.get(expected);
+      assertSameNode(expected, actual);
+
+      for (int i = 0; i < expected.getNumLeavingEdges(); i++) {
+        CFAEdge expectedEdge = expected.getLeavingEdge(i);
+        CFAEdge actualEdge = actual.getLeavingEdge(i);
+        assertSameEdge(expectedEdge, actualEdge);
+        addToMapping(expectedEdge.getSuccessor(), actualEdge.getSuccessor(), mapping, waitlist);
+      }
+      for (int i = 0; i < expected.getNumEnteringEdges(); i++) {
+        CFAEdge expectedEdge = expected.getEnteringEdge(i);
+        CFAEdge actualEdge = actual.getEnteringEdge(i);
+        assertSameEdge(expectedEdge, actualEdge);
+        addToMapping(
+            expectedEdge.getPredecessor(), actualEdge.getPredecessor(), mapping, waitlist);
+      }
+      if (expected.getLeavingSummaryEdge() != null) {
+        assertSameEdge(expected.getLeavingSummaryEdge(), actual.getLeavingSummaryEdge());
+        addToMapping(
+            expected.getLeavingSummaryEdge().getSuccessor(),
+            actual.getLeavingSummaryEdge().getSuccessor(),
+            mapping,
+            waitlist);
+      }
+      if (expected.getEnteringSummaryEdge() != null) {
+        assertSameEdge(expected.getEnteringSummaryEdge(), actual.getEnteringSummaryEdge());
+        addToMapping(
+            expected.getEnteringSummaryEdge().getPredecessor(),
+            actual.getEnteringSummaryEdge().getPredecessor(),
+            mapping,
+            waitlist);
+      }
+      if (expected instanceof FunctionEntryNode) {
+        addToMapping(
+            ((FunctionEntryNode) expected).getExitNode(),
+            ((FunctionEntryNode) actual).getExitNode(),
+            mapping,
+            waitlist);
+      }
+    }
+
+    assertThat(mapping.keySet()).containsAllIn(pExpected.getAllNodes());
+    List<CFANode> expectedNodes = new ArrayList<>();
+    for (CFANode node : pExpected.getAllNodes()) {
+      expectedNodes.add(mapping.get(node));
+    }
+    assertThat(pActual.getAllNodes()).containsExactlyElementsIn(expectedNodes);
+    assertThat(pActual.getMainFunction()).isSameAs(mapping.get(pExpected.getMainFunction()));
+    return mapping;
+  }
+
+  private static void addToMapping(
+      CFANode pExpected,
+      CFANode pActual,
+      Map<CFANode, CFANode> pMapping,
+      Deque<CFANode> pWaitlist) {
+    CFANode previous = pMapping.putIfAbsent(pExpected, pActual);
+    if (previous == null) {
+      pWaitlist.push(pExpected);
+    } else {
+      assertThat(pActual).isSameAs(previous);
+    }
+  }
+
+  private static void assertSameNode(CFANode pExpected, CFANode pActual) {
+    assertWithMessage("node %s", pExpected)
+        .that(pActual.getClass())
+        .isEqualTo(pExpected.getClass());
+    assertThat(pActual.getFunctionName()).isEqualTo(pExpected.getFunctionName());
+    assertThat(pActual.getReversePostorderId()).isEqualTo(pExpected.getReversePostorderId());
+    assertThat(pActual.isLoopStart()).isEqualTo(pExpected.isLoopStart());
+    assertThat(pActual.getNumLeavingEdges()).isEqualTo(pExpected.getNumLeavingEdges());
+    assertThat(pActual.getNumEnteringEdges()).isEqualTo(pExpected.getNumEnteringEdges());
+    assertThat(pActual.getLeavingSummaryEdge() == null)
+        .isEqualTo(pExpected.getLeavingSummaryEdge() == null);
+    assertThat(pActual.getEnteringSummaryEdge() == null)
+        .isEqualTo(pExpected.getEnteringSummaryEdge() == null);
+
+    if (pExpected instanceof CLabelNode) {
+      assertThat(((CLabelNode) pActual).getLabel()).isEqualTo(((CLabelNode) pExpected).getLabel());
+    } else if (pExpected instanceof FunctionEntryNode) {
+      FunctionEntryNode expected = (FunctionEntryNode) pExpected;
+      FunctionEntryNode actual = (FunctionEntryNode) pActual;
+      assertThat(actual.getFileLocation()).isEqualTo(expected.getFileLocation());
+      assertSameAst(expected.getFunctionDefinition(), actual.getFunctionDefinition());
+      assertThat(actual.getReturnVariable().isPresent())
+          .isEqualTo(expected.getReturnVariable().isPresent());
+      if (expected.getReturnVariable().isPresent()) {
+        assertSameAst(expected.getReturnVariable().get(), actual.getReturnVariable().get());
+      }
+    }
+  }
+
+  private static void assertSameEdge(CFAEdge pExpected, CFAEdge pActual) {
+    assertWithMessage("edge %s", pExpected)
+        .that(pActual.getClass())
+        .isEqualTo(pExpected.getClass());
+    assertThat(pActual.getEdgeType()).isEqualTo(pExpected.getEdgeType());
+    assertThat(pActual.getRawStatement()).isEqualTo(pExpected.getRawStatement());
+    assertThat(pActual.getDescription()).isEqualTo(pExpected.getDescription());
+    assertThat(pActual.getCode()).isEqualTo(pExpected.getCode());
+    assertThat(pActual.getFileLocation()).isEqualTo(pExpected.getFileLocation());
+    assertThat(pActual.getRawAST().isPresent()).isEqualTo(pExpected.getRawAST().isPresent());
+    if (pExpected.getRawAST().isPresent()) {
+      assertSameAst(pExpected.getRawAST().get(), pActual.getRawAST().get());
+    }
+
+    if (pExpected instanceof AssumeEdge) {
+      AssumeEdge expected = (AssumeEdge) pExpected;
+      AssumeEdge actual = (AssumeEdge) pActual;
+      assertThat(actual.getTruthAssumption()).isEqualTo(expected.getTruthAssumption());
+      assertThat(actual.isSwapped()).isEqualTo(expected.isSwapped());
+      assertThat(actual.isArtificialIntermediate()).isEqualTo(expected.isArtificialIntermediate());
+    }
+  }
+
+  private static void assertSameAst(AAstNode pExpected, AAstNode pActual) {
+    assertWithMessage("AST node %s", pExpected)
+        .that(pActual.getClass())
+        .isEqualTo(pExpected.getClass());
+    assertThat(pActual).isEqualTo(pExpected);
+    assertThat(pActual.toASTString()).isEqualTo(pExpected.toASTString());
+    assertThat(pActual.toParenthesizedASTString())
+        .isEqualTo(pExpected.toParenthesizedASTString());
+    assertThat(pActual.getFileLocation()).isEqualTo(pExpected.getFileLocation());
+  }
+
+  private static void assertSameLoopStructure(
+      Optional<LoopStructure> pExpected,
+      Optional<LoopStructure> pActual,
+      Map<CFANode, CFANode> pNodeMapping) {
+    assertThat(pActual.isPresent()).isEqualTo(pExpected.isPresent());
+    if (!pExpected.isPresent()) {
+      return;
+    }
+    LoopStructure expected = pExpected.get();
+    LoopStructure actual = pActual.get();
+    assertThat(actual.getCount()).isEqualTo(expected.getCount());
+    for (Loop expectedLoop : expected.getAllLoops()) {
+      String function = expectedLoop.getLoopHeads().iterator().next().getFunctionName();
+      Set<CFANode> heads = mapNodes(expectedLoop.getLoopHeads(), pNodeMapping);
+      Set<CFANode> nodes = mapNodes(expectedLoop.getLoopNodes(), pNodeMapping);
+      assertWithMessage("loop %s", expectedLoop)
+          .that(
+              actual
+                  .getLoopsForFunction(function)
+                  .stream()
+                  .anyMatch(
+                      loop ->
+                          loop.getLoopHeads().equals(heads) && loop.getLoopNodes().equals(nodes)))
+          .isTrue();
+    }
+  }
+
+  private static Set<CFANode> mapNodes(Set<CFANode> pNodes, Map<CFANode, CFANode> pNodeMapping) {
+    ImmutableSet.Builder<CFANode> result = ImmutableSet.builder();
+    for (CFANode node : pNodes) {
+      result.add(pNodeMapping.get(node));
+    }
+    return result.build();
+  }
+
+  @Test
+  public void testTruncatedDataIsRejected() throws IOException {
+    byte[] data = write(cfa, globalDeclarations);
+    int step = Math.max(1, data.length / 500);
+    for (int length = 0; length < data.length; length += step) {
+      assertRejected(Arrays.copyOf(data, length));
+    }
+    assertRejected(Arrays.copyOf(data, data.length - 1));
+  }
+
+  @Test
+  public void testTrailingDataIsRejected() throws IOException {
+    byte[] data = write(cfa, globalDeclarations);
+    assertRejected(Arrays.copyOf(data, data.length + 1));
+  }
+
+  @Test
+  public void testInvalidHeaderIsRejected() throws IOException {
+    byte[] data = write(cfa, globalDeclarations);
+
+    byte[] wrongMagic = data.clone();
+    wrongMagic[0] ^= 1;
+    assertRejected(wrongMagic);
+
+    byte[] wrongVersion = data.clone();
+    wrongVersion[7]++; // last byte of the version
+    assertRejected(wrongVersion);
+  }
+
+  private static void assertRejected(byte[] pData) {
+    try {
+      read(pData);
+      fail("Invalid data of length " + pData.length + " was accepted");
+    } catch (IOException e) {
+      // expected
+    }
+  }
+
+  /**
+   * Cache entries are compressed and have a checksum, so every modified byte is detected,
+   * the entry is rejected and deleted.
+   */
+  @Test
+  public void testTamperedCacheEntryIsRejected() throws Exception {
+    Path cacheDirectory = tempFolder.newFolder().toPath();
+    Configuration config =
+        Configuration.builder()
+            .addConverter(
+                FileOption.class,
+                FileTypeConverter.create(Configuration.defaultConfiguration()))
+            .setOption("cfa.cache.directory", cacheDirectory.toAbsolutePath().toString())
+            .build();
+    CFACache cache = new CFACache(config, logger);
+
+    cache.store("key", cfa, globalDeclarations);
+    Path file;
+    try (Stream<Path> files = Files.list(cacheDirectory)) {
+      file = files.collect(ImmutableList.toImmutableList()).get(0);
+    }
+    byte[] entry = Files.readAllBytes(file);
+    assertThat(cache.load("key").isPresent()).isTrue();
+
+    // skip the gzip header, which contains only meta data
+    int step = Math.max(1, entry.length / 200);
+    for (int i = 10; i < entry.length; i += step) {
+      byte[] tampered = entry.clone();
+      tampered[i] ^= (byte) 0xFF;
+      Files.write(file, tampered);
+
+      assertWithMessage("entry with modified byte %s", i)
+          .that(cache.load("key").isPresent())
+          .isFalse();
+      assertThat(Files.exists(file)).isFalse();
+    }
+    assertThat(cache.invalidEntries.getUpdateCount()).isGreaterThan(0);
+  }
+}
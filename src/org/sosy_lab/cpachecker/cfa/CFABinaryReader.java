@@ -0,0 +1,911 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cfa;
+
+import static org.sosy_lab.cpachecker.cfa.CFABinaryFormat.*;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.collect.TreeMultimap;
+import com.google.common.io.ByteStreams;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import javax.annotation.Nullable;
+import org.sosy_lab.cpachecker.cfa.ast.ADeclaration;
+import org.sosy_lab.cpachecker.cfa.ast.FileLocation;
+import org.sosy_lab.cpachecker.cfa.ast.c.CAddressOfLabelExpression;
+import org.sosy_lab.cpachecker.cfa.ast.c.CArrayDesignator;
+import org.sosy_lab.cpachecker.cfa.ast.c.CArrayRangeDesignator;
+import org.sosy_lab.cpachecker.cfa.ast.c.CArraySubscriptExpression;
+import org.sosy_lab.cpachecker.cfa.ast.c.CAssignment;
+import org.sosy_lab.cpachecker.cfa.ast.c.CBinaryExpression;
+import org.sosy_lab.cpachecker.cfa.ast.c.CBinaryExpression.BinaryOperator;
+import org.sosy_lab.cpachecker.cfa.ast.c.CCastExpression;
+import org.sosy_lab.cpachecker.cfa.ast.c.CCharLiteralExpression;
+import org.sosy_lab.cpachecker.cfa.ast.c.CComplexCastExpression;
+import org.sosy_lab.cpachecker.cfa.ast.c.CComplexTypeDeclaration;
+import org.sosy_lab.cpachecker.cfa.ast.c.CDeclaration;
+import org.sosy_lab.cpachecker.cfa.ast.c.CDesignatedInitializer;
+import org.sosy_lab.cpachecker.cfa.ast.c.CDesignator;
+import org.sosy_lab.cpachecker.cfa.ast.c.CExpression;
+import org.sosy_lab.cpachecker.cfa.ast.c.CExpressionAssignmentStatement;
+import org.sosy_lab.cpachecker.cfa.ast.c.CExpressionStatement;
+import org.sosy_lab.cpachecker.cfa.ast.c.CFieldDesignator;
+import org.sosy_lab.cpachecker.cfa.ast.c.CFieldReference;
+import org.sosy_lab.cpachecker.cfa.ast.c.CFloatLiteralExpression;
+import org.sosy_lab.cpachecker.cfa.ast.c.CFunctionCall;
+import org.sosy_lab.cpachecker.cfa.ast.c.CFunctionCallAssignmentStatement;
+import org.sosy_lab.cpachecker.cfa.ast.c.CFunctionCallExpression;
+import org.sosy_lab.cpachecker.cfa.ast.c.CFunctionCallStatement;
+import org.sosy_lab.cpachecker.cfa.ast.c.CFunctionDeclaration;
+import org.sosy_lab.cpachecker.cfa.ast.c.CIdExpression;
+import org.sosy_lab.cpachecker.cfa.ast.c.CImaginaryLiteralExpression;
+import org.sosy_lab.cpachecker.cfa.ast.c.CInitializer;
+import org.sosy_lab.cpachecker.cfa.ast.c.CInitializerExpression;
+import org.sosy_lab.cpachecker.cfa.ast.c.CInitializerList;
+import org.sosy_lab.cpachecker.cfa.ast.c.CIntegerLiteralExpression;
+import org.sosy_lab.cpachecker.cfa.ast.c.CLeftHandSide;
+import org.sosy_lab.cpachecker.cfa.ast.c.CLiteralExpression;
+import org.sosy_lab.cpachecker.cfa.ast.c.CParameterDeclaration;
+import org.sosy_lab.cpachecker.cfa.ast.c.CPointerExpression;
+import org.sosy_lab.cpachecker.cfa.ast.c.CReturnStatement;
+import org.sosy_lab.cpachecker.cfa.ast.c.CSimpleDeclaration;
+import org.sosy_lab.cpachecker.cfa.ast.c.CStatement;
+import org.sosy_lab.cpachecker.cfa.ast.c.CStringLiteralExpression;
+import org.sosy_lab.cpachecker.cfa.ast.c.CThreadOperationStatement;
+import org.sosy_lab.cpachecker.cfa.ast.c.CThreadOperationStatement.CThreadCreateStatement;
+import org.sosy_lab.cpachecker.cfa.ast.c.CThreadOperationStatement.CThreadJoinStatement;
+import org.sosy_lab.cpachecker.cfa.ast.c.CTypeDefDeclaration;
+import org.sosy_lab.cpachecker.cfa.ast.c.CTypeIdExpression;
+import org.sosy_lab.cpachecker.cfa.ast.c.CTypeIdExpression.TypeIdOperator;
+import org.sosy_lab.cpachecker.cfa.ast.c.CUnaryExpression;
+import org.sosy_lab.cpachecker.cfa.ast.c.CUnaryExpression.UnaryOperator;
+import org.sosy_lab.cpachecker.cfa.ast.c.CVariableDeclaration;
+import org.sosy_lab.cpachecker.cfa.model.BlankEdge;
+import org.sosy_lab.cpachecker.cfa.model.CFAEdge;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.cfa.model.CFATerminationNode;
+import org.sosy_lab.cpachecker.cfa.model.FunctionEntryNode;
+import org.sosy_lab.cpachecker.cfa.model.FunctionExitNode;
+import org.sosy_lab.cpachecker.cfa.model.FunctionSummaryEdge;
+import org.sosy_lab.cpachecker.cfa.model.c.CAssumeEdge;
+import org.sosy_lab.cpachecker.cfa.model.c.CDeclarationEdge;
+import org.sosy_lab.cpachecker.cfa.model.c.CFunctionCallEdge;
+import org.sosy_lab.cpachecker.cfa.model.c.CFunctionEntryNode;
+import org.sosy_lab.cpachecker.cfa.model.c.CFunctionReturnEdge;
+import org.sosy_lab.cpachecker.cfa.model.c.CFunctionSummaryEdge;
+import org.sosy_lab.cpachecker.cfa.model.c.CFunctionSummaryStatementEdge;
+import org.sosy_lab.cpachecker.cfa.model.c.CLabelNode;
+import org.sosy_lab.cpachecker.cfa.model.c.CReturnStatementEdge;
+import org.sosy_lab.cpachecker.cfa.model.c.CStatementEdge;
+import org.sosy_lab.cpachecker.cfa.types.MachineModel;
+import org.sosy_lab.cpachecker.cfa.types.c.CArrayType;
+import org.sosy_lab.cpachecker.cfa.types.c.CBasicType;
+import org.sosy_lab.cpachecker.cfa.types.c.CBitFieldType;
+import org.sosy_lab.cpachecker.cfa.types.c.CComplexType;
+import org.sosy_lab.cpachecker.cfa.types.c.CComplexType.ComplexTypeKind;
+import org.sosy_lab.cpachecker.cfa.types.c.CCompositeType;
+import org.sosy_lab.cpachecker.cfa.types.c.CCompositeType.CCompositeTypeMemberDeclaration;
+import org.sosy_lab.cpachecker.cfa.types.c.CElaboratedType;
+import org.sosy_lab.cpachecker.cfa.types.c.CEnumType;
+import org.sosy_lab.cpachecker.cfa.types.c.CEnumType.CEnumerator;
+import org.sosy_lab.cpachecker.cfa.types.c.CFunctionType;
+import org.sosy_lab.cpachecker.cfa.types.c.CFunctionTypeWithNames;
+import org.sosy_lab.cpachecker.cfa.types.c.CPointerType;
+import org.sosy_lab.cpachecker.cfa.types.c.CProblemType;
+import org.sosy_lab.cpachecker.cfa.types.c.CSimpleType;
+import org.sosy_lab.cpachecker.cfa.types.c.CStorageClass;
+import org.sosy_lab.cpachecker.cfa.types.c.CType;
+import org.sosy_lab.cpachecker.cfa.types.c.CTypedefType;
+import org.sosy_lab.cpachecker.cfa.types.c.CVoidType;
+import org.sosy_lab.cpachecker.util.LoopStructure;
+import org.sosy_lab.cpachecker.util.Pair;
+
+/**
+ * Reads a CFA in the format described in {@link CFABinaryFormat}.
+ * All data is validated, and every inconsistency is reported as {@link IOException}.
+ *
+ * <p>Note that the parts of objects are often read directly in the argument list of the
+ * constructor, relying on Java evaluating arguments from left to right.
+ */
+final class CFABinaryReader {
+
+  private final DataInputStream in;
+
+  private final List<Object> objects = new ArrayList<>();
+  private final List<String> strings = new ArrayList<>();
+  private final List<CFANode> nodes = new ArrayList<>();
+  private final List<CFAEdge> edges = new ArrayList<>();
+
+  private CFABinaryReader(DataInputStream pIn) {
+    in = pIn;
+  }
+
+  /**
+   * Read a CFA (including its loop structure, if it was stored)
+   * together with the global declarations of the program.
+   * The CFA nodes get new node numbers in the same order as the stored nodes.
+   *
+   * @throws IOException If reading fails or the data is invalid.
+   */
+  static Pair<MutableCFA, List<Pair<ADeclaration, String>>> read(DataInputStream pIn)
+      throws IOException {
+    try {
+      return new CFABinaryReader(pIn).readCFA();
+    } catch (IllegalArgumentException
+        | IllegalStateException
+        | IndexOutOfBoundsException
+        | NullPointerException e) {
+      // thrown by the constructors and setters of CFA elements for inconsistent data
+      throw new IOException("Invalid CFA: " + e.getMessage(), e);
+    }
+  }
+
+  private Pair<MutableCFA, List<Pair<ADeclaration, String>>> readCFA() throws IOException {
+    if (in.readInt() != MAGIC) {
+      throw new IOException("Not a stored CFA");
+    }
+    int version = in.readInt();
+    if (version != FORMAT_VERSION) {
+      throw new IOException("Unsupported version " + version + " of stored CFA");
+    }
+    MachineModel machineModel = readEnum(MachineModel.class);
+    Language language = readEnum(Language.class);
+    int fileCount = readCount();
+    List<Path> fileNames = new ArrayList<>();
+    for (int i = 0; i < fileCount; i++) {
+      fileNames.add(Paths.get(readString()));
+    }
+
+    int nodeCount = readCount();
+    for (int i = 0; i < nodeCount; i++) {
+      nodes.add(readNode());
+    }
+
+    int edgeCount = readCount();
+    for (int i = 0; i < edgeCount; i++) {
+      edges.add(readEdge());
+    }
+
+    for (CFANode node : nodes) {
+      int leavingEdgeCount = readCount();
+      for (int i = 0; i < leavingEdgeCount; i++) {
+        node.addLeavingEdge(readEdgeId(CFAEdge.class));
+      }
+      int enteringEdgeCount = readCount();
+      for (int i = 0; i < enteringEdgeCount; i++) {
+        node.addEnteringEdge(readEdgeId(CFAEdge.class));
+      }
+      FunctionSummaryEdge leavingSummaryEdge = readNullableEdgeId(FunctionSummaryEdge.class);
+      if (leavingSummaryEdge != null) {
+        node.addLeavingSummaryEdge(leavingSummaryEdge);
+      }
+      FunctionSummaryEdge enteringSummaryEdge = readNullableEdgeId(FunctionSummaryEdge.class);
+      if (enteringSummaryEdge != null) {
+        node.addEnteringSummaryEdge(enteringSummaryEdge);
+      }
+    }
+
+    SortedMap<String, FunctionEntryNode> functions = new TreeMap<>();
+    int functionCount = readCount();
+    for (int i = 0; i < functionCount; i++) {
+      String name = readString();
+      FunctionEntryNode entryNode = readNodeId(FunctionEntryNode.class);
+      if (!entryNode.getFunctionName().equals(name) || functions.put(name, entryNode) != null) {
+        throw new IOException("Invalid entry node for function " + name);
+      }
+    }
+    TreeMultimap<String, CFANode> allNodes = TreeMultimap.create();
+    int cfaNodeCount = readCount();
+    for (int i = 0; i < cfaNodeCount; i++) {
+      CFANode node = readNodeId(CFANode.class);
+      allNodes.put(node.getFunctionName(), node);
+    }
+    FunctionEntryNode mainFunction = readNodeId(FunctionEntryNode.class);
+    if (!functions.keySet().equals(allNodes.keySet())
+        || functions.get(mainFunction.getFunctionName()) != mainFunction) {
+      throw new IOException("Inconsistent functions of stored CFA");
+    }
+    MutableCFA cfa =
+        new MutableCFA(machineModel, functions, allNodes, mainFunction, fileNames, language);
+
+    if (in.readBoolean()) {
+      cfa.setLoopStructure(readLoopStructure());
+    }
+
+    ImmutableList.Builder<Pair<ADeclaration, String>> globalDeclarations =
+        ImmutableList.builder();
+    int declarationCount = readCount();
+    for (int i = 0; i < declarationCount; i++) {
+      globalDeclarations.add(Pair.of(read(CDeclaration.class), readString()));
+    }
+
+    if (in.readInt() != END || in.read() != -1) {
+      throw new IOException("Invalid end of stored CFA");
+    }
+    return Pair.of(cfa, globalDeclarations.build());
+  }
+
+  private CFANode readNode() throws IOException {
+    byte tag = in.readByte();
+    String functionName = readString();
+    int reversePostorderId = in.readInt();
+    boolean isLoopStart = in.readBoolean();
+
+    CFANode node;
+    switch (tag) {
+      case NODE:
+        node = new CFANode(functionName);
+        break;
+      case LABEL_NODE:
+        node = new CLabelNode(functionName, readString());
+        break;
+      case TERMINATION_NODE:
+        node = new CFATerminationNode(functionName);
+        break;
+      case FUNCTION_EXIT_NODE:
+        node = new FunctionExitNode(functionName);
+        break;
+      case FUNCTION_ENTRY_NODE:
+        FileLocation location = read(FileLocation.class);
+        CFunctionDeclaration declaration = read(CFunctionDeclaration.class);
+        FunctionExitNode exitNode = readNodeId(FunctionExitNode.class);
+        CVariableDeclaration returnVariable = readNullable(CVariableDeclaration.class);
+        if (!declaration.getName().equals(functionName)) {
+          throw new IOException("Invalid entry node of function " + functionName);
+        }
+        CFunctionEntryNode entryNode =
+            new CFunctionEntryNode(
+                location, declaration, exitNode, Optional.fromNullable(returnVariable));
+        exitNode.setEntryNode(entryNode);
+        node = entryNode;
+        break;
+      default:
+        throw new IOException("Invalid tag " + tag + " for CFA node");
+    }
+    node.setReversePostorderId(reversePostorderId);
+    if (isLoopStart) {
+      node.setLoopStart();
+    }
+    return node;
+  }
+
+  private CFAEdge readEdge() throws IOException {
+    byte tag = in.readByte();
+    CFANode predecessor = readNodeId(CFANode.class);
+    CFANode successor = readNodeId(CFANode.class);
+    FileLocation location = read(FileLocation.class);
+
+    switch (tag) {
+      case BLANK_EDGE:
+        {
+          String rawStatement = readString();
+          return new BlankEdge(rawStatement, location, predecessor, successor, readString());
+        }
+      case ASSUME_EDGE:
+        {
+          String rawStatement = readString();
+          CExpression expression = read(CExpression.class);
+          boolean truthAssumption = in.readBoolean();
+          boolean swapped = in.readBoolean();
+          boolean artificialIntermediate = in.readBoolean();
+          return new CAssumeEdge(
+              rawStatement,
+              location,
+              predecessor,
+              successor,
+              expression,
+              truthAssumption,
+              swapped,
+              artificialIntermediate);
+        }
+      case DECLARATION_EDGE:
+        {
+          String rawStatement = readString();
+          CDeclaration declaration = read(CDeclaration.class);
+          return new CDeclarationEdge(rawStatement, location, predecessor, successor, declaration);
+        }
+      case FUNCTION_SUMMARY_STATEMENT_EDGE:
+        {
+          String rawStatement = readString();
+          CStatement statement = read(CStatement.class);
+          CFunctionCall functionCall = read(CFunctionCall.class);
+          String functionName = readString();
+          return new CFunctionSummaryStatementEdge(
+              rawStatement, statement, location, predecessor, successor, functionCall,
+              functionName);
+        }
+      case STATEMENT_EDGE:
+        {
+          String rawStatement = readString();
+          CStatement statement = read(CStatement.class);
+          return new CStatementEdge(rawStatement, statement, location, predecessor, successor);
+        }
+      case RETURN_STATEMENT_EDGE:
+        {
+          String rawStatement = readString();
+          CReturnStatement returnStatement = read(CReturnStatement.class);
+          return new CReturnStatementEdge(
+              rawStatement,
+              returnStatement,
+              location,
+              predecessor,
+              cast(successor, FunctionExitNode.class));
+        }
+      case FUNCTION_CALL_EDGE:
+        {
+          String rawStatement = readString();
+          CFunctionCall functionCall = read(CFunctionCall.class);
+          CFunctionSummaryEdge summaryEdge = readEdgeId(CFunctionSummaryEdge.class);
+          return new CFunctionCallEdge(
+              rawStatement,
+              location,
+              predecessor,
+              cast(successor, CFunctionEntryNode.class),
+              functionCall,
+              summaryEdge);
+        }
+      case FUNCTION_RETURN_EDGE:
+        {
+          CFunctionSummaryEdge summaryEdge = readEdgeId(CFunctionSummaryEdge.class);
+          return new CFunctionReturnEdge(
+              location, cast(predecessor, FunctionExitNode.class), successor, summaryEdge);
+        }
+      case FUNCTION_SUMMARY_EDGE:
+        {
+          String rawStatement = readString();
+          CFunctionCall functionCall = read(CFunctionCall.class);
+          CFunctionEntryNode functionEntry = readNodeId(CFunctionEntryNode.class);
+          return new CFunctionSummaryEdge(
+              rawStatement, location, predecessor, successor, functionCall, functionEntry);
+        }
+      default:
+        throw new IOException("Invalid tag " + tag + " for CFA edge");
+    }
+  }
+
+  private LoopStructure readLoopStructure() throws IOException {
+    ImmutableListMultimap.Builder<String, Pair<ImmutableSet<CFANode>, ImmutableSortedSet<CFANode>>>
+        loops = ImmutableListMultimap.builder();
+    int loopCount = readCount();
+    for (int i = 0; i < loopCount; i++) {
+      String function = readString();
+      ImmutableSet.Builder<CFANode> loopHeads = ImmutableSet.builder();
+      int loopHeadCount = readCount();
+      for (int j = 0; j < loopHeadCount; j++) {
+        loopHeads.add(readNodeId(CFANode.class));
+      }
+      ImmutableSortedSet.Builder<CFANode> loopNodes = ImmutableSortedSet.naturalOrder();
+      int loopNodeCount = readCount();
+      for (int j = 0; j < loopNodeCount; j++) {
+        loopNodes.add(readNodeId(CFANode.class));
+      }
+      loops.put(function, Pair.of(loopHeads.build(), loopNodes.build()));
+    }
+    return LoopStructure.of(loops.build());
+  }
+
+  private <T extends CFANode> T readNodeId(Class<T> pClass) throws IOException {
+    int id = in.readInt();
+    if (id < 0 || id >= nodes.size()) {
+      throw new IOException("Invalid reference to CFA node " + id);
+    }
+    return cast(nodes.get(id), pClass);
+  }
+
+  private <T extends CFAEdge> T readEdgeId(Class<T> pClass) throws IOException {
+    T edge = readNullableEdgeId(pClass);
+    if (edge == null) {
+      throw new IOException("Missing reference to CFA edge");
+    }
+    return edge;
+  }
+
+  private @Nullable <T extends CFAEdge> T readNullableEdgeId(Class<T> pClass)
+      throws IOException {
+    int id = in.readInt();
+    if (id == -1) {
+      return null;
+    }
+    if (id < 0 || id >= edges.size()) {
+      throw new IOException("Invalid reference to CFA edge " + id);
+    }
+    return cast(edges.get(id), pClass);
+  }
+
+  private static <T> T cast(Object pObject, Class<T> pClass) throws IOException {
+    if (!pClass.isInstance(pObject)) {
+      throw new IOException("Expected " + pClass.getSimpleName() + " but found " + pObject);
+    }
+    return pClass.cast(pObject);
+  }
+
+  private int readCount() throws IOException {
+    int count = in.readInt();
+    if (count < 0) {
+      throw new IOException("Invalid count " + count);
+    }
+    return count;
+  }
+
+  private String readString() throws IOException {
+    int id = in.readInt();
+    if (id >= 0 && id < strings.size()) {
+      return strings.get(id);
+    } else if (id == strings.size()) {
+      int length = readCount();
+      StringBuilder string = new StringBuilder();
+      for (int i = 0; i < length; i++) {
+        string.append(in.readChar());
+      }
+      strings.add(string.toString());
+      return string.toString();
+    } else {
+      throw new IOException("Invalid reference to string " + id);
+    }
+  }
+
+  private @Nullable String readNullableString() throws IOException {
+    return in.readBoolean() ? readString() : null;
+  }
+
+  private <E extends Enum<E>> E readEnum(Class<E> pClass) throws IOException {
+    String name = readString();
+    try {
+      return Enum.valueOf(pClass, name);
+    } catch (IllegalArgumentException e) {
+      throw new IOException("Invalid value " + name + " for " + pClass.getSimpleName(), e);
+    }
+  }
+
+  private byte[] readBytes() throws IOException {
+    int length = readCount();
+    // do not trust the length for allocating memory, the data may be corrupted
+    byte[] bytes = ByteStreams.toByteArray(ByteStreams.limit(in, length));
+    if (bytes.length != length) {
+      throw new EOFException();
+    }
+    return bytes;
+  }
+
+  private <T> T read(Class<T> pClass) throws IOException {
+    return cast(readObject(), pClass);
+  }
+
+  private @Nullable <T> T readNullable(Class<T> pClass) throws IOException {
+    Object object = readObject();
+    return object == null ? null : cast(object, pClass);
+  }
+
+  private <T> ImmutableList<T> readList(Class<T> pClass) throws IOException {
+    ImmutableList.Builder<T> list = ImmutableList.builder();
+    int size = readCount();
+    for (int i = 0; i < size; i++) {
+      list.add(read(pClass));
+    }
+    return list.build();
+  }
+
+  /**
+   * Give the next index to the given object,
+   * at the same point at which the writer did this.
+   */
+  private <T> T register(T pObject) {
+    objects.add(pObject);
+    return pObject;
+  }
+
+  /**
+   * Read a type, declaration, AST node, or file location.
+   */
+  private @Nullable Object readObject() throws IOException {
+    byte tag = in.readByte();
+    switch (tag) {
+      case NULL:
+        return null;
+      case REFERENCE:
+        {
+          int id = in.readInt();
+          if (id < 0 || id >= objects.size()) {
+            throw new IOException("Invalid reference to object " + id);
+          }
+          return objects.get(id);
+        }
+      case FILE_LOCATION:
+        return register(
+            new FileLocation(
+                readString(),
+                readString(),
+                in.readInt(),
+                in.readInt(),
+                in.readInt(),
+                in.readInt(),
+                in.readInt(),
+                in.readInt()));
+      case DUMMY_FILE_LOCATION:
+        return FileLocation.DUMMY;
+      case MULTIPLE_FILES_LOCATION:
+        return FileLocation.MULTIPLE_FILES;
+
+      // types
+
+      case ARRAY_TYPE:
+        return register(
+            new CArrayType(
+                in.readBoolean(),
+                in.readBoolean(),
+                read(CType.class),
+                readNullable(CExpression.class)));
+      case BIT_FIELD_TYPE:
+        return register(new CBitFieldType(read(CType.class), in.readInt()));
+      case COMPOSITE_TYPE:
+        {
+          CCompositeType type =
+              new CCompositeType(
+                  in.readBoolean(),
+                  in.readBoolean(),
+                  readEnum(ComplexTypeKind.class),
+                  readString(),
+                  readString());
+          register(type);
+          List<CCompositeTypeMemberDeclaration> members = new ArrayList<>();
+          int memberCount = readCount();
+          for (int i = 0; i < memberCount; i++) {
+            members.add(
+                new CCompositeTypeMemberDeclaration(read(CType.class), readNullableString()));
+          }
+          type.setMembers(members);
+          return type;
+        }
+      case ELABORATED_TYPE:
+        {
+          boolean isConst = in.readBoolean();
+          boolean isVolatile = in.readBoolean();
+          ComplexTypeKind kind = readEnum(ComplexTypeKind.class);
+          String name = readString();
+          String origName = readString();
+          byte realTypeMode = in.readByte();
+          switch (realTypeMode) {
+            case NO_REAL_TYPE:
+              return register(
+                  new CElaboratedType(isConst, isVolatile, kind, name, origName, null));
+            case REAL_TYPE_BEFORE:
+              return register(
+                  new CElaboratedType(
+                      isConst, isVolatile, kind, name, origName, read(CComplexType.class)));
+            case REAL_TYPE_AFTER:
+              CElaboratedType type =
+                  register(new CElaboratedType(isConst, isVolatile, kind, name, origName, null));
+              type.setRealType(read(CComplexType.class));
+              return type;
+            default:
+              throw new IOException("Invalid real type " + realTypeMode + " of " + name);
+          }
+        }
+      case ENUM_TYPE:
+        {
+          ImmutableList<CEnumerator> enumerators = readList(CEnumerator.class);
+          CEnumType type =
+              new CEnumType(
+                  in.readBoolean(), in.readBoolean(), enumerators, readString(), readString());
+          for (CEnumerator enumerator : enumerators) {
+            if (in.readBoolean()) {
+              enumerator.setEnum(type);
+            }
+          }
+          return register(type);
+        }
+      case FUNCTION_TYPE:
+        {
+          CFunctionType type =
+              new CFunctionType(read(CType.class), readList(CType.class), in.readBoolean());
+          String name = readNullableString();
+          if (name != null) {
+            type.setName(name);
+          }
+          return register(type);
+        }
+      case FUNCTION_TYPE_WITH_NAMES:
+        {
+          CFunctionType type =
+              new CFunctionTypeWithNames(
+                  read(CType.class), readList(CParameterDeclaration.class), in.readBoolean());
+          String name = readNullableString();
+          if (name != null) {
+            type.setName(name);
+          }
+          return register(type);
+        }
+      case POINTER_TYPE:
+        return register(new CPointerType(in.readBoolean(), in.readBoolean(), read(CType.class)));
+      case PROBLEM_TYPE:
+        return register(new CProblemType(readString()));
+      case SIMPLE_TYPE:
+        return register(
+            new CSimpleType(
+                in.readBoolean(),
+                in.readBoolean(),
+                readEnum(CBasicType.class),
+                in.readBoolean(),
+                in.readBoolean(),
+                in.readBoolean(),
+                in.readBoolean(),
+                in.readBoolean(),
+                in.readBoolean(),
+                in.readBoolean()));
+      case TYPEDEF_TYPE:
+        return register(
+            new CTypedefType(in.readBoolean(), in.readBoolean(), readString(), read(CType.class)));
+      case VOID_TYPE:
+        return register(CVoidType.create(in.readBoolean(), in.readBoolean()));
+
+      // declarations
+
+      case FUNCTION_DECLARATION:
+        return register(
+            new CFunctionDeclaration(
+                read(FileLocation.class),
+                read(CFunctionType.class),
+                readString(),
+                readList(CParameterDeclaration.class)));
+      case COMPLEX_TYPE_DECLARATION:
+        return register(
+            new CComplexTypeDeclaration(
+                read(FileLocation.class), in.readBoolean(), read(CComplexType.class)));
+      case TYPEDEF_DECLARATION:
+        return register(
+            new CTypeDefDeclaration(
+                read(FileLocation.class),
+                in.readBoolean(),
+                read(CType.class),
+                readString(),
+                readString()));
+      case VARIABLE_DECLARATION:
+        {
+          CVariableDeclaration declaration =
+              new CVariableDeclaration(
+                  read(FileLocation.class),
+                  in.readBoolean(),
+                  readEnum(CStorageClass.class),
+                  read(CType.class),
+                  readString(),
+                  readString(),
+                  readString(),
+                  null);
+          register(declaration);
+          CInitializer initializer = readNullable(CInitializer.class);
+          if (initializer != null) {
+            declaration.addInitializer(initializer);
+          }
+          return declaration;
+        }
+      case PARAMETER_DECLARATION:
+        {
+          CParameterDeclaration declaration =
+              new CParameterDeclaration(read(FileLocation.class), read(CType.class), readString());
+          String qualifiedName = readNullableString();
+          if (qualifiedName != null) {
+            declaration.setQualifiedName(qualifiedName);
+          }
+          return register(declaration);
+        }
+      case ENUMERATOR:
+        return register(
+            new CEnumerator(
+                read(FileLocation.class),
+                readString(),
+                readString(),
+                in.readBoolean() ? Long.valueOf(in.readLong()) : null));
+      case ENUMERATOR_OF_TYPE:
+        {
+          CEnumType type = read(CEnumType.class);
+          int index = in.readInt();
+          if (index < 0 || index >= type.getEnumerators().size()) {
+            throw new IOException("Invalid enumerator " + index + " of " + type);
+          }
+          return type.getEnumerators().get(index);
+        }
+
+      // expressions
+
+      case ARRAY_SUBSCRIPT_EXPRESSION:
+        return register(
+            new CArraySubscriptExpression(
+                read(FileLocation.class),
+                read(CType.class),
+                read(CExpression.class),
+                read(CExpression.class)));
+      case FIELD_REFERENCE:
+        return register(
+            new CFieldReference(
+                read(FileLocation.class),
+                read(CType.class),
+                readString(),
+                read(CExpression.class),
+                in.readBoolean()));
+      case ID_EXPRESSION:
+        return register(
+            new CIdExpression(
+                read(FileLocation.class),
+                read(CType.class),
+                readString(),
+                readNullable(CSimpleDeclaration.class)));
+      case POINTER_EXPRESSION:
+        return register(
+            new CPointerExpression(
+                read(FileLocation.class), read(CType.class), read(CExpression.class)));
+      case COMPLEX_CAST_EXPRESSION:
+        return register(
+            new CComplexCastExpression(
+                read(FileLocation.class),
+                read(CType.class),
+                read(CExpression.class),
+                read(CType.class),
+                in.readBoolean()));
+      case BINARY_EXPRESSION:
+        return register(
+            new CBinaryExpression(
+                read(FileLocation.class),
+                read(CType.class),
+                read(CType.class),
+                read(CExpression.class),
+                read(CExpression.class),
+                readEnum(BinaryOperator.class)));
+      case CAST_EXPRESSION:
+        return register(
+            new CCastExpression(
+                read(FileLocation.class), read(CType.class), read(CExpression.class)));
+      case CHAR_LITERAL_EXPRESSION:
+        return register(
+            new CCharLiteralExpression(read(FileLocation.class), read(CType.class), in.readChar()));
+      case FLOAT_LITERAL_EXPRESSION:
+        return register(
+            new CFloatLiteralExpression(
+                read(FileLocation.class),
+                read(CType.class),
+                new BigDecimal(new BigInteger(readBytes()), in.readInt())));
+      case INTEGER_LITERAL_EXPRESSION:
+        return register(
+            new CIntegerLiteralExpression(
+                read(FileLocation.class), read(CType.class), new BigInteger(readBytes())));
+      case STRING_LITERAL_EXPRESSION:
+        return register(
+            new CStringLiteralExpression(
+                read(FileLocation.class), read(CType.class), readString()));
+      case TYPE_ID_EXPRESSION:
+        return register(
+            new CTypeIdExpression(
+                read(FileLocation.class),
+                read(CType.class),
+                readEnum(TypeIdOperator.class),
+                read(CType.class)));
+      case UNARY_EXPRESSION:
+        return register(
+            new CUnaryExpression(
+                read(FileLocation.class),
+                read(CType.class),
+                read(CExpression.class),
+                readEnum(UnaryOperator.class)));
+      case IMAGINARY_LITERAL_EXPRESSION:
+        return register(
+            new CImaginaryLiteralExpression(
+                read(FileLocation.class), read(CType.class), read(CLiteralExpression.class)));
+      case ADDRESS_OF_LABEL_EXPRESSION:
+        return register(
+            new CAddressOfLabelExpression(
+                read(FileLocation.class), read(CType.class), readString()));
+      case FUNCTION_CALL_EXPRESSION:
+        return register(
+            new CFunctionCallExpression(
+                read(FileLocation.class),
+                read(CType.class),
+                read(CExpression.class),
+                readList(CExpression.class),
+                readNullable(CFunctionDeclaration.class)));
+
+      // statements
+
+      case EXPRESSION_STATEMENT:
+        return register(
+            new CExpressionStatement(read(FileLocation.class), read(CExpression.class)));
+      case EXPRESSION_ASSIGNMENT_STATEMENT:
+        return register(
+            new CExpressionAssignmentStatement(
+                read(FileLocation.class), read(CLeftHandSide.class), read(CExpression.class)));
+      case FUNCTION_CALL_ASSIGNMENT_STATEMENT:
+        return register(
+            new CFunctionCallAssignmentStatement(
+                read(FileLocation.class),
+                read(CLeftHandSide.class),
+                read(CFunctionCallExpression.class)));
+      case FUNCTION_CALL_STATEMENT:
+        return register(
+            new CFunctionCallStatement(
+                read(FileLocation.class), read(CFunctionCallExpression.class)));
+      case THREAD_OPERATION_STATEMENT:
+        return register(
+            new CThreadOperationStatement(
+                read(FileLocation.class),
+                read(CFunctionCallExpression.class),
+                in.readBoolean(),
+                readNullableString()));
+      case THREAD_CREATE_STATEMENT:
+        return register(
+            new CThreadCreateStatement(
+                read(FileLocation.class),
+                read(CFunctionCallExpression.class),
+                in.readBoolean(),
+                readNullableString()));
+      case THREAD_JOIN_STATEMENT:
+        return register(
+            new CThreadJoinStatement(
+                read(FileLocation.class),
+                read(CFunctionCallExpression.class),
+                in.readBoolean(),
+                readNullableString()));
+      case RETURN_STATEMENT:
+        return register(
+            new CReturnStatement(
+                read(FileLocation.class),
+                Optional.fromNullable(readNullable(CExpression.class)),
+                Optional.fromNullable(readNullable(CAssignment.class))));
+
+      // initializers and designators
+
+      case INITIALIZER_EXPRESSION:
+        return register(
+            new CInitializerExpression(read(FileLocation.class), read(CExpression.class)));
+      case INITIALIZER_LIST:
+        return register(
+            new CInitializerList(read(FileLocation.class), readList(CInitializer.class)));
+      case DESIGNATED_INITIALIZER:
+        return register(
+            new CDesignatedInitializer(
+                read(FileLocation.class), readList(CDesignator.class), read(CInitializer.class)));
+      case ARRAY_DESIGNATOR:
+        return register(new CArrayDesignator(read(FileLocation.class), read(CExpression.class)));
+      case ARRAY_RANGE_DESIGNATOR:
+        return register(
+            new CArrayRangeDesignator(
+                read(FileLocation.class), read(CExpression.class), read(CExpression.class)));
+      case FIELD_DESIGNATOR:
+        return register(new CFieldDesignator(read(FileLocation.class), readString()));
+
+      default:
+        throw new IOException("Invalid tag " + tag);
+    }
+  }
+}
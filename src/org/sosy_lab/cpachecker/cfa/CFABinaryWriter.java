@@ -0,0 +1,1239 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cfa;
+
+import static org.sosy_lab.cpachecker.cfa.CFABinaryFormat.*;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import javax.annotation.Nullable;
+import org.sosy_lab.cpachecker.cfa.ast.ADeclaration;
+import org.sosy_lab.cpachecker.cfa.ast.FileLocation;
+import org.sosy_lab.cpachecker.cfa.ast.c.CAddressOfLabelExpression;
+import org.sosy_lab.cpachecker.cfa.ast.c.CArrayDesignator;
+import org.sosy_lab.cpachecker.cfa.ast.c.CArrayRangeDesignator;
+import org.sosy_lab.cpachecker.cfa.ast.c.CArraySubscriptExpression;
+import org.sosy_lab.cpachecker.cfa.ast.c.CAstNode;
+import org.sosy_lab.cpachecker.cfa.ast.c.CAstNodeVisitor;
+import org.sosy_lab.cpachecker.cfa.ast.c.CBinaryExpression;
+import org.sosy_lab.cpachecker.cfa.ast.c.CCastExpression;
+import org.sosy_lab.cpachecker.cfa.ast.c.CCharLiteralExpression;
+import org.sosy_lab.cpachecker.cfa.ast.c.CComplexCastExpression;
+import org.sosy_lab.cpachecker.cfa.ast.c.CComplexTypeDeclaration;
+import org.sosy_lab.cpachecker.cfa.ast.c.CDeclaration;
+import org.sosy_lab.cpachecker.cfa.ast.c.CDesignatedInitializer;
+import org.sosy_lab.cpachecker.cfa.ast.c.CExpressionAssignmentStatement;
+import org.sosy_lab.cpachecker.cfa.ast.c.CExpressionStatement;
+import org.sosy_lab.cpachecker.cfa.ast.c.CFieldDesignator;
+import org.sosy_lab.cpachecker.cfa.ast.c.CFieldReference;
+import org.sosy_lab.cpachecker.cfa.ast.c.CFloatLiteralExpression;
+import org.sosy_lab.cpachecker.cfa.ast.c.CFunctionCallAssignmentStatement;
+import org.sosy_lab.cpachecker.cfa.ast.c.CFunctionCallExpression;
+import org.sosy_lab.cpachecker.cfa.ast.c.CFunctionCallStatement;
+import org.sosy_lab.cpachecker.cfa.ast.c.CFunctionDeclaration;
+import org.sosy_lab.cpachecker.cfa.ast.c.CIdExpression;
+import org.sosy_lab.cpachecker.cfa.ast.c.CImaginaryLiteralExpression;
+import org.sosy_lab.cpachecker.cfa.ast.c.CInitializerExpression;
+import org.sosy_lab.cpachecker.cfa.ast.c.CInitializerList;
+import org.sosy_lab.cpachecker.cfa.ast.c.CIntegerLiteralExpression;
+import org.sosy_lab.cpachecker.cfa.ast.c.CParameterDeclaration;
+import org.sosy_lab.cpachecker.cfa.ast.c.CPointerExpression;
+import org.sosy_lab.cpachecker.cfa.ast.c.CReturnStatement;
+import org.sosy_lab.cpachecker.cfa.ast.c.CStringLiteralExpression;
+import org.sosy_lab.cpachecker.cfa.ast.c.CThreadOperationStatement;
+import org.sosy_lab.cpachecker.cfa.ast.c.CThreadOperationStatement.CThreadCreateStatement;
+import org.sosy_lab.cpachecker.cfa.ast.c.CThreadOperationStatement.CThreadJoinStatement;
+import org.sosy_lab.cpachecker.cfa.ast.c.CTypeDefDeclaration;
+import org.sosy_lab.cpachecker.cfa.ast.c.CTypeIdExpression;
+import org.sosy_lab.cpachecker.cfa.ast.c.CUnaryExpression;
+import org.sosy_lab.cpachecker.cfa.ast.c.CVariableDeclaration;
+import org.sosy_lab.cpachecker.cfa.model.BlankEdge;
+import org.sosy_lab.cpachecker.cfa.model.CFAEdge;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.cfa.model.CFATerminationNode;
+import org.sosy_lab.cpachecker.cfa.model.FunctionEntryNode;
+import org.sosy_lab.cpachecker.cfa.model.FunctionExitNode;
+import org.sosy_lab.cpachecker.cfa.model.FunctionSummaryEdge;
+import org.sosy_lab.cpachecker.cfa.model.c.CAssumeEdge;
+import org.sosy_lab.cpachecker.cfa.model.c.CDeclarationEdge;
+import org.sosy_lab.cpachecker.cfa.model.c.CFunctionCallEdge;
+import org.sosy_lab.cpachecker.cfa.model.c.CFunctionEntryNode;
+import org.sosy_lab.cpachecker.cfa.model.c.CFunctionReturnEdge;
+import org.sosy_lab.cpachecker.cfa.model.c.CFunctionSummaryEdge;
+import org.sosy_lab.cpachecker.cfa.model.c.CFunctionSummaryStatementEdge;
+import org.sosy_lab.cpachecker.cfa.model.c.CLabelNode;
+import org.sosy_lab.cpachecker.cfa.model.c.CReturnStatementEdge;
+import org.sosy_lab.cpachecker.cfa.model.c.CStatementEdge;
+import org.sosy_lab.cpachecker.cfa.types.c.CArrayType;
+import org.sosy_lab.cpachecker.cfa.types.c.CBitFieldType;
+import org.sosy_lab.cpachecker.cfa.types.c.CComplexType;
+import org.sosy_lab.cpachecker.cfa.types.c.CCompositeType;
+import org.sosy_lab.cpachecker.cfa.types.c.CCompositeType.CCompositeTypeMemberDeclaration;
+import org.sosy_lab.cpachecker.cfa.types.c.CElaboratedType;
+import org.sosy_lab.cpachecker.cfa.types.c.CEnumType;
+import org.sosy_lab.cpachecker.cfa.types.c.CEnumType.CEnumerator;
+import org.sosy_lab.cpachecker.cfa.types.c.CFunctionType;
+import org.sosy_lab.cpachecker.cfa.types.c.CFunctionTypeWithNames;
+import org.sosy_lab.cpachecker.cfa.types.c.CPointerType;
+import org.sosy_lab.cpachecker.cfa.types.c.CProblemType;
+import org.sosy_lab.cpachecker.cfa.types.c.CSimpleType;
+import org.sosy_lab.cpachecker.cfa.types.c.CType;
+import org.sosy_lab.cpachecker.cfa.types.c.CTypeVisitor;
+import org.sosy_lab.cpachecker.cfa.types.c.CTypedefType;
+import org.sosy_lab.cpachecker.cfa.types.c.CVoidType;
+import org.sosy_lab.cpachecker.util.LoopStructure;
+import org.sosy_lab.cpachecker.util.LoopStructure.Loop;
+import org.sosy_lab.cpachecker.util.Pair;
+
+/**
+ * Writes a CFA of a C program in the format described in {@link CFABinaryFormat}.
+ * Only exactly the classes that are created by the C frontend are supported,
+ * for everything else an {@link UnsupportedCFAException} is thrown.
+ */
+final class CFABinaryWriter implements CAstNodeVisitor<Void, IOException>,
+    CTypeVisitor<Void, IOException> {
+
+  /**
+   * Exception signaling that the CFA contains elements that cannot be written,
+   * e.g., because they were created by a post-processing for a different language
+   * or because they are not produced by the frontend.
+   */
+  static class UnsupportedCFAException extends IOException {
+
+    private static final long serialVersionUID = -2716438409186275327L;
+
+    UnsupportedCFAException(String pMessage) {
+      super(pMessage);
+    }
+  }
+
+  private static final ImmutableSet<Class<?>> SUPPORTED_AST_CLASSES =
+      ImmutableSet.of(
+          CArrayType.class,
+          CBitFieldType.class,
+          CCompositeType.class,
+          CElaboratedType.class,
+          CEnumType.class,
+          CFunctionType.class,
+          CFunctionTypeWithNames.class,
+          CPointerType.class,
+          CProblemType.class,
+          CSimpleType.class,
+          CTypedefType.class,
+          CVoidType.class,
+          CFunctionDeclaration.class,
+          CComplexTypeDeclaration.class,
+          CTypeDefDeclaration.class,
+          CVariableDeclaration.class,
+          CParameterDeclaration.class,
+          CEnumerator.class,
+          CArraySubscriptExpression.class,
+          CFieldReference.class,
+          CIdExpression.class,
+          CPointerExpression.class,
+          CComplexCastExpression.class,
+          CBinaryExpression.class,
+          CCastExpression.class,
+          CCharLiteralExpression.class,
+          CFloatLiteralExpression.class,
+          CIntegerLiteralExpression.class,
+          CStringLiteralExpression.class,
+          CTypeIdExpression.class,
+          CUnaryExpression.class,
+          CImaginaryLiteralExpression.class,
+          CAddressOfLabelExpression.class,
+          CFunctionCallExpression.class,
+          CExpressionStatement.class,
+          CExpressionAssignmentStatement.class,
+          CFunctionCallAssignmentStatement.class,
+          CFunctionCallStatement.class,
+          CThreadOperationStatement.class,
+          CThreadCreateStatement.class,
+          CThreadJoinStatement.class,
+          CReturnStatement.class,
+          CInitializerExpression.class,
+          CInitializerList.class,
+          CDesignatedInitializer.class,
+          CArrayDesignator.class,
+          CArrayRangeDesignator.class,
+          CFieldDesignator.class);
+
+  private final DataOutputStream out;
+
+  /** Indices of all written types, declarations, AST nodes, and file locations. */
+  private final Map<Object, Integer> objectIds = new IdentityHashMap<>();
+
+  /** Objects whose content is currently being written, for detecting unsupported cycles. */
+  private final Set<Object> inProgress = Collections.newSetFromMap(new IdentityHashMap<>());
+
+  private final Map<String, Integer> stringIds = new HashMap<>();
+
+  private final Map<CFANode, Integer> nodeIds = new HashMap<>();
+  private final Map<CFAEdge, Integer> edgeIds = new IdentityHashMap<>();
+
+  private CFABinaryWriter(DataOutputStream pOut) {
+    out = pOut;
+  }
+
+  /**
+   * Write a CFA of a C program (including its loop structure, if present)
+   * together with the global declarations of the program.
+   * Information that can be computed from the CFA
+   * (such as variable classification and live variables) is not written.
+   *
+   * @throws UnsupportedCFAException If the CFA contains elements that cannot be written.
+   * @throws IOException If writing fails.
+   */
+  static void write(
+      CFA pCfa, List<Pair<ADeclaration, String>> pGlobalDeclarations, DataOutputStream pOut)
+      throws IOException {
+    if (pCfa.getLanguage() != Language.C) {
+      throw new UnsupportedCFAException("Only CFAs of C programs can be stored");
+    }
+    new CFABinaryWriter(pOut).writeCFA(pCfa, pGlobalDeclarations);
+  }
+
+  private void writeCFA(CFA pCfa, List<Pair<ADeclaration, String>> pGlobalDeclarations)
+      throws IOException {
+    out.writeInt(MAGIC);
+    out.writeInt(FORMAT_VERSION);
+    writeEnum(pCfa.getMachineModel());
+    writeEnum(pCfa.getLanguage());
+    out.writeInt(pCfa.getFileNames().size());
+    for (Path fileName : pCfa.getFileNames()) {
+      writeString(fileName.toString());
+    }
+
+    List<CFANode> nodes = collectNodes(pCfa);
+    List<CFAEdge> edges = collectEdges(nodes);
+
+    out.writeInt(nodes.size());
+    for (CFANode node : nodes) {
+      writeNode(node);
+    }
+
+    out.writeInt(edges.size());
+    for (CFAEdge edge : edges) {
+      writeEdge(edge);
+      edgeIds.put(edge, edgeIds.size());
+    }
+
+    for (CFANode node : nodes) {
+      out.writeInt(node.getNumLeavingEdges());
+      for (int i = 0; i < node.getNumLeavingEdges(); i++) {
+        out.writeInt(edgeIds.get(node.getLeavingEdge(i)));
+      }
+      out.writeInt(node.getNumEnteringEdges());
+      for (int i = 0; i < node.getNumEnteringEdges(); i++) {
+        out.writeInt(edgeIds.get(node.getEnteringEdge(i)));
+      }
+      writeEdgeId(node.getLeavingSummaryEdge());
+      writeEdgeId(node.getEnteringSummaryEdge());
+    }
+
+    out.writeInt(pCfa.getNumberOfFunctions());
+    for (Map.Entry<String, FunctionEntryNode> function : pCfa.getAllFunctions().entrySet()) {
+      writeString(function.getKey());
+      writeNodeId(function.getValue());
+    }
+    out.writeInt(pCfa.getAllNodes().size());
+    for (CFANode node : pCfa.getAllNodes()) {
+      writeNodeId(node);
+    }
+    writeNodeId(pCfa.getMainFunction());
+
+    writeLoopStructure(pCfa);
+
+    out.writeInt(pGlobalDeclarations.size());
+    for (Pair<ADeclaration, String> declaration : pGlobalDeclarations) {
+      if (!(declaration.getFirst() instanceof CDeclaration)) {
+        throw new UnsupportedCFAException("Unsupported declaration " + declaration.getFirst());
+      }
+      write(declaration.getFirst());
+      writeString(declaration.getSecond());
+    }
+
+    out.writeInt(END);
+  }
+
+  /**
+   * Collect all nodes of the CFA, including nodes that are only reachable via edges
+   * or entry nodes (e.g., exit nodes of functions that never return).
+   * The nodes are sorted by their number, except that exit nodes come before their entry nodes,
+   * such that each node can be created after all nodes it depends on.
+   */
+  private List<CFANode> collectNodes(CFA pCfa) {
+    Set<CFANode> reachedNodes = new LinkedHashSet<>(pCfa.getAllNodes());
+    Deque<CFANode> waitlist = new ArrayDeque<>(reachedNodes);
+    while (!waitlist.isEmpty()) {
+      CFANode node = waitlist.pop();
+      List<CFANode> neighbors = new ArrayList<>();
+      for (CFAEdge edge : getEdges(node)) {
+        neighbors.add(edge.getPredecessor());
+        neighbors.add(edge.getSuccessor());
+      }
+      if (node instanceof FunctionEntryNode) {
+        neighbors.add(((FunctionEntryNode) node).getExitNode());
+      }
+      for (CFANode neighbor : neighbors) {
+        if (neighbor != null && reachedNodes.add(neighbor)) {
+          waitlist.push(neighbor);
+        }
+      }
+    }
+
+    List<CFANode> sortedNodes = new ArrayList<>(reachedNodes);
+    Collections.sort(sortedNodes);
+    List<CFANode> nodes = new ArrayList<>(sortedNodes.size());
+    for (CFANode node : sortedNodes) {
+      if (node instanceof FunctionEntryNode) {
+        CFANode exitNode = ((FunctionEntryNode) node).getExitNode();
+        if (exitNode != null && !nodeIds.containsKey(exitNode)) {
+          nodeIds.put(exitNode, nodes.size());
+          nodes.add(exitNode);
+        }
+      }
+      if (!nodeIds.containsKey(node)) {
+        nodeIds.put(node, nodes.size());
+        nodes.add(node);
+      }
+    }
+    return nodes;
+  }
+
+  /**
+   * Collect all edges that are attached to the given nodes,
+   * with summary edges first such that they are known when reading call and return edges.
+   */
+  private List<CFAEdge> collectEdges(List<CFANode> pNodes) throws UnsupportedCFAException {
+    Set<CFAEdge> summaryEdges = Collections.newSetFromMap(new IdentityHashMap<>());
+    Set<CFAEdge> otherEdges = Collections.newSetFromMap(new IdentityHashMap<>());
+    List<CFAEdge> edges = new ArrayList<>();
+    List<CFAEdge> summaryEdgesInOrder = new ArrayList<>();
+    for (CFANode node : pNodes) {
+      for (CFAEdge edge : getEdges(node)) {
+        FunctionSummaryEdge summaryEdge = null;
+        if (edge instanceof FunctionSummaryEdge) {
+          summaryEdge = (FunctionSummaryEdge) edge;
+        } else {
+          if (otherEdges.add(edge)) {
+            edges.add(edge);
+          }
+          if (edge instanceof CFunctionCallEdge) {
+            summaryEdge = ((CFunctionCallEdge) edge).getSummaryEdge();
+          } else if (edge instanceof CFunctionReturnEdge) {
+            summaryEdge = ((CFunctionReturnEdge) edge).getSummaryEdge();
+          }
+        }
+        if (summaryEdge != null && summaryEdges.add(summaryEdge)) {
+          summaryEdgesInOrder.add(summaryEdge);
+        }
+      }
+    }
+
+    List<CFAEdge> result = new ArrayList<>(summaryEdgesInOrder.size() + edges.size());
+    result.addAll(summaryEdgesInOrder);
+    result.addAll(edges);
+    for (CFAEdge edge : result) {
+      if (!nodeIds.containsKey(edge.getPredecessor())
+          || !nodeIds.containsKey(edge.getSuccessor())) {
+        throw new UnsupportedCFAException("Edge with unknown node " + edge);
+      }
+    }
+    return result;
+  }
+
+  private static Collection<CFAEdge> getEdges(CFANode pNode) {
+    List<CFAEdge> edges = new ArrayList<>();
+    for (int i = 0; i < pNode.getNumLeavingEdges(); i++) {
+      edges.add(pNode.getLeavingEdge(i));
+    }
+    for (int i = 0; i < pNode.getNumEnteringEdges(); i++) {
+      edges.add(pNode.getEnteringEdge(i));
+    }
+    if (pNode.getLeavingSummaryEdge() != null) {
+      edges.add(pNode.getLeavingSummaryEdge());
+    }
+    if (pNode.getEnteringSummaryEdge() != null) {
+      edges.add(pNode.getEnteringSummaryEdge());
+    }
+    return edges;
+  }
+
+  private void writeNode(CFANode pNode) throws IOException {
+    Class<?> nodeClass = pNode.getClass();
+    if (nodeClass == CFANode.class) {
+      out.writeByte(NODE);
+    } else if (nodeClass == CLabelNode.class) {
+      out.writeByte(LABEL_NODE);
+    } else if (nodeClass == CFATerminationNode.class) {
+      out.writeByte(TERMINATION_NODE);
+    } else if (nodeClass == FunctionExitNode.class) {
+      out.writeByte(FUNCTION_EXIT_NODE);
+    } else if (nodeClass == CFunctionEntryNode.class) {
+      out.writeByte(FUNCTION_ENTRY_NODE);
+    } else {
+      throw new UnsupportedCFAException("Unsupported node " + nodeClass.getSimpleName());
+    }
+    writeString(pNode.getFunctionName());
+    out.writeInt(pNode.getReversePostorderId());
+    out.writeBoolean(pNode.isLoopStart());
+
+    if (pNode instanceof CLabelNode) {
+      writeString(((CLabelNode) pNode).getLabel());
+
+    } else if (pNode instanceof CFunctionEntryNode) {
+      CFunctionEntryNode entryNode = (CFunctionEntryNode) pNode;
+      // the reader links the exit node back to its entry node
+      if (entryNode.getExitNode().getEntryNode() != entryNode) {
+        throw new UnsupportedCFAException("Exit node of " + pNode + " has other entry node");
+      }
+      write(entryNode.getFileLocation());
+      write(entryNode.getFunctionDefinition());
+      writeNodeId(entryNode.getExitNode());
+      writeNullable(entryNode.getReturnVariable().orNull());
+    }
+  }
+
+  private void writeEdge(CFAEdge pEdge) throws IOException {
+    Class<?> edgeClass = pEdge.getClass();
+    if (edgeClass == BlankEdge.class) {
+      out.writeByte(BLANK_EDGE);
+    } else if (edgeClass == CAssumeEdge.class) {
+      out.writeByte(ASSUME_EDGE);
+    } else if (edgeClass == CDeclarationEdge.class) {
+      out.writeByte(DECLARATION_EDGE);
+    } else if (edgeClass == CStatementEdge.class) {
+      out.writeByte(STATEMENT_EDGE);
+    } else if (edgeClass == CFunctionSummaryStatementEdge.class) {
+      out.writeByte(FUNCTION_SUMMARY_STATEMENT_EDGE);
+    } else if (edgeClass == CReturnStatementEdge.class) {
+      out.writeByte(RETURN_STATEMENT_EDGE);
+    } else if (edgeClass == CFunctionCallEdge.class) {
+      out.writeByte(FUNCTION_CALL_EDGE);
+    } else if (edgeClass == CFunctionReturnEdge.class) {
+      out.writeByte(FUNCTION_RETURN_EDGE);
+    } else if (edgeClass == CFunctionSummaryEdge.class) {
+      out.writeByte(FUNCTION_SUMMARY_EDGE);
+    } else {
+      throw new UnsupportedCFAException("Unsupported edge " + edgeClass.getSimpleName());
+    }
+    writeNodeId(pEdge.getPredecessor());
+    writeNodeId(pEdge.getSuccessor());
+    write(pEdge.getFileLocation());
+
+    if (pEdge instanceof BlankEdge) {
+      writeString(pEdge.getRawStatement());
+      writeString(pEdge.getDescription());
+
+    } else if (pEdge instanceof CAssumeEdge) {
+      CAssumeEdge assumeEdge = (CAssumeEdge) pEdge;
+      // the constructor adds brackets around the raw statement
+      String rawStatement = assumeEdge.getRawStatement();
+      if (!rawStatement.startsWith("[") || !rawStatement.endsWith("]")) {
+        throw new UnsupportedCFAException("Unexpected raw statement of " + pEdge);
+      }
+      writeString(rawStatement.substring(1, rawStatement.length() - 1));
+      write(assumeEdge.getExpression());
+      out.writeBoolean(assumeEdge.getTruthAssumption());
+      out.writeBoolean(assumeEdge.isSwapped());
+      out.writeBoolean(assumeEdge.isArtificialIntermediate());
+
+    } else if (pEdge instanceof CDeclarationEdge) {
+      writeString(pEdge.getRawStatement());
+      write(((CDeclarationEdge) pEdge).getDeclaration());
+
+    } else if (pEdge instanceof CFunctionSummaryStatementEdge) {
+      CFunctionSummaryStatementEdge statementEdge = (CFunctionSummaryStatementEdge) pEdge;
+      writeString(pEdge.getRawStatement());
+      write(statementEdge.getStatement());
+      write(statementEdge.getFunctionCall());
+      writeString(statementEdge.getFunctionName());
+
+    } else if (pEdge instanceof CStatementEdge) {
+      writeString(pEdge.getRawStatement());
+      write(((CStatementEdge) pEdge).getStatement());
+
+    } else if (pEdge instanceof CReturnStatementEdge) {
+      writeString(pEdge.getRawStatement());
+      write(((CReturnStatementEdge) pEdge).getRawAST().get());
+
+    } else if (pEdge instanceof CFunctionCallEdge) {
+      CFunctionCallEdge callEdge = (CFunctionCallEdge) pEdge;
+      writeString(pEdge.getRawStatement());
+      write(callEdge.getRawAST().get());
+      writeEdgeId(callEdge.getSummaryEdge());
+
+    } else if (pEdge instanceof CFunctionReturnEdge) {
+      writeEdgeId(((CFunctionReturnEdge) pEdge).getSummaryEdge());
+
+    } else if (pEdge instanceof CFunctionSummaryEdge) {
+      CFunctionSummaryEdge summaryEdge = (CFunctionSummaryEdge) pEdge;
+      writeString(pEdge.getRawStatement());
+      write(summaryEdge.getExpression());
+      writeNodeId(summaryEdge.getFunctionEntry());
+    }
+  }
+
+  private void writeLoopStructure(CFA pCfa) throws IOException {
+    Optional<LoopStructure> loopStructure = pCfa.getLoopStructure();
+    out.writeBoolean(loopStructure.isPresent());
+    if (!loopStructure.isPresent()) {
+      return;
+    }
+
+    int count = 0;
+    for (String function : pCfa.getAllFunctionNames()) {
+      count += loopStructure.get().getLoopsForFunction(function).size();
+    }
+    if (count != loopStructure.get().getCount()) {
+      throw new UnsupportedCFAException("Loop structure contains loops of unknown functions");
+    }
+
+    out.writeInt(count);
+    for (String function : pCfa.getAllFunctionNames()) {
+      for (Loop loop : loopStructure.get().getLoopsForFunction(function)) {
+        writeString(function);
+        writeNodeIds(loop.getLoopHeads());
+        writeNodeIds(loop.getLoopNodes());
+      }
+    }
+  }
+
+  private void writeNodeIds(Collection<CFANode> pNodes) throws IOException {
+    out.writeInt(pNodes.size());
+    for (CFANode node : pNodes) {
+      writeNodeId(node);
+    }
+  }
+
+  private void writeNodeId(CFANode pNode) throws IOException {
+    Integer id = nodeIds.get(pNode);
+    if (id == null) {
+      throw new UnsupportedCFAException("Reference to unknown node " + pNode);
+    }
+    out.writeInt(id);
+  }
+
+  private void writeEdgeId(@Nullable CFAEdge pEdge) throws IOException {
+    if (pEdge == null) {
+      out.writeInt(-1);
+    } else {
+      Integer id = edgeIds.get(pEdge);
+      if (id == null) {
+        throw new UnsupportedCFAException("Reference to unknown edge " + pEdge);
+      }
+      out.writeInt(id);
+    }
+  }
+
+  private void writeString(String pString) throws IOException {
+    Integer id = stringIds.get(pString);
+    if (id != null) {
+      out.writeInt(id);
+    } else {
+      id = stringIds.size();
+      stringIds.put(pString, id);
+      out.writeInt(id);
+      // writeUTF is limited to 64K, and UTF-8 cannot represent all Java strings
+      out.writeInt(pString.length());
+      out.writeChars(pString);
+    }
+  }
+
+  private void writeNullableString(@Nullable String pString) throws IOException {
+    out.writeBoolean(pString != null);
+    if (pString != null) {
+      writeString(pString);
+    }
+  }
+
+  private void writeEnum(Enum<?> pValue) throws IOException {
+    writeString(pValue.name());
+  }
+
+  private void writeNullable(@Nullable Object pObject) throws IOException {
+    if (pObject == null) {
+      out.writeByte(NULL);
+    } else {
+      write(pObject);
+    }
+  }
+
+  /**
+   * Write a type, declaration, AST node, or file location,
+   * or a reference to it if it was written before.
+   */
+  private void write(Object pObject) throws IOException {
+    Integer id = objectIds.get(pObject);
+    if (id != null) {
+      out.writeByte(REFERENCE);
+      out.writeInt(id);
+
+    } else if (pObject instanceof FileLocation) {
+      writeFileLocation((FileLocation) pObject);
+
+    } else if (!SUPPORTED_AST_CLASSES.contains(pObject.getClass())) {
+      throw new UnsupportedCFAException("Unsupported " + pObject.getClass().getSimpleName());
+
+    } else if (pObject instanceof CEnumerator) {
+      // no cycle check, an enumerator is written as part of its enum type
+      visit((CEnumerator) pObject);
+
+    } else {
+      if (!inProgress.add(pObject)) {
+        throw new UnsupportedCFAException("Unsupported cycle containing " + pObject);
+      }
+      if (pObject instanceof CType) {
+        ((CType) pObject).accept(this);
+      } else {
+        ((CAstNode) pObject).accept(this);
+      }
+      inProgress.remove(pObject);
+    }
+  }
+
+  private void writeList(List<?> pObjects) throws IOException {
+    out.writeInt(pObjects.size());
+    for (Object object : pObjects) {
+      write(object);
+    }
+  }
+
+  /**
+   * Give the next index to the given object.
+   * This needs to be done at the same point in the output at which the reader creates the object.
+   */
+  private void register(Object pObject) {
+    Integer previous = objectIds.put(pObject, objectIds.size());
+    assert previous == null : "object written twice: " + pObject;
+  }
+
+  private void writeFileLocation(FileLocation pLocation) throws IOException {
+    if (pLocation == FileLocation.DUMMY) {
+      out.writeByte(DUMMY_FILE_LOCATION);
+    } else if (pLocation == FileLocation.MULTIPLE_FILES) {
+      out.writeByte(MULTIPLE_FILES_LOCATION);
+    } else if (pLocation.getClass() != FileLocation.class) {
+      throw new UnsupportedCFAException("Unsupported file location " + pLocation);
+    } else {
+      out.writeByte(FILE_LOCATION);
+      writeString(pLocation.getFileName());
+      writeString(pLocation.getNiceFileName());
+      out.writeInt(pLocation.getNodeOffset());
+      out.writeInt(pLocation.getNodeLength());
+      out.writeInt(pLocation.getStartingLineNumber());
+      out.writeInt(pLocation.getEndingLineNumber());
+      out.writeInt(pLocation.getStartingLineInOrigin());
+      out.writeInt(pLocation.getEndingLineInOrigin());
+      register(pLocation);
+    }
+  }
+
+  // types
+
+  @Override
+  public Void visit(CArrayType pArrayType) throws IOException {
+    out.writeByte(ARRAY_TYPE);
+    out.writeBoolean(pArrayType.isConst());
+    out.writeBoolean(pArrayType.isVolatile());
+    write(pArrayType.getType());
+    writeNullable(pArrayType.getLength());
+    register(pArrayType);
+    return null;
+  }
+
+  @Override
+  public Void visit(CCompositeType pCompositeType) throws IOException {
+    List<CCompositeTypeMemberDeclaration> members;
+    try {
+      members = pCompositeType.getMembers();
+    } catch (IllegalStateException e) {
+      // members were never initialized
+      throw new UnsupportedCFAException("Composite type without members " + pCompositeType);
+    }
+
+    out.writeByte(COMPOSITE_TYPE);
+    out.writeBoolean(pCompositeType.isConst());
+    out.writeBoolean(pCompositeType.isVolatile());
+    writeEnum(pCompositeType.getKind());
+    writeString(pCompositeType.getName());
+    writeString(pCompositeType.getOrigName());
+    // members may reference the type itself
+    register(pCompositeType);
+    out.writeInt(members.size());
+    for (CCompositeTypeMemberDeclaration member : members) {
+      write(member.getType());
+      writeNullableString(member.getName());
+    }
+    return null;
+  }
+
+  @Override
+  public Void visit(CElaboratedType pElaboratedType) throws IOException {
+    // getName() returns the name of the real type, but we need the own name
+    String kind = pElaboratedType.getKind().toASTString();
+    String name = pElaboratedType.getQualifiedName().substring(kind.length()).trim();
+    CComplexType realType = pElaboratedType.getRealType();
+
+    out.writeByte(ELABORATED_TYPE);
+    out.writeBoolean(pElaboratedType.isConst());
+    out.writeBoolean(pElaboratedType.isVolatile());
+    writeEnum(pElaboratedType.getKind());
+    writeString(name);
+    writeString(pElaboratedType.getOrigName());
+    if (realType == null) {
+      out.writeByte(NO_REAL_TYPE);
+      register(pElaboratedType);
+
+    } else if (realType.getKind() == pElaboratedType.getKind()
+        && realType.getName().equals(name)) {
+      // The real type may reference this type (e.g., "struct s { struct s* next; }"),
+      // so register this type first. The reader sets the real type afterwards,
+      // which is only allowed if the names match.
+      out.writeByte(REAL_TYPE_AFTER);
+      register(pElaboratedType);
+      write(realType);
+
+    } else {
+      out.writeByte(REAL_TYPE_BEFORE);
+      write(realType);
+      register(pElaboratedType);
+    }
+    return null;
+  }
+
+  @Override
+  public Void visit(CEnumType pEnumType) throws IOException {
+    out.writeByte(ENUM_TYPE);
+    writeList(pEnumType.getEnumerators());
+    out.writeBoolean(pEnumType.isConst());
+    out.writeBoolean(pEnumType.isVolatile());
+    writeString(pEnumType.getName());
+    writeString(pEnumType.getOrigName());
+    for (CEnumerator enumerator : pEnumType.getEnumerators()) {
+      // enumerators may be shared with copies of the enum type that declared them
+      out.writeBoolean(enumerator.getEnum() == pEnumType);
+    }
+    register(pEnumType);
+    return null;
+  }
+
+  @Override
+  public Void visit(CFunctionType pFunctionType) throws IOException {
+    if (pFunctionType instanceof CFunctionTypeWithNames) {
+      out.writeByte(FUNCTION_TYPE_WITH_NAMES);
+      write(pFunctionType.getReturnType());
+      writeList(((CFunctionTypeWithNames) pFunctionType).getParameterDeclarations());
+    } else {
+      out.writeByte(FUNCTION_TYPE);
+      write(pFunctionType.getReturnType());
+      writeList(pFunctionType.getParameters());
+    }
+    out.writeBoolean(pFunctionType.takesVarArgs());
+    writeNullableString(pFunctionType.getName());
+    register(pFunctionType);
+    return null;
+  }
+
+  @Override
+  public Void visit(CPointerType pPointerType) throws IOException {
+    out.writeByte(POINTER_TYPE);
+    out.writeBoolean(pPointerType.isConst());
+    out.writeBoolean(pPointerType.isVolatile());
+    write(pPointerType.getType());
+    register(pPointerType);
+    return null;
+  }
+
+  @Override
+  public Void visit(CProblemType pProblemType) throws IOException {
+    out.writeByte(PROBLEM_TYPE);
+    writeString(pProblemType.toString());
+    register(pProblemType);
+    return null;
+  }
+
+  @Override
+  public Void visit(CSimpleType pSimpleType) throws IOException {
+    out.writeByte(SIMPLE_TYPE);
+    out.writeBoolean(pSimpleType.isConst());
+    out.writeBoolean(pSimpleType.isVolatile());
+    writeEnum(pSimpleType.getType());
+    out.writeBoolean(pSimpleType.isLong());
+    out.writeBoolean(pSimpleType.isShort());
+    out.writeBoolean(pSimpleType.isSigned());
+    out.writeBoolean(pSimpleType.isUnsigned());
+    out.writeBoolean(pSimpleType.isComplex());
+    out.writeBoolean(pSimpleType.isImaginary());
+    out.writeBoolean(pSimpleType.isLongLong());
+    register(pSimpleType);
+    return null;
+  }
+
+  @Override
+  public Void visit(CTypedefType pTypedefType) throws IOException {
+    out.writeByte(TYPEDEF_TYPE);
+    out.writeBoolean(pTypedefType.isConst());
+    out.writeBoolean(pTypedefType.isVolatile());
+    writeString(pTypedefType.getName());
+    write(pTypedefType.getRealType());
+    register(pTypedefType);
+    return null;
+  }
+
+  @Override
+  public Void visit(CVoidType pVoidType) throws IOException {
+    out.writeByte(VOID_TYPE);
+    out.writeBoolean(pVoidType.isConst());
+    out.writeBoolean(pVoidType.isVolatile());
+    register(pVoidType);
+    return null;
+  }
+
+  @Override
+  public Void visit(CBitFieldType pCBitFieldType) throws IOException {
+    out.writeByte(BIT_FIELD_TYPE);
+    write(pCBitFieldType.getType());
+    out.writeInt(pCBitFieldType.getBitFieldSize());
+    register(pCBitFieldType);
+    return null;
+  }
+
+  // declarations
+
+  @Override
+  public Void visit(CFunctionDeclaration pDecl) throws IOException {
+    out.writeByte(FUNCTION_DECLARATION);
+    write(pDecl.getFileLocation());
+    write(pDecl.getType());
+    writeString(pDecl.getName());
+    writeList(pDecl.getParameters());
+    register(pDecl);
+    return null;
+  }
+
+  @Override
+  public Void visit(CComplexTypeDeclaration pDecl) throws IOException {
+    out.writeByte(COMPLEX_TYPE_DECLARATION);
+    write(pDecl.getFileLocation());
+    out.writeBoolean(pDecl.isGlobal());
+    write(pDecl.getType());
+    register(pDecl);
+    return null;
+  }
+
+  @Override
+  public Void visit(CTypeDefDeclaration pDecl) throws IOException {
+    out.writeByte(TYPEDEF_DECLARATION);
+    write(pDecl.getFileLocation());
+    out.writeBoolean(pDecl.isGlobal());
+    write(pDecl.getType());
+    writeString(pDecl.getName());
+    writeString(pDecl.getQualifiedName());
+    register(pDecl);
+    return null;
+  }
+
+  @Override
+  public Void visit(CVariableDeclaration pDecl) throws IOException {
+    out.writeByte(VARIABLE_DECLARATION);
+    write(pDecl.getFileLocation());
+    out.writeBoolean(pDecl.isGlobal());
+    writeEnum(pDecl.getCStorageClass());
+    write(pDecl.getType());
+    writeString(pDecl.getName());
+    writeString(pDecl.getOrigName());
+    writeString(pDecl.getQualifiedName());
+    // the initializer may reference the variable
+    register(pDecl);
+    writeNullable(pDecl.getInitializer());
+    return null;
+  }
+
+  @Override
+  public Void visit(CParameterDeclaration pDecl) throws IOException {
+    out.writeByte(PARAMETER_DECLARATION);
+    write(pDecl.getFileLocation());
+    write(pDecl.getType());
+    writeString(pDecl.getName());
+    writeNullableString(pDecl.getQualifiedName());
+    register(pDecl);
+    return null;
+  }
+
+  @Override
+  public Void visit(CEnumerator pDecl) throws IOException {
+    CEnumType enumType = pDecl.getEnum();
+    if (enumType != null && !inProgress.contains(enumType)) {
+      // write the enum type, which contains the enumerator
+      int index = Iterables.indexOf(enumType.getEnumerators(), e -> e == pDecl);
+      if (index < 0) {
+        throw new UnsupportedCFAException("Enumerator " + pDecl + " not part of its enum type");
+      }
+      out.writeByte(ENUMERATOR_OF_TYPE);
+      write(enumType);
+      out.writeInt(index);
+
+    } else {
+      out.writeByte(ENUMERATOR);
+      write(pDecl.getFileLocation());
+      writeString(pDecl.getName());
+      writeString(pDecl.getQualifiedName());
+      out.writeBoolean(pDecl.hasValue());
+      if (pDecl.hasValue()) {
+        out.writeLong(pDecl.getValue());
+      }
+      register(pDecl);
+    }
+    return null;
+  }
+
+  // expressions
+
+  @Override
+  public Void visit(CArraySubscriptExpression pIastArraySubscriptExpression)
+      throws IOException {
+    out.writeByte(ARRAY_SUBSCRIPT_EXPRESSION);
+    write(pIastArraySubscriptExpression.getFileLocation());
+    write(pIastArraySubscriptExpression.getExpressionType());
+    write(pIastArraySubscriptExpression.getArrayExpression());
+    write(pIastArraySubscriptExpression.getSubscriptExpression());
+    register(pIastArraySubscriptExpression);
+    return null;
+  }
+
+  @Override
+  public Void visit(CFieldReference pIastFieldReference) throws IOException {
+    out.writeByte(FIELD_REFERENCE);
+    write(pIastFieldReference.getFileLocation());
+    write(pIastFieldReference.getExpressionType());
+    writeString(pIastFieldReference.getFieldName());
+    write(pIastFieldReference.getFieldOwner());
+    out.writeBoolean(pIastFieldReference.isPointerDereference());
+    register(pIastFieldReference);
+    return null;
+  }
+
+  @Override
+  public Void visit(CIdExpression pIastIdExpression) throws IOException {
+    out.writeByte(ID_EXPRESSION);
+    write(pIastIdExpression.getFileLocation());
+    write(pIastIdExpression.getExpressionType());
+    writeString(pIastIdExpression.getName());
+    writeNullable(pIastIdExpression.getDeclaration());
+    register(pIastIdExpression);
+    return null;
+  }
+
+  @Override
+  public Void visit(CPointerExpression pointerExpression) throws IOException {
+    out.writeByte(POINTER_EXPRESSION);
+    write(pointerExpression.getFileLocation());
+    write(pointerExpression.getExpressionType());
+    write(pointerExpression.getOperand());
+    register(pointerExpression);
+    return null;
+  }
+
+  @Override
+  public Void visit(CComplexCastExpression complexCastExpression) throws IOException {
+    out.writeByte(COMPLEX_CAST_EXPRESSION);
+    write(complexCastExpression.getFileLocation());
+    write(complexCastExpression.getExpressionType());
+    write(complexCastExpression.getOperand());
+    write(complexCastExpression.getType());
+    out.writeBoolean(complexCastExpression.isRealCast());
+    register(complexCastExpression);
+    return null;
+  }
+
+  @Override
+  public Void visit(CBinaryExpression pIastBinaryExpression) throws IOException {
+    out.writeByte(BINARY_EXPRESSION);
+    write(pIastBinaryExpression.getFileLocation());
+    write(pIastBinaryExpression.getExpressionType());
+    write(pIastBinaryExpression.getCalculationType());
+    write(pIastBinaryExpression.getOperand1());
+    write(pIastBinaryExpression.getOperand2());
+    writeEnum(pIastBinaryExpression.getOperator());
+    register(pIastBinaryExpression);
+    return null;
+  }
+
+  @Override
+  public Void visit(CCastExpression pIastCastExpression) throws IOException {
+    out.writeByte(CAST_EXPRESSION);
+    write(pIastCastExpression.getFileLocation());
+    write(pIastCastExpression.getExpressionType());
+    write(pIastCastExpression.getOperand());
+    register(pIastCastExpression);
+    return null;
+  }
+
+  @Override
+  public Void visit(CCharLiteralExpression pIastCharLiteralExpression) throws IOException {
+    out.writeByte(CHAR_LITERAL_EXPRESSION);
+    write(pIastCharLiteralExpression.getFileLocation());
+    write(pIastCharLiteralExpression.getExpressionType());
+    out.writeChar(pIastCharLiteralExpression.getCharacter());
+    register(pIastCharLiteralExpression);
+    return null;
+  }
+
+  @Override
+  public Void visit(CFloatLiteralExpression pIastFloatLiteralExpression) throws IOException {
+    BigDecimal value = pIastFloatLiteralExpression.getValue();
+    out.writeByte(FLOAT_LITERAL_EXPRESSION);
+    write(pIastFloatLiteralExpression.getFileLocation());
+    write(pIastFloatLiteralExpression.getExpressionType());
+    writeBytes(value.unscaledValue().toByteArray());
+    out.writeInt(value.scale());
+    register(pIastFloatLiteralExpression);
+    return null;
+  }
+
+  @Override
+  public Void visit(CIntegerLiteralExpression pIastIntegerLiteralExpression)
+      throws IOException {
+    out.writeByte(INTEGER_LITERAL_EXPRESSION);
+    write(pIastIntegerLiteralExpression.getFileLocation());
+    write(pIastIntegerLiteralExpression.getExpressionType());
+    writeBytes(pIastIntegerLiteralExpression.getValue().toByteArray());
+    register(pIastIntegerLiteralExpression);
+    return null;
+  }
+
+  private void writeBytes(byte[] pBytes) throws IOException {
+    out.writeInt(pBytes.length);
+    out.write(pBytes);
+  }
+
+  @Override
+  public Void visit(CStringLiteralExpression pIastStringLiteralExpression) throws IOException {
+    out.writeByte(STRING_LITERAL_EXPRESSION);
+    write(pIastStringLiteralExpression.getFileLocation());
+    write(pIastStringLiteralExpression.getExpressionType());
+    writeString(pIastStringLiteralExpression.getValue());
+    register(pIastStringLiteralExpression);
+    return null;
+  }
+
+  @Override
+  public Void visit(CTypeIdExpression pIastTypeIdExpression) throws IOException {
+    out.writeByte(TYPE_ID_EXPRESSION);
+    write(pIastTypeIdExpression.getFileLocation());
+    write(pIastTypeIdExpression.getExpressionType());
+    writeEnum(pIastTypeIdExpression.getOperator());
+    write(pIastTypeIdExpression.getType());
+    register(pIastTypeIdExpression);
+    return null;
+  }
+
+  @Override
+  public Void visit(CUnaryExpression pIastUnaryExpression) throws IOException {
+    out.writeByte(UNARY_EXPRESSION);
+    write(pIastUnaryExpression.getFileLocation());
+    write(pIastUnaryExpression.getExpressionType());
+    write(pIastUnaryExpression.getOperand());
+    writeEnum(pIastUnaryExpression.getOperator());
+    register(pIastUnaryExpression);
+    return null;
+  }
+
+  @Override
+  public Void visit(CImaginaryLiteralExpression pIastLiteralExpression) throws IOException {
+    out.writeByte(IMAGINARY_LITERAL_EXPRESSION);
+    write(pIastLiteralExpression.getFileLocation());
+    write(pIastLiteralExpression.getExpressionType());
+    write(pIastLiteralExpression.getValue());
+    register(pIastLiteralExpression);
+    return null;
+  }
+
+  @Override
+  public Void visit(CAddressOfLabelExpression pAddressOfLabelExpression) throws IOException {
+    out.writeByte(ADDRESS_OF_LABEL_EXPRESSION);
+    write(pAddressOfLabelExpression.getFileLocation());
+    write(pAddressOfLabelExpression.getExpressionType());
+    writeString(pAddressOfLabelExpression.getLabelName());
+    register(pAddressOfLabelExpression);
+    return null;
+  }
+
+  @Override
+  public Void visit(CFunctionCallExpression pIastFunctionCallExpression) throws IOException {
+    out.writeByte(FUNCTION_CALL_EXPRESSION);
+    write(pIastFunctionCallExpression.getFileLocation());
+    write(pIastFunctionCallExpression.getExpressionType());
+    write(pIastFunctionCallExpression.getFunctionNameExpression());
+    writeList(pIastFunctionCallExpression.getParameterExpressions());
+    writeNullable(pIastFunctionCallExpression.getDeclaration());
+    register(pIastFunctionCallExpression);
+    return null;
+  }
+
+  // statements
+
+  @Override
+  public Void visit(CExpressionStatement pIastExpressionStatement) throws IOException {
+    out.writeByte(EXPRESSION_STATEMENT);
+    write(pIastExpressionStatement.getFileLocation());
+    write(pIastExpressionStatement.getExpression());
+    register(pIastExpressionStatement);
+    return null;
+  }
+
+  @Override
+  public Void visit(CExpressionAssignmentStatement pIastExpressionAssignmentStatement)
+      throws IOException {
+    out.writeByte(EXPRESSION_ASSIGNMENT_STATEMENT);
+    write(pIastExpressionAssignmentStatement.getFileLocation());
+    write(pIastExpressionAssignmentStatement.getLeftHandSide());
+    write(pIastExpressionAssignmentStatement.getRightHandSide());
+    register(pIastExpressionAssignmentStatement);
+    return null;
+  }
+
+  @Override
+  public Void visit(CFunctionCallAssignmentStatement pIastFunctionCallAssignmentStatement)
+      throws IOException {
+    out.writeByte(FUNCTION_CALL_ASSIGNMENT_STATEMENT);
+    write(pIastFunctionCallAssignmentStatement.getFileLocation());
+    write(pIastFunctionCallAssignmentStatement.getLeftHandSide());
+    write(pIastFunctionCallAssignmentStatement.getRightHandSide());
+    register(pIastFunctionCallAssignmentStatement);
+    return null;
+  }
+
+  @Override
+  public Void visit(CFunctionCallStatement pIastFunctionCallStatement) throws IOException {
+    if (pIastFunctionCallStatement instanceof CThreadOperationStatement) {
+      CThreadOperationStatement threadOperation =
+          (CThreadOperationStatement) pIastFunctionCallStatement;
+      if (threadOperation instanceof CThreadCreateStatement) {
+        out.writeByte(THREAD_CREATE_STATEMENT);
+      } else if (threadOperation instanceof CThreadJoinStatement) {
+        out.writeByte(THREAD_JOIN_STATEMENT);
+      } else {
+        out.writeByte(THREAD_OPERATION_STATEMENT);
+      }
+      write(threadOperation.getFileLocation());
+      write(threadOperation.getFunctionCallExpression());
+      out.writeBoolean(threadOperation.isSelfParallel());
+      writeNullableString(threadOperation.getVariableName());
+
+    } else {
+      out.writeByte(FUNCTION_CALL_STATEMENT);
+      write(pIastFunctionCallStatement.getFileLocation());
+      write(pIastFunctionCallStatement.getFunctionCallExpression());
+    }
+    register(pIastFunctionCallStatement);
+    return null;
+  }
+
+  @Override
+  public Void visit(CReturnStatement pNode) throws IOException {
+    out.writeByte(RETURN_STATEMENT);
+    write(pNode.getFileLocation());
+    writeNullable(pNode.getReturnValue().orNull());
+    writeNullable(pNode.asAssignment().orNull());
+    register(pNode);
+    return null;
+  }
+
+  // initializers and designators
+
+  @Override
+  public Void visit(CInitializerExpression pInitializerExpression) throws IOException {
+    out.writeByte(INITIALIZER_EXPRESSION);
+    write(pInitializerExpression.getFileLocation());
+    write(pInitializerExpression.getExpression());
+    register(pInitializerExpression);
+    return null;
+  }
+
+  @Override
+  public Void visit(CInitializerList pInitializerList) throws IOException {
+    out.writeByte(INITIALIZER_LIST);
+    write(pInitializerList.getFileLocation());
+    writeList(pInitializerList.getInitializers());
+    register(pInitializerList);
+    return null;
+  }
+
+  @Override
+  public Void visit(CDesignatedInitializer pCStructInitializerPart) throws IOException {
+    out.writeByte(DESIGNATED_INITIALIZER);
+    write(pCStructInitializerPart.getFileLocation());
+    writeList(pCStructInitializerPart.getDesignators());
+    write(pCStructInitializerPart.getRightHandSide());
+    register(pCStructInitializerPart);
+    return null;
+  }
+
+  @Override
+  public Void visit(CArrayDesignator pArrayDesignator) throws IOException {
+    out.writeByte(ARRAY_DESIGNATOR);
+    write(pArrayDesignator.getFileLocation());
+    write(pArrayDesignator.getSubscriptExpression());
+    register(pArrayDesignator);
+    return null;
+  }
+
+  @Override
+  public Void visit(CArrayRangeDesignator pArrayRangeDesignator) throws IOException {
+    out.writeByte(ARRAY_RANGE_DESIGNATOR);
+    write(pArrayRangeDesignator.getFileLocation());
+    write(pArrayRangeDesignator.getFloorExpression());
+    write(pArrayRangeDesignator.getCeilExpression());
+    register(pArrayRangeDesignator);
+    return null;
+  }
+
+  @Override
+  public Void visit(CFieldDesignator pFieldDesignator) throws IOException {
+    out.writeByte(FIELD_DESIGNATOR);
+    write(pFieldDesignator.getFileLocation());
+    writeString(pFieldDesignator.getFieldName());
+    register(pFieldDesignator);
+    return null;
+  }
+}
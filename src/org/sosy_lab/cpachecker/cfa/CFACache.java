@@ -0,0 +1,279 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cfa;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.MoreFiles;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.CodeSource;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.logging.Level;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import javax.annotation.Nullable;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.FileOption;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.configuration.Option;
+import org.sosy_lab.common.configuration.Options;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.cfa.CFABinaryWriter.UnsupportedCFAException;
+import org.sosy_lab.cpachecker.cfa.ast.ADeclaration;
+import org.sosy_lab.cpachecker.cfa.types.MachineModel;
+import org.sosy_lab.cpachecker.core.CPAchecker;
+import org.sosy_lab.cpachecker.util.Pair;
+import org.sosy_lab.cpachecker.util.statistics.StatCounter;
+import org.sosy_lab.cpachecker.util.statistics.StatTimer;
+import org.sosy_lab.cpachecker.util.statistics.StatisticsWriter;
+
+/**
+ * Cache for CFAs of C programs across runs.
+ * It stores the CFA after all post-processings that modify it
+ * (including the loop structure) together with the global declarations,
+ * in the binary format described in {@link CFABinaryFormat}.
+ * The read-only post-processings (variable classification, live variables, etc.)
+ * are cheaper than parsing and are repeated after loading.
+ *
+ * Entries are addressed by a hash over the contents of the input files,
+ * the machine model, the version of the binary format, the CPAchecker version
+ * (and the JAR file, if available), and the values of all options
+ * that may influence CFA creation. Thus changing any of these leads to a
+ * cache miss instead of a stale CFA. Entries that cannot be read
+ * (e.g., because the format changed) are deleted and treated as miss.
+ */
+@Options(prefix = "cfa.cache")
+class CFACache {
+
+  /**
+   * Prefixes of all options that may influence the created CFA.
+   * This is deliberately coarse, including unrelated options only costs cache hits.
+   */
+  private static final List<String> RELEVANT_OPTION_PREFIXES =
+      ImmutableList.of(
+          "analysis.", "cfa.", "parser.", "liveVar.", "dependenceGraph.", "dependencegraph.");
+
+  private static final String FILE_SUFFIX = ".cfa.gz";
+
+  private static final String BUILD_ID = getBuildId();
+
+  @Option(
+    name = "directory",
+    description =
+        "Directory where CFAs are cached across runs (disabled if not set). "
+            + "Use an absolute path to share the cache between runs with different output "
+            + "directories. Only CFAs of C programs without preprocessor are cached. "
+            + "Entries of other CPAchecker versions are not reused, but development builds "
+            + "without version-control revision that are not run from a JAR file cannot be "
+            + "distinguished, so the directory needs to be cleared after changing the code."
+  )
+  @FileOption(FileOption.Type.OUTPUT_DIRECTORY)
+  private @Nullable Path directory = null;
+
+  private final Configuration config;
+  private final LogManager logger;
+
+  final StatCounter hits = new StatCounter("CFA cache hits");
+  final StatCounter misses = new StatCounter("CFA cache misses");
+  final StatCounter invalidEntries = new StatCounter("Invalid CFA cache entries");
+  final StatTimer loadTime = new StatTimer("Time for loading CFA from cache");
+  final StatTimer storeTime = new StatTimer("Time for storing CFA in cache");
+
+  CFACache(Configuration pConfig, LogManager pLogger) throws InvalidConfigurationException {
+    pConfig.inject(this);
+    config = pConfig;
+    logger = pLogger;
+  }
+
+  boolean isEnabled() {
+    return directory != null;
+  }
+
+  /**
+   * Compute the key for a CFA created from the given files.
+   */
+  String computeKey(List<String> pSourceFiles, MachineModel pMachineModel, Language pLanguage)
+      throws IOException {
+    checkNotNull(directory);
+    Hasher hasher = Hashing.sha256().newHasher();
+    hasher.putInt(CFABinaryFormat.FORMAT_VERSION);
+    hasher.putString(CPAchecker.getVersion(), StandardCharsets.UTF_8);
+    hasher.putString(BUILD_ID, StandardCharsets.UTF_8);
+    hasher.putString(pMachineModel.name(), StandardCharsets.UTF_8);
+    hasher.putString(pLanguage.name(), StandardCharsets.UTF_8);
+
+    for (Map.Entry<String, String> option : getRelevantOptions().entrySet()) {
+      hasher.putString(option.getKey(), StandardCharsets.UTF_8);
+      hasher.putString(option.getValue(), StandardCharsets.UTF_8);
+    }
+
+    for (String file : pSourceFiles) {
+      hasher.putString(file, StandardCharsets.UTF_8);
+      hasher.putBytes(MoreFiles.asByteSource(Paths.get(file)).hash(Hashing.sha256()).asBytes());
+    }
+    return hasher.hash().toString();
+  }
+
+  /**
+   * Identify the build of CPAchecker, if it is run from a JAR file (whose size and modification
+   * time change with every build). This distinguishes builds that have the same version because
+   * they were not built with the version-control revision.
+   */
+  private static String getBuildId() {
+    CodeSource codeSource = CFACache.class.getProtectionDomain().getCodeSource();
+    if (codeSource == null || codeSource.getLocation() == null) {
+      return "";
+    }
+    try {
+      Path location = Paths.get(codeSource.getLocation().toURI());
+      if (Files.isRegularFile(location)) {
+        return Files.size(location) + " " + Files.getLastModifiedTime(location);
+      }
+    } catch (URISyntaxException | IllegalArgumentException | FileSystemNotFoundException
+        | IOException | SecurityException e) {
+      // no build id available
+    }
+    return "";
+  }
+
+  private ImmutableSortedMap<String, String> getRelevantOptions() {
+    ImmutableSortedMap.Builder<String, String> options = ImmutableSortedMap.naturalOrder();
+    for (String line : Splitter.on('\n').omitEmptyStrings().split(config.asPropertiesString())) {
+      List<String> keyValue = Splitter.on('=').limit(2).trimResults().splitToList(line);
+      if (keyValue.size() == 2
+          && RELEVANT_OPTION_PREFIXES.stream().anyMatch(keyValue.get(0)::startsWith)) {
+        options.put(keyValue.get(0), keyValue.get(1));
+      }
+    }
+    return options.build();
+  }
+
+  private Path getFile(String pKey) {
+    return directory.resolve(pKey + FILE_SUFFIX);
+  }
+
+  /**
+   * Load the CFA and the global declarations for the given key,
+   * if they are present and readable.
+   */
+  Optional<Pair<MutableCFA, List<Pair<ADeclaration, String>>>> load(String pKey) {
+    Path file = getFile(pKey);
+    if (!Files.isReadable(file)) {
+      misses.inc();
+      return Optional.empty();
+    }
+
+    loadTime.start();
+    try (DataInputStream in =
+        new DataInputStream(
+            new BufferedInputStream(new GZIPInputStream(Files.newInputStream(file))))) {
+      Pair<MutableCFA, List<Pair<ADeclaration, String>>> result = CFABinaryReader.read(in);
+      hits.inc();
+      logger.log(Level.FINE, "Loaded CFA from cache file", file);
+      return Optional.of(result);
+
+    } catch (IOException e) {
+      // e.g., entry was written in a different format version or is truncated
+      logger.logDebugException(e, "Could not read CFA from cache");
+      logger.log(Level.INFO, "Ignoring and deleting invalid CFA cache entry", file);
+      invalidEntries.inc();
+      misses.inc();
+      try {
+        Files.deleteIfExists(file);
+      } catch (IOException e2) {
+        logger.logUserException(Level.WARNING, e2, "Could not delete invalid CFA cache entry");
+      }
+      return Optional.empty();
+
+    } finally {
+      loadTime.stop();
+    }
+  }
+
+  /**
+   * Store a CFA and the global declarations of the program under the given key.
+   * The file is written to a temporary file first and moved atomically,
+   * such that concurrent runs never see partially written entries.
+   * CFAs that contain elements that the binary format does not support are not stored.
+   */
+  void store(String pKey, CFA pCfa, List<Pair<ADeclaration, String>> pGlobalDeclarations) {
+    storeTime.start();
+    Path tmpFile = null;
+    try {
+      Files.createDirectories(directory);
+      tmpFile = Files.createTempFile(directory, pKey, ".tmp");
+      try (DataOutputStream out =
+          new DataOutputStream(
+              new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(tmpFile))))) {
+        CFABinaryWriter.write(pCfa, pGlobalDeclarations, out);
+      }
+      Files.move(tmpFile, getFile(pKey), StandardCopyOption.ATOMIC_MOVE);
+      tmpFile = null;
+
+    } catch (UnsupportedCFAException e) {
+      logger.logDebugException(e);
+      logger.log(Level.FINE, "CFA cannot be cached:", e.getMessage());
+    } catch (IOException e) {
+      logger.logUserException(Level.WARNING, e, "Could not store CFA in cache");
+    } finally {
+      if (tmpFile != null) {
+        try {
+          Files.deleteIfExists(tmpFile);
+        } catch (IOException e) {
+          logger.logDebugException(e);
+        }
+      }
+      storeTime.stop();
+    }
+  }
+
+  void printStatistics(PrintStream out) {
+    StatisticsWriter.writingStatisticsTo(out)
+        .beginLevel()
+        .put(hits)
+        .put(misses)
+        .putIfUpdatedAtLeastOnce(invalidEntries)
+        .putIfUpdatedAtLeastOnce(loadTime)
+        .putIfUpdatedAtLeastOnce(storeTime);
+  }
+}
@@ -33,6 +33,7 @@ import java.io.OutputStream;
 import java.io.PrintStream;
 import java.io.Writer;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -45,16 +46,19 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.logging.Level;
 import java.util.zip.GZIPOutputStream;
+import javax.annotation.Nullable;
 import org.sosy_lab.common.Concurrency;
 import org.sosy_lab.common.ShutdownNotifier;
 import org.sosy_lab.common.configuration.Configuration;
 import org.sosy_lab.common.configuration.FileOption;
+import org.sosy_lab.common.configuration.IntegerOption;
 import org.sosy_lab.common.configuration.InvalidConfigurationException;
 import org.sosy_lab.common.configuration.Option;
 import org.sosy_lab.common.configuration.Options;
 import org.sosy_lab.common.io.IO;
 import org.sosy_lab.common.log.LogManager;
 import org.sosy_lab.common.time.Timer;
+import org.sosy_lab.cpachecker.cfa.PostProcessingTaskGraph.Task;
 import org.sosy_lab.cpachecker.cfa.ast.ADeclaration;
 import org.sosy_lab.cpachecker.cfa.ast.AExpression;
 import org.sosy_lab.cpachecker.cfa.ast.AFunctionCall;
@@ -109,7 +113,12 @@ import org.sosy_lab.cpachecker.util.LoopStructure;
 import org.sosy_lab.cpachecker.util.Pair;
 import org.sosy_lab.cpachecker.util.dependencegraph.DGBuilder;
 import org.sosy_lab.cpachecker.util.dependencegraph.DependenceGraph;
+import org.sosy_lab.cpachecker.util.statistics.StatCounter;
+import org.sosy_lab.cpachecker.util.statistics.StatInt;
+import org.sosy_lab.cpachecker.util.statistics.StatKind;
 import org.sosy_lab.cpachecker.util.statistics.StatisticsUtils;
+import org.sosy_lab.cpachecker.util.statistics.StatisticsWriter;
+import org.sosy_lab.cpachecker.util.statistics.ThreadSafeTimerContainer;
 import org.sosy_lab.cpachecker.util.variableclassification.VariableClassification;
 import org.sosy_lab.cpachecker.util.variableclassification.VariableClassificationBuilder;
 
@@ -217,6 +226,34 @@ public class CFACreator {
   @FileOption(FileOption.Type.OUTPUT_FILE)
   private Path exportCfaPixelFile = Paths.get("cfaPixel");
 
+  @Option(
+    secure = true,
+    name = "cfa.fingerprints.export",
+    description =
+        "export structural fingerprints of all functions, "
+            + "which allow to find unchanged functions in a later revision of the program"
+  )
+  private boolean exportFingerprints = false;
+
+  @Option(
+    secure = true,
+    name = "cfa.fingerprints.file",
+    description = "export structural fingerprints of all functions to this file"
+  )
+  @FileOption(FileOption.Type.OUTPUT_FILE)
+  private Path exportFingerprintsFile = Paths.get("functionFingerprints.txt");
+
+  @Option(
+    secure = true,
+    name = "cfa.fingerprints.previous",
+    description =
+        "Function fingerprints of a previous revision of the program "
+            + "(written with cfa.fingerprints.export). "
+            + "If given, the functions that did not change are reported in the statistics."
+  )
+  @FileOption(FileOption.Type.OPTIONAL_INPUT_FILE)
+  private @Nullable Path previousFingerprintsFile = null;
+
   @Option(secure=true, name="cfa.checkNullPointers",
       description="while this option is activated, before each use of a "
           + "PointerExpression, or a dereferenced field access the expression is "
@@ -273,6 +310,18 @@ public class CFACreator {
       description="This option enables the computation of a classification of CFA nodes.")
 private boolean classifyNodes = false;
 
+  @Option(
+    secure = true,
+    name = "cfa.postProcessing.threads",
+    description =
+        "Number of threads for post-processings that only read the CFA, like variable "
+            + "classification, live variables, and the dependence graph. "
+            + "Independent post-processings run concurrently. "
+            + "Use 0 for the number of available processors."
+  )
+  @IntegerOption(min = 0)
+  private int postProcessingThreads = 1;
+
   @Option(secure=true, description="C, Java, or LLVM IR?")
   private Language language = Language.C;
 
@@ -285,10 +334,23 @@ private boolean classifyNodes = false;
     private final Timer parserInstantiationTime = new Timer();
     private final Timer totalTime = new Timer();
     private Timer parsingTime;
+    private @Nullable ThreadSafeTimerContainer parsingTimePerFile;
     private Timer conversionTime;
     private final Timer checkTime = new Timer();
     private final Timer processingTime = new Timer();
+    private final Timer loopStructureTime = new Timer();
     private final Timer exportTime = new Timer();
+    private @Nullable CFACache cache;
+    private @Nullable PostProcessingTaskGraph postProcessingTasks;
+    private final Timer fingerprintTime = new Timer();
+    private final StatCounter unchangedFunctions =
+        new StatCounter("Functions unchanged since previous revision");
+    private final StatCounter changedFunctions =
+        new StatCounter("Functions changed since previous revision");
+    private final StatCounter newFunctions =
+        new StatCounter("Functions added since previous revision");
+    private final StatInt unchangedNodes =
+        new StatInt(StatKind.SUM, "Nodes in unchanged functions");
     private final List<Statistics> statisticsCollection;
     private final LogManager logger;
 
@@ -307,13 +369,35 @@ private boolean classifyNodes = false;
       out.println("  Time for loading parser:    " + parserInstantiationTime);
       out.println("  Time for CFA construction:  " + totalTime);
       out.println("    Time for parsing file(s): " + parsingTime);
+      if (parsingTimePerFile != null && parsingTimePerFile.getNumberOfIntervals() > 1) {
+        // differs from parsingTime if files were parsed concurrently
+        out.println("      Sum over all files:     " + parsingTimePerFile);
+      }
       out.println("    Time for AST to CFA:      " + conversionTime);
       out.println("    Time for CFA sanity check:" + checkTime);
       out.println("    Time for post-processing: " + processingTime);
+      if (loopStructureTime.getNumberOfIntervals() > 0) {
+        out.println("      Time for loop structure:" + loopStructureTime);
+      }
+      if (postProcessingTasks != null) {
+        postProcessingTasks.printStatistics(out);
+      }
 
       if (exportTime.getNumberOfIntervals() > 0) {
         out.println("    Time for CFA export:      " + exportTime);
       }
+      if (cache != null) {
+        cache.printStatistics(out);
+      }
+      if (fingerprintTime.getNumberOfIntervals() > 0) {
+        out.println("    Time for fingerprints:    " + fingerprintTime);
+        StatisticsWriter.writingStatisticsTo(out)
+            .beginLevel()
+            .put(unchangedFunctions)
+            .put(changedFunctions)
+            .put(newFunctions)
+            .put(unchangedNodes);
+      }
 
       for (Statistics st : statisticsCollection) {
         StatisticsUtils.printStatistics(st, out, logger, pResult, pReached);
@@ -330,6 +414,7 @@ private boolean classifyNodes = false;
 
   private final CFACreatorStatistics stats;
   private final Configuration config;
+  private final CFACache cache;
 
   public CFACreator(Configuration config, LogManager logger, ShutdownNotifier pShutdownNotifier)
       throws InvalidConfigurationException {
@@ -340,6 +425,10 @@ private boolean classifyNodes = false;
     this.logger = logger;
     this.shutdownNotifier = pShutdownNotifier;
     this.stats = new CFACreatorStatistics(logger);
+    this.cache = new CFACache(config, logger);
+    if (cache.isEnabled()) {
+      stats.cache = cache;
+    }
 
     stats.parserInstantiationTime.start();
 
@@ -373,6 +462,9 @@ private boolean classifyNodes = false;
     }
 
     stats.parsingTime = parser.getParseTime();
+    if (parser instanceof CParser) {
+      stats.parsingTimePerFile = ((CParser) parser).getParseTimePerFile();
+    }
     stats.conversionTime = parser.getCFAConstructionTime();
 
     stats.parserInstantiationTime.stop();
@@ -395,9 +487,9 @@ private boolean classifyNodes = false;
       FunctionEntryNode mainFunction = parseResult.getFunctions().get(mainFunctionName);
       assert mainFunction != null : "program lacks main function.";
 
-      CFA cfa = createCFA(parseResult, mainFunction);
+      MutableCFA cfa = createCFA(parseResult, mainFunction);
 
-      return cfa;
+      return finishCFA(cfa, parseResult.getGlobalDeclarations());
     } finally {
       stats.totalTime.stop();
     }
@@ -419,6 +511,19 @@ private boolean classifyNodes = false;
 
     stats.totalTime.start();
     try {
+      // Included header files are not part of the cache key,
+      // so runs with the preprocessor are never cached.
+      String cacheKey = null;
+      // Only CFAs of C programs can be stored.
+      if (cache.isEnabled() && !usePreprocessor && language == Language.C) {
+        cacheKey = cache.computeKey(sourceFiles, machineModel, language);
+        Optional<Pair<MutableCFA, List<Pair<ADeclaration, String>>>> cachedCfa =
+            cache.load(cacheKey);
+        if (cachedCfa.isPresent()) {
+          return finishCFA(cachedCfa.get().getFirst(), cachedCfa.get().getSecond());
+        }
+      }
+
       // FIRST, parse file(s) and create CFAs for each function
       logger.log(Level.FINE, "Starting parsing of file(s)");
 
@@ -439,14 +544,23 @@ private boolean classifyNodes = false;
         throw new AssertionError();
       }
 
-      return createCFA(c, mainFunction);
+      MutableCFA cfa = createCFA(c, mainFunction);
+      if (cacheKey != null) {
+        cache.store(cacheKey, cfa, c.getGlobalDeclarations());
+      }
+      return finishCFA(cfa, c.getGlobalDeclarations());
 
     } finally {
       stats.totalTime.stop();
     }
   }
 
-  private CFA createCFA(ParseResult pParseResult, FunctionEntryNode pMainFunction) throws InvalidConfigurationException, InterruptedException, ParserException {
+  /**
+   * Create the CFA and do all post-processings that change it.
+   * The result can be stored in the cache and needs to be passed to
+   * {@link #finishCFA(MutableCFA, List)}.
+   */
+  private MutableCFA createCFA(ParseResult pParseResult, FunctionEntryNode pMainFunction) throws InvalidConfigurationException, InterruptedException, ParserException {
 
     FunctionEntryNode mainFunction = pMainFunction;
 
@@ -509,53 +623,60 @@ private boolean classifyNodes = false;
     // optionally transform CFA so that there is only one single loop
     if (transformIntoSingleLoop) {
       cfa = CFASingleLoopTransformation.getSingleLoopTransformation(logger, config, shutdownNotifier).apply(cfa);
-      mainFunction = cfa.getMainFunction();
     }
 
+    stats.processingTime.stop();
+    return cfa;
+  }
+
+  /**
+   * Do the read-only post-processings on a CFA that was created by
+   * {@link #createCFA(ParseResult, FunctionEntryNode)} or loaded from the cache.
+   */
+  private CFA finishCFA(
+      final MutableCFA cfa, final List<Pair<ADeclaration, String>> globalDeclarations)
+      throws InvalidConfigurationException, InterruptedException, ParserException {
+
     // SIXTH, get information about the CFA,
     // the cfa should not be modified after this line.
+    stats.processingTime.start();
 
-    // Get information about variables, needed for some analysis.
     final Optional<VariableClassification> varClassification;
-    if (language == Language.C) {
-      try {
-        VariableClassificationBuilder builder = new VariableClassificationBuilder(config, logger);
-        varClassification = Optional.of(builder.build(cfa));
-        builder.collectStatistics(stats.statisticsCollection);
-      } catch (UnrecognizedCCodeException e) {
-        throw new CParserException(e);
-      }
-    } else {
-      varClassification = Optional.empty();
+    final Optional<LiveVariables> liveVariables;
+    final Optional<DependenceGraph> depGraph;
+    int threads = postProcessingThreads;
+    if (threads == 0) {
+      threads = Runtime.getRuntime().availableProcessors();
     }
-
-    // create the live variables if the variable classification is present
-    if (findLiveVariables &&
-        (varClassification.isPresent() || cfa.getLanguage() != Language.C)) {
-      cfa.setLiveVariables(LiveVariables.create(varClassification,
-                                                pParseResult.getGlobalDeclarations(),
-                                                cfa, logger, shutdownNotifier,
-                                                config));
+    try (PostProcessingTaskGraph tasks = new PostProcessingTaskGraph(threads)) {
+      stats.postProcessingTasks = tasks;
+
+      // Get information about variables, needed for some analysis.
+      Task<Optional<VariableClassification>> varClassificationTask =
+          tasks.submit("Variable classification", () -> createVariableClassification(cfa));
+
+      // create the live variables if the variable classification is present
+      Task<Optional<LiveVariables>> liveVariablesTask =
+          tasks.submit(
+              "Live variables",
+              () ->
+                  createLiveVariables(
+                      cfa, tasks.get(varClassificationTask), globalDeclarations),
+              varClassificationTask);
+
+      Task<Optional<DependenceGraph>> depGraphTask =
+          tasks.submit(
+              "Dependence graph",
+              () -> createDependenceGraph(cfa, tasks.get(varClassificationTask)),
+              varClassificationTask);
+
+      varClassification = tasks.get(varClassificationTask);
+      liveVariables = tasks.get(liveVariablesTask);
+      depGraph = tasks.get(depGraphTask);
     }
 
-    Optional<DependenceGraph> depGraph;
-    if (createDependenceGraph) {
-      if (!varClassification.isPresent()) {
-        logger.log(
-            Level.WARNING,
-            "Variable Classification not present. Consider turning this on "
-                + "to improve dependence graph construction.");
-      }
-      try {
-        DGBuilder depGraphBuilder =
-            DependenceGraph.builder(cfa, varClassification, config, logger, shutdownNotifier);
-        depGraph = Optional.of(depGraphBuilder.build());
-        depGraphBuilder.collectStatistics(stats.statisticsCollection);
-      } catch (CPAException pE) {
-        throw new CParserException(pE);
-      }
-    } else {
-      depGraph = Optional.empty();
+    if (liveVariables.isPresent()) {
+      cfa.setLiveVariables(liveVariables.get());
     }
 
     stats.processingTime.stop();
@@ -564,19 +685,117 @@ private boolean classifyNodes = false;
 
     // check the super CFA starting at the main function
     stats.checkTime.start();
-    assert CFACheck.check(mainFunction, null);
+    assert CFACheck.check(cfa.getMainFunction(), null);
     stats.checkTime.stop();
 
+    compareWithPreviousRevision(immutableCFA);
+    exportCFAIfRequested(immutableCFA);
+
+    logger.log(Level.FINE, "DONE, CFA for", immutableCFA.getNumberOfFunctions(), "functions created.");
+
+    return immutableCFA;
+  }
+
+  private Optional<VariableClassification> createVariableClassification(final MutableCFA cfa)
+      throws InvalidConfigurationException, ParserException {
+    if (language != Language.C) {
+      return Optional.empty();
+    }
+    try {
+      VariableClassificationBuilder builder = new VariableClassificationBuilder(config, logger);
+      Optional<VariableClassification> varClassification = Optional.of(builder.build(cfa));
+      builder.collectStatistics(stats.statisticsCollection);
+      return varClassification;
+    } catch (UnrecognizedCCodeException e) {
+      throw new CParserException(e);
+    }
+  }
+
+  private Optional<LiveVariables> createLiveVariables(
+      final MutableCFA cfa,
+      final Optional<VariableClassification> varClassification,
+      final List<Pair<ADeclaration, String>> globalDeclarations)
+      throws InvalidConfigurationException, InterruptedException {
+    if (findLiveVariables
+        && (varClassification.isPresent() || cfa.getLanguage() != Language.C)) {
+      return Optional.of(
+          LiveVariables.create(
+              varClassification, globalDeclarations, cfa, logger, shutdownNotifier, config));
+    }
+    return Optional.empty();
+  }
+
+  private Optional<DependenceGraph> createDependenceGraph(
+      final MutableCFA cfa, final Optional<VariableClassification> varClassification)
+      throws InvalidConfigurationException, InterruptedException, ParserException {
+    if (!createDependenceGraph) {
+      return Optional.empty();
+    }
+    if (!varClassification.isPresent()) {
+      logger.log(
+          Level.WARNING,
+          "Variable Classification not present. Consider turning this on "
+              + "to improve dependence graph construction.");
+    }
+    try {
+      DGBuilder depGraphBuilder =
+          DependenceGraph.builder(cfa, varClassification, config, logger, shutdownNotifier);
+      Optional<DependenceGraph> depGraph = Optional.of(depGraphBuilder.build());
+      depGraphBuilder.collectStatistics(stats.statisticsCollection);
+      return depGraph;
+    } catch (CPAException pE) {
+      throw new CParserException(pE);
+    }
+  }
+
+  /**
+   * Compare the functions of the given CFA with the fingerprints of a previous revision, if
+   * given, and count how many functions did not change.
+   */
+  private void compareWithPreviousRevision(final CFA cfa) {
+    if (previousFingerprintsFile == null) {
+      return;
+    }
+    FunctionFingerprints previous;
+    try {
+      previous = FunctionFingerprints.read(previousFingerprintsFile);
+    } catch (IOException e) {
+      logger.logUserException(
+          Level.WARNING, e, "Could not read function fingerprints of previous revision");
+      return;
+    }
+
+    stats.fingerprintTime.start();
+    FunctionFingerprints current = FunctionFingerprints.of(cfa);
+    stats.fingerprintTime.stop();
+
+    Set<String> unchanged = current.getUnchangedFunctions(previous);
+    for (String function : current.getFunctions()) {
+      if (unchanged.contains(function)) {
+        stats.unchangedFunctions.inc();
+        stats.unchangedNodes.setNextValue(current.getNumberOfNodes(function));
+      } else if (previous.getFunctions().contains(function)) {
+        stats.changedFunctions.inc();
+      } else {
+        stats.newFunctions.inc();
+      }
+    }
+    logger.log(
+        Level.INFO,
+        unchanged.size(),
+        "of",
+        current.getFunctions().size(),
+        "functions are unchanged since the previous revision.");
+  }
+
+  private void exportCFAIfRequested(final CFA cfa) {
     if (((exportCfaFile != null) && (exportCfa || exportCfaPerFunction))
+        || ((exportFingerprintsFile != null) && exportFingerprints)
         || ((exportFunctionCallsFile != null) && exportFunctionCalls)
         || ((serializeCfaFile != null) && serializeCfa)
         || (exportCfaPixelFile != null)) {
-      exportCFAAsync(immutableCFA);
+      exportCFAAsync(cfa);
     }
-
-    logger.log(Level.FINE, "DONE, CFA for", immutableCFA.getNumberOfFunctions(), "functions created.");
-
-    return immutableCFA;
   }
 
   /**
@@ -814,6 +1033,7 @@ private boolean classifyNodes = false;
   }
 
   private void addLoopStructure(MutableCFA cfa) {
+    stats.loopStructureTime.start();
     try {
       cfa.setLoopStructure(LoopStructure.getLoopStructure(cfa));
 
@@ -824,6 +1044,8 @@ private boolean classifyNodes = false;
     } catch (OutOfMemoryError e) {
       logger.logUserException(Level.WARNING, e,
           "Could not analyze loop structure of program due to memory problems");
+    } finally {
+      stats.loopStructureTime.stop();
     }
   }
 
@@ -1002,6 +1224,15 @@ v.addInitializer(initializer);
       }
     }
 
+    if (exportFingerprints && exportFingerprintsFile != null) {
+      try (Writer w = IO.openOutputFile(exportFingerprintsFile, StandardCharsets.UTF_8)) {
+        FunctionFingerprints.of(cfa).write(w);
+      } catch (IOException e) {
+        logger.logUserException(Level.WARNING, e, "Could not write function fingerprints");
+        // continue with analysis
+      }
+    }
+
     if (exportCfaPixelFile != null) {
       try {
         new CFAToPixelsWriter(config).write(cfa.getMainFunction(), exportCfaPixelFile);
@@ -25,7 +25,9 @@ package org.sosy_lab.cpachecker.cfa;
 
 import java.io.IOException;
 import java.util.List;
+import javax.annotation.Nullable;
 import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.IntegerOption;
 import org.sosy_lab.common.configuration.InvalidConfigurationException;
 import org.sosy_lab.common.configuration.Option;
 import org.sosy_lab.common.configuration.Options;
@@ -36,6 +38,7 @@ import org.sosy_lab.cpachecker.cfa.parser.Parsers.EclipseCParserOptions;
 import org.sosy_lab.cpachecker.cfa.parser.Scope;
 import org.sosy_lab.cpachecker.cfa.types.MachineModel;
 import org.sosy_lab.cpachecker.exceptions.CParserException;
+import org.sosy_lab.cpachecker.util.statistics.ThreadSafeTimerContainer;
 
 /**
  * Abstraction of a C parser that creates CFAs from C code.
@@ -164,6 +167,16 @@ public interface CParser extends Parser {
    */
   List<CAstNode> parseStatements(String code, Scope scope) throws CParserException;
 
+  /**
+   * Return a timer that measured the time needed for parsing the single input files,
+   * summed up over all threads if several files were parsed concurrently
+   * (in contrast to {@link #getParseTime()}, which measures the wall time).
+   * Optional method: may return null.
+   */
+  default @Nullable ThreadSafeTimerContainer getParseTimePerFile() {
+    return null;
+  }
+
   /** Enum for clients of this class to choose the C dialect the parser uses. */
   enum Dialect {
     C99,
@@ -177,11 +190,26 @@ public interface CParser extends Parser {
     @Option(secure=true, description="C dialect for parser")
     private Dialect dialect = Dialect.GNUC;
 
+    @Option(
+      secure = true,
+      description =
+          "Number of threads for parsing several input files concurrently "
+              + "(0 for one thread per available processor). "
+              + "The conversion of the parsed files into CFAs stays sequential, "
+              + "so the resulting CFA is the same as with a single thread."
+    )
+    @IntegerOption(min = 0)
+    private int threads = 1;
+
     protected ParserOptions() {}
 
     public Dialect getDialect() {
       return dialect;
     }
+
+    public int getThreads() {
+      return threads == 0 ? Runtime.getRuntime().availableProcessors() : threads;
+    }
   }
 
   /** Factory that tries to create a parser based on available libraries (e.g. Eclipse CDT). */
@@ -30,6 +30,7 @@ import org.sosy_lab.cpachecker.cfa.ast.c.CAstNode;
 import org.sosy_lab.cpachecker.cfa.parser.Scope;
 import org.sosy_lab.cpachecker.exceptions.CParserException;
 import org.sosy_lab.cpachecker.exceptions.ParserException;
+import org.sosy_lab.cpachecker.util.statistics.ThreadSafeTimerContainer;
 
 /**
  * Encapsulates a {@link CParser} instance and processes all files first
@@ -71,6 +72,11 @@ class CParserWithPreprocessor implements CParser {
     return realParser.getCFAConstructionTime();
   }
 
+  @Override
+  public ThreadSafeTimerContainer getParseTimePerFile() {
+    return realParser.getParseTimePerFile();
+  }
+
   @Override
   public ParseResult parseFile(List<String> pFilenames)
       throws CParserException, InterruptedException {
@@ -0,0 +1,244 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cfa;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import org.sosy_lab.common.io.IO;
+import org.sosy_lab.cpachecker.cfa.model.CFAEdge;
+import org.sosy_lab.cpachecker.cfa.model.CFAEdgeType;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.cfa.model.FunctionEntryNode;
+import org.sosy_lab.cpachecker.util.CFAUtils;
+
+/**
+ * Structural fingerprints of the functions of a CFA, which allow to find the functions that did
+ * not change between two revisions of a program.
+ *
+ * <p>The fingerprint of a function is a hash over its declaration and over all edges of the
+ * function in a canonical order (breadth-first from the function entry), including the
+ * structure of the graph, but excluding node numbers and source locations. Thus adding code to
+ * one function does not change the fingerprints of other functions, even though the node
+ * numbers and line numbers of all later functions are shifted. For each function, the node
+ * numbers are stored in the canonical order, such that nodes of an unchanged function can be
+ * mapped from one revision to the other.
+ *
+ * <p>The comparison is purely syntactic: a function is considered changed if anything in its
+ * body changed, but not if only a callee changed. Global declarations are part of the entry
+ * function.
+ */
+public final class FunctionFingerprints {
+
+  private static final String COMMENT_PREFIX = "//";
+
+  private static final Splitter FIELD_SPLITTER = Splitter.on('\t');
+  private static final Splitter NODE_SPLITTER = Splitter.on(' ').omitEmptyStrings();
+
+  private final ImmutableSortedMap<String, HashCode> hashes;
+
+  /** The node numbers of each function in canonical order. */
+  private final ImmutableMap<String, ImmutableList<Integer>> nodeNumbers;
+
+  private FunctionFingerprints(
+      ImmutableSortedMap<String, HashCode> pHashes,
+      ImmutableMap<String, ImmutableList<Integer>> pNodeNumbers) {
+    hashes = pHashes;
+    nodeNumbers = pNodeNumbers;
+  }
+
+  /** Compute the fingerprints of all functions of the given CFA. */
+  public static FunctionFingerprints of(CFA pCfa) {
+    ImmutableSortedMap.Builder<String, HashCode> hashes = ImmutableSortedMap.naturalOrder();
+    ImmutableMap.Builder<String, ImmutableList<Integer>> nodeNumbers = ImmutableMap.builder();
+
+    for (FunctionEntryNode entry : pCfa.getAllFunctionHeads()) {
+      String function = entry.getFunctionName();
+      Hasher hasher = Hashing.sha256().newHasher();
+      hasher.putString(entry.getFunctionDefinition().toASTString(), StandardCharsets.UTF_8);
+
+      Map<CFANode, Integer> index = new HashMap<>();
+      ImmutableList.Builder<Integer> canonicalOrder = ImmutableList.builder();
+      Queue<CFANode> waitlist = new ArrayDeque<>();
+      index.put(entry, 0);
+      canonicalOrder.add(entry.getNodeNumber());
+      waitlist.add(entry);
+
+      while (!waitlist.isEmpty()) {
+        CFANode node = waitlist.remove();
+        // return edges are skipped, their number depends on the number of call sites
+        hasher.putInt(
+            CFAUtils.leavingEdges(node)
+                .filter(edge -> edge.getEdgeType() != CFAEdgeType.FunctionReturnEdge)
+                .size());
+
+        for (CFAEdge edge : CFAUtils.allLeavingEdges(node)) {
+          if (edge.getEdgeType() == CFAEdgeType.FunctionReturnEdge) {
+            // depends on the callers, not on this function
+            continue;
+          }
+          hasher.putString(edge.getEdgeType().name(), StandardCharsets.UTF_8);
+          hasher.putString(edge.getDescription(), StandardCharsets.UTF_8);
+
+          CFANode successor = edge.getSuccessor();
+          if (!successor.getFunctionName().equals(function)) {
+            // function call, the callee has its own fingerprint
+            hasher.putInt(-1);
+            continue;
+          }
+          Integer successorIndex = index.get(successor);
+          if (successorIndex == null) {
+            successorIndex = index.size();
+            index.put(successor, successorIndex);
+            canonicalOrder.add(successor.getNodeNumber());
+            waitlist.add(successor);
+          }
+          hasher.putInt(successorIndex);
+        }
+      }
+
+      hashes.put(function, hasher.hash());
+      nodeNumbers.put(function, canonicalOrder.build());
+    }
+    return new FunctionFingerprints(hashes.build(), nodeNumbers.build());
+  }
+
+  /**
+   * Read fingerprints that were written with {@link #write(Writer)}.
+   *
+   * @throws IOException If the file cannot be read or is not a valid fingerprint file.
+   */
+  public static FunctionFingerprints read(Path pFile) throws IOException {
+    IO.checkReadableFile(pFile);
+    ImmutableSortedMap.Builder<String, HashCode> hashes = ImmutableSortedMap.naturalOrder();
+    ImmutableMap.Builder<String, ImmutableList<Integer>> nodeNumbers = ImmutableMap.builder();
+
+    int lineNo = 0;
+    for (String line : Files.readAllLines(pFile, StandardCharsets.UTF_8)) {
+      lineNo++;
+      if (line.isEmpty() || line.startsWith(COMMENT_PREFIX)) {
+        continue;
+      }
+      List<String> fields = FIELD_SPLITTER.splitToList(line);
+      if (fields.size() != 3) {
+        throw new IOException("Invalid function fingerprint in " + pFile + ", line " + lineNo);
+      }
+      try {
+        hashes.put(fields.get(0), HashCode.fromString(fields.get(1)));
+        ImmutableList.Builder<Integer> nodes = ImmutableList.builder();
+        for (String node : NODE_SPLITTER.split(fields.get(2))) {
+          nodes.add(Integer.parseInt(node));
+        }
+        nodeNumbers.put(fields.get(0), nodes.build());
+      } catch (IllegalArgumentException e) {
+        throw new IOException(
+            "Invalid function fingerprint in " + pFile + ", line " + lineNo + ": " + e.getMessage(),
+            e);
+      }
+    }
+    try {
+      return new FunctionFingerprints(hashes.build(), nodeNumbers.build());
+    } catch (IllegalArgumentException e) {
+      throw new IOException("Duplicate function in " + pFile + ": " + e.getMessage(), e);
+    }
+  }
+
+  /** Write the fingerprints in a format that can be read by {@link #read(Path)}. */
+  public void write(Writer pOut) throws IOException {
+    pOut.append(COMMENT_PREFIX + " function\tfingerprint\tnode numbers in canonical order\n");
+    for (Map.Entry<String, HashCode> entry : hashes.entrySet()) {
+      pOut.append(entry.getKey()).append('\t').append(entry.getValue().toString()).append('\t');
+      boolean first = true;
+      for (int node : nodeNumbers.get(entry.getKey())) {
+        if (!first) {
+          pOut.append(' ');
+        }
+        pOut.append(Integer.toString(node));
+        first = false;
+      }
+      pOut.append('\n');
+    }
+  }
+
+  public ImmutableSet<String> getFunctions() {
+    return hashes.keySet();
+  }
+
+  public int getNumberOfNodes(String pFunction) {
+    checkArgument(nodeNumbers.containsKey(pFunction), "unknown function %s", pFunction);
+    return nodeNumbers.get(pFunction).size();
+  }
+
+  /**
+   * Return all functions of this revision that exist with the same fingerprint in the given
+   * previous revision.
+   */
+  public ImmutableSet<String> getUnchangedFunctions(FunctionFingerprints pPrevious) {
+    ImmutableSet.Builder<String> result = ImmutableSet.builder();
+    for (Map.Entry<String, HashCode> entry : hashes.entrySet()) {
+      if (Objects.equals(entry.getValue(), pPrevious.hashes.get(entry.getKey()))) {
+        result.add(entry.getKey());
+      }
+    }
+    return result.build();
+  }
+
+  /**
+   * Return a mapping from the node numbers of the given previous revision to the node numbers of
+   * this revision. Only nodes of unchanged functions are contained.
+   */
+  public ImmutableMap<Integer, Integer> mapNodeNumbersFrom(FunctionFingerprints pPrevious) {
+    ImmutableMap.Builder<Integer, Integer> result = ImmutableMap.builder();
+    for (String function : getUnchangedFunctions(pPrevious)) {
+      List<Integer> currentNodes = nodeNumbers.get(function);
+      List<Integer> previousNodes = pPrevious.nodeNumbers.get(function);
+      if (currentNodes.size() != previousNodes.size()) {
+        // cannot happen for equal hashes unless the file was edited manually
+        continue;
+      }
+      for (int i = 0; i < currentNodes.size(); i++) {
+        result.put(previousNodes.get(i), currentNodes.get(i));
+      }
+    }
+    return result.build();
+  }
+}
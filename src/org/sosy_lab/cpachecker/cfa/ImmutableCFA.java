@@ -72,6 +72,9 @@ class ImmutableCFA implements CFA, Serializable {
   /* fileNames are final, except for serialization. */
   private transient ImmutableList<Path> fileNames;
 
+  // computed lazily
+  private transient volatile @Nullable CFAAdjacency adjacency;
+
   ImmutableCFA(
       MachineModel pMachineModel,
       Map<String, FunctionEntryNode> pFunctions,
@@ -188,6 +191,21 @@ class ImmutableCFA implements CFA, Serializable {
     return Optional.ofNullable(dependenceGraph);
   }
 
+  @Override
+  public Optional<CFAAdjacency> getAdjacency() {
+    CFAAdjacency result = adjacency;
+    if (result == null) {
+      synchronized (this) {
+        result = adjacency;
+        if (result == null) {
+          result = CFAAdjacency.of(allNodes);
+          adjacency = result;
+        }
+      }
+    }
+    return Optional.of(result);
+  }
+
   @Override
   public Language getLanguage() {
     return language;
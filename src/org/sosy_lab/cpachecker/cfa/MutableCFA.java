@@ -195,6 +195,12 @@ public class MutableCFA implements CFA {
     return dependenceGraph;
   }
 
+  @Override
+  public Optional<CFAAdjacency> getAdjacency() {
+    // this CFA may still change
+    return Optional.empty();
+  }
+
   @Override
   public Language getLanguage() {
       return language;
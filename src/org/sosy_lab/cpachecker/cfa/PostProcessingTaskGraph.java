@@ -0,0 +1,213 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cfa;
+
+import static com.google.common.base.Preconditions.checkState;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+import org.sosy_lab.common.Classes.UnexpectedCheckedException;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.time.TimeSpan;
+import org.sosy_lab.cpachecker.exceptions.ParserException;
+
+/**
+ * Runs post-processing steps that only read the CFA as a graph of dependent tasks.
+ *
+ * <p>Each task is started as soon as all tasks it depends on have finished. With a single thread,
+ * all tasks are executed immediately in the calling thread, in the order they are submitted. The
+ * statistics contain the runtime of each task and the critical path, i.e., the chain of
+ * dependent tasks that determined the overall runtime.
+ */
+final class PostProcessingTaskGraph implements AutoCloseable {
+
+  @FunctionalInterface
+  interface Step<T> {
+    T run() throws InvalidConfigurationException, InterruptedException, ParserException;
+  }
+
+  static final class Task<T> {
+
+    private final String name;
+    private final ImmutableList<Task<?>> dependencies;
+    private final CompletableFuture<T> result = new CompletableFuture<>();
+
+    // written by the executing thread before the result is completed
+    private long startTime;
+    private long endTime;
+
+    private Task(String pName, ImmutableList<Task<?>> pDependencies) {
+      name = pName;
+      dependencies = pDependencies;
+    }
+
+    private void execute(Step<T> pStep) {
+      startTime = System.nanoTime();
+      try {
+        T value = pStep.run();
+        endTime = System.nanoTime();
+        result.complete(value);
+      } catch (InvalidConfigurationException
+          | InterruptedException
+          | ParserException
+          | RuntimeException
+          | Error e) {
+        endTime = System.nanoTime();
+        result.completeExceptionally(e);
+      }
+    }
+  }
+
+  private final @Nullable ExecutorService executor;
+  private final List<Task<?>> tasks = new ArrayList<>();
+  private final long creationTime = System.nanoTime();
+
+  PostProcessingTaskGraph(int pThreads) {
+    if (pThreads > 1) {
+      executor =
+          Executors.newFixedThreadPool(
+              pThreads,
+              new ThreadFactoryBuilder()
+                  .setDaemon(true)
+                  .setNameFormat("cfa-postprocessing-%d")
+                  .build());
+    } else {
+      executor = null;
+    }
+  }
+
+  /**
+   * Submit a step that is executed after all given tasks have finished successfully. If one of
+   * them fails, the step is not executed and the returned task fails with the same exception.
+   */
+  <T> Task<T> submit(String pName, Step<T> pStep, Task<?>... pDependencies) {
+    Task<T> task = new Task<>(pName, ImmutableList.copyOf(pDependencies));
+    tasks.add(task);
+
+    CompletableFuture<?>[] dependencyResults = new CompletableFuture<?>[pDependencies.length];
+    for (int i = 0; i < pDependencies.length; i++) {
+      dependencyResults[i] = pDependencies[i].result;
+    }
+    CompletableFuture<Void> allDependencies = CompletableFuture.allOf(dependencyResults);
+
+    if (executor == null) {
+      // dependencies are always submitted (and thus executed) first
+      checkState(allDependencies.isDone());
+    }
+    allDependencies.whenComplete(
+        (ignored, failure) -> {
+          if (failure != null) {
+            task.result.completeExceptionally(unwrap(failure));
+          } else if (executor == null) {
+            task.execute(pStep);
+          } else {
+            executor.execute(() -> task.execute(pStep));
+          }
+        });
+    return task;
+  }
+
+  /** Wait for the given task and return its result. */
+  <T> T get(Task<T> pTask)
+      throws InvalidConfigurationException, InterruptedException, ParserException {
+    try {
+      return pTask.result.get();
+    } catch (ExecutionException e) {
+      Throwable t = unwrap(e.getCause());
+      if (t instanceof InterruptedException) {
+        throw (InterruptedException) t;
+      }
+      Throwables.propagateIfPossible(t, InvalidConfigurationException.class, ParserException.class);
+      throw new UnexpectedCheckedException("CFA post-processing", t);
+    }
+  }
+
+  private static Throwable unwrap(Throwable pThrowable) {
+    if (pThrowable instanceof CompletionException && pThrowable.getCause() != null) {
+      return pThrowable.getCause();
+    }
+    return pThrowable;
+  }
+
+  /**
+   * Print the runtime of all finished tasks. Tasks on the critical path are marked with a star.
+   */
+  void printStatistics(PrintStream out) {
+    List<Task<?>> finished = new ArrayList<>();
+    for (Task<?> task : tasks) {
+      if (task.result.isDone() && task.endTime != 0) {
+        finished.add(task);
+      }
+    }
+    if (finished.isEmpty()) {
+      return;
+    }
+
+    // walk back from the task that finished last, always following the dependency
+    // that finished last
+    Set<Task<?>> criticalPath = new HashSet<>();
+    Task<?> current = finished.stream().max((t1, t2) -> Long.compare(t1.endTime, t2.endTime)).get();
+    while (current != null) {
+      criticalPath.add(current);
+      Task<?> latestDependency = null;
+      for (Task<?> dependency : current.dependencies) {
+        if (latestDependency == null || dependency.endTime > latestDependency.endTime) {
+          latestDependency = dependency;
+        }
+      }
+      current = latestDependency;
+    }
+
+    out.println("    Post-processing tasks (* = on critical path):");
+    for (Task<?> task : finished) {
+      out.println(
+          String.format(
+              "    %s %-32s %s (started after %s)",
+              criticalPath.contains(task) ? "*" : " ",
+              task.name + ":",
+              TimeSpan.ofNanos(task.endTime - task.startTime).formatAs(TimeUnit.SECONDS),
+              TimeSpan.ofNanos(task.startTime - creationTime).formatAs(TimeUnit.SECONDS)));
+    }
+  }
+
+  @Override
+  public void close() {
+    if (executor != null) {
+      executor.shutdownNow();
+    }
+  }
+}
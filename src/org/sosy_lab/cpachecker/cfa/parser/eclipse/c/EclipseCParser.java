@@ -28,10 +28,12 @@ import static com.google.common.base.Preconditions.checkArgument;
 import com.google.common.base.Function;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.io.MoreFiles;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.Charset;
@@ -43,6 +45,10 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.eclipse.cdt.core.dom.ast.IASTCompoundStatement;
 import org.eclipse.cdt.core.dom.ast.IASTDeclaration;
 import org.eclipse.cdt.core.dom.ast.IASTFunctionDefinition;
@@ -64,6 +70,7 @@ import org.eclipse.cdt.internal.core.parser.InternalParserUtil;
 import org.eclipse.cdt.internal.core.parser.scanner.InternalFileContent;
 import org.eclipse.cdt.internal.core.parser.scanner.InternalFileContentProvider;
 import org.eclipse.core.runtime.CoreException;
+import org.sosy_lab.common.Classes.UnexpectedCheckedException;
 import org.sosy_lab.common.log.LogManager;
 import org.sosy_lab.common.log.LogManagerWithoutDuplicates;
 import org.sosy_lab.common.time.Timer;
@@ -76,6 +83,8 @@ import org.sosy_lab.cpachecker.cfa.parser.Parsers.EclipseCParserOptions;
 import org.sosy_lab.cpachecker.cfa.parser.Scope;
 import org.sosy_lab.cpachecker.cfa.types.MachineModel;
 import org.sosy_lab.cpachecker.exceptions.CParserException;
+import org.sosy_lab.cpachecker.util.statistics.ThreadSafeTimerContainer;
+import org.sosy_lab.cpachecker.util.statistics.ThreadSafeTimerContainer.TimerWrapper;
 
 /**
  * Wrapper for Eclipse CDT 7.0 and 8.* (internal version number since 5.2.*)
@@ -93,6 +102,8 @@ class EclipseCParser implements CParser {
 
   private final Timer parseTimer = new Timer();
   private final Timer cfaTimer = new Timer();
+  private final ThreadSafeTimerContainer parseTimePerFile =
+      new ThreadSafeTimerContainer("Time for parsing single files");
 
   public EclipseCParser(LogManager pLogger, EclipseCParserOptions pOptions, MachineModel pMachine) {
 
@@ -158,21 +169,77 @@ class EclipseCParser implements CParser {
     ParseContext parseContext =
         new ParseContext(createNiceFileNameFunction(fileNameMapping.keySet()), sourceOriginMapping);
 
-    List<IASTTranslationUnit> astUnits = new ArrayList<>(pInput.size());
+    List<IASTTranslationUnit> astUnits;
+    int threads = Math.min(options.getThreads(), pInput.size());
+    if (threads > 1) {
+      astUnits = parseConcurrently(pInput, parseContext, pWrapperFunction, threads);
 
-    for (FileToParse f : pInput) {
-      final String fileName = fixPath(f.getFileName());
+    } else {
+      astUnits = new ArrayList<>(pInput.size());
+      for (FileToParse f : pInput) {
+        final String fileName = fixPath(f.getFileName());
 
-      try {
-        astUnits.add(parse(pWrapperFunction.wrap(fileName, f), parseContext));
-      } catch (IOException e) {
-        throw new CParserException("IO failed!", e);
+        try {
+          astUnits.add(parse(pWrapperFunction.wrap(fileName, f), parseContext));
+        } catch (IOException e) {
+          throw new CParserException("IO failed!", e);
+        }
       }
     }
 
     return buildCFA(astUnits, parseContext, scope);
   }
 
+  /**
+   * Parse several files on a thread pool.
+   * The translation units are returned in the order of the input,
+   * such that the subsequent (sequential) CFA construction
+   * creates exactly the same CFA as if the files were parsed sequentially.
+   */
+  private List<IASTTranslationUnit> parseConcurrently(
+      List<? extends FileToParse> pInput,
+      ParseContext parseContext,
+      FileParseWrapper pWrapperFunction,
+      int threads)
+      throws CParserException {
+
+    ExecutorService executor =
+        Executors.newFixedThreadPool(
+            threads,
+            new ThreadFactoryBuilder().setDaemon(true).setNameFormat("parser-%d").build());
+
+    parseTimer.start();
+    try {
+      List<Future<IASTTranslationUnit>> futures = new ArrayList<>(pInput.size());
+      for (FileToParse f : pInput) {
+        final String fileName = fixPath(f.getFileName());
+        futures.add(
+            executor.submit(
+                () -> parseWithoutTimer(pWrapperFunction.wrap(fileName, f), parseContext)));
+      }
+
+      List<IASTTranslationUnit> astUnits = new ArrayList<>(pInput.size());
+      for (Future<IASTTranslationUnit> future : futures) {
+        astUnits.add(future.get());
+      }
+      return astUnits;
+
+    } catch (ExecutionException e) {
+      Throwable t = e.getCause();
+      if (t instanceof IOException) {
+        throw new CParserException("IO failed!", t);
+      }
+      Throwables.propagateIfPossible(t, CParserException.class);
+      throw new UnexpectedCheckedException("parsing", t);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new CParserException("Parsing was interrupted", e);
+    } finally {
+      executor.shutdownNow();
+      parseTimer.stop();
+    }
+  }
+
   @Override
   public ParseResult parseFile(List<String> pFilenames) throws CParserException {
 
@@ -307,6 +374,18 @@ class EclipseCParser implements CParser {
   private IASTTranslationUnit parse(FileContent codeReader, ParseContext parseContext)
       throws CParserException {
     parseTimer.start();
+    try {
+      return parseWithoutTimer(codeReader, parseContext);
+    } finally {
+      parseTimer.stop();
+    }
+  }
+
+  /** Parse a file, may be called concurrently. */
+  private IASTTranslationUnit parseWithoutTimer(FileContent codeReader, ParseContext parseContext)
+      throws CParserException {
+    TimerWrapper fileTimer = parseTimePerFile.getNewTimer();
+    fileTimer.start();
     try {
       IASTTranslationUnit result = getASTTranslationUnit(codeReader);
 
@@ -334,7 +413,7 @@ class EclipseCParser implements CParser {
     } catch (CFAGenerationRuntimeException | CoreException e) {
       throw new CParserException(e);
     } finally {
-      parseTimer.stop();
+      fileTimer.stop();
     }
   }
 
@@ -451,6 +530,11 @@ class EclipseCParser implements CParser {
     return cfaTimer;
   }
 
+  @Override
+  public ThreadSafeTimerContainer getParseTimePerFile() {
+    return parseTimePerFile;
+  }
+
 
   /**
    * Private class extending the Eclipse CDT class that is the starting point
@@ -57,8 +57,10 @@ import org.sosy_lab.cpachecker.core.reachedset.UnmodifiableReachedSet;
 import org.sosy_lab.cpachecker.cpa.value.refiner.UnsoundRefiner;
 import org.sosy_lab.cpachecker.exceptions.CPAException;
 import org.sosy_lab.cpachecker.exceptions.RefinementFailedException;
+import org.sosy_lab.cpachecker.util.CPAs;
 
-public class CEGARAlgorithm implements Algorithm, StatisticsProvider, ReachedSetUpdater {
+public class CEGARAlgorithm
+    implements Algorithm, StatisticsProvider, ReachedSetUpdater, AutoCloseable {
 
   private static class CEGARStatistics implements Statistics {
 
@@ -353,4 +355,10 @@ public class CEGARAlgorithm implements Algorithm, StatisticsProvider, ReachedSet
     }
   }
 
+  @Override
+  public void close() {
+    CPAs.closeIfPossible(algorithm, logger);
+    CPAs.closeIfPossible(mRefiner, logger);
+  }
+
 }
@@ -0,0 +1,183 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.algorithm.parallel_bam;
+
+import static org.sosy_lab.cpachecker.util.AbstractStates.extractLocation;
+
+import com.google.common.base.Predicates;
+import com.google.common.collect.Iterables;
+import com.google.common.io.BaseEncoding;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.logging.Level;
+import org.sosy_lab.common.ShutdownNotifier;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.cfa.blocks.Block;
+import org.sosy_lab.cpachecker.core.algorithm.Algorithm;
+import org.sosy_lab.cpachecker.core.algorithm.Algorithm.AlgorithmFactory;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.Precision;
+import org.sosy_lab.cpachecker.core.reachedset.ReachedSet;
+import org.sosy_lab.cpachecker.cpa.arg.ARGState;
+import org.sosy_lab.cpachecker.cpa.bam.BAMCPAWithBreakOnMissingBlock;
+import org.sosy_lab.cpachecker.cpa.bam.MissingBlockAbstractionState;
+import org.sosy_lab.cpachecker.cpa.bam.cache.BAMCache.BAMCacheEntry;
+import org.sosy_lab.cpachecker.cpa.bam.cache.BAMSummaryStore;
+import org.sosy_lab.cpachecker.exceptions.CPAException;
+import org.sosy_lab.cpachecker.util.AbstractStates;
+
+/**
+ * The main loop of a worker process of parallel BAM, see {@link BAMWorkerPool}. The worker
+ * analyzes the requested blocks sequentially and stores their summaries in the {@link
+ * BAMSummaryStore}.
+ */
+class BAMWorker {
+
+  private final BAMCPAWithBreakOnMissingBlock bamcpa;
+  private final AlgorithmFactory algorithmFactory;
+  private final BAMSummaryStore store;
+  private final LogManager logger;
+  private final ShutdownNotifier shutdownNotifier;
+
+  BAMWorker(
+      Configuration pConfig,
+      LogManager pLogger,
+      ShutdownNotifier pShutdownNotifier,
+      BAMCPAWithBreakOnMissingBlock pBamCpa,
+      AlgorithmFactory pAlgorithmFactory)
+      throws InvalidConfigurationException {
+    bamcpa = pBamCpa;
+    algorithmFactory = pAlgorithmFactory;
+    logger = pLogger;
+    shutdownNotifier = pShutdownNotifier;
+    store =
+        new BAMSummaryStore(
+            pConfig, pLogger, bamcpa.getReducer(), bamcpa.getData().getReachedSetFactory());
+    if (!store.isEnabled()) {
+      throw new InvalidConfigurationException(
+          "Worker process for parallel BAM needs option cpa.bam.cache.persistentDirectory.");
+    }
+  }
+
+  /**
+   * Connect to the coordinating process and handle its requests until the connection is closed.
+   *
+   * @param pPort the port of the coordinating process on the loopback interface
+   * @param pMainReached the initialized reached-set of this process, which provides the initial
+   *     precision
+   */
+  void serve(int pPort, ReachedSet pMainReached)
+      throws IOException, CPAException, InterruptedException {
+    Precision initialPrecision = pMainReached.getPrecision(pMainReached.getFirstState());
+    byte[] token = getToken();
+    try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), pPort);
+        DataInputStream in = new DataInputStream(socket.getInputStream());
+        DataOutputStream out = new DataOutputStream(socket.getOutputStream())) {
+      out.write(token);
+      out.flush();
+      while (true) {
+        byte[] state;
+        try {
+          state = BAMWorkerPool.readBytes(in);
+        } catch (EOFException e) {
+          logger.log(Level.INFO, "Coordinating process finished, stopping worker");
+          return;
+        }
+        String precision = new String(BAMWorkerPool.readBytes(in), StandardCharsets.UTF_8);
+        out.writeBoolean(analyze(deserialize(state), precision, initialPrecision));
+        out.flush();
+      }
+    }
+  }
+
+  /** Return the token for authenticating at the coordinating process. */
+  private static byte[] getToken() throws IOException {
+    String token = System.getenv(BAMWorkerPool.WORKER_TOKEN_VARIABLE);
+    if (token == null) {
+      throw new IOException("Worker process was not started by a coordinating process");
+    }
+    try {
+      byte[] bytes = BaseEncoding.base16().decode(token);
+      if (bytes.length == BAMWorkerPool.WORKER_TOKEN_LENGTH) {
+        return bytes;
+      }
+    } catch (IllegalArgumentException e) {
+      // handled below
+    }
+    throw new IOException("Invalid token for worker process");
+  }
+
+  private static ARGState deserialize(byte[] pState) throws IOException {
+    try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(pState))) {
+      return (ARGState) ois.readObject();
+    } catch (ClassNotFoundException e) {
+      throw new IOException(e);
+    }
+  }
+
+  /**
+   * Analyze the block starting with the given state and store its summary.
+   *
+   * @return whether a summary was stored
+   */
+  private boolean analyze(ARGState pRoot, String pPrecision, Precision pInitialPrecision)
+      throws CPAException, InterruptedException {
+    Block block = bamcpa.getBlockPartitioning().getBlockForCallNode(extractLocation(pRoot));
+    Precision precision = bamcpa.getReducer().getVariableReducedPrecision(pInitialPrecision, block);
+    if (!precision.toString().equals(pPrecision)) {
+      logger.log(Level.FINE, "Precision of requested block differs from own precision");
+      return false;
+    }
+
+    BAMCacheEntry entry =
+        bamcpa.getData().createAndRegisterNewReachedSet(pRoot, precision, block);
+    ReachedSet reached = entry.getReachedSet();
+    Algorithm algorithm = algorithmFactory.newInstance();
+    while (reached.hasWaitingState()) {
+      shutdownNotifier.shutdownIfNecessary();
+      algorithm.run(reached);
+      AbstractState lastState = reached.getLastState();
+      if ((lastState != null && AbstractStates.isTargetState(lastState))
+          || Iterables.any(reached, Predicates.instanceOf(MissingBlockAbstractionState.class))) {
+        // the coordinating process analyzes such blocks itself
+        return false;
+      }
+    }
+
+    entry.setExitStates(
+        AbstractStates.filterLocations(reached, block.getReturnNodes())
+            .filter(s -> ((ARGState) s).getChildren().isEmpty())
+            .toList());
+    return store.addSummary(block, precision, entry) && store.writeAll();
+  }
+}
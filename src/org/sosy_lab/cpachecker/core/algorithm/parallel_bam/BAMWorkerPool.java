@@ -0,0 +1,535 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.algorithm.parallel_bam;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.BaseEncoding;
+import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.PrintStream;
+import java.lang.ProcessBuilder.Redirect;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import javax.annotation.Nullable;
+import org.sosy_lab.common.ShutdownNotifier;
+import org.sosy_lab.common.ShutdownNotifier.ShutdownRequestListener;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.FileOption;
+import org.sosy_lab.common.configuration.IntegerOption;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.configuration.Option;
+import org.sosy_lab.common.configuration.Options;
+import org.sosy_lab.common.configuration.TimeSpanOption;
+import org.sosy_lab.common.io.PathTemplate;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.common.time.TimeSpan;
+import org.sosy_lab.cpachecker.cfa.blocks.Block;
+import org.sosy_lab.cpachecker.cfa.blocks.BlockPartitioning;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.Precision;
+import org.sosy_lab.cpachecker.core.reachedset.ReachedSet;
+import org.sosy_lab.cpachecker.cpa.arg.ARGState;
+import org.sosy_lab.cpachecker.cpa.bam.BAMCPAWithBreakOnMissingBlock;
+import org.sosy_lab.cpachecker.cpa.bam.cache.BAMCache.BAMCacheEntry;
+import org.sosy_lab.cpachecker.cpa.bam.cache.BAMSummaryStore;
+import org.sosy_lab.cpachecker.util.statistics.StatCounter;
+import org.sosy_lab.cpachecker.util.statistics.StatInt;
+import org.sosy_lab.cpachecker.util.statistics.StatKind;
+import org.sosy_lab.cpachecker.util.statistics.StatisticsWriter;
+
+/**
+ * Worker processes for parallel BAM. Each worker is a separate JVM on the same machine that runs
+ * CPAchecker with the same command line as the current process. Workers analyze blocks without
+ * nested blocks on request and store the resulting summaries in the {@link BAMSummaryStore}, from
+ * where the current process loads them. Requests are sent over a socket on the loopback interface.
+ *
+ * <p>A worker analyzes a block with its own initial precision, thus a request is only successful
+ * if this precision matches the precision of the request. If no worker is idle or a request is not
+ * successful, the block is analyzed in the current process as usual.
+ *
+ * <p>Requests are sent and awaited asynchronously, such that the threads of parallel BAM are not
+ * blocked by slow workers. A worker that does not answer within the timeout is not used again.
+ * Workers have to authenticate with a random token that is given to them in the environment, such
+ * that no other local process can connect to the current process.
+ */
+@Options(prefix = "algorithm.parallelBam")
+class BAMWorkerPool {
+
+  static final String WORKER_PORT_OPTION = "algorithm.parallelBam.workerPort";
+  static final String WORKER_TOKEN_VARIABLE = "CPACHECKER_BAM_WORKER_TOKEN";
+  static final int WORKER_TOKEN_LENGTH = 32;
+
+  private static final int HANDSHAKE_TIMEOUT_MILLIS = 10000;
+
+  private static final String MAIN_CLASS = "org.sosy_lab.cpachecker.cmdline.CPAMain";
+  private static final Path COMMAND_LINE_FILE = Paths.get("/proc/self/cmdline");
+
+  @Option(
+    description =
+        "number of worker processes (separate JVMs) that analyze blocks in parallel to the "
+            + "current process. The workers exchange block summaries via the directory given "
+            + "with cpa.bam.cache.persistentDirectory, which should be on a memory-backed "
+            + "file system like /dev/shm. This is only supported on Linux."
+  )
+  @IntegerOption(min = 0)
+  private int workerProcesses = 0;
+
+  @Option(
+    description =
+        "additional JVM arguments for worker processes separated by spaces, e.g., the heap size"
+  )
+  private String workerJvmArguments = "";
+
+  @Option(
+    secure = true,
+    description = "output directories of worker processes, contain the console output"
+  )
+  @FileOption(FileOption.Type.OUTPUT_FILE)
+  private @Nullable PathTemplate workerOutputDirectories =
+      PathTemplate.ofFormatString("bamWorker.%d");
+
+  @Option(
+    description =
+        "time limit for a worker process to analyze a block, afterwards the block is analyzed "
+            + "locally and the worker is not used again (use seconds or specify a unit; "
+            + "0 for infinite)"
+  )
+  @TimeSpanOption(codeUnit = TimeUnit.MILLISECONDS, defaultUserUnit = TimeUnit.SECONDS, min = 0)
+  private TimeSpan workerTimeout = TimeSpan.ofSeconds(60);
+
+  private final BAMCPAWithBreakOnMissingBlock bamcpa;
+  private final LogManager logger;
+  private final ShutdownNotifier shutdownNotifier;
+  private final ShutdownRequestListener shutdownListener = reason -> close();
+  private final BAMSummaryStore store;
+  private final byte[] token = new byte[WORKER_TOKEN_LENGTH];
+
+  private final List<Process> processes = new CopyOnWriteArrayList<>();
+  private final BlockingQueue<WorkerConnection> idleWorkers = new LinkedBlockingQueue<>();
+  private final Set<WorkerConnection> connectedWorkers = ConcurrentHashMap.newKeySet();
+  private final ExecutorService requestExecutor =
+      Executors.newCachedThreadPool(
+          new ThreadFactoryBuilder()
+              .setDaemon(true)
+              .setNameFormat("BAM worker request %d")
+              .build());
+  private final Map<Block, Boolean> leafBlocks = new ConcurrentHashMap<>();
+  private @Nullable ServerSocket serverSocket = null;
+  private volatile boolean enabled;
+
+  private final StatCounter requests = new StatCounter("Number of blocks sent to worker processes");
+  private final StatCounter successfulRequests =
+      new StatCounter("Number of blocks analyzed by worker processes");
+  private final StatCounter busyRejections =
+      new StatCounter("Number of blocks analyzed locally because all workers were busy");
+  private final StatCounter timeouts = new StatCounter("Number of timeouts of worker processes");
+  private final StatCounter rejectedConnections =
+      new StatCounter("Number of rejected connections without valid token");
+  private final StatInt waitTime =
+      new StatInt(StatKind.SUM, "Time waiting for worker processes (ms)");
+
+  BAMWorkerPool(
+      Configuration pConfig,
+      LogManager pLogger,
+      ShutdownNotifier pShutdownNotifier,
+      BAMCPAWithBreakOnMissingBlock pBamCpa)
+      throws InvalidConfigurationException {
+    pConfig.inject(this);
+    bamcpa = pBamCpa;
+    logger = pLogger;
+    shutdownNotifier = pShutdownNotifier;
+    store =
+        new BAMSummaryStore(
+            pConfig, pLogger, bamcpa.getReducer(), bamcpa.getData().getReachedSetFactory());
+    enabled = workerProcesses > 0;
+    if (enabled && !store.isEnabled()) {
+      throw new InvalidConfigurationException(
+          "Worker processes for parallel BAM need a directory for block summaries, "
+              + "please set option cpa.bam.cache.persistentDirectory.");
+    }
+    if (enabled && workerOutputDirectories == null) {
+      throw new InvalidConfigurationException(
+          "Worker processes for parallel BAM need an output directory, "
+              + "please set option algorithm.parallelBam.workerOutputDirectories.");
+    }
+  }
+
+  /**
+   * Start the worker processes. The workers connect asynchronously when they are ready, until then
+   * all blocks are analyzed in the current process.
+   */
+  void start() throws IOException {
+    if (!enabled) {
+      return;
+    }
+    List<String> commandLine = getCommandLine();
+    new SecureRandom().nextBytes(token);
+    serverSocket = new ServerSocket(0, workerProcesses, InetAddress.getLoopbackAddress());
+    shutdownNotifier.registerAndCheckImmediately(shutdownListener);
+    Map<String, String> workerOptions =
+        ImmutableMap.of(
+            "algorithm.parallelBam.workerProcesses", "0",
+            WORKER_PORT_OPTION, Integer.toString(serverSocket.getLocalPort()),
+            "cpa.bam.cache.persistentDirectory", store.getDirectory().toAbsolutePath().toString());
+
+    for (int i = 0; i < workerProcesses && enabled; i++) {
+      Path outputDirectory = workerOutputDirectories.getPath(i).toAbsolutePath();
+      Files.createDirectories(outputDirectory);
+      List<String> command = new ArrayList<>(commandLine);
+      for (Map.Entry<String, String> option : workerOptions.entrySet()) {
+        command.add("-setprop");
+        command.add(option.getKey() + "=" + option.getValue());
+      }
+      command.add("-setprop");
+      command.add("output.path=" + outputDirectory);
+      ProcessBuilder processBuilder =
+          new ProcessBuilder(command)
+              .redirectErrorStream(true)
+              .redirectOutput(Redirect.appendTo(outputDirectory.resolve("console.log").toFile()));
+      // the token is not passed on the command line, which is visible for other users
+      processBuilder.environment().put(WORKER_TOKEN_VARIABLE, BaseEncoding.base16().encode(token));
+      processes.add(processBuilder.start());
+    }
+
+    Thread acceptor = new Thread(this::acceptWorkers, "BAM worker acceptor");
+    acceptor.setDaemon(true);
+    acceptor.start();
+    logger.logf(Level.INFO, "Started %d worker processes for parallel BAM", workerProcesses);
+  }
+
+  /**
+   * Return the command line of the current process, with the worker-specific JVM arguments
+   * inserted before the main class and without the arguments that are overridden for workers.
+   */
+  private List<String> getCommandLine() throws IOException {
+    List<String> commandLine =
+        Splitter.on('\0')
+            .omitEmptyStrings()
+            .splitToList(
+                new String(Files.readAllBytes(COMMAND_LINE_FILE), StandardCharsets.UTF_8));
+    int mainClassIndex = commandLine.indexOf(MAIN_CLASS);
+    if (mainClassIndex < 0) {
+      throw new IOException(
+          "Cannot determine command line for worker processes, main class not found in "
+              + commandLine);
+    }
+
+    ImmutableList.Builder<String> result = ImmutableList.builder();
+    result.addAll(commandLine.subList(0, mainClassIndex));
+    result.addAll(Splitter.on(' ').omitEmptyStrings().split(workerJvmArguments));
+    Iterator<String> args = commandLine.subList(mainClassIndex, commandLine.size()).iterator();
+    while (args.hasNext()) {
+      String arg = args.next();
+      if (arg.equals("-outputpath") && args.hasNext()) {
+        args.next();
+      } else if (arg.equals("-setprop") && args.hasNext()) {
+        String property = args.next();
+        if (!isOverriddenForWorkers(property)) {
+          result.add(arg, property);
+        }
+      } else {
+        result.add(arg);
+      }
+    }
+    return result.build();
+  }
+
+  /** Options that are set for worker processes must not be given twice on the command line. */
+  private static boolean isOverriddenForWorkers(String pProperty) {
+    return pProperty.startsWith("algorithm.parallelBam.worker")
+        || pProperty.startsWith("cpa.bam.cache.persistentDirectory=")
+        || pProperty.startsWith("output.path=");
+  }
+
+  private void acceptWorkers() {
+    try {
+      int accepted = 0;
+      while (accepted < workerProcesses) {
+        Socket socket = serverSocket.accept();
+        if (isAuthenticated(socket)) {
+          WorkerConnection worker = new WorkerConnection(socket);
+          connectedWorkers.add(worker);
+          idleWorkers.add(worker);
+          accepted++;
+        } else {
+          rejectedConnections.inc();
+          logger.log(Level.WARNING, "Rejected connection to parallel BAM without valid token");
+          socket.close();
+        }
+      }
+    } catch (IOException e) {
+      if (enabled) {
+        logger.logUserException(Level.WARNING, e, "Worker process for parallel BAM unavailable");
+      }
+    }
+  }
+
+  /** A worker sends the token of the current process directly after connecting. */
+  private boolean isAuthenticated(Socket pSocket) {
+    byte[] receivedToken = new byte[WORKER_TOKEN_LENGTH];
+    try {
+      pSocket.setSoTimeout(HANDSHAKE_TIMEOUT_MILLIS);
+      new DataInputStream(pSocket.getInputStream()).readFully(receivedToken);
+    } catch (IOException e) {
+      logger.logDebugException(e, "Handshake with worker process failed");
+      return false;
+    }
+    return MessageDigest.isEqual(token, receivedToken);
+  }
+
+  /**
+   * Request the summary of the block of the given reached-set from a worker process. The
+   * reached-set must only contain its initial state. The request is sent and awaited
+   * asynchronously, the returned future is completed with the summary, or with null if the worker
+   * failed. The summary has to be added to the reached-set with {@link #insertSummary}.
+   *
+   * @return the pending request, or null if no request was sent, e.g., because no worker is idle
+   */
+  @Nullable CompletableFuture<BAMCacheEntry> requestSummary(ReachedSet pReached, Block pBlock) {
+    ARGState root = (ARGState) pReached.getFirstState();
+    if (!enabled || pReached.size() != 1 || !isLeafBlock(pBlock)) {
+      return null;
+    }
+    WorkerConnection worker = idleWorkers.poll();
+    if (worker == null) {
+      busyRejections.inc();
+      return null;
+    }
+
+    Precision precision = pReached.getPrecision(root);
+    byte[] serializedRoot;
+    try {
+      serializedRoot = serialize(root);
+    } catch (IOException e) {
+      // e.g., NotSerializableException
+      idleWorkers.add(worker);
+      logger.logUserException(
+          Level.WARNING, e, "Abstract states cannot be sent to worker processes for parallel BAM");
+      enabled = false;
+      return null;
+    }
+
+    requests.inc();
+    try {
+      return CompletableFuture.supplyAsync(
+          () -> awaitSummary(worker, serializedRoot, root, precision, pBlock), requestExecutor);
+    } catch (RejectedExecutionException e) {
+      // the pool was closed concurrently
+      worker.close();
+      return null;
+    }
+  }
+
+  private @Nullable BAMCacheEntry awaitSummary(
+      WorkerConnection pWorker,
+      byte[] pSerializedRoot,
+      ARGState pRoot,
+      Precision pPrecision,
+      Block pBlock) {
+    long start = System.nanoTime();
+    boolean success = false;
+    try {
+      // the worker only compares the textual representation of the precision before analyzing,
+      // the summary is used only if the stored precision is equal to the requested one
+      success = pWorker.analyze(pSerializedRoot, pPrecision.toString(), workerTimeout);
+      idleWorkers.add(pWorker);
+    } catch (SocketTimeoutException e) {
+      // the worker may still be busy and cannot answer further requests in order
+      timeouts.inc();
+      logger.log(Level.INFO, "Worker process for parallel BAM timed out, analyzing block locally");
+      pWorker.close();
+    } catch (IOException e) {
+      if (enabled) {
+        logger.logUserException(Level.WARNING, e, "Worker process for parallel BAM failed");
+      }
+      pWorker.close();
+    } finally {
+      long waitMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+      waitTime.setNextValue(Ints.saturatedCast(waitMillis));
+    }
+    if (!success) {
+      return null;
+    }
+
+    synchronized (store) {
+      store.invalidate(pBlock);
+      return store.get(pRoot, pPrecision, pBlock);
+    }
+  }
+
+  /** A leaf block contains no entry of another block and can be analyzed independently. */
+  private boolean isLeafBlock(Block pBlock) {
+    BlockPartitioning partitioning = bamcpa.getBlockPartitioning();
+    return leafBlocks.computeIfAbsent(
+        pBlock,
+        b ->
+            b.getNodes()
+                .stream()
+                .noneMatch(n -> partitioning.isCallNode(n) && !b.getCallNodes().contains(n)));
+  }
+
+  private static byte[] serialize(ARGState pState) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+      oos.writeObject(pState);
+    }
+    return bytes.toByteArray();
+  }
+
+  /**
+   * Add all states of the summary to the reached-set, afterwards the reached-set has no waiting
+   * states. The root of the summary is replaced by the initial state of the reached-set, because
+   * other reached-sets refer to it.
+   */
+  void insertSummary(ReachedSet pReached, BAMCacheEntry pEntry) {
+    ARGState root = (ARGState) pReached.getFirstState();
+    ReachedSet summary = pEntry.getReachedSet();
+    ARGState summaryRoot = (ARGState) summary.getFirstState();
+    for (AbstractState state : summary) {
+      if (state != summaryRoot) {
+        pReached.add(state, summary.getPrecision(state));
+        pReached.removeOnlyFromWaitlist(state);
+      }
+    }
+    summaryRoot.replaceInARGWith(root);
+    pReached.removeOnlyFromWaitlist(root);
+    successfulRequests.inc();
+  }
+
+  /**
+   * Stop all worker processes. Pending requests are cancelled by closing their connections, their
+   * blocks are analyzed locally.
+   */
+  void close() {
+    enabled = false;
+    shutdownNotifier.unregister(shutdownListener);
+    if (serverSocket != null) {
+      try {
+        serverSocket.close();
+      } catch (IOException e) {
+        logger.logDebugException(e);
+      }
+    }
+    idleWorkers.clear();
+    for (WorkerConnection worker : connectedWorkers) {
+      worker.close();
+    }
+    requestExecutor.shutdownNow();
+    for (Process process : processes) {
+      process.destroy();
+    }
+  }
+
+  void printStatistics(PrintStream pOut) {
+    if (workerProcesses == 0) {
+      return;
+    }
+    StatisticsWriter.writingStatisticsTo(pOut)
+        .put("Number of worker processes", workerProcesses)
+        .put(requests)
+        .put(successfulRequests)
+        .put(busyRejections)
+        .putIfUpdatedAtLeastOnce(timeouts)
+        .putIfUpdatedAtLeastOnce(rejectedConnections)
+        .put(waitTime);
+    store.printStatistics(pOut);
+  }
+
+  /**
+   * The connection to a worker process. A request consists of the serialized initial state of the
+   * block and the textual representation of its precision, the response is whether the worker
+   * stored a summary for the block.
+   */
+  private static class WorkerConnection {
+
+    private final Socket socket;
+
+    WorkerConnection(Socket pSocket) {
+      socket = pSocket;
+    }
+
+    /**
+     * Send a request and wait for the response.
+     *
+     * @throws SocketTimeoutException if the worker does not answer within the given time limit
+     */
+    boolean analyze(byte[] pState, String pPrecision, TimeSpan pTimeout) throws IOException {
+      socket.setSoTimeout(Ints.saturatedCast(pTimeout.asMillis()));
+      DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+      writeBytes(out, pState);
+      writeBytes(out, pPrecision.getBytes(StandardCharsets.UTF_8));
+      out.flush();
+      return new DataInputStream(socket.getInputStream()).readBoolean();
+    }
+
+    void close() {
+      try {
+        socket.close();
+      } catch (IOException e) {
+        // worker is not usable anyway
+      }
+    }
+  }
+
+  static void writeBytes(DataOutputStream pOut, byte[] pBytes) throws IOException {
+    pOut.writeInt(pBytes.length);
+    pOut.write(pBytes);
+  }
+
+  static byte[] readBytes(DataInputStream pIn) throws IOException {
+    byte[] bytes = new byte[pIn.readInt()];
+    pIn.readFully(bytes);
+    return bytes;
+  }
+}
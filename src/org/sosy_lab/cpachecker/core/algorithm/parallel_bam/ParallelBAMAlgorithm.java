@@ -37,7 +37,9 @@ import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.PriorityBlockingQueue;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -69,6 +71,8 @@ import org.sosy_lab.cpachecker.cpa.bam.BAMReachedSetValidator;
 import org.sosy_lab.cpachecker.exceptions.CPAException;
 import org.sosy_lab.cpachecker.util.statistics.StatCounter;
 import org.sosy_lab.cpachecker.util.statistics.StatHist;
+import org.sosy_lab.cpachecker.util.statistics.StatInt;
+import org.sosy_lab.cpachecker.util.statistics.StatKind;
 import org.sosy_lab.cpachecker.util.statistics.StatTimer;
 import org.sosy_lab.cpachecker.util.statistics.StatisticsSeries;
 import org.sosy_lab.cpachecker.util.statistics.StatisticsSeries.NoopStatisticsSeries;
@@ -86,16 +90,52 @@ public class ParallelBAMAlgorithm implements Algorithm, StatisticsProvider {
   )
   private int numberOfThreads = -1;
 
-  @Option(description = "export number of running RSE instances as CSV", secure = true)
+  @Option(
+    description =
+        "export number of running RSE instances and queue-wait times of their tasks as CSV",
+    secure = true
+  )
   @FileOption(FileOption.Type.OUTPUT_FILE)
   private Path runningRSESeriesFile = Paths.get("RSESeries.csv");
 
+  @Option(
+    description =
+        "order in which pending tasks of reached-set executors are started by the thread pool. "
+            + "FIFO uses the order of submission, DEPENDENTS prefers executors "
+            + "on which many other executors wait, and CRITICAL_PATH additionally prefers "
+            + "executors on the dependency chain of the main reached-set.",
+    secure = true
+  )
+  private SchedulingPolicy schedulingPolicy = SchedulingPolicy.FIFO;
+
+  @Option(
+    name = "workerPort",
+    description =
+        "internal option for worker processes, see algorithm.parallelBam.workerProcesses: "
+            + "port of the coordinating process on the loopback interface"
+  )
+  private @Nullable Integer workerPort = null;
+
+  public enum SchedulingPolicy {
+    /** start tasks in the order of their submission. */
+    FIFO,
+    /** prefer tasks of executors with many directly waiting executors. */
+    DEPENDENTS,
+    /**
+     * prefer tasks of executors on the dependency chain of the main reached-set, then executors
+     * with many (transitively) waiting executors.
+     */
+    CRITICAL_PATH
+  }
+
   private final ParallelBAMStatistics stats = new ParallelBAMStatistics();
   private final LogManager logger;
   private final LogManagerWithoutDuplicates oneTimeLogger;
   private final BAMCPAWithBreakOnMissingBlock bamcpa;
   private final AlgorithmFactory algorithmFactory;
   private final ShutdownNotifier shutdownNotifier;
+  private final BAMWorkerPool workerPool;
+  private final @Nullable BAMWorker worker;
 
   public ParallelBAMAlgorithm(
       ConfigurableProgramAnalysis pCpa,
@@ -109,15 +149,38 @@ public class ParallelBAMAlgorithm implements Algorithm, StatisticsProvider {
     oneTimeLogger = new LogManagerWithoutDuplicates(pLogger);
     shutdownNotifier = pShutdownNotifier;
     algorithmFactory = new CPAAlgorithmFactory(bamcpa, logger, pConfig, pShutdownNotifier);
+    workerPool = new BAMWorkerPool(pConfig, logger, pShutdownNotifier, bamcpa);
+    worker =
+        workerPort == null
+            ? null
+            : new BAMWorker(pConfig, logger, pShutdownNotifier, bamcpa, algorithmFactory);
   }
 
   @Override
   public AlgorithmStatus run(final ReachedSet mainReachedSet)
       throws CPAException, InterruptedException {
+    if (worker != null) {
+      try {
+        worker.serve(workerPort, mainReachedSet);
+      } catch (IOException e) {
+        throw new CPAException("Communication with coordinating process failed", e);
+      }
+      // a worker does not check any property itself
+      return AlgorithmStatus.UNSOUND_AND_PRECISE;
+    }
+
     stats.wallTime.start();
+    try {
+      workerPool.start();
+    } catch (IOException e) {
+      logger.logUserException(
+          Level.WARNING, e, "Could not start worker processes, analyzing all blocks locally");
+      workerPool.close();
+    }
     try {
       return run0(mainReachedSet);
     } finally {
+      workerPool.close();
       stats.wallTime.stop();
     }
   }
@@ -129,14 +192,14 @@ public class ParallelBAMAlgorithm implements Algorithm, StatisticsProvider {
         new ConcurrentHashMap<>();
     final int numberOfCores = getNumberOfCores();
     oneTimeLogger.logfOnce(Level.INFO, "creating pool for %d threads", numberOfCores);
-    final ExecutorService pool = Executors.newFixedThreadPool(numberOfCores);
+    final ExecutorService pool = createPool(numberOfCores);
     final AtomicReference<Throwable> error = new AtomicReference<>(null);
     final AtomicBoolean terminateAnalysis = new AtomicBoolean(false);
 
     {
       int running = stats.numActiveThreads.get();
       assert running == 0;
-      stats.runningRSESeries.add(running);
+      stats.addToRunningRSESeries(running, 0);
     }
 
     ReachedSetExecutor rse =
@@ -147,6 +210,8 @@ public class ParallelBAMAlgorithm implements Algorithm, StatisticsProvider {
             true,
             reachedSetMapping,
             pool,
+            schedulingPolicy,
+            workerPool,
             algorithmFactory,
             shutdownNotifier,
             stats,
@@ -188,12 +253,29 @@ public class ParallelBAMAlgorithm implements Algorithm, StatisticsProvider {
     {
       int running = stats.numActiveThreads.get();
       assert running == 0;
-      stats.runningRSESeries.add(running);
+      stats.addToRunningRSESeries(running, 0);
     }
 
     return AlgorithmStatus.SOUND_AND_PRECISE.withSound(isSound);
   }
 
+  /**
+   * Create the thread pool for all reached-set executors. For FIFO scheduling we use a plain fixed
+   * thread pool, otherwise the pending tasks are ordered by their priority, see {@link
+   * ReachedSetExecutor.ScheduledTask}.
+   */
+  private ExecutorService createPool(int numberOfCores) {
+    if (schedulingPolicy == SchedulingPolicy.FIFO) {
+      return Executors.newFixedThreadPool(numberOfCores);
+    }
+    return new ThreadPoolExecutor(
+        numberOfCores,
+        numberOfCores,
+        0L,
+        TimeUnit.MILLISECONDS,
+        new PriorityBlockingQueue<Runnable>());
+  }
+
   private int getNumberOfCores() {
     if (numberOfThreads > 0) {
       return numberOfThreads;
@@ -282,20 +364,29 @@ public class ParallelBAMAlgorithm implements Algorithm, StatisticsProvider {
     final StatHist histActiveThreads = new StatHist("Active threads");
     final StatHist executionCounter = new StatHist("RSE execution counter");
     private final StatCounter unfinishedRSEcounter = new StatCounter("unfinished reached-sets");
+    final StatInt queueWaitTime = new StatInt(StatKind.SUM, "Queue-wait time for RSE tasks (ms)");
 
-    final StatisticsSeries<Integer> runningRSESeries =
+    /** each entry contains the number of running RSEs and the queue-wait time of the new task. */
+    private final StatisticsSeries<String> runningRSESeries =
         (runningRSESeriesFile == null) ? new NoopStatisticsSeries<>() : new StatisticsSeries<>();
 
+    void addToRunningRSESeries(int pRunning, long pQueueWaitMillis) {
+      runningRSESeries.add(pRunning + ", " + pQueueWaitMillis);
+    }
+
     @Override
     public void printStatistics(PrintStream pOut, Result pResult, UnmodifiableReachedSet pReached) {
       StatisticsUtils.write(pOut, 0, 50, "max number of executors", numMaxRSE);
       StatisticsUtils.write(pOut, 0, 50, histActiveThreads);
       StatisticsUtils.write(pOut, 0, 50, executionCounter);
       StatisticsUtils.write(pOut, 0, 50, unfinishedRSEcounter);
+      StatisticsUtils.write(pOut, 0, 50, "Scheduling policy", schedulingPolicy);
+      StatisticsUtils.write(pOut, 0, 50, queueWaitTime);
       StatisticsUtils.write(pOut, 0, 50, wallTime);
       StatisticsUtils.write(pOut, 0, 50, threadTime);
       StatisticsUtils.write(pOut, 1, 50, addingStatesTime);
       StatisticsUtils.write(pOut, 1, 50, terminationCheckTime);
+      workerPool.printStatistics(pOut);
 
       if (runningRSESeriesFile != null) {
         try {
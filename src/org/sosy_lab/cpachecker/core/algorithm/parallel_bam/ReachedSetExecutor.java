@@ -28,6 +28,7 @@ import static org.sosy_lab.cpachecker.util.AbstractStates.extractLocation;
 import com.google.common.base.Joiner;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Collections2;
+import com.google.common.collect.ComparisonChain;
 import com.google.common.collect.FluentIterable;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
@@ -35,6 +36,7 @@ import com.google.common.collect.LinkedHashMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
 import com.google.common.graph.Traverser;
+import com.google.common.primitives.Ints;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -47,10 +49,13 @@ import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
 import java.util.logging.Level;
+import javax.annotation.Nullable;
 import org.sosy_lab.common.ShutdownNotifier;
 import org.sosy_lab.common.log.LogManager;
 import org.sosy_lab.cpachecker.cfa.blocks.Block;
@@ -59,6 +64,7 @@ import org.sosy_lab.cpachecker.core.algorithm.Algorithm;
 import org.sosy_lab.cpachecker.core.algorithm.Algorithm.AlgorithmFactory;
 import org.sosy_lab.cpachecker.core.algorithm.Algorithm.AlgorithmStatus;
 import org.sosy_lab.cpachecker.core.algorithm.parallel_bam.ParallelBAMAlgorithm.ParallelBAMStatistics;
+import org.sosy_lab.cpachecker.core.algorithm.parallel_bam.ParallelBAMAlgorithm.SchedulingPolicy;
 import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
 import org.sosy_lab.cpachecker.core.interfaces.Precision;
 import org.sosy_lab.cpachecker.core.reachedset.ReachedSet;
@@ -101,6 +107,14 @@ class ReachedSetExecutor {
   private final ConcurrentMap<ReachedSet, ReachedSetExecutor> reachedSetMapping;
 
   private final ExecutorService pool;
+  private final SchedulingPolicy schedulingPolicy;
+  private final BAMWorkerPool workerPool;
+
+  /** Summary of the block from a worker process, to be added in the next task. */
+  private volatile @Nullable BAMCacheEntry workerSummary = null;
+
+  /** counter for FIFO-order of tasks with equal priority, shared over all RSEs. */
+  private static final AtomicLong taskSequence = new AtomicLong(0);
 
   private final BAMCPAWithBreakOnMissingBlock bamcpa;
   private final AlgorithmFactory algorithmFactory;
@@ -134,6 +148,12 @@ class ReachedSetExecutor {
   /** This future contains the list of tasks to be executed with this RSE. */
   private CompletableFuture<Void> waitingTask;
 
+  /**
+   * Queue-wait time of the currently executed task. Tasks of one RSE are executed sequentially, so
+   * only the thread executing the current task accesses this field.
+   */
+  private long currentQueueWaitMillis = 0;
+
   public ReachedSetExecutor(
       BAMCPAWithBreakOnMissingBlock pBamCpa,
       ReachedSet pRs,
@@ -141,6 +161,8 @@ class ReachedSetExecutor {
       boolean pIsMainReachedSet,
       ConcurrentMap<ReachedSet, ReachedSetExecutor> pReachedSetMapping,
       ExecutorService pPool,
+      SchedulingPolicy pSchedulingPolicy,
+      BAMWorkerPool pWorkerPool,
       AlgorithmFactory pAlgorithmFactory,
       ShutdownNotifier pShutdownNotifier,
       ParallelBAMStatistics pStats,
@@ -153,6 +175,8 @@ class ReachedSetExecutor {
     isMainReachedSet = pIsMainReachedSet;
     reachedSetMapping = pReachedSetMapping;
     pool = pPool;
+    schedulingPolicy = pSchedulingPolicy;
+    workerPool = pWorkerPool;
     algorithmFactory = pAlgorithmFactory;
     shutdownNotifier = pShutdownNotifier;
     stats = pStats;
@@ -170,7 +194,7 @@ class ReachedSetExecutor {
     addingStatesTimer = stats.addingStatesTime.getNewTimer();
     terminationCheckTimer = stats.terminationCheckTime.getNewTimer();
 
-    waitingTask = CompletableFuture.runAsync(NOOP, pool); // initialization
+    waitingTask = CompletableFuture.runAsync(NOOP, this::schedule); // initialization
   }
 
   public Runnable asRunnable() {
@@ -184,7 +208,45 @@ class ReachedSetExecutor {
   }
 
   synchronized void addNewTask(Runnable r) {
-    waitingTask = waitingTask.thenRunAsync(r, pool).exceptionally(new ExceptionHandler(this));
+    waitingTask =
+        waitingTask.thenRunAsync(r, this::schedule).exceptionally(new ExceptionHandler(this));
+  }
+
+  /**
+   * Submit a task of this RSE to the thread pool. The priority of the task is computed from the
+   * current dependencies, i.e., when the task gets ready for execution.
+   */
+  private void schedule(Runnable r) {
+    final boolean onMainChain;
+    final int waitingRSEs;
+    switch (schedulingPolicy) {
+      case FIFO:
+        onMainChain = false;
+        waitingRSEs = 0;
+        break;
+      case DEPENDENTS:
+        onMainChain = false;
+        waitingRSEs = getDependents().size();
+        break;
+      case CRITICAL_PATH:
+        Set<ReachedSetExecutor> transitiveDependents =
+            ImmutableSet.copyOf(
+                Traverser.<ReachedSetExecutor>forGraph(rse -> rse.getDependents())
+                    .breadthFirst(this));
+        onMainChain = Iterables.any(transitiveDependents, rse -> rse.isMainReachedSet);
+        waitingRSEs = transitiveDependents.size() - 1; // without the current RSE
+        break;
+      default:
+        throw new AssertionError("unhandled scheduling policy: " + schedulingPolicy);
+    }
+    pool.execute(new ScheduledTask(this, r, onMainChain, waitingRSEs));
+  }
+
+  /** returns a copy of all RSEs that directly wait for the current one. */
+  private Set<ReachedSetExecutor> getDependents() {
+    synchronized (dependingFrom) {
+      return ImmutableSet.copyOf(dependingFrom.keySet());
+    }
   }
 
   /** use only for debugging and exception handling */
@@ -204,7 +266,7 @@ class ReachedSetExecutor {
     int running = stats.numActiveThreads.incrementAndGet();
     stats.histActiveThreads.insertValue(running);
     stats.numMaxRSE.accumulate(reachedSetMapping.size());
-    stats.runningRSESeries.add(running);
+    stats.addToRunningRSESeries(running, currentQueueWaitMillis);
     execCounter++;
 
     try { // big try-block to catch all exceptions
@@ -230,6 +292,28 @@ class ReachedSetExecutor {
       // TODO checking this once on RSE-creation would be sufficient
       checkForTargetState();
 
+      if (!targetStateFound && execCounter == 1 && !isMainReachedSet) {
+        // A new block without nested blocks can be analyzed by a worker process.
+        // We do not block the current thread while waiting for the worker,
+        // but continue with a new task when the worker has answered.
+        CompletableFuture<BAMCacheEntry> request = workerPool.requestSummary(rs, block);
+        if (request != null) {
+          request.whenComplete(
+              (summary, e) -> {
+                workerSummary = summary;
+                addNewTask(asRunnable());
+              });
+          logger.logf(level, "%s :: waiting for worker process", this);
+          return;
+        }
+      }
+
+      if (workerSummary != null) {
+        // afterwards the reached-set has no waiting states
+        workerPool.insertSummary(rs, workerSummary);
+        workerSummary = null;
+      }
+
       if (!targetStateFound) {
         // further analysis of the reached-set, sub-analysis is scheduled if necessary
         @SuppressWarnings("unused")
@@ -522,6 +606,8 @@ class ReachedSetExecutor {
             false, // mainReachedSet is never nested in another reached-set
             reachedSetMapping,
             pool,
+            schedulingPolicy,
+            workerPool,
             algorithmFactory,
             shutdownNotifier,
             stats,
@@ -571,6 +657,56 @@ class ReachedSetExecutor {
     return "digraph DEPENDENCIES {\n  " + Joiner.on(";\n  ").join(dependencies) + ";\n}\n";
   }
 
+  /**
+   * A task of an RSE in the thread pool, ordered by priority if the pool uses a priority queue.
+   * Tasks on the dependency chain of the main reached-set come first, then tasks whose RSE blocks
+   * more other RSEs. Tasks with equal priority are ordered by their submission.
+   */
+  static final class ScheduledTask implements Runnable, Comparable<ScheduledTask> {
+
+    private final ReachedSetExecutor rse;
+    private final Runnable task;
+    private final boolean onMainChain;
+    private final int waitingRSEs;
+    private final long sequence = taskSequence.getAndIncrement();
+    private final long submissionTime = System.nanoTime();
+
+    private ScheduledTask(
+        ReachedSetExecutor pRse, Runnable pTask, boolean pOnMainChain, int pWaitingRSEs) {
+      rse = pRse;
+      task = pTask;
+      onMainChain = pOnMainChain;
+      waitingRSEs = pWaitingRSEs;
+    }
+
+    @Override
+    public void run() {
+      long waitMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - submissionTime);
+      rse.stats.queueWaitTime.setNextValue(Ints.saturatedCast(waitMillis));
+      rse.currentQueueWaitMillis = waitMillis;
+      task.run();
+    }
+
+    @Override
+    public int compareTo(ScheduledTask pOther) {
+      return ComparisonChain.start()
+          .compareTrueFirst(onMainChain, pOther.onMainChain)
+          .compare(pOther.waitingRSEs, waitingRSEs) // more waiting RSEs first
+          .compare(sequence, pOther.sequence)
+          .result();
+    }
+
+    @Override
+    public boolean equals(Object pOther) {
+      return super.equals(pOther); // object identity
+    }
+
+    @Override
+    public int hashCode() {
+      return super.hashCode(); // object identity
+    }
+  }
+
   class ExceptionHandler implements Function<Throwable, Void> {
 
     private final ReachedSetExecutor rse;
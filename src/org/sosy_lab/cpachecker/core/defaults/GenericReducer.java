@@ -60,6 +60,17 @@ public abstract class GenericReducer<S extends AbstractState, P extends Precisio
 
   protected abstract Object getHashCodeForState0(S pStateKey, P pPrecisionKey);
 
+  @Override
+  public final long getFingerprintForState(
+      AbstractState pStateKey, Precision pPrecisionKey, Object pHashCodeForState) {
+    return getFingerprintForState0((S) pStateKey, (P) pPrecisionKey, pHashCodeForState);
+  }
+
+  /** see {@link Reducer#getFingerprintForState(AbstractState, Precision, Object)}. */
+  protected long getFingerprintForState0(S pStateKey, P pPrecisionKey, Object pHashCodeForState) {
+    return pHashCodeForState.hashCode();
+  }
+
   @Override
   public final Precision getVariableReducedPrecision(Precision pPrecision, Block pContext) {
     return getVariableReducedPrecision0((P) pPrecision, pContext);
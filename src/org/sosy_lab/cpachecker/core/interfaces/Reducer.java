@@ -75,6 +75,24 @@ public interface Reducer {
    * <code> BAMCache.AbstractStateHash </code>. */
   Object getHashCodeForState(AbstractState stateKey, Precision precisionKey);
 
+  /**
+   * Returns a 64-bit fingerprint for the stateKey and the precisionKey. The fingerprint is
+   * computed once per cache key and compared before the (potentially expensive) equality check of
+   * the objects returned by {@link #getHashCodeForState(AbstractState, Precision)}.
+   *
+   * <p>Equal hashable objects must have equal fingerprints. Different objects may have equal
+   * fingerprints, but such collisions should be rare. The default implementation uses the
+   * hashCode of the hashable object, reducers for expensive domains should provide a more precise
+   * and cheaper fingerprint.
+   *
+   * @param hashCodeForState the object returned by {@link #getHashCodeForState(AbstractState,
+   *     Precision)} for the stateKey and the precisionKey, such that it is not computed again.
+   */
+  default long getFingerprintForState(
+      AbstractState stateKey, Precision precisionKey, Object hashCodeForState) {
+    return hashCodeForState.hashCode();
+  }
+
   /**
    * @param pPrecision Precision object.
    * @param pOtherPrecision Other precision object.
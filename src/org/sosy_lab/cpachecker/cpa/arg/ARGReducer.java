@@ -66,6 +66,13 @@ class ARGReducer extends GenericReducer<ARGState, Precision> {
     return wrappedReducer.getHashCodeForState(pElementKey.getWrappedState(), pPrecisionKey);
   }
 
+  @Override
+  protected long getFingerprintForState0(
+      ARGState pElementKey, Precision pPrecisionKey, Object pHashCodeForState) {
+    return wrappedReducer.getFingerprintForState(
+        pElementKey.getWrappedState(), pPrecisionKey, pHashCodeForState);
+  }
+
   @Override
   protected Precision getVariableReducedPrecision0(Precision pPrecision, Block pContext) {
     return wrappedReducer.getVariableReducedPrecision(pPrecision, pContext);
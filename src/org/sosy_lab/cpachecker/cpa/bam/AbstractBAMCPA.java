@@ -48,6 +48,7 @@ import org.sosy_lab.cpachecker.core.Specification;
 import org.sosy_lab.cpachecker.core.defaults.AbstractSingleWrapperCPA;
 import org.sosy_lab.cpachecker.core.interfaces.ConfigurableProgramAnalysis;
 import org.sosy_lab.cpachecker.core.interfaces.ConfigurableProgramAnalysisWithBAM;
+import org.sosy_lab.cpachecker.core.interfaces.Reducer;
 import org.sosy_lab.cpachecker.core.interfaces.Statistics;
 import org.sosy_lab.cpachecker.cpa.arg.ARGStatistics;
 import org.sosy_lab.cpachecker.cpa.bam.TimedReducer.ReducerStatistics;
@@ -99,6 +100,16 @@ public abstract class AbstractBAMCPA extends AbstractSingleWrapperCPA {
   )
   private boolean useCopyOnWriteRefinement = false;
 
+  @Option(
+    secure = true,
+    description =
+        "Construct only a single path through the nested reached-sets for refinement, "
+            + "instead of the subgraph of all paths to the target state. "
+            + "Then only the blocks along this path are expanded, "
+            + "but the refinement does not see other paths to the target state."
+  )
+  private boolean useLazyCounterexamplePath = false;
+
   final Timer blockPartitioningTimer = new Timer();
   final ReducerStatistics reducerStatistics;
 
@@ -168,7 +179,7 @@ public abstract class AbstractBAMCPA extends AbstractSingleWrapperCPA {
     return logger;
   }
 
-  TimedReducer getReducer() {
+  public Reducer getReducer() {
     try {
       return new TimedReducer(reducerStatistics, getWrappedCpa().getReducer());
     } catch (InvalidConfigurationException e) {
@@ -207,6 +218,10 @@ public abstract class AbstractBAMCPA extends AbstractSingleWrapperCPA {
     return useCopyOnWriteRefinement;
   }
 
+  boolean useLazyCounterexamplePath() {
+    return useLazyCounterexamplePath;
+  }
+
   boolean useDynamicAdjustment() {
     return useDynamicAdjustment;
   }
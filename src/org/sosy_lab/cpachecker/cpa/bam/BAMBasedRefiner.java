@@ -44,6 +44,8 @@ import org.sosy_lab.cpachecker.exceptions.CPAException;
 import org.sosy_lab.cpachecker.exceptions.CPATransferException;
 import org.sosy_lab.cpachecker.util.CPAs;
 import org.sosy_lab.cpachecker.util.Pair;
+import org.sosy_lab.cpachecker.util.statistics.StatInt;
+import org.sosy_lab.cpachecker.util.statistics.StatKind;
 import org.sosy_lab.cpachecker.util.statistics.StatTimer;
 
 /**
@@ -60,6 +62,8 @@ public final class BAMBasedRefiner extends AbstractARGBasedRefiner {
   final StatTimer computeSubtreeTimer = new StatTimer("Constructing flat ARG");
   final StatTimer computeCounterexampleTimer = new StatTimer("Searching path to error location");
   final StatTimer removeCachedSubtreeTimer = new StatTimer("Removing cached subtrees");
+  final StatInt flatARGStates = new StatInt(StatKind.SUM, "Number of states in flat ARG");
+  final StatInt expandedBlocks = new StatInt(StatKind.SUM, "Number of expanded blocks in flat ARG");
 
   private final AbstractBAMCPA bamCpa;
 
@@ -126,8 +130,16 @@ public final class BAMBasedRefiner extends AbstractARGBasedRefiner {
       try {
         try {
           final BAMSubgraphComputer cexSubgraphComputer = new BAMSubgraphComputer(bamCpa);
-          rootAndTargetOfSubgraph = Preconditions.checkNotNull(
-              cexSubgraphComputer.computeCounterexampleSubgraph(pLastElement, pMainReachedSet));
+          if (bamCpa.useLazyCounterexamplePath()) {
+            rootAndTargetOfSubgraph =
+                Preconditions.checkNotNull(
+                    cexSubgraphComputer.computeCounterexamplePath(pLastElement, pMainReachedSet));
+          } else {
+            rootAndTargetOfSubgraph = Preconditions.checkNotNull(
+                cexSubgraphComputer.computeCounterexampleSubgraph(pLastElement, pMainReachedSet));
+          }
+          flatARGStates.setNextValue(cexSubgraphComputer.getNumberOfCreatedStates());
+          expandedBlocks.setNextValue(cexSubgraphComputer.getNumberOfExpandedBlocks());
         } catch (MissingBlockException e) {
           // We return NULL, such that the method performRefinementForPath can handle it.
           return null;
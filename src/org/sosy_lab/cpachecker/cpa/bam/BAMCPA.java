@@ -45,11 +45,11 @@ import org.sosy_lab.cpachecker.core.interfaces.StopOperator;
 import org.sosy_lab.cpachecker.core.interfaces.pcc.ProofChecker;
 import org.sosy_lab.cpachecker.core.reachedset.ReachedSetFactory;
 import org.sosy_lab.cpachecker.cpa.arg.ARGState;
-import org.sosy_lab.cpachecker.cpa.bam.cache.BAMCache;
 import org.sosy_lab.cpachecker.cpa.bam.cache.BAMCacheAggressiveImpl;
 import org.sosy_lab.cpachecker.cpa.bam.cache.BAMCacheImpl;
 import org.sosy_lab.cpachecker.cpa.bam.cache.BAMDataManager;
 import org.sosy_lab.cpachecker.cpa.bam.cache.BAMDataManagerImpl;
+import org.sosy_lab.cpachecker.cpa.bam.cache.BAMSummaryStore;
 import org.sosy_lab.cpachecker.exceptions.CPAException;
 import org.sosy_lab.cpachecker.exceptions.CPATransferException;
 
@@ -95,12 +95,22 @@ public class BAMCPA extends AbstractBAMCPA implements StatisticsProvider, ProofC
       this.wrappedProofChecker = null;
     }
 
-    final BAMCache cache;
+    final BAMCacheImpl cache;
     if (aggressiveCaching) {
       cache = new BAMCacheAggressiveImpl(config, getReducer(), logger);
     } else {
       cache = new BAMCacheImpl(config, getReducer(), logger);
     }
+    if (handleRecursiveProcedures && cache.hasSizeLimit()) {
+      // the fixpoint iteration for recursion needs all cached reached-sets
+      throw new InvalidConfigurationException(
+          "BAM cannot limit the cache size when handling recursive procedures.");
+    }
+    BAMSummaryStore summaryStore =
+        new BAMSummaryStore(config, pLogger, getReducer(), pReachedSetFactory);
+    if (summaryStore.isEnabled()) {
+      cache.usePersistentSummaries(summaryStore);
+    }
     data = new BAMDataManagerImpl(cache, pReachedSetFactory, pLogger);
 
     bamPccManager = new BAMPCCManager(
@@ -26,9 +26,13 @@ package org.sosy_lab.cpachecker.cpa.bam;
 import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import org.sosy_lab.cpachecker.core.CPAcheckerResult.Result;
 import org.sosy_lab.cpachecker.core.interfaces.Statistics;
 import org.sosy_lab.cpachecker.core.reachedset.UnmodifiableReachedSet;
+import org.sosy_lab.cpachecker.cpa.bam.cache.BAMDataManager;
+import org.sosy_lab.cpachecker.cpa.bam.cache.BAMDataManagerConcurrent;
+import org.sosy_lab.cpachecker.util.statistics.StatCounter;
 
 /**
  * Prints some BAM related statistics
@@ -61,11 +65,25 @@ class BAMCPAStatistics implements Statistics {
     put(out, 0, cpa.reducerStatistics.reducePrecisionTime);
     put(out, 0, cpa.reducerStatistics.expandPrecisionTime);
 
+    BAMDataManager data = cpa.getData();
+    if (data instanceof BAMDataManagerConcurrent) {
+      for (StatCounter counter : ((BAMDataManagerConcurrent) data).getContentionStatistics()) {
+        put(out, 0, counter);
+      }
+    }
+
     for (BAMBasedRefiner refiner : refiners) {
       // TODO We print these statistics also for use-cases of BAM-refiners, that never use timers. Can we ignore them?
       out.println("\n" + refiner.getClass().getSimpleName() + ":");
       put(out, 1, refiner.computePathTimer);
       put(out, 1, refiner.computeSubtreeTimer);
+      put(
+          out,
+          2,
+          "Max time per refinement",
+          refiner.computeSubtreeTimer.getMaxTime().formatAs(TimeUnit.SECONDS));
+      put(out, 2, refiner.flatARGStates);
+      put(out, 2, refiner.expandedBlocks);
       put(out, 1, refiner.computeCounterexampleTimer);
       put(out, 1, refiner.removeCachedSubtreeTimer);
     }
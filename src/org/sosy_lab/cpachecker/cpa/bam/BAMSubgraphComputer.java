@@ -61,6 +61,10 @@ public class BAMSubgraphComputer {
   private final LogManager logger;
   private final boolean useCopyOnWriteRefinement;
 
+  /** statistics for the last computation of a subgraph or path. */
+  private int createdStates = 0;
+  private int expandedBlocks = 0;
+
   BAMSubgraphComputer(AbstractBAMCPA bamCpa) {
     this.partitioning = bamCpa.getBlockPartitioning();
     this.reducer = bamCpa.getReducer();
@@ -107,12 +111,137 @@ public class BAMSubgraphComputer {
       : "target states should be contained in reached-set. The following states are not contained: "
         + Iterables.filter(targets, s -> !mainRs.contains(s));
     assert !targets.isEmpty() : "cannot compute subgraph without target states";
-    Collection<BackwardARGState> newTargets = from(targets).transform(BackwardARGState::new).toList();
+    createdStates = 0;
+    expandedBlocks = 0;
+    Collection<BackwardARGState> newTargets =
+        from(targets).transform(this::newBackwardARGState).toList();
     BackwardARGState root = computeCounterexampleSubgraph(pMainReachedSet, newTargets);
     assert mainRs.getFirstState() == root.getARGState();
     return Pair.of(root, newTargets);
   }
 
+  /**
+   * Returns the root of a single path, leading from the root element of the given reachedSet to
+   * the target state. In contrast to {@link #computeCounterexampleSubgraph(ARGState,
+   * ARGReachedSet)}, we do not build the subgraph of all paths towards the target, but follow only
+   * one parent of each state. Thus only the reached-sets of blocks along this path are expanded.
+   *
+   * @param target a state from the reachedSet, is used as the last state of the returned path.
+   * @param pMainReachedSet most outer reached set, contains the target-state.
+   * @return root and target of a path that ends in newTreeTarget.
+   * @throws MissingBlockException for re-computing some blocks
+   */
+  Pair<BackwardARGState, BackwardARGState> computeCounterexamplePath(
+      final ARGState target, final ARGReachedSet pMainReachedSet)
+      throws MissingBlockException, InterruptedException {
+    assert pMainReachedSet.asReachedSet().contains(target)
+        : "target state should be contained in reached-set";
+    createdStates = 0;
+    expandedBlocks = 0;
+    BackwardARGState newTarget = newBackwardARGState(target);
+    BackwardARGState root = computeCounterexamplePath(pMainReachedSet, newTarget);
+    assert pMainReachedSet.asReachedSet().getFirstState() == root.getARGState();
+    return Pair.of(root, newTarget);
+  }
+
+  /**
+   * Compute a path within the given reached set, backwards from target (wrapped by newTarget)
+   * towards the root of the reached set.
+   */
+  private BackwardARGState computeCounterexamplePath(
+      final ARGReachedSet reachedSet, final BackwardARGState newTarget)
+      throws MissingBlockException, InterruptedException {
+    ARGState currentState = newTarget.getARGState();
+    BackwardARGState newCurrentState = newTarget;
+
+    while (!currentState.getParents().isEmpty()) {
+      // any parent is sufficient, because each state in the ARG is reachable from the root.
+      final ARGState parent = Iterables.getFirst(currentState.getParents(), null);
+      assert reachedSet.asReachedSet().contains(parent);
+      final BackwardARGState newParent = newBackwardARGState(parent);
+
+      if (data.hasInitialState(parent)) {
+        // the current state is an expanded exit-state of the block starting at parent.
+        try {
+          computeCounterexamplePathForBlock(newParent, newCurrentState);
+        } catch (MissingBlockException e) {
+          assert !useCopyOnWriteRefinement
+              : "CopyOnWrite-refinement should never cause missing blocks: " + e;
+          ARGInPlaceSubtreeRemover.removeSubtree(reachedSet, parent);
+          throw new MissingBlockException();
+        }
+      } else {
+        assert !parent.getEdgesToChild(currentState).isEmpty()
+            : String.format(
+                "unexpected ARG state: parent has no edge to child: %s -/-> %s",
+                parent, currentState);
+        newCurrentState.addParent(newParent);
+      }
+
+      currentState = parent;
+      newCurrentState = newParent;
+    }
+    return newCurrentState;
+  }
+
+  /**
+   * Enter the block starting at the expanded root and insert a path through the block's
+   * reached-set between the expanded root and the expanded target.
+   *
+   * @see #computeCounterexampleSubgraphForBlock(BackwardARGState, Set)
+   */
+  private void computeCounterexamplePathForBlock(
+      final BackwardARGState newExpandedRoot, final BackwardARGState newExpandedTarget)
+      throws MissingBlockException, InterruptedException {
+    expandedBlocks++;
+    final ARGState expandedRoot = newExpandedRoot.getARGState();
+    final ARGState reducedTarget = getReducedTarget(newExpandedTarget);
+    final ReachedSet reachedSet = data.getReachedSetForInitialState(expandedRoot, reducedTarget);
+    assert reachedSet.contains(reducedTarget)
+        : String.format(
+            "reduced state '%s' is not part of reachedset with root '%s' from expanded root '%s'",
+            reducedTarget, reachedSet.getFirstState(), expandedRoot);
+
+    final BackwardARGState newInnerTarget = newBackwardARGState(reducedTarget);
+    final BackwardARGState newInnerRoot;
+    try {
+      newInnerRoot = computeCounterexamplePath(new ARGReachedSet(reachedSet), newInnerTarget);
+    } catch (MissingBlockException e) {
+      removeCachedEntry(expandedRoot, reachedSet);
+      throw new MissingBlockException();
+    }
+
+    // reconnect path: replace root and target of the inner block with the states
+    // from the outer block, as in computeCounterexampleSubgraphForBlock.
+    if (newInnerRoot == newInnerTarget) {
+      newExpandedTarget.addParent(newExpandedRoot);
+    } else {
+      for (ARGState innerChild : newInnerRoot.getChildren()) {
+        innerChild.addParent(newExpandedRoot);
+      }
+      newInnerRoot.removeFromARG();
+      for (ARGState innerParent : newInnerTarget.getParents()) {
+        newExpandedTarget.addParent(innerParent);
+      }
+    }
+    newInnerTarget.removeFromARG();
+  }
+
+  private BackwardARGState newBackwardARGState(ARGState pState) {
+    createdStates++;
+    return new BackwardARGState(pState);
+  }
+
+  /** Returns the number of states created for the subgraph or path computed last. */
+  int getNumberOfCreatedStates() {
+    return createdStates;
+  }
+
+  /** Returns the number of entered block reached-sets for the subgraph or path computed last. */
+  int getNumberOfExpandedBlocks() {
+    return expandedBlocks;
+  }
+
   /**
    * Compute a subgraph within the given reached set,
    * backwards from target (wrapped by newTreeTarget) towards the root of the reached set.
@@ -142,7 +271,7 @@ public class BAMSubgraphComputer {
         continue; // state already done
       }
 
-      final BackwardARGState newCurrentState = new BackwardARGState(currentState);
+      final BackwardARGState newCurrentState = newBackwardARGState(currentState);
       finishedStates.put(currentState, newCurrentState);
 
       // add parent for further processing
@@ -214,6 +343,7 @@ public class BAMSubgraphComputer {
           final BackwardARGState newExpandedRoot,
           final Set<BackwardARGState> newExpandedTargets)
       throws MissingBlockException, InterruptedException {
+    expandedBlocks++;
 
     ARGState expandedRoot = (ARGState) newExpandedRoot.getWrappedState();
     final Multimap<ReachedSet, BackwardARGState> reachedSets = LinkedHashMultimap.create();
@@ -222,21 +352,7 @@ public class BAMSubgraphComputer {
 
     for (BackwardARGState newExpandedTarget : newExpandedTargets) {
 
-      if (!data.hasExpandedState(newExpandedTarget.getARGState())) {
-        logger.log(Level.FINE,
-            "Target state refers to a missing ARGState, i.e., the cached subtree was deleted. Updating it.");
-        throw new MissingBlockException();
-      }
-
-      final ARGState reducedTarget =
-          (ARGState) data.getReducedStateForExpandedState(newExpandedTarget.getARGState());
-
-      // first check, if the cached state is valid.
-      if (reducedTarget.isDestroyed()) {
-        logger.log(Level.FINE,
-            "Target state refers to a destroyed ARGState, i.e., the cached subtree is outdated. Updating it.");
-        throw new MissingBlockException();
-      }
+      final ARGState reducedTarget = getReducedTarget(newExpandedTarget);
 
       final ReachedSet reachedSet = data.getReachedSetForInitialState(expandedRoot, reducedTarget);
       assert reachedSet.contains(reducedTarget)
@@ -246,7 +362,7 @@ public class BAMSubgraphComputer {
 
       // we found the reached-set, corresponding to the root and precision.
       // now try to find a path from the target towards the root of the reached-set.
-      BackwardARGState newBackwardTarget = new BackwardARGState(reducedTarget);
+      BackwardARGState newBackwardTarget = newBackwardARGState(reducedTarget);
       newExpandedToNewInnerTargets.put(newExpandedTarget, newBackwardTarget);
       reachedSets.put(reachedSet, newBackwardTarget);
     }
@@ -259,27 +375,7 @@ public class BAMSubgraphComputer {
             computeCounterexampleSubgraph(
                 new ARGReachedSet(reachedSet), newExpandedToNewInnerTargets.values());
       } catch (MissingBlockException e) {
-        // enforce recomputation to update cached subtree
-        logger.log(
-            Level.FINE,
-            "Target state refers to a destroyed ARGState, i.e., the cached subtree will be removed.");
-
-        // TODO why do we use precision of reachedSet from 'abstractStateToReachedSet' here and not
-        // the reduced precision?
-        final CFANode rootNode = extractLocation(expandedRoot);
-        final Block rootBlock = partitioning.getBlockForCallNode(rootNode);
-        final AbstractState reducedRootState =
-            reducer.getVariableReducedState(expandedRoot, rootBlock, rootNode);
-        BAMCacheEntry cacheEntry =
-            data.getCache()
-                .get(
-                    reducedRootState,
-                    reachedSet.getPrecision(reachedSet.getFirstState()),
-                    rootBlock);
-        if (cacheEntry != null) {
-          // TODO do we need this check? Maybe there is a bug, if the entry is not available?
-          cacheEntry.deleteInfo();
-        }
+        removeCachedEntry(expandedRoot, reachedSet);
         throw new MissingBlockException();
       }
 
@@ -306,6 +402,56 @@ public class BAMSubgraphComputer {
     // is inserted between newCurrentState and child.
   }
 
+  /**
+   * Returns the reduced exit-state of the block for the given expanded exit-state.
+   *
+   * @throws MissingBlockException if the cached state is missing or outdated.
+   */
+  private ARGState getReducedTarget(BackwardARGState newExpandedTarget)
+      throws MissingBlockException {
+    if (!data.hasExpandedState(newExpandedTarget.getARGState())) {
+      logger.log(Level.FINE,
+          "Target state refers to a missing ARGState, i.e., the cached subtree was deleted. Updating it.");
+      throw new MissingBlockException();
+    }
+
+    final ARGState reducedTarget =
+        (ARGState) data.getReducedStateForExpandedState(newExpandedTarget.getARGState());
+
+    // first check, if the cached state is valid.
+    if (reducedTarget.isDestroyed()) {
+      logger.log(Level.FINE,
+          "Target state refers to a destroyed ARGState, i.e., the cached subtree is outdated. Updating it.");
+      throw new MissingBlockException();
+    }
+    return reducedTarget;
+  }
+
+  /** Enforce recomputation of the block's reached-set to update the cached subtree. */
+  private void removeCachedEntry(ARGState expandedRoot, ReachedSet reachedSet)
+      throws InterruptedException {
+    logger.log(
+        Level.FINE,
+        "Target state refers to a destroyed ARGState, i.e., the cached subtree will be removed.");
+
+    // TODO why do we use precision of reachedSet from 'abstractStateToReachedSet' here and not
+    // the reduced precision?
+    final CFANode rootNode = extractLocation(expandedRoot);
+    final Block rootBlock = partitioning.getBlockForCallNode(rootNode);
+    final AbstractState reducedRootState =
+        reducer.getVariableReducedState(expandedRoot, rootBlock, rootNode);
+    BAMCacheEntry cacheEntry =
+        data.getCache()
+            .get(
+                reducedRootState,
+                reachedSet.getPrecision(reachedSet.getFirstState()),
+                rootBlock);
+    if (cacheEntry != null) {
+      // TODO do we need this check? Maybe there is a bug, if the entry is not available?
+      cacheEntry.deleteInfo();
+    }
+  }
+
   /**
    * This ARGState is used to build the Pseudo-ARG for CEX-retrieval.
    *
@@ -89,6 +89,12 @@ class TimedReducer implements Reducer {
     return wrappedReducer.getHashCodeForState(pElementKey, pPrecisionKey);
   }
 
+  @Override
+  public long getFingerprintForState(
+      AbstractState pElementKey, Precision pPrecisionKey, Object pHashCodeForState) {
+    return wrappedReducer.getFingerprintForState(pElementKey, pPrecisionKey, pHashCodeForState);
+  }
+
   @Override
   public Precision getVariableReducedPrecision(Precision pPrecision,
       Block pContext) {
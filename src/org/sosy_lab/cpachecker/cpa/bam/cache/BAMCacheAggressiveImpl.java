@@ -25,6 +25,7 @@ package org.sosy_lab.cpachecker.cpa.bam.cache;
 
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
 import java.util.logging.Level;
 import javax.annotation.Nullable;
 import org.sosy_lab.common.configuration.Configuration;
@@ -77,6 +78,11 @@ public class BAMCacheAggressiveImpl extends BAMCacheImpl {
     return super.getIfNotExistant(stateKey, precisionKey, context, hash);
   }
 
+  @Override
+  protected void onEviction(Set<BAMCacheEntry> pEvictedEntries) {
+    impreciseReachedCache.values().removeIf(pEvictedEntries::contains);
+  }
+
   /** Return the cache hit with the closest precision (used for aggressive caching). */
   private BAMCacheEntry lookForSimilarState(
       AbstractState pStateKey, Precision pPrecisionKey, Block pContext) {
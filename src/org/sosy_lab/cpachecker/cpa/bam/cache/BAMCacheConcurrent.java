@@ -0,0 +1,224 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.bam.cache;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.sosy_lab.cpachecker.util.statistics.StatisticsUtils.toPercent;
+
+import com.google.common.collect.Collections2;
+import java.io.PrintStream;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import javax.annotation.Nullable;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.cfa.blocks.Block;
+import org.sosy_lab.cpachecker.core.CPAcheckerResult.Result;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.Precision;
+import org.sosy_lab.cpachecker.core.interfaces.Reducer;
+import org.sosy_lab.cpachecker.core.reachedset.ReachedSet;
+import org.sosy_lab.cpachecker.core.reachedset.UnmodifiableReachedSet;
+import org.sosy_lab.cpachecker.cpa.arg.ARGState;
+import org.sosy_lab.cpachecker.util.statistics.StatCounter;
+import org.sosy_lab.cpachecker.util.statistics.ThreadSafeTimerContainer;
+import org.sosy_lab.cpachecker.util.statistics.ThreadSafeTimerContainer.TimerWrapper;
+
+/**
+ * A thread-safe cache for parallel BAM without a global lock.
+ *
+ * <p>The entries are stored in a concurrent hash map keyed by the reduced-state hash, such that
+ * reads never block and writes only lock a single bin of the map. Compared to {@link
+ * BAMCacheImpl}, the analysis of cache misses is not supported, and the iteration order of
+ * {@link #getAllCachedReachedStates()} is not deterministic.
+ */
+public class BAMCacheConcurrent implements BAMCache {
+
+  private final ConcurrentMap<CacheKey, BAMCacheEntry> preciseReachedCache =
+      new ConcurrentHashMap<>();
+
+  /** The last accessed entry per thread, the global last entry would be meaningless. */
+  private final ThreadLocal<BAMCacheEntry> lastAnalyzedEntry = new ThreadLocal<>();
+
+  private final Reducer reducer;
+  private final LogManager logger;
+
+  private final StatCounter cacheMisses = new StatCounter("Number of cache misses");
+  private final StatCounter partialCacheHits = new StatCounter("Number of partial cache hits");
+  private final StatCounter fullCacheHits = new StatCounter("Number of full cache hits");
+
+  /** Counts puts that replaced an entry, e.g., if two threads analyzed the same block. */
+  private final StatCounter replacedEntries =
+      new StatCounter("Number of cache entries replaced concurrently");
+
+  private final StatCounter fingerprintMatches =
+      new StatCounter("Number of compared keys with equal fingerprints");
+  private final StatCounter fingerprintCollisions =
+      new StatCounter("Number of fingerprint collisions");
+
+  private final ThreadSafeTimerContainer accessTime =
+      new ThreadSafeTimerContainer("Time for cache-access (sum over all threads)");
+  private final ThreadLocal<TimerWrapper> accessTimer =
+      ThreadLocal.withInitial(accessTime::getNewTimer);
+
+  public BAMCacheConcurrent(Reducer pReducer, LogManager pLogger) {
+    reducer = checkNotNull(pReducer);
+    logger = checkNotNull(pLogger);
+  }
+
+  @Override
+  public BAMCacheEntry put(
+      AbstractState stateKey, Precision precisionKey, Block context, ReachedSet rs) {
+    TimerWrapper timer = accessTimer.get();
+    timer.start();
+    try {
+      BAMCacheEntry entry = new BAMCacheEntry(rs);
+      BAMCacheEntry previous =
+          preciseReachedCache.put(new CacheKey(stateKey, precisionKey, context), entry);
+      if (previous != null) {
+        replacedEntries.inc();
+      }
+      return entry;
+    } finally {
+      timer.stop();
+    }
+  }
+
+  @Override
+  public BAMCacheEntry get(AbstractState stateKey, Precision precisionKey, Block context) {
+    TimerWrapper timer = accessTimer.get();
+    timer.start();
+    try {
+      BAMCacheEntry entry = preciseReachedCache.get(new CacheKey(stateKey, precisionKey, context));
+      lastAnalyzedEntry.set(entry);
+      if (entry == null) {
+        cacheMisses.inc();
+        logger.log(Level.FINEST, "CACHE_ACCESS: entry not available");
+      } else if (entry.getExitStates() == null) {
+        // we have cached a partly computed reached-set
+        partialCacheHits.inc();
+        logger.log(Level.FINEST, "CACHE_ACCESS: precise entry");
+      } else {
+        fullCacheHits.inc();
+        logger.log(Level.FINEST, "CACHE_ACCESS: precise entry");
+      }
+      return entry;
+    } finally {
+      timer.stop();
+    }
+  }
+
+  @Override
+  @Deprecated
+  public @Nullable ARGState getLastAnalyzedBlock() {
+    BAMCacheEntry entry = lastAnalyzedEntry.get();
+    // no entry if this thread did not access the cache yet or if the last access was a miss
+    return entry == null ? null : entry.getRootOfBlock();
+  }
+
+  @Override
+  public boolean containsPreciseKey(AbstractState stateKey, Precision precisionKey, Block context) {
+    return preciseReachedCache.containsKey(new CacheKey(stateKey, precisionKey, context));
+  }
+
+  @Override
+  public Collection<ReachedSet> getAllCachedReachedStates() {
+    return Collections2.transform(preciseReachedCache.values(), BAMCacheEntry::getReachedSet);
+  }
+
+  @Override
+  public void clear() {
+    preciseReachedCache.clear();
+    lastAnalyzedEntry.remove();
+  }
+
+  /** Key for the cache, see {@link BAMCacheImpl.AbstractStateHash} for the fingerprint. */
+  private final class CacheKey {
+
+    private final Object wrappedHash;
+    private final long fingerprint;
+    private final Block context;
+
+    CacheKey(AbstractState pStateKey, Precision pPrecisionKey, Block pContext) {
+      wrappedHash = reducer.getHashCodeForState(pStateKey, pPrecisionKey);
+      fingerprint = reducer.getFingerprintForState(pStateKey, pPrecisionKey, wrappedHash);
+      context = checkNotNull(pContext);
+    }
+
+    @Override
+    public boolean equals(Object pObj) {
+      if (pObj == this) {
+        return true;
+      }
+      if (!(pObj instanceof CacheKey)) {
+        return false;
+      }
+      CacheKey other = (CacheKey) pObj;
+      if (fingerprint != other.fingerprint || !context.equals(other.context)) {
+        return false;
+      }
+      fingerprintMatches.inc();
+      boolean isEqual = wrappedHash.equals(other.wrappedHash);
+      if (!isEqual) {
+        fingerprintCollisions.inc();
+      }
+      return isEqual;
+    }
+
+    @Override
+    public int hashCode() {
+      return Long.hashCode(fingerprint) * 17 + context.hashCode();
+    }
+
+    @Override
+    public String toString() {
+      return "CacheKey [fingerprint=" + fingerprint + ", wrappedHash=" + wrappedHash
+          + ", context=" + context + "]";
+    }
+  }
+
+  @Override
+  public void printStatistics(PrintStream out, Result pResult, UnmodifiableReachedSet pReached) {
+    long misses = cacheMisses.getValue();
+    long partialHits = partialCacheHits.getValue();
+    long fullHits = fullCacheHits.getValue();
+    long sumCalls = misses + partialHits + fullHits;
+
+    out.println("Total number of cached reached sets:                 " + preciseReachedCache.size());
+    out.println("Total number of recursive CPA calls:                 " + sumCalls);
+    out.println("  Number of cache misses:                            " + misses + " (" + toPercent(misses, sumCalls) + " of all calls)");
+    out.println("  Number of partial cache hits:                      " + partialHits + " (" + toPercent(partialHits, sumCalls) + " of all calls)");
+    out.println("  Number of full cache hits:                         " + fullHits + " (" + toPercent(fullHits, sumCalls) + " of all calls)");
+    put(out, 0, replacedEntries);
+    put(out, 0, fingerprintMatches);
+    out.println("  Number of fingerprint collisions:                  " + fingerprintCollisions.getValue() + " (" + toPercent(fingerprintCollisions.getValue(), fingerprintMatches.getValue()) + " of all matches)");
+    put(out, 0, accessTime);
+  }
+
+  @Override
+  public @Nullable String getName() {
+    return "BAMCache";
+  }
+}
@@ -27,12 +27,20 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static org.sosy_lab.cpachecker.util.statistics.StatisticsUtils.toPercent;
 
 import com.google.common.collect.Collections2;
+import com.google.common.collect.Sets;
 import java.io.PrintStream;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.logging.Level;
+import javax.annotation.Nullable;
 import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.IntegerOption;
 import org.sosy_lab.common.configuration.InvalidConfigurationException;
 import org.sosy_lab.common.configuration.Option;
 import org.sosy_lab.common.configuration.Options;
@@ -46,7 +54,10 @@ import org.sosy_lab.cpachecker.core.interfaces.Reducer;
 import org.sosy_lab.cpachecker.core.reachedset.ReachedSet;
 import org.sosy_lab.cpachecker.core.reachedset.UnmodifiableReachedSet;
 import org.sosy_lab.cpachecker.cpa.arg.ARGState;
+import org.sosy_lab.cpachecker.util.statistics.StatCounter;
 import org.sosy_lab.cpachecker.util.statistics.StatHist;
+import org.sosy_lab.cpachecker.util.statistics.StatInt;
+import org.sosy_lab.cpachecker.util.statistics.StatKind;
 
 @Options(prefix = "cpa.bam")
 public class BAMCacheImpl implements BAMCache {
@@ -55,8 +66,28 @@ public class BAMCacheImpl implements BAMCache {
       + "for each cache miss to find the cause of the miss.")
   private boolean gatherCacheMissStatistics = false;
 
+  @Option(
+    secure = true,
+    name = "cache.maxStates",
+    description =
+        "Maximal number of abstract states in all reached-sets of the cache "
+            + "(0 for no limit). If the limit is exceeded, large and rarely used "
+            + "reached-sets are evicted and recomputed when they are needed again. "
+            + "Note that a reached-set is still kept alive while it belongs to "
+            + "the current ARG, e.g., for counterexample reconstruction."
+  )
+  @IntegerOption(min = 0)
+  private int maxStates = 0;
+
+  /** After eviction, the cache should be at most this fraction of its limit. */
+  private static final double EVICTION_TARGET = 0.75;
+
   private final Timer hashingTimer = new Timer();
   private final Timer equalsTimer = new Timer();
+  private final StatCounter fingerprintMatches =
+      new StatCounter("Number of compared keys with equal fingerprints");
+  private final StatCounter fingerprintCollisions =
+      new StatCounter("Number of fingerprint collisions");
 
   private int cacheMisses = 0;
   private int partialCacheHits = 0;
@@ -66,10 +97,29 @@ public class BAMCacheImpl implements BAMCache {
   private int precisionCausedMisses = 0;
   private int noSimilarCausedMisses = 0;
 
+  private final StatCounter evictedEntries = new StatCounter("Number of evicted cache entries");
+  private final StatInt evictedStates =
+      new StatInt(StatKind.SUM, "Number of states in evicted cache entries");
+  private final StatCounter recomputedEntries =
+      new StatCounter("Number of evicted cache entries needed again");
+  private final StatInt recomputedStates =
+      new StatInt(StatKind.SUM, "Number of states in evicted cache entries needed again");
+  private final Timer evictionTimer = new Timer();
+
+  /** Counter for the accesses to the cache, used as logical clock for eviction. */
+  private long accessCounter = 0;
+
+  /** The logical time of the last access for each entry, only used with a size limit. */
+  private final Map<AbstractStateHash, Long> lastAccess = new HashMap<>();
+
+  /** The sizes of evicted entries, such that we can report the cost of recomputation. */
+  private final Map<AbstractStateHash, Integer> evictedSizes = new HashMap<>();
+
   // we use LinkedHashMaps to avoid non-determinism
   protected final Map<AbstractStateHash, BAMCacheEntry> preciseReachedCache = new LinkedHashMap<>();
 
   protected BAMCacheEntry lastAnalyzedEntry = null;
+  private @Nullable BAMSummaryStore summaryStore = null;
   protected final Reducer reducer;
   protected final LogManager logger;
 
@@ -93,9 +143,97 @@ public class BAMCacheImpl implements BAMCache {
     BAMCacheEntry entry = new BAMCacheEntry(rs);
     // assert !preciseReachedCache.containsKey(hash);
     preciseReachedCache.put(hash, entry);
+    if (maxStates > 0) {
+      lastAccess.put(hash, accessCounter++);
+      Integer previousSize = evictedSizes.remove(hash);
+      if (previousSize != null) {
+        recomputedEntries.inc();
+        recomputedStates.setNextValue(previousSize);
+      }
+      evictIfNecessary(hash);
+    }
     return entry;
   }
 
+  /**
+   * Consult the given store of summaries from previous runs on cache misses,
+   * and store the summaries of this run at the end of the analysis.
+   */
+  public void usePersistentSummaries(BAMSummaryStore pSummaryStore) {
+    summaryStore = checkNotNull(pSummaryStore);
+  }
+
+  /** Whether this cache evicts entries if it grows too large. */
+  public boolean hasSizeLimit() {
+    return maxStates > 0;
+  }
+
+  /**
+   * Evict entries until the cache is below the size limit.
+   * Entries are ordered by the product of their size and the time since their last access,
+   * such that large and rarely used entries are evicted first.
+   * Entries without exit states are still being computed and are never evicted.
+   *
+   * <p>Computing the sizes is linear in the number of cache entries,
+   * but this is only done on cache misses, which are followed by an analysis of the whole block.
+   */
+  private void evictIfNecessary(AbstractStateHash pProtectedKey) {
+    long size = 0;
+    for (BAMCacheEntry entry : preciseReachedCache.values()) {
+      size += entry.getReachedSet().size();
+    }
+    if (size <= maxStates) {
+      return;
+    }
+
+    evictionTimer.start();
+    try {
+      final long now = accessCounter;
+      List<Map.Entry<AbstractStateHash, BAMCacheEntry>> candidates = new ArrayList<>();
+      for (Map.Entry<AbstractStateHash, BAMCacheEntry> entry : preciseReachedCache.entrySet()) {
+        if (entry.getValue().getExitStates() != null && !entry.getKey().equals(pProtectedKey)) {
+          candidates.add(entry);
+        }
+      }
+      candidates.sort(
+          Comparator.comparingDouble(
+                  (Map.Entry<AbstractStateHash, BAMCacheEntry> entry) ->
+                      (double) entry.getValue().getReachedSet().size()
+                          * (now - lastAccess.getOrDefault(entry.getKey(), 0L)))
+              .reversed());
+
+      Set<BAMCacheEntry> evicted = Sets.newIdentityHashSet();
+      final long targetSize = (long) (maxStates * EVICTION_TARGET);
+      for (Map.Entry<AbstractStateHash, BAMCacheEntry> entry : candidates) {
+        if (size <= targetSize) {
+          break;
+        }
+        int entrySize = entry.getValue().getReachedSet().size();
+        size -= entrySize;
+        evicted.add(entry.getValue());
+        evictedSizes.put(entry.getKey(), entrySize);
+        evictedEntries.inc();
+        evictedStates.setNextValue(entrySize);
+      }
+
+      preciseReachedCache.values().removeIf(evicted::contains);
+      lastAccess.keySet().retainAll(preciseReachedCache.keySet());
+      if (lastAnalyzedEntry != null && evicted.contains(lastAnalyzedEntry)) {
+        lastAnalyzedEntry = null;
+      }
+      onEviction(evicted);
+      logger.log(Level.FINE, "Evicted", evicted.size(), "entries from BAM cache");
+    } finally {
+      evictionTimer.stop();
+    }
+  }
+
+  /** Hook for subclasses that keep further references to cache entries. */
+  @SuppressWarnings("unused") /* parameter used in subclass */
+  protected void onEviction(Set<BAMCacheEntry> pEvictedEntries) {
+    // nothing to do here
+  }
+
   protected static boolean allStatesContainedInReachedSet(Collection<AbstractState> pElements, ReachedSet reached) {
     return reached.asCollection().containsAll(pElements);
   }
@@ -131,11 +269,27 @@ public class BAMCacheImpl implements BAMCache {
     AbstractStateHash hash = getHashCode(stateKey, precisionKey, context);
     BAMCacheEntry result = preciseReachedCache.get(hash);
     if (result != null) {
+      if (maxStates > 0) {
+        lastAccess.put(hash, accessCounter++);
+      }
       lastAnalyzedEntry = result;
       logger.log(Level.FINEST, "CACHE_ACCESS: precise entry");
       return result;
     }
 
+    if (summaryStore != null) {
+      result = summaryStore.get(stateKey, precisionKey, context);
+      if (result != null) {
+        preciseReachedCache.put(hash, result);
+        if (maxStates > 0) {
+          lastAccess.put(hash, accessCounter++);
+        }
+        lastAnalyzedEntry = result;
+        logger.log(Level.FINEST, "CACHE_ACCESS: entry from persistent summaries");
+        return result;
+      }
+    }
+
     return getIfNotExistant(stateKey, precisionKey, context, hash);
   }
 
@@ -190,15 +344,27 @@ public class BAMCacheImpl implements BAMCache {
     return Collections2.transform(preciseReachedCache.values(), BAMCacheEntry::getReachedSet);
   }
 
+  /**
+   * Key for the cache. The fingerprint of the reduced state and precision is computed once when
+   * creating the key. The expensive equality check of the hashable objects from the reducer is only
+   * done for keys with equal fingerprints.
+   */
   class AbstractStateHash {
 
     private final Object wrappedHash;
+    private final long fingerprint;
     private final Block context;
     final AbstractState stateKey;
     final Precision precisionKey;
 
     public AbstractStateHash(AbstractState pStateKey, Precision pPrecisionKey, Block pContext) {
-      wrappedHash = reducer.getHashCodeForState(pStateKey, pPrecisionKey);
+      hashingTimer.start();
+      try {
+        wrappedHash = reducer.getHashCodeForState(pStateKey, pPrecisionKey);
+        fingerprint = reducer.getFingerprintForState(pStateKey, pPrecisionKey, wrappedHash);
+      } finally {
+        hashingTimer.stop();
+      }
       context = checkNotNull(pContext);
       stateKey = pStateKey;
       precisionKey = pPrecisionKey;
@@ -213,10 +379,17 @@ public class BAMCacheImpl implements BAMCache {
         return true;
       }
       AbstractStateHash other = (AbstractStateHash) pObj;
+      if (fingerprint != other.fingerprint || !context.equals(other.context)) {
+        return false;
+      }
+      fingerprintMatches.inc();
       equalsTimer.start();
       try {
-        return context.equals(other.context)
-                && wrappedHash.equals(other.wrappedHash);
+        boolean isEqual = wrappedHash.equals(other.wrappedHash);
+        if (!isEqual) {
+          fingerprintCollisions.inc();
+        }
+        return isEqual;
       } finally {
         equalsTimer.stop();
       }
@@ -224,17 +397,13 @@ public class BAMCacheImpl implements BAMCache {
 
     @Override
     public int hashCode() {
-      hashingTimer.start();
-      try {
-        return wrappedHash.hashCode() * 17 + context.hashCode();
-      } finally {
-        hashingTimer.stop();
-      }
+      return Long.hashCode(fingerprint) * 17 + context.hashCode();
     }
 
     @Override
     public String toString() {
-      return "AbstractStateHash [hash=" + hashCode() + ", wrappedHash=" + wrappedHash + ", context="
+      return "AbstractStateHash [hash=" + hashCode() + ", fingerprint=" + fingerprint
+              + ", wrappedHash=" + wrappedHash + ", context="
               + context + ", predicateKey=" + stateKey + ", precisionKey=" + precisionKey + "]";
     }
   }
@@ -267,8 +436,31 @@ public class BAMCacheImpl implements BAMCache {
       out.println("  Number of precision caused misses:                 " + precisionCausedMisses + " (" + toPercent(precisionCausedMisses, cacheMisses) + " of all misses)");
       out.println("  Number of misses with no similar elements:         " + noSimilarCausedMisses + " (" + toPercent(noSimilarCausedMisses, cacheMisses) + " of all misses)");
     }
+    if (maxStates > 0) {
+      put(out, 0, evictedEntries);
+      put(out, 1, evictedStates);
+      put(out, 0, recomputedEntries);
+      put(out, 1, recomputedStates);
+      put(out, "Time for cache eviction", evictionTimer);
+    }
+    if (summaryStore != null) {
+      summaryStore.printStatistics(out);
+    }
     out.println("Time for checking equality of abstract states:       " + equalsTimer + " (Calls: " + equalsTimer.getNumberOfIntervals() + ")");
     out.println("Time for computing the hashCode of abstract states:  " + hashingTimer + " (Calls: " + hashingTimer.getNumberOfIntervals() + ")");
+    put(out, 0, fingerprintMatches);
+    out.println("  Number of fingerprint collisions:                  " + fingerprintCollisions.getValue() + " (" + toPercent(fingerprintCollisions.getValue(), fingerprintMatches.getValue()) + " of all matches)");
+  }
+
+  @Override
+  public void writeOutputFiles(Result pResult, UnmodifiableReachedSet pReached) {
+    if (summaryStore != null) {
+      for (Map.Entry<AbstractStateHash, BAMCacheEntry> entry : preciseReachedCache.entrySet()) {
+        summaryStore.addSummary(
+            entry.getKey().context, entry.getKey().precisionKey, entry.getValue());
+      }
+      summaryStore.writeAll();
+    }
   }
 
   @Override
@@ -280,5 +472,7 @@ public class BAMCacheImpl implements BAMCache {
   public void clear() {
     preciseReachedCache.clear();
     lastAnalyzedEntry = null;
+    lastAccess.clear();
+    evictedSizes.clear();
   }
 }
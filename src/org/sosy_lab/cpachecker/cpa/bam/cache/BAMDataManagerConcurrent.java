@@ -0,0 +1,324 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.bam.cache;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import javax.annotation.Nullable;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.cfa.blocks.Block;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.Precision;
+import org.sosy_lab.cpachecker.core.reachedset.ReachedSet;
+import org.sosy_lab.cpachecker.core.reachedset.ReachedSetFactory;
+import org.sosy_lab.cpachecker.cpa.arg.ARGState;
+import org.sosy_lab.cpachecker.cpa.bam.cache.BAMCache.BAMCacheEntry;
+import org.sosy_lab.cpachecker.util.statistics.StatCounter;
+
+/**
+ * Thread-safe data structures for parallel BAM without a global lock.
+ *
+ * <p>All mappings are concurrent hash maps, such that reads never block and updates only lock the
+ * affected bin of a map. The tables of {@link BAMDataManagerImpl} are represented as maps of
+ * concurrent maps, where the inner maps are created atomically on demand. A single operation is
+ * atomic, but a sequence of operations is not, which is sufficient for parallel BAM, because
+ * each state is only updated by the thread that analyzes its reached-set.
+ */
+public class BAMDataManagerConcurrent implements BAMDataManager {
+
+  private final LogManager logger;
+
+  private final BAMCache bamCache;
+
+  private final ReachedSetFactory reachedSetFactory;
+
+  /** Mapping of non-reduced initial states and exit states to {@link ReachedSet}. */
+  private final ConcurrentMap<AbstractState, ConcurrentMap<AbstractState, ReachedSet>>
+      initialStateToReachedSet = new ConcurrentHashMap<>();
+
+  /** Mapping of reduced initial states to non-reduced initial states. */
+  private final ConcurrentMap<AbstractState, Set<AbstractState>> reducedToNonReduced =
+      new ConcurrentHashMap<>();
+
+  private final ConcurrentMap<AbstractState, BlockExitData> expandedStateToBlockExit =
+      new ConcurrentHashMap<>();
+
+  /** Counts reached-sets that were replaced for the same initial and exit state. */
+  private final StatCounter replacedReachedSets =
+      new StatCounter("Number of reached-sets replaced concurrently");
+
+  /** Counts expanded states that were registered by more than one thread. */
+  private final StatCounter conflictingExpandedStates =
+      new StatCounter("Number of expanded states registered concurrently");
+
+  private static class BlockExitData {
+
+    private final AbstractState reducedState;
+    private final Block block;
+    private final Precision expandedPrecision;
+
+    BlockExitData(AbstractState pReducedState, Block pBlock, Precision pExpandedPrecision) {
+      reducedState = pReducedState;
+      block = pBlock;
+      expandedPrecision = pExpandedPrecision;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("Data <%s, %s, %s>", reducedState, block, expandedPrecision);
+    }
+  }
+
+  public BAMDataManagerConcurrent(
+      BAMCache pArgCache, ReachedSetFactory pReachedSetFactory, LogManager pLogger) {
+    bamCache = pArgCache;
+    reachedSetFactory = pReachedSetFactory;
+    logger = pLogger;
+  }
+
+  @Override
+  public void replaceStateInCaches(
+      AbstractState oldState, AbstractState newState, boolean oldStateMustExist) {
+    if (oldState.equals(newState)) {
+      return; // nothing to do
+    }
+    final BlockExitData entry = expandedStateToBlockExit.remove(oldState);
+    if (entry != null) {
+      expandedStateToBlockExit.put(newState, entry);
+    } else {
+      checkArgument(!oldStateMustExist, "state %s is not registered as expanded state", oldState);
+    }
+  }
+
+  @Override
+  public BAMCacheEntry createAndRegisterNewReachedSet(
+      AbstractState initialState, Precision initialPrecision, Block context) {
+    final ReachedSet reached = reachedSetFactory.create();
+    reached.add(initialState, initialPrecision);
+    return bamCache.put(initialState, initialPrecision, context, reached);
+  }
+
+  @Override
+  public ReachedSetFactory getReachedSetFactory() {
+    return reachedSetFactory;
+  }
+
+  @Override
+  public void registerExpandedState(
+      AbstractState expandedState,
+      Precision expandedPrecision,
+      AbstractState reducedState,
+      Block innerBlock) {
+    BlockExitData previousValue =
+        expandedStateToBlockExit.put(
+            expandedState, new BlockExitData(reducedState, innerBlock, expandedPrecision));
+    if (previousValue != null) {
+      conflictingExpandedStates.inc();
+    }
+    assert previousValue == null
+        : "expanded state was registered before with data " + previousValue;
+  }
+
+  @Override
+  public boolean alreadyReturnedFromSameBlock(AbstractState state, Block block) {
+    BlockExitData data = expandedStateToBlockExit.get(state);
+    while (data != null) {
+      if (block == data.block) {
+        return true;
+      }
+      data = expandedStateToBlockExit.get(data.reducedState);
+    }
+    return false;
+  }
+
+  @Override
+  public AbstractState getInnermostState(AbstractState state) {
+    BlockExitData data = expandedStateToBlockExit.get(state);
+    while (data != null) {
+      state = data.reducedState;
+      data = expandedStateToBlockExit.get(state);
+    }
+    return state;
+  }
+
+  @Override
+  public List<AbstractState> getExpandedStatesList(AbstractState state) {
+    List<AbstractState> lst = new ArrayList<>();
+    BlockExitData data;
+    while (true) {
+      data = expandedStateToBlockExit.get(state);
+      if (data == null) {
+        break;
+      }
+      lst.add(state);
+      state = data.reducedState;
+    }
+    return Lists.reverse(lst);
+  }
+
+  @Override
+  public void registerInitialState(
+      AbstractState initialState, AbstractState exitState, ReachedSet reachedSet) {
+    ReachedSet oldReachedSet =
+        initialStateToReachedSet
+            .computeIfAbsent(initialState, k -> new ConcurrentHashMap<>())
+            .put(exitState, reachedSet);
+    if (oldReachedSet != null && oldReachedSet != reachedSet) {
+      replacedReachedSets.inc();
+      logger.logf(
+          Level.ALL,
+          "New root state %s with exit state %s overrides old reachedset %s with new reachedset %s.",
+          initialState,
+          exitState,
+          oldReachedSet.getFirstState(),
+          reachedSet.getFirstState());
+    }
+    reducedToNonReduced
+        .computeIfAbsent(reachedSet.getFirstState(), k -> ConcurrentHashMap.newKeySet())
+        .add(initialState);
+  }
+
+  @Override
+  public ReachedSet getReachedSetForInitialState(
+      AbstractState initialState, AbstractState exitState) {
+    Map<AbstractState, ReachedSet> row = initialStateToReachedSet.get(initialState);
+    ReachedSet reached = row == null ? null : row.get(exitState);
+    checkNotNull(reached, "no block matching states: %s -> %s", initialState, exitState);
+    assert reached.contains(exitState)
+        : "reachedset should contain exit state for block: " + exitState;
+    return reached;
+  }
+
+  @Override
+  public boolean hasInitialState(AbstractState state) {
+    Map<AbstractState, ReachedSet> row = initialStateToReachedSet.get(state);
+    return row != null && !row.isEmpty();
+  }
+
+  @Override
+  public ImmutableSet<AbstractState> getNonReducedInitialStates(AbstractState pReducedState) {
+    Set<AbstractState> nonReduced = reducedToNonReduced.get(pReducedState);
+    return nonReduced == null ? ImmutableSet.of() : ImmutableSet.copyOf(nonReduced);
+  }
+
+  @Override
+  public AbstractState getReducedStateForExpandedState(AbstractState state) {
+    assert hasExpandedState(state) : "no match for state: " + state;
+    return expandedStateToBlockExit.get(state).reducedState;
+  }
+
+  @Override
+  public Block getInnerBlockForExpandedState(AbstractState state) {
+    assert hasExpandedState(state) : "no match for state: " + state;
+    return expandedStateToBlockExit.get(state).block;
+  }
+
+  @Override
+  public boolean hasExpandedState(AbstractState state) {
+    return expandedStateToBlockExit.containsKey(state);
+  }
+
+  private static int getId(AbstractState state) {
+    return ((ARGState) state).getStateId();
+  }
+
+  @Override
+  public BAMCache getCache() {
+    return bamCache;
+  }
+
+  @Override
+  public @Nullable Precision getExpandedPrecisionForState(AbstractState pState) {
+    final BlockExitData data = expandedStateToBlockExit.get(pState);
+    return data == null ? null : data.expandedPrecision;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder str = new StringBuilder("BAM DATA MANAGER\n");
+
+    str.append("initial state to (first state of) reached set:\n");
+    for (Map.Entry<AbstractState, ConcurrentMap<AbstractState, ReachedSet>> row :
+        initialStateToReachedSet.entrySet()) {
+      for (Map.Entry<AbstractState, ReachedSet> entry : row.getValue().entrySet()) {
+        str.append(
+            String.format(
+                "    (%s, %s) -> %s%n",
+                getId(row.getKey()),
+                getId(entry.getKey()),
+                getId(entry.getValue().getFirstState())));
+      }
+    }
+
+    str.append("expanded state to reduced state:\n");
+    List<Map.Entry<AbstractState, BlockExitData>> sorted =
+        new ArrayList<>(expandedStateToBlockExit.entrySet());
+    Collections.sort(sorted, (x, y) -> Integer.compare(getId(x.getKey()), getId(y.getKey())));
+    for (Map.Entry<AbstractState, BlockExitData> entry : sorted) {
+      str.append(
+          String.format(
+              "    %s -> %s%n", getId(entry.getKey()), getId(entry.getValue().reducedState)));
+    }
+
+    return str.toString();
+  }
+
+  /** Return counters for operations where threads interfered with each other. */
+  public ImmutableList<StatCounter> getContentionStatistics() {
+    return ImmutableList.of(replacedReachedSets, conflictingExpandedStates);
+  }
+
+  @Override
+  public void clear() {
+    initialStateToReachedSet.clear();
+    expandedStateToBlockExit.clear();
+    bamCache.clear();
+    reducedToNonReduced.clear();
+  }
+
+  @Override
+  public boolean addUncachedBlockEntry(CFANode pNode) {
+    //Not sure how the option works with ParallelBAM
+    return true;
+  }
+
+  @Override
+  public boolean isUncachedBlockEntry(CFANode pNode) {
+    //Not sure how the option works with ParallelBAM
+    return false;
+  }
+}
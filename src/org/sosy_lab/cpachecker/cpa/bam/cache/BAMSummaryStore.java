@@ -0,0 +1,492 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.bam.cache;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.Collections2;
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.Serializable;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import javax.annotation.Nullable;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.FileOption;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.configuration.Option;
+import org.sosy_lab.common.configuration.Options;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.cfa.blocks.Block;
+import org.sosy_lab.cpachecker.cfa.model.CFAEdge;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.core.CPAchecker;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.Precision;
+import org.sosy_lab.cpachecker.core.interfaces.Reducer;
+import org.sosy_lab.cpachecker.core.reachedset.ReachedSet;
+import org.sosy_lab.cpachecker.core.reachedset.ReachedSetFactory;
+import org.sosy_lab.cpachecker.cpa.arg.ARGState;
+import org.sosy_lab.cpachecker.cpa.bam.cache.BAMCache.BAMCacheEntry;
+import org.sosy_lab.cpachecker.util.AbstractStates;
+import org.sosy_lab.cpachecker.util.CFAUtils;
+import org.sosy_lab.cpachecker.util.statistics.StatCounter;
+import org.sosy_lab.cpachecker.util.statistics.StatInt;
+import org.sosy_lab.cpachecker.util.statistics.StatKind;
+import org.sosy_lab.cpachecker.util.statistics.StatTimer;
+import org.sosy_lab.cpachecker.util.statistics.StatisticsWriter;
+
+/**
+ * On-disk store for block summaries of BAM, such that repeated runs can skip the analysis of
+ * blocks that were already analyzed before.
+ *
+ * <p>A summary consists of the complete ARG of the block (which contains the reduced entry state
+ * and the reduced exit states) and is stored with Java serialization, like the ARGs in proof
+ * certificates. The summaries of each block are stored in a separate file, whose name is a hash
+ * over the configuration, the CPAchecker version, and the CFA fragment of the block (including
+ * node numbers, because abstract states refer to CFA nodes by their number). Thus changing any of
+ * these invalidates the summaries. A summary is only used if its entry state and its precision
+ * are equal to the query. Summaries whose ARG or precision cannot be serialized are skipped.
+ *
+ * <p>Only summaries of finished blocks without target states and without nested block calls are
+ * stored, because counterexample reconstruction and refinement need the data of nested blocks,
+ * which is not part of the summary.
+ *
+ * <p>Several processes can use the same directory at the same time, e.g., the worker processes of
+ * parallel BAM. Files are updated under a file lock, and summaries stored by other processes
+ * become visible after {@link #invalidate(Block)}.
+ */
+@Options(prefix = "cpa.bam.cache")
+public class BAMSummaryStore {
+
+  private static final String FILE_SUFFIX = ".bam.gz";
+  private static final String LOCK_FILE = "summaries.lock";
+
+  /** Options that do not influence the analysis result and are ignored for the file keys. */
+  private static final ImmutableList<String> IRRELEVANT_OPTION_PREFIXES =
+      ImmutableList.of(
+          "algorithm.parallelBam.worker",
+          "cpa.bam.cache.persistentDirectory",
+          "log.",
+          "output.",
+          "statistics.");
+
+  @Option(
+    name = "persistentDirectory",
+    description =
+        "Directory where summaries of blocks are stored across runs (disabled if not set). "
+            + "Use an absolute path to share the summaries between runs with different output "
+            + "directories. The summaries are read with Java deserialization, so the directory "
+            + "must not be writable for untrusted users."
+  )
+  @FileOption(FileOption.Type.OUTPUT_DIRECTORY)
+  private @Nullable Path directory = null;
+
+  private final LogManager logger;
+  private final Reducer reducer;
+  private final ReachedSetFactory reachedSetFactory;
+  private final HashCode configurationHash;
+
+  /** Summaries loaded from disk per block file, loaded lazily on the first query of a block. */
+  private final Map<String, List<Summary>> loadedSummaries = new HashMap<>();
+
+  /** Summaries of the current run per block file, to be written. */
+  private final Map<String, List<Summary>> pendingSummaries = new HashMap<>();
+
+  /** Roots of reached-sets that were loaded from disk, such that we do not store them again. */
+  private final Set<AbstractState> loadedRoots =
+      Collections.newSetFromMap(new IdentityHashMap<>());
+
+  private final Map<Block, String> blockKeys = new HashMap<>();
+
+  private final StatCounter loaded = new StatCounter("Number of summaries loaded from disk");
+  private final StatCounter used = new StatCounter("Number of summaries used from disk");
+  private final StatInt stored = new StatInt(StatKind.SUM, "Number of summaries stored on disk");
+  private final StatCounter unserializable =
+      new StatCounter("Number of summaries that cannot be serialized");
+  private final StatCounter invalidFiles = new StatCounter("Number of invalid summary files");
+  private final StatTimer loadTime = new StatTimer("Time for loading summaries");
+  private final StatTimer storeTime = new StatTimer("Time for storing summaries");
+
+  /** A serialized summary. */
+  private static final class Summary implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final ARGState root;
+    private final ImmutableList<ARGState> exitStates;
+    private final Precision precision;
+
+    Summary(ARGState pRoot, Collection<ARGState> pExitStates, Precision pPrecision) {
+      root = checkNotNull(pRoot);
+      exitStates = ImmutableList.copyOf(pExitStates);
+      precision = checkNotNull(pPrecision);
+    }
+  }
+
+  public BAMSummaryStore(
+      Configuration pConfig,
+      LogManager pLogger,
+      Reducer pReducer,
+      ReachedSetFactory pReachedSetFactory)
+      throws InvalidConfigurationException {
+    pConfig.inject(this);
+    logger = pLogger;
+    reducer = pReducer;
+    reachedSetFactory = pReachedSetFactory;
+    Hasher hasher =
+        Hashing.sha256().newHasher().putString(CPAchecker.getVersion(), StandardCharsets.UTF_8);
+    for (String line : Splitter.on('\n').omitEmptyStrings().split(pConfig.asPropertiesString())) {
+      if (IRRELEVANT_OPTION_PREFIXES.stream().noneMatch(line::startsWith)) {
+        hasher.putString(line, StandardCharsets.UTF_8);
+      }
+    }
+    configurationHash = hasher.hash();
+  }
+
+  public boolean isEnabled() {
+    return directory != null;
+  }
+
+  /** Returns the directory of the summaries, or null if the store is disabled. */
+  public @Nullable Path getDirectory() {
+    return directory;
+  }
+
+  /**
+   * Forget the loaded summaries of the given block, such that the next query reloads them from
+   * disk, e.g., after another process has stored new summaries for the block.
+   */
+  public void invalidate(Block pContext) {
+    loadedSummaries.remove(getKey(pContext));
+  }
+
+  /**
+   * Return the key of a block, which depends on the configuration and on all nodes and edges of
+   * the block.
+   */
+  private String getKey(Block pBlock) {
+    return blockKeys.computeIfAbsent(
+        pBlock,
+        block -> {
+          Hasher hasher = Hashing.sha256().newHasher();
+          hasher.putBytes(configurationHash.asBytes());
+          List<CFANode> nodes = new ArrayList<>(block.getNodes());
+          nodes.sort(Comparator.comparingInt(CFANode::getNodeNumber));
+          for (CFANode node : nodes) {
+            hasher.putInt(node.getNodeNumber());
+            hasher.putBoolean(block.isCallNode(node));
+            hasher.putBoolean(block.isReturnNode(node));
+            for (CFAEdge edge : CFAUtils.allLeavingEdges(node)) {
+              hasher.putInt(edge.getSuccessor().getNodeNumber());
+              hasher.putString(edge.getEdgeType().name(), StandardCharsets.UTF_8);
+              hasher.putString(edge.getDescription(), StandardCharsets.UTF_8);
+            }
+          }
+          return hasher.hash().toString();
+        });
+  }
+
+  private Path getFile(String pKey) {
+    return directory.resolve(pKey + FILE_SUFFIX);
+  }
+
+  /**
+   * Return a cache entry for the given query, if there is a matching summary on disk.
+   * The entry contains a new reached-set with copies of all states of the stored ARG.
+   */
+  public @Nullable BAMCacheEntry get(
+      AbstractState pStateKey, Precision pPrecisionKey, Block pContext) {
+    List<Summary> summaries = loadedSummaries.computeIfAbsent(getKey(pContext), this::load);
+    if (summaries.isEmpty()) {
+      return null;
+    }
+
+    Object queryHash = reducer.getHashCodeForState(pStateKey, pPrecisionKey);
+    for (Summary summary : summaries) {
+      if (summary.precision.equals(pPrecisionKey)
+          && queryHash.equals(reducer.getHashCodeForState(summary.root, pPrecisionKey))) {
+        used.inc();
+        return toCacheEntry(summary, pPrecisionKey);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Build a reached-set from a summary. The ARG is copied, because the stored states have IDs from
+   * a different run, which may collide with the IDs of states of the current run, and the same
+   * summary can be used several times.
+   */
+  private BAMCacheEntry toCacheEntry(Summary pSummary, Precision pPrecision) {
+    List<ARGState> states = new ArrayList<>();
+    Deque<ARGState> waitlist = new ArrayDeque<>();
+    Set<ARGState> visited = new HashSet<>();
+    waitlist.push(pSummary.root);
+    visited.add(pSummary.root);
+    while (!waitlist.isEmpty()) {
+      ARGState state = waitlist.pop();
+      states.add(state);
+      for (ARGState child : state.getChildren()) {
+        if (visited.add(child)) {
+          waitlist.push(child);
+        }
+      }
+    }
+
+    // first create all copies, then connect them, because parents can be visited after children
+    Map<ARGState, ARGState> copies = new HashMap<>();
+    for (ARGState state : states) {
+      copies.put(state, new ARGState(state.getWrappedState(), null));
+    }
+    for (ARGState state : states) {
+      ARGState copy = copies.get(state);
+      for (ARGState parent : state.getParents()) {
+        copy.addParent(copies.get(parent));
+      }
+    }
+
+    ReachedSet reached = reachedSetFactory.create();
+    for (ARGState state : states) {
+      ARGState copy = copies.get(state);
+      if (state.isCovered()) {
+        // covered states were removed from the reached-set during the analysis
+        copy.setCovered(copies.get(state.getCoveringState()));
+      } else {
+        reached.add(copy, pPrecision);
+        reached.removeOnlyFromWaitlist(copy);
+      }
+    }
+    loadedRoots.add(copies.get(pSummary.root));
+
+    BAMCacheEntry entry = new BAMCacheEntry(reached);
+    entry.setExitStates(
+        Collections2.transform(pSummary.exitStates, s -> (AbstractState) copies.get(s)));
+    return entry;
+  }
+
+  private List<Summary> load(String pKey) {
+    Path file = getFile(pKey);
+    if (!Files.isReadable(file)) {
+      return new ArrayList<>();
+    }
+
+    loadTime.start();
+    try (InputStream inputStream = Files.newInputStream(file);
+        InputStream gzipInputStream = new GZIPInputStream(inputStream);
+        DataInputStream dis = new DataInputStream(gzipInputStream)) {
+      int count = dis.readInt();
+      List<Summary> summaries = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+        byte[] bytes = new byte[dis.readInt()];
+        dis.readFully(bytes);
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+          summaries.add((Summary) ois.readObject());
+        }
+        loaded.inc();
+      }
+      return summaries;
+
+    } catch (IOException | ClassNotFoundException | ClassCastException e) {
+      // e.g., file was written by a different version with incompatible classes
+      logger.logDebugException(e, "Could not read BAM summaries");
+      logger.log(Level.INFO, "Ignoring invalid file with BAM summaries", file);
+      invalidFiles.inc();
+      return new ArrayList<>();
+
+    } finally {
+      loadTime.stop();
+    }
+  }
+
+  /**
+   * Remember the summary of a cache entry for {@link #writeAll()},
+   * if the entry is finished and can be stored.
+   *
+   * @return whether the summary will be written
+   */
+  public boolean addSummary(Block pContext, Precision pPrecision, BAMCacheEntry pEntry) {
+    if (loadedRoots.contains(pEntry.getReachedSet().getFirstState()) || !isStorable(pEntry)) {
+      return false;
+    }
+    List<ARGState> exitStates = new ArrayList<>();
+    for (AbstractState exitState : pEntry.getExitStates()) {
+      exitStates.add((ARGState) exitState);
+    }
+    pendingSummaries
+        .computeIfAbsent(getKey(pContext), k -> new ArrayList<>())
+        .add(
+            new Summary(
+                (ARGState) pEntry.getReachedSet().getFirstState(),
+                exitStates,
+                pPrecision));
+    return true;
+  }
+
+  /**
+   * Write all summaries given with {@link #addSummary(Block, Precision, BAMCacheEntry)}, together
+   * with the summaries that are already stored for the same blocks.
+   *
+   * @return whether all summaries were written
+   */
+  public boolean writeAll() {
+    if (pendingSummaries.isEmpty()) {
+      return true;
+    }
+    boolean success = true;
+    storeTime.start();
+    try {
+      Files.createDirectories(directory);
+      // the lock guards against concurrent updates from other processes
+      try (FileChannel lockChannel =
+              FileChannel.open(
+                  directory.resolve(LOCK_FILE),
+                  StandardOpenOption.CREATE,
+                  StandardOpenOption.WRITE);
+          FileLock lock = lockChannel.lock()) {
+        for (Map.Entry<String, List<Summary>> file : pendingSummaries.entrySet()) {
+          List<Summary> summaries = file.getValue();
+          summaries.addAll(load(file.getKey()));
+          int written = write(file.getKey(), summaries);
+          stored.setNextValue(written);
+          success &= written == summaries.size();
+        }
+      }
+    } catch (IOException e) {
+      logger.logUserException(Level.WARNING, e, "Could not store BAM summaries");
+      success = false;
+    } finally {
+      pendingSummaries.clear();
+      storeTime.stop();
+    }
+    return success;
+  }
+
+  /**
+   * Check whether the reached-set of a cache entry is finished, free of target states, and does
+   * not contain nested block calls, i.e., each ARG edge corresponds to a CFA edge.
+   */
+  private static boolean isStorable(BAMCacheEntry pEntry) {
+    if (pEntry.getExitStates() == null || pEntry.getReachedSet().hasWaitingState()) {
+      return false;
+    }
+    for (AbstractState state : pEntry.getReachedSet()) {
+      ARGState argState = (ARGState) state;
+      if (argState.isDestroyed() || AbstractStates.isTargetState(argState)) {
+        return false;
+      }
+      for (ARGState child : argState.getChildren()) {
+        if (argState.getEdgeToChild(child) == null) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Write the file atomically via a temporary file,
+   * such that concurrent runs never see partially written files.
+   * Each summary is serialized separately, such that summaries that cannot be serialized
+   * (e.g., because of their precision) can be skipped.
+   *
+   * @return the number of written summaries
+   */
+  private int write(String pKey, List<Summary> pSummaries) throws IOException {
+    List<byte[]> serializedSummaries = new ArrayList<>(pSummaries.size());
+    for (Summary summary : pSummaries) {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      try (ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+        oos.writeObject(summary);
+      } catch (NotSerializableException e) {
+        logger.logDebugException(e, "BAM summary cannot be serialized");
+        unserializable.inc();
+        continue;
+      }
+      serializedSummaries.add(bytes.toByteArray());
+    }
+
+    Path tmpFile = Files.createTempFile(directory, pKey, ".tmp");
+    try {
+      try (OutputStream outputStream = Files.newOutputStream(tmpFile);
+          OutputStream gzipOutputStream = new GZIPOutputStream(outputStream);
+          DataOutputStream dos = new DataOutputStream(gzipOutputStream)) {
+        dos.writeInt(serializedSummaries.size());
+        for (byte[] summary : serializedSummaries) {
+          dos.writeInt(summary.length);
+          dos.write(summary);
+        }
+      }
+      Files.move(tmpFile, getFile(pKey), StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(tmpFile);
+    }
+    return serializedSummaries.size();
+  }
+
+  public void printStatistics(PrintStream pOut) {
+    StatisticsWriter.writingStatisticsTo(pOut)
+        .put(loaded)
+        .put(used)
+        .put(stored)
+        .putIfUpdatedAtLeastOnce(unserializable)
+        .putIfUpdatedAtLeastOnce(invalidFiles)
+        .put(loadTime)
+        .put(storeTime);
+  }
+}
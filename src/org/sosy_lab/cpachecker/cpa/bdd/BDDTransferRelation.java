@@ -25,6 +25,7 @@ package org.sosy_lab.cpachecker.cpa.bdd;
 
 import com.google.common.collect.Iterables;
 import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
@@ -399,13 +400,26 @@ public class BDDTransferRelation extends ForwardingTransferRelation<BDDState, BD
     // delete variables from returning function,
     // we do not need them after this location, because the next edge is the functionReturnEdge.
     // this results in a smaller BDD and allows to call a function twice.
+    return forgetLocalVariables(newState, returnVar);
+  }
+
+  /**
+   * Remove all local variables of the current function except the given one from a state.
+   * All variables are quantified with a single existential operation,
+   * which is cheaper than one operation per variable
+   * and can be executed in parallel by BDD libraries like Sylvan.
+   */
+  private BDDState forgetLocalVariables(BDDState pState, String pExceptVar) {
+    List<Region> toForget = new ArrayList<>();
     for (String var : predmgr.getTrackedVars()) {
-      if (isLocalVariableForFunction(var, functionName) && !returnVar.equals(var)) {
-        newState = newState.forget(predmgr.createPredicateWithoutPrecisionCheck(var));
+      if (isLocalVariableForFunction(var, functionName) && !pExceptVar.equals(var)) {
+        Collections.addAll(toForget, predmgr.createPredicateWithoutPrecisionCheck(var));
       }
     }
-
-    return newState;
+    if (toForget.isEmpty()) {
+      return pState;
+    }
+    return pState.forget(toForget.toArray(new Region[toForget.size()]));
   }
 
   @Override
@@ -417,13 +431,7 @@ public class BDDTransferRelation extends ForwardingTransferRelation<BDDState, BD
       // delete variables from returning function,
       // we do not need them after this location, because the next edge is the functionReturnEdge.
       // this results in a smaller BDD and allows to call a function twice.
-      BDDState newState = state;
-      for (String var : predmgr.getTrackedVars()) {
-        if (isLocalVariableForFunction(var, functionName)) {
-          newState = newState.forget(predmgr.createPredicateWithoutPrecisionCheck(var));
-        }
-      }
-      return newState;
+      return forgetLocalVariables(state, "");
     }
 
     return state;
@@ -23,6 +23,7 @@
  */
 package org.sosy_lab.cpachecker.cpa.callstack;
 
+import java.util.Objects;
 import org.sosy_lab.cpachecker.cfa.blocks.Block;
 import org.sosy_lab.cpachecker.cfa.model.CFANode;
 import org.sosy_lab.cpachecker.cfa.model.FunctionExitNode;
@@ -81,6 +82,17 @@ class CallstackReducer extends GenericReducer<CallstackState, Precision> {
     return new CallstackStateEqualsWrapper(pElementKey);
   }
 
+  @Override
+  protected long getFingerprintForState0(
+      CallstackState pElementKey, Precision pPrecisionKey, Object pHashCodeForState) {
+    // the upper half covers the top of the stack, the lower half the calling function
+    CallstackState caller = pElementKey.getPreviousState();
+    int callerHash =
+        caller == null ? 0 : Objects.hash(caller.getCallNode(), caller.getCurrentFunction());
+    return ((long) new CallstackStateEqualsWrapper(pElementKey).hashCode() << 32)
+        | (callerHash & 0xFFFFFFFFL);
+  }
+
   @Override
   protected Precision getVariableReducedPrecision0(Precision pPrecision, Block pContext) {
     return pPrecision;
@@ -88,6 +88,25 @@ class CompositeReducer extends GenericReducer<CompositeState, CompositePrecision
     return result;
   }
 
+  @Override
+  protected long getFingerprintForState0(
+      CompositeState pElementKey, CompositePrecision pPrecisionKey, Object pHashCodeForState) {
+
+    List<AbstractState> elements = pElementKey.getWrappedStates();
+    List<Precision> precisions = pPrecisionKey.getWrappedPrecisions();
+    List<?> hashCodes = (List<?>) pHashCodeForState;
+
+    long result = 1;
+    for (int i = 0; i < wrappedReducers.size(); i++) {
+      result =
+          31 * result
+              + wrappedReducers
+                  .get(i)
+                  .getFingerprintForState(elements.get(i), precisions.get(i), hashCodes.get(i));
+    }
+    return result;
+  }
+
   @Override
   protected Precision getVariableReducedPrecision0(CompositePrecision pPrecision, Block pContext) {
     List<Precision> precisions = pPrecision.getWrappedPrecisions();
@@ -187,6 +187,8 @@ public class ConstraintsCPA
 
   @Override
   public void close() {
+    // the prover environment of the transfer relation has to be closed before its solver
+    transferRelation.close();
     solver.close();
   }
 }
@@ -85,7 +85,7 @@ import org.sosy_lab.java_smt.api.SolverException;
 @Options(prefix = "cpa.constraints")
 public class ConstraintsTransferRelation
     extends ForwardingTransferRelation<ConstraintsState, ConstraintsState, SingletonPrecision>
-    implements StatisticsProvider {
+    implements StatisticsProvider, AutoCloseable {
 
   private enum CheckStrategy { AT_ASSUME, AT_TARGET }
 
@@ -388,6 +388,11 @@ public class ConstraintsTransferRelation
     statsCollection.add(simplifier);
   }
 
+  @Override
+  public void close() {
+    solver.close();
+  }
+
   private class ValueAnalysisStrengthenOperator implements StrengthenOperator {
 
     @Override
@@ -0,0 +1,120 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.constraints.domain;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import org.sosy_lab.cpachecker.cpa.constraints.constraint.Constraint;
+import org.sosy_lab.cpachecker.cpa.value.symbolic.type.SymbolicIdentifier;
+import org.sosy_lab.cpachecker.cpa.value.symbolic.util.SymbolicIdentifierLocator;
+
+/**
+ * Partitioning of constraints by the symbolic identifiers they share. Two constraints are in the
+ * same partition if they have a symbolic identifier in common, directly or transitively. The
+ * partitions are stored as union-find structure over the symbolic identifiers, so adding a
+ * constraint only merges the partitions of its identifiers. Removing constraints is not supported,
+ * a new partitioning has to be computed instead.
+ */
+final class ConstraintPartitioning {
+
+  private final SymbolicIdentifierLocator locator = SymbolicIdentifierLocator.getInstance();
+
+  /** Parent of each identifier in the union-find structure, roots are their own parent. */
+  private final Map<SymbolicIdentifier, SymbolicIdentifier> parents;
+
+  /** One symbolic identifier of each constraint that contains at least one. */
+  private final Map<Constraint, SymbolicIdentifier> representatives;
+
+  ConstraintPartitioning() {
+    parents = new HashMap<>();
+    representatives = new HashMap<>();
+  }
+
+  ConstraintPartitioning(final ConstraintPartitioning pOther) {
+    parents = new HashMap<>(pOther.parents);
+    representatives = new HashMap<>(pOther.representatives);
+  }
+
+  void add(final Constraint pConstraint) {
+    Iterator<SymbolicIdentifier> identifiers = pConstraint.accept(locator).iterator();
+    if (!identifiers.hasNext()) {
+      return;
+    }
+
+    SymbolicIdentifier first = identifiers.next();
+    representatives.put(pConstraint, first);
+    SymbolicIdentifier root = find(first);
+    while (identifiers.hasNext()) {
+      SymbolicIdentifier otherRoot = find(identifiers.next());
+      if (!otherRoot.equals(root)) {
+        parents.put(otherRoot, root);
+      }
+    }
+  }
+
+  /**
+   * Returns the constraints of <code>pConstraints</code> that are in the same partition as
+   * <code>pConstraint</code>. <code>pConstraint</code> itself is contained in the result if it is
+   * contained in <code>pConstraints</code>.
+   */
+  Set<Constraint> getPartition(
+      final Constraint pConstraint, final Iterable<Constraint> pConstraints) {
+    Set<SymbolicIdentifier> roots = new HashSet<>();
+    for (SymbolicIdentifier identifier : pConstraint.accept(locator)) {
+      if (parents.containsKey(identifier)) {
+        roots.add(find(identifier));
+      }
+    }
+
+    Set<Constraint> partition = new HashSet<>();
+    for (Constraint c : pConstraints) {
+      SymbolicIdentifier representative = representatives.get(c);
+      if (c.equals(pConstraint)
+          || (representative != null && roots.contains(find(representative)))) {
+        partition.add(c);
+      }
+    }
+    return partition;
+  }
+
+  private SymbolicIdentifier find(final SymbolicIdentifier pIdentifier) {
+    SymbolicIdentifier current = parents.putIfAbsent(pIdentifier, pIdentifier);
+    if (current == null) {
+      return pIdentifier;
+    }
+    // path halving
+    current = pIdentifier;
+    SymbolicIdentifier parent = parents.get(current);
+    while (!parent.equals(current)) {
+      SymbolicIdentifier grandParent = parents.get(parent);
+      parents.put(current, grandParent);
+      current = grandParent;
+      parent = parents.get(current);
+    }
+    return current;
+  }
+}
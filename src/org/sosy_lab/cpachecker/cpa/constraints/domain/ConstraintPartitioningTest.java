@@ -0,0 +1,221 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.constraints.domain;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import java.util.List;
+import org.junit.Test;
+import org.sosy_lab.cpachecker.cfa.types.Type;
+import org.sosy_lab.cpachecker.cfa.types.c.CNumericTypes;
+import org.sosy_lab.cpachecker.cpa.constraints.constraint.Constraint;
+import org.sosy_lab.cpachecker.cpa.value.symbolic.type.SymbolicExpression;
+import org.sosy_lab.cpachecker.cpa.value.symbolic.type.SymbolicValueFactory;
+import org.sosy_lab.cpachecker.cpa.value.type.NumericValue;
+import org.sosy_lab.cpachecker.util.states.MemoryLocation;
+
+/**
+ * Unit tests for {@link ConstraintPartitioning} and its use in {@link ConstraintsState}.
+ */
+public class ConstraintPartitioningTest {
+
+  private final SymbolicValueFactory factory = SymbolicValueFactory.getInstance();
+
+  private final Type defType = CNumericTypes.INT;
+
+  private final SymbolicExpression a = newIdentifier("a");
+  private final SymbolicExpression b = newIdentifier("b");
+  private final SymbolicExpression c = newIdentifier("c");
+  private final SymbolicExpression d = newIdentifier("d");
+  private final SymbolicExpression five = factory.asConstant(new NumericValue(5), defType);
+  private final SymbolicExpression six = factory.asConstant(new NumericValue(6), defType);
+
+  // a and c are connected only transitively over b
+  private final Constraint aLessFive = lessThan(a, five);
+  private final Constraint aEqualsB = equal(a, b);
+  private final Constraint bEqualsC = equal(b, c);
+  private final Constraint cLessFive = lessThan(c, five);
+  private final Constraint dLessFive = lessThan(d, five);
+  private final Constraint noIdentifiers = equal(five, six);
+
+  private final List<Constraint> all =
+      ImmutableList.of(aLessFive, aEqualsB, bEqualsC, cLessFive, dLessFive, noIdentifiers);
+
+  private SymbolicExpression newIdentifier(String pName) {
+    return factory.asConstant(factory.newIdentifier(MemoryLocation.valueOf(pName)), defType);
+  }
+
+  private Constraint lessThan(SymbolicExpression pOp1, SymbolicExpression pOp2) {
+    return (Constraint) factory.lessThan(pOp1, pOp2, defType, defType);
+  }
+
+  private Constraint equal(SymbolicExpression pOp1, SymbolicExpression pOp2) {
+    return factory.equal(pOp1, pOp2, defType, defType);
+  }
+
+  private ConstraintPartitioning partitioningOf(Iterable<Constraint> pConstraints) {
+    ConstraintPartitioning partitioning = new ConstraintPartitioning();
+    for (Constraint constraint : pConstraints) {
+      partitioning.add(constraint);
+    }
+    return partitioning;
+  }
+
+  private ConstraintsState stateOf(Iterable<Constraint> pConstraints) {
+    ConstraintsState state = new ConstraintsState();
+    for (Constraint constraint : pConstraints) {
+      state.add(constraint);
+    }
+    return state;
+  }
+
+  @Test
+  public void testTransitiveMerge() {
+    ConstraintPartitioning partitioning = partitioningOf(all);
+
+    assertThat(partitioning.getPartition(aLessFive, all))
+        .containsExactly(aLessFive, aEqualsB, bEqualsC, cLessFive);
+    assertThat(partitioning.getPartition(cLessFive, all))
+        .containsExactly(aLessFive, aEqualsB, bEqualsC, cLessFive);
+    assertThat(partitioning.getPartition(dLessFive, all)).containsExactly(dLessFive);
+  }
+
+  @Test
+  public void testMergeOfExistingPartitions() {
+    // the partitions of a and c exist before the constraint over b connects them
+    List<Constraint> constraints =
+        ImmutableList.of(aLessFive, cLessFive, dLessFive, aEqualsB, bEqualsC);
+    ConstraintPartitioning partitioning = new ConstraintPartitioning();
+    partitioning.add(aLessFive);
+    partitioning.add(cLessFive);
+    partitioning.add(dLessFive);
+    assertThat(partitioning.getPartition(aLessFive, constraints)).containsExactly(aLessFive);
+
+    partitioning.add(aEqualsB);
+    assertThat(partitioning.getPartition(aLessFive, constraints))
+        .containsExactly(aLessFive, aEqualsB);
+
+    partitioning.add(bEqualsC);
+    assertThat(partitioning.getPartition(aLessFive, constraints))
+        .containsExactly(aLessFive, aEqualsB, bEqualsC, cLessFive);
+    assertThat(partitioning.getPartition(dLessFive, constraints)).containsExactly(dLessFive);
+  }
+
+  @Test
+  public void testConstraintWithoutIdentifiers() {
+    ConstraintPartitioning partitioning = partitioningOf(all);
+
+    assertThat(partitioning.getPartition(noIdentifiers, all)).containsExactly(noIdentifiers);
+    assertThat(partitioning.getPartition(aLessFive, all)).doesNotContain(noIdentifiers);
+    assertThat(partitioning.getPartition(dLessFive, all)).doesNotContain(noIdentifiers);
+  }
+
+  @Test
+  public void testConstraintNotInPartitioning() {
+    ConstraintPartitioning partitioning = partitioningOf(all);
+
+    // a constraint that was not added gets the partitions of its identifiers, but not itself
+    Constraint bLessSix = lessThan(b, six);
+    assertThat(partitioning.getPartition(bLessSix, all))
+        .containsExactly(aLessFive, aEqualsB, bEqualsC, cLessFive);
+
+    Constraint unknownLessSix = lessThan(newIdentifier("e"), six);
+    assertThat(partitioning.getPartition(unknownLessSix, all)).isEmpty();
+  }
+
+  @Test
+  public void testCopyIsIndependent() {
+    List<Constraint> constraints = ImmutableList.of(aLessFive, cLessFive, aEqualsB, bEqualsC);
+    ConstraintPartitioning original = partitioningOf(ImmutableList.of(aLessFive, cLessFive));
+    ConstraintPartitioning copy = new ConstraintPartitioning(original);
+
+    copy.add(aEqualsB);
+    copy.add(bEqualsC);
+    assertThat(copy.getPartition(aLessFive, constraints))
+        .containsExactly(aLessFive, aEqualsB, bEqualsC, cLessFive);
+    assertThat(original.getPartition(aLessFive, constraints)).containsExactly(aLessFive);
+    assertThat(original.getPartition(cLessFive, constraints)).containsExactly(cLessFive);
+
+    original.add(aEqualsB);
+    assertThat(original.getPartition(aLessFive, constraints))
+        .containsExactly(aLessFive, aEqualsB);
+    assertThat(copy.getPartition(aLessFive, constraints))
+        .containsExactly(aLessFive, aEqualsB, bEqualsC, cLessFive);
+  }
+
+  @Test
+  public void testStateCopyIsIndependent() {
+    ConstraintsState state = stateOf(ImmutableList.of(aLessFive, cLessFive));
+    assertThat(state.getDependentConstraints(aLessFive)).containsExactly(aLessFive);
+
+    ConstraintsState copy = state.copyOf();
+    copy.add(aEqualsB);
+    copy.add(bEqualsC);
+    assertThat(copy.getDependentConstraints(aLessFive))
+        .containsExactly(aLessFive, aEqualsB, bEqualsC, cLessFive);
+    assertThat(state.getDependentConstraints(aLessFive)).containsExactly(aLessFive);
+  }
+
+  @Test
+  public void testStateUpdatesPartitioningOnAdd() {
+    ConstraintsState state = stateOf(ImmutableList.of(aLessFive, cLessFive, dLessFive));
+    assertThat(state.getDependentConstraints(cLessFive)).containsExactly(cLessFive);
+
+    state.add(aEqualsB);
+    state.add(bEqualsC);
+    assertThat(state.getDependentConstraints(cLessFive))
+        .containsExactly(aLessFive, aEqualsB, bEqualsC, cLessFive);
+    assertThat(state.getDependentConstraints(dLessFive)).containsExactly(dLessFive);
+  }
+
+  @Test
+  public void testStateRebuildsPartitioningAfterRemove() {
+    ConstraintsState state = stateOf(all);
+    assertThat(state.getDependentConstraints(aLessFive))
+        .containsExactly(aLessFive, aEqualsB, bEqualsC, cLessFive);
+
+    // removing the connecting constraint splits the partition
+    state.remove(bEqualsC);
+    assertThat(state.getDependentConstraints(aLessFive)).containsExactly(aLessFive, aEqualsB);
+    assertThat(state.getDependentConstraints(cLessFive)).containsExactly(cLessFive);
+
+    // and the rebuilt partitioning is updated by later additions
+    state.add(bEqualsC);
+    assertThat(state.getDependentConstraints(cLessFive))
+        .containsExactly(aLessFive, aEqualsB, bEqualsC, cLessFive);
+  }
+
+  @Test
+  public void testStateRebuildsPartitioningAfterRetainAll() {
+    ConstraintsState state = stateOf(all);
+    assertThat(state.getDependentConstraints(cLessFive))
+        .containsExactly(aLessFive, aEqualsB, bEqualsC, cLessFive);
+
+    state.retainAll(ImmutableList.of(aLessFive, bEqualsC, cLessFive, dLessFive));
+    assertThat(state.getDependentConstraints(aLessFive)).containsExactly(aLessFive);
+    assertThat(state.getDependentConstraints(cLessFive)).containsExactly(bEqualsC, cLessFive);
+    assertThat(state.getDependentConstraints(dLessFive)).containsExactly(dLessFive);
+  }
+}
@@ -38,8 +38,6 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -52,6 +50,7 @@ import org.sosy_lab.common.configuration.Option;
 import org.sosy_lab.common.configuration.Options;
 import org.sosy_lab.common.log.LogManager;
 import org.sosy_lab.common.log.LogManagerWithoutDuplicates;
+import org.sosy_lab.common.time.TimeSpan;
 import org.sosy_lab.cpachecker.core.CPAcheckerResult.Result;
 import org.sosy_lab.cpachecker.core.interfaces.Statistics;
 import org.sosy_lab.cpachecker.core.interfaces.StatisticsProvider;
@@ -61,7 +60,6 @@ import org.sosy_lab.cpachecker.cpa.constraints.FormulaCreatorUsingCConverter;
 import org.sosy_lab.cpachecker.cpa.constraints.constraint.Constraint;
 import org.sosy_lab.cpachecker.cpa.constraints.constraint.IdentifierAssignment;
 import org.sosy_lab.cpachecker.cpa.value.symbolic.type.SymbolicIdentifier;
-import org.sosy_lab.cpachecker.cpa.value.symbolic.util.SymbolicIdentifierLocator;
 import org.sosy_lab.cpachecker.cpa.value.symbolic.util.SymbolicValues;
 import org.sosy_lab.cpachecker.cpa.value.type.Value;
 import org.sosy_lab.cpachecker.exceptions.UnrecognizedCCodeException;
@@ -71,8 +69,10 @@ import org.sosy_lab.cpachecker.util.predicates.smt.BooleanFormulaManagerView;
 import org.sosy_lab.cpachecker.util.predicates.smt.FormulaManagerView;
 import org.sosy_lab.cpachecker.util.predicates.smt.Solver;
 import org.sosy_lab.cpachecker.util.statistics.StatCounter;
+import org.sosy_lab.cpachecker.util.statistics.StatInt;
 import org.sosy_lab.cpachecker.util.statistics.StatKind;
 import org.sosy_lab.cpachecker.util.statistics.StatTimer;
+import org.sosy_lab.cpachecker.util.statistics.StatisticsUtils;
 import org.sosy_lab.cpachecker.util.statistics.StatisticsWriter;
 import org.sosy_lab.java_smt.api.BooleanFormula;
 import org.sosy_lab.java_smt.api.Model.ValueAssignment;
@@ -81,7 +81,7 @@ import org.sosy_lab.java_smt.api.SolverContext.ProverOptions;
 import org.sosy_lab.java_smt.api.SolverException;
 
 @Options(prefix = "cpa.constraints")
-public class ConstraintsSolver implements StatisticsProvider {
+public class ConstraintsSolver implements StatisticsProvider, AutoCloseable {
 
   @Option(
     secure = true,
@@ -117,6 +117,17 @@ public class ConstraintsSolver implements StatisticsProvider {
       name = "useLastModel")
   private boolean useLastModel = true;
 
+  @Option(
+      secure = true,
+      description =
+          "Keep the constraints of the last checked state on the stack of a single prover"
+              + " environment and only pop and push the constraints that differ for the next"
+              + " checked state. Every constraint is encoded into a formula only once. The SAT"
+              + " checks always consider all constraints of a state, so this option cannot be"
+              + " combined with minimalSatCheck.",
+      name = "incrementalSolving")
+  private boolean incrementalSolving = false;
+
   private final LogManagerWithoutDuplicates logger;
 
   private final StatTimer timeForSatChecks = new StatTimer(StatKind.SUM, "Time for SAT checks");
@@ -124,6 +135,15 @@ public class ConstraintsSolver implements StatisticsProvider {
       new StatTimer(StatKind.SUM, "Time for " + "independent computation");
   private final StatTimer timeForDefinitesComputation =
       new StatTimer(StatKind.SUM, "Time for resolving definites");
+  private final StatInt stateSizes =
+      new StatInt(StatKind.AVG, "Constraints in checked states");
+  private final StatInt querySizes =
+      new StatInt(StatKind.AVG, "Constraints in sliced queries");
+  private final StatTimer timeForEncoding =
+      new StatTimer(StatKind.SUM, "Time for encoding constraints");
+  final StatCounter encodingCacheHits = new StatCounter("Reused constraint encodings");
+  final StatCounter pushedConstraintsCount = new StatCounter("Pushed constraints");
+  final StatCounter poppedConstraintsCount = new StatCounter("Popped constraints");
 
   private ConstraintsCache cache;
   private Solver solver;
@@ -132,11 +152,28 @@ public class ConstraintsSolver implements StatisticsProvider {
   private BooleanFormulaManagerView booleanFormulaManager;
 
   private CtoFormulaConverter converter;
-  private SymbolicIdentifierLocator locator;
 
   /** Table of id constraints set, id identifier assignment, formula * */
   private Table<Integer, Integer, BooleanFormula> constraintFormulas = HashBasedTable.create();
 
+  /**
+   * Prover environment used for incremental solving. It contains one stack level for each
+   * constraint in {@link #pushedConstraints}, in the same order.
+   */
+  private @Nullable ProverEnvironment incrementalProver;
+
+  private final List<Constraint> pushedConstraints = new ArrayList<>();
+
+  /** Name of the function the formulas in {@link #pushedConstraints} were created for. */
+  private @Nullable String pushedFunctionName;
+
+  /**
+   * Table of function name, constraint, formula of the constraints used for incremental solving,
+   * without definite assignments.
+   */
+  private final Table<String, Constraint, BooleanFormula> incrementalFormulas =
+      HashBasedTable.create();
+
   public ConstraintsSolver(
       final Configuration pConfig,
       final LogManager pLogger,
@@ -145,13 +182,17 @@ public class ConstraintsSolver implements StatisticsProvider {
       final CtoFormulaConverter pConverter)
       throws InvalidConfigurationException {
     pConfig.inject(this);
+    if (incrementalSolving && performMinimalSatCheck) {
+      throw new InvalidConfigurationException(
+          "Incremental solving always checks all constraints of a state, disable "
+              + "cpa.constraints.minimalSatCheck to use cpa.constraints.incrementalSolving.");
+    }
 
     logger = new LogManagerWithoutDuplicates(pLogger);
     solver = pSolver;
     formulaManager = pFormulaManager;
     booleanFormulaManager = formulaManager.getBooleanFormulaManager();
     converter = pConverter;
-    locator = SymbolicIdentifierLocator.getInstance();
 
     if (doCaching) {
       if (cacheSubsets) {
@@ -190,44 +231,24 @@ public class ConstraintsSolver implements StatisticsProvider {
       throws SolverException, InterruptedException, UnrecognizedCCodeException {
 
     if (!pConstraints.isEmpty()) {
+      boolean finished = false;
       try {
         timeForSatChecks.start();
-        Set<Constraint> relevantConstraints = new HashSet<>();
-        if (performMinimalSatCheck && pConstraints.getLastAddedConstraint().isPresent()) {
-          try {
-            timeForIndependentComputation.start();
-            Constraint lastConstraint = pConstraints.getLastAddedConstraint().get();
-            Set<Constraint> leftOverConstraints = new HashSet<>(pConstraints);
-            Set<SymbolicIdentifier> newRelevantIdentifiers = lastConstraint.accept(locator);
-            Set<SymbolicIdentifier> relevantIdentifiers;
-            do {
-              relevantIdentifiers = ImmutableSet.copyOf(newRelevantIdentifiers);
-              Iterator<Constraint> it = leftOverConstraints.iterator();
-              while (it.hasNext()) {
-                Constraint currentC = it.next();
-                Set<SymbolicIdentifier> containedIdentifiers = currentC.accept(locator);
-                if (!Sets.intersection(containedIdentifiers, relevantIdentifiers).isEmpty()) {
-                  newRelevantIdentifiers = Sets.union(newRelevantIdentifiers, containedIdentifiers);
-                  relevantConstraints.add(currentC);
-                  it.remove();
-                }
-              }
-            } while (!newRelevantIdentifiers.equals(relevantIdentifiers));
-
-          } finally {
-            timeForIndependentComputation.stop();
-          }
-
-        } else {
+        BooleanFormula constraintsAsFormula = null;
+        // results of independent partitions are cached separately
+        Collection<Constraint> relevantConstraints;
+        if (incrementalSolving) {
           relevantConstraints = pConstraints;
+          prover = getIncrementalProver(pConstraints, pFunctionName);
+        } else {
+          relevantConstraints = getRelevantConstraints(pConstraints);
+          constraintsAsFormula =
+              getFullFormula(
+                  relevantConstraints, pConstraints.getDefiniteAssignment(), pFunctionName);
+          prover = solver.newProverEnvironment(ProverOptions.GENERATE_MODELS);
+          prover.push(constraintsAsFormula);
         }
 
-        BooleanFormula constraintsAsFormula =
-            getFullFormula(
-                relevantConstraints, pConstraints.getDefiniteAssignment(), pFunctionName);
-        prover = solver.newProverEnvironment(ProverOptions.GENERATE_MODELS);
-        prover.push(constraintsAsFormula);
-
         Boolean unsat = null; // assign null to fail fast if assignment is missed
         ImmutableList<ValueAssignment> modelAsAssignment = pConstraints.getModel();
         ImmutableList<ValueAssignment> newModelAsAssignment = ImmutableList.of();
@@ -254,7 +275,7 @@ public class ConstraintsSolver implements StatisticsProvider {
           // if the last model does not fulfill the formula, and the last model actually
           // is some variable assignment (i.e., model != true), then we check the formula
           // for satisfiability without any assignments, again.
-          CacheResult res = cache.getCachedResult(pConstraints);
+          CacheResult res = cache.getCachedResult(relevantConstraints);
 
           if (res.isUnsat()) {
             unsat = true;
@@ -264,9 +285,11 @@ public class ConstraintsSolver implements StatisticsProvider {
             gotResultFromCache = true;
             pConstraints.setModel(res.getModelAssignment());
           } else {
-            prover.close();
-            prover = solver.newProverEnvironment(ProverOptions.GENERATE_MODELS);
-            prover.push(constraintsAsFormula);
+            if (!incrementalSolving) {
+              prover.close();
+              prover = solver.newProverEnvironment(ProverOptions.GENERATE_MODELS);
+              prover.push(constraintsAsFormula);
+            }
             unsat = prover.isUnsat();
 
             if (!unsat) {
@@ -278,7 +301,7 @@ public class ConstraintsSolver implements StatisticsProvider {
         if (!gotResultFromCache) {
           if (!unsat) {
             pConstraints.setModel(newModelAsAssignment);
-            cache.addSat(pConstraints, newModelAsAssignment);
+            cache.addSat(relevantConstraints, newModelAsAssignment);
             // doing this while the complete formula is still on the prover environment stack is
             // cheaper than performing another complete SAT check when the assignment is really
             // requested
@@ -287,13 +310,18 @@ public class ConstraintsSolver implements StatisticsProvider {
             }
 
           } else {
-            cache.addUnsat(pConstraints);
+            cache.addUnsat(relevantConstraints);
           }
         }
 
+        finished = true;
         return unsat;
 
       } finally {
+        if (incrementalSolving && !finished) {
+          // the stack may contain additional levels, start from scratch with the next check
+          resetIncrementalProver();
+        }
         closeProver();
         timeForSatChecks.stop();
       }
@@ -305,11 +333,108 @@ public class ConstraintsSolver implements StatisticsProvider {
 
   private void closeProver() {
     if (prover != null) {
-      prover.close();
+      if (prover != incrementalProver) {
+        prover.close();
+      }
       prover = null;
     }
   }
 
+  /**
+   * Returns the constraints of the given state that have to be considered in a SAT check. If
+   * minimal SAT checks are enabled, these are only the constraints that share symbolic identifiers
+   * with the last added constraint, directly or transitively. The other constraints are
+   * independent of the last added constraint and were already satisfiable in the predecessor
+   * state.
+   */
+  private Collection<Constraint> getRelevantConstraints(ConstraintsState pConstraints) {
+    Collection<Constraint> relevantConstraints;
+    if (performMinimalSatCheck && pConstraints.getLastAddedConstraint().isPresent()) {
+      try {
+        timeForIndependentComputation.start();
+        Constraint lastConstraint = pConstraints.getLastAddedConstraint().get();
+        relevantConstraints = pConstraints.getDependentConstraints(lastConstraint);
+      } finally {
+        timeForIndependentComputation.stop();
+      }
+
+    } else {
+      relevantConstraints = pConstraints;
+    }
+    stateSizes.setNextValue(pConstraints.size());
+    querySizes.setNextValue(relevantConstraints.size());
+    return relevantConstraints;
+  }
+
+  /**
+   * Returns the prover environment for incremental solving, with exactly the constraints of the
+   * given state on its stack. Only the constraints behind the longest common prefix of the
+   * constraints on the stack and the constraints of the state are popped and pushed. For a
+   * successor of the last checked state, this is usually only its new constraint.
+   */
+  private ProverEnvironment getIncrementalProver(
+      ConstraintsState pConstraints, String pFunctionName)
+      throws UnrecognizedCCodeException, InterruptedException {
+    if (incrementalProver == null) {
+      incrementalProver = solver.newProverEnvironment(ProverOptions.GENERATE_MODELS);
+    }
+
+    if (!pFunctionName.equals(pushedFunctionName)) {
+      // the formulas on the stack were created for another function
+      popIncrementalProver(0);
+      pushedFunctionName = pFunctionName;
+    }
+
+    List<Constraint> constraints = ImmutableList.copyOf(pConstraints);
+    int commonPrefix = 0;
+    while (commonPrefix < pushedConstraints.size()
+        && commonPrefix < constraints.size()
+        && pushedConstraints.get(commonPrefix).equals(constraints.get(commonPrefix))) {
+      commonPrefix++;
+    }
+
+    popIncrementalProver(commonPrefix);
+    for (Constraint c : constraints.subList(commonPrefix, constraints.size())) {
+      BooleanFormula formula = incrementalFormulas.get(pFunctionName, c);
+      if (formula == null) {
+        // definite assignments are not substituted, because they may be different for the other
+        // states that share this constraint
+        formula = createConstraintFormulas(c, IdentifierAssignment.empty(), pFunctionName);
+        incrementalFormulas.put(pFunctionName, c, formula);
+      } else {
+        encodingCacheHits.inc();
+      }
+      incrementalProver.push(formula);
+      pushedConstraints.add(c);
+      pushedConstraintsCount.inc();
+    }
+    return incrementalProver;
+  }
+
+  /** Pops constraints from the incremental prover until only <code>pSize</code> are left. */
+  private void popIncrementalProver(int pSize) {
+    while (pushedConstraints.size() > pSize) {
+      incrementalProver.pop();
+      pushedConstraints.remove(pushedConstraints.size() - 1);
+      poppedConstraintsCount.inc();
+    }
+  }
+
+  private void resetIncrementalProver() {
+    if (incrementalProver != null) {
+      incrementalProver.close();
+      incrementalProver = null;
+    }
+    pushedConstraints.clear();
+    pushedFunctionName = null;
+  }
+
+  /** Closes the prover environment kept for incremental solving. */
+  @Override
+  public void close() {
+    resetIncrementalProver();
+  }
+
   private void resolveDefiniteAssignments(
       ConstraintsState pConstraints, List<ValueAssignment> pModel, String pFunctionName)
       throws InterruptedException, SolverException {
@@ -399,6 +524,8 @@ public class ConstraintsSolver implements StatisticsProvider {
       if (!constraintFormulas.contains(constraintsId, identifierId)) {
         constraintFormulas.put(
             constraintsId, identifierId, createConstraintFormulas(c, pAssignment, pFunctionName));
+      } else {
+        encodingCacheHits.inc();
       }
       formulas.add(constraintFormulas.get(constraintsId, identifierId));
     }
@@ -427,10 +554,17 @@ public class ConstraintsSolver implements StatisticsProvider {
   private BooleanFormula createConstraintFormulas(
       Constraint pConstraint, IdentifierAssignment pAssignment, String pFunctionName)
       throws UnrecognizedCCodeException, InterruptedException {
-    assert !constraintFormulas.contains(getConstraintId(pConstraint), getAssignmentId(pAssignment))
+    assert incrementalSolving
+            || !constraintFormulas.contains(
+                getConstraintId(pConstraint), getAssignmentId(pAssignment))
         : "Trying to add a formula that already exists!";
 
-    return getFormulaCreator(pFunctionName).createFormula(pConstraint, pAssignment);
+    timeForEncoding.start();
+    try {
+      return getFormulaCreator(pFunctionName).createFormula(pConstraint, pAssignment);
+    } finally {
+      timeForEncoding.stop();
+    }
   }
 
   @Override
@@ -442,7 +576,21 @@ public class ConstraintsSolver implements StatisticsProvider {
               PrintStream out, Result result, UnmodifiableReachedSet reached) {
             StatisticsWriter.writingStatisticsTo(out)
                 .put(timeForSatChecks)
-                .put(timeForDefinitesComputation);
+                .put(timeForDefinitesComputation)
+                .putIf(performMinimalSatCheck && !incrementalSolving, timeForIndependentComputation)
+                .putIf(performMinimalSatCheck && !incrementalSolving, stateSizes)
+                .putIf(performMinimalSatCheck && !incrementalSolving, querySizes)
+                .putIf(
+                    performMinimalSatCheck && !incrementalSolving && stateSizes.getValueSum() > 0,
+                    "Average query size reduction",
+                    StatisticsUtils.toPercent(
+                        stateSizes.getValueSum() - querySizes.getValueSum(),
+                        stateSizes.getValueSum()))
+                .put(timeForEncoding)
+                .put(encodingCacheHits)
+                .put("Estimated time saved by reused encodings", getSavedEncodingTime())
+                .putIf(incrementalSolving, pushedConstraintsCount)
+                .putIf(incrementalSolving, poppedConstraintsCount);
           }
 
           @Override
@@ -459,6 +607,17 @@ public class ConstraintsSolver implements StatisticsProvider {
     }
   }
 
+  /** Estimates the time saved by reusing encodings, based on the average encoding time. */
+  private TimeSpan getSavedEncodingTime() {
+    if (timeForEncoding.getUpdateCount() == 0) {
+      return TimeSpan.empty();
+    }
+    return TimeSpan.ofNanos(
+        timeForEncoding.getConsumedTime().asNanos()
+            / timeForEncoding.getUpdateCount()
+            * encodingCacheHits.getValue());
+  }
+
   private interface ConstraintsCache {
     CacheResult getCachedResult(Collection<Constraint> pConstraints);
 
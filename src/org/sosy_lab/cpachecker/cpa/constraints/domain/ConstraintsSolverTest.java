@@ -0,0 +1,185 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.constraints.domain;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.Before;
+import org.junit.Test;
+import org.sosy_lab.common.ShutdownNotifier;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.cpachecker.cfa.types.MachineModel;
+import org.sosy_lab.cpachecker.cfa.types.Type;
+import org.sosy_lab.cpachecker.cfa.types.c.CNumericTypes;
+import org.sosy_lab.cpachecker.core.AnalysisDirection;
+import org.sosy_lab.cpachecker.cpa.constraints.constraint.Constraint;
+import org.sosy_lab.cpachecker.cpa.value.symbolic.type.SymbolicExpression;
+import org.sosy_lab.cpachecker.cpa.value.symbolic.type.SymbolicValueFactory;
+import org.sosy_lab.cpachecker.cpa.value.symbolic.util.SymbolicValues;
+import org.sosy_lab.cpachecker.cpa.value.type.NumericValue;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.ctoformula.CtoFormulaConverter;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.ctoformula.CtoFormulaTypeHandler;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.ctoformula.FormulaEncodingOptions;
+import org.sosy_lab.cpachecker.util.predicates.smt.SolverViewBasedTest0;
+import org.sosy_lab.cpachecker.util.states.MemoryLocation;
+
+/**
+ * Tests for the incremental solving mode of {@link ConstraintsSolver}. The states of two ARG
+ * branches with a common prefix are checked in alternating order, such that the solver stack
+ * has to be popped back to the common prefix for each check.
+ */
+public class ConstraintsSolverTest extends SolverViewBasedTest0 {
+
+  private static final String FUNCTION_NAME = "main";
+
+  private final SymbolicValueFactory factory = SymbolicValueFactory.getInstance();
+
+  private final Type defType = CNumericTypes.INT;
+
+  private Constraint xGreaterZero;
+  private Constraint xLessTen;
+  private Constraint xGreaterTwenty;
+  private Constraint xEqualsFive;
+
+  @Before
+  public void setUp() {
+    SymbolicValues.initialize();
+
+    SymbolicExpression x =
+        factory.asConstant(factory.newIdentifier(MemoryLocation.valueOf("x")), defType);
+    xGreaterZero = lessThan(constant(0), x);
+    xLessTen = lessThan(x, constant(10));
+    xGreaterTwenty = lessThan(constant(20), x);
+    xEqualsFive = factory.equal(x, constant(5), defType, defType);
+  }
+
+  private SymbolicExpression constant(int pValue) {
+    return factory.asConstant(new NumericValue(pValue), defType);
+  }
+
+  private Constraint lessThan(SymbolicExpression pOp1, SymbolicExpression pOp2) {
+    return (Constraint) factory.lessThan(pOp1, pOp2, defType, defType);
+  }
+
+  private ConstraintsState stateOf(Constraint... pConstraints) {
+    ConstraintsState state = new ConstraintsState();
+    for (Constraint constraint : pConstraints) {
+      state.add(constraint);
+    }
+    return state;
+  }
+
+  /**
+   * Returns the states to check, in this order: the common prefix, then alternately the states
+   * of the two branches, and at last the deepest state of the first branch again. Each call
+   * returns new states, because SAT checks store models and definite assignments in them.
+   */
+  private List<ConstraintsState> createStates() {
+    return ImmutableList.of(
+        stateOf(xGreaterZero),
+        stateOf(xGreaterZero, xLessTen),
+        stateOf(xGreaterZero, xGreaterTwenty),
+        stateOf(xGreaterZero, xLessTen, xEqualsFive),
+        stateOf(xGreaterZero, xGreaterTwenty, xEqualsFive),
+        stateOf(xGreaterZero, xLessTen, xEqualsFive));
+  }
+
+  private ConstraintsSolver createConstraintsSolver(Map<String, String> pOptions)
+      throws Exception {
+    Configuration solverConfig =
+        Configuration.builder()
+            .copyFrom(config)
+            .setOption("cpa.constraints.minimalSatCheck", "false")
+            .setOptions(pOptions)
+            .build();
+    CtoFormulaConverter converter =
+        new CtoFormulaConverter(
+            new FormulaEncodingOptions(solverConfig),
+            mgrv,
+            MachineModel.LINUX32,
+            Optional.empty(),
+            logger,
+            ShutdownNotifier.createDummy(),
+            new CtoFormulaTypeHandler(logger, MachineModel.LINUX32),
+            AnalysisDirection.FORWARD);
+    return new ConstraintsSolver(solverConfig, logger, solver, mgrv, converter);
+  }
+
+  private List<Boolean> checkStates(ConstraintsSolver pSolver) throws Exception {
+    List<Boolean> results = new ArrayList<>();
+    for (ConstraintsState state : createStates()) {
+      results.add(pSolver.isUnsat(state, FUNCTION_NAME));
+    }
+    return results;
+  }
+
+  private void checkAlternatingBranches(Map<String, String> pOptions) throws Exception {
+    List<Boolean> expected;
+    try (ConstraintsSolver nonIncremental = createConstraintsSolver(pOptions)) {
+      expected = checkStates(nonIncremental);
+    }
+    assertThat(expected).containsExactly(false, false, false, false, true, false).inOrder();
+
+    Map<String, String> incrementalOptions =
+        ImmutableMap.<String, String>builder()
+            .putAll(pOptions)
+            .put("cpa.constraints.incrementalSolving", "true")
+            .build();
+    try (ConstraintsSolver incremental = createConstraintsSolver(incrementalOptions)) {
+      List<Boolean> results = checkStates(incremental);
+      List<ConstraintsState> states = createStates();
+      for (int i = 0; i < states.size(); i++) {
+        assertWithMessage("unsat result for state %s", states.get(i))
+            .that(results.get(i))
+            .isEqualTo(expected.get(i));
+      }
+
+      // Stack after each check (pushes, pops):
+      // [x>0] (1, 0); [x>0, x<10] (1, 0); [x>0, x>20] (1, 1); [x>0, x<10, x==5] (2, 1);
+      // [x>0, x>20, x==5] (2, 2); [x>0, x<10, x==5] (2, 2)
+      assertThat(incremental.pushedConstraintsCount.getValue()).isEqualTo(9);
+      assertThat(incremental.poppedConstraintsCount.getValue()).isEqualTo(6);
+      // each of the four constraints is encoded once, the other pushes reuse the encoding
+      assertThat(incremental.encodingCacheHits.getValue()).isEqualTo(5);
+    }
+  }
+
+  @Test
+  public void testIncrementalSolvingWithoutCaches() throws Exception {
+    checkAlternatingBranches(
+        ImmutableMap.of("cpa.constraints.cache", "false", "cpa.constraints.useLastModel", "false"));
+  }
+
+  @Test
+  public void testIncrementalSolvingWithCaches() throws Exception {
+    checkAlternatingBranches(ImmutableMap.of());
+  }
+}
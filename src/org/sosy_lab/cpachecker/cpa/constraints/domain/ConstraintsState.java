@@ -36,6 +36,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import javax.annotation.Nullable;
 import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
 import org.sosy_lab.cpachecker.core.interfaces.Graphable;
 import org.sosy_lab.cpachecker.cpa.constraints.constraint.Constraint;
@@ -64,6 +65,12 @@ public class ConstraintsState implements AbstractState, Graphable, Set<Constrain
   private IdentifierAssignment definiteAssignment;
   private ImmutableList<ValueAssignment> lastModelAsAssignment = ImmutableList.of();
 
+  /**
+   * Partitioning of {@link #constraints} by shared symbolic identifiers. It is only computed on
+   * demand and kept up to date while constraints are added.
+   */
+  private @Nullable ConstraintPartitioning partitioning = null;
+
   /**
    * Creates a new, initial <code>ConstraintsState</code> object.
    */
@@ -94,6 +101,9 @@ public class ConstraintsState implements AbstractState, Graphable, Set<Constrain
     lastAddedConstraint = pState.lastAddedConstraint;
     definiteAssignment = new IdentifierAssignment(pState.definiteAssignment);
     lastModelAsAssignment = pState.lastModelAsAssignment;
+    if (pState.partitioning != null) {
+      partitioning = new ConstraintPartitioning(pState.partitioning);
+    }
   }
 
   /**
@@ -116,7 +126,14 @@ public class ConstraintsState implements AbstractState, Graphable, Set<Constrain
     checkNotNull(pConstraint);
 
     lastAddedConstraint = Optional.of(pConstraint);
-    return !constraints.contains(pConstraint) && constraints.add(pConstraint);
+    if (constraints.contains(pConstraint)) {
+      return false;
+    }
+    constraints.add(pConstraint);
+    if (partitioning != null) {
+      partitioning.add(pConstraint);
+    }
+    return true;
   }
 
   @Override
@@ -125,6 +142,7 @@ public class ConstraintsState implements AbstractState, Graphable, Set<Constrain
 
     if (changed) {
       constraintFormulas.remove(pObject);
+      partitioning = null;
       assert constraints.size() >= constraintFormulas.size();
     }
 
@@ -135,6 +153,21 @@ public class ConstraintsState implements AbstractState, Graphable, Set<Constrain
     return lastAddedConstraint;
   }
 
+  /**
+   * Returns all constraints of this state that share symbolic identifiers with the given
+   * constraint, directly or transitively over other constraints of this state. The given
+   * constraint is contained in the result if it is a constraint of this state.
+   */
+  Set<Constraint> getDependentConstraints(Constraint pConstraint) {
+    if (partitioning == null) {
+      partitioning = new ConstraintPartitioning();
+      for (Constraint c : constraints) {
+        partitioning.add(c);
+      }
+    }
+    return partitioning.getPartition(pConstraint, constraints);
+  }
+
   @Override
   public boolean containsAll(Collection<?> pCollection) {
     return constraints.containsAll(pCollection);
@@ -181,6 +214,7 @@ public class ConstraintsState implements AbstractState, Graphable, Set<Constrain
   public void clear() {
     constraints.clear();
     constraintFormulas.clear();
+    partitioning = null;
   }
 
   @Override
@@ -312,6 +346,7 @@ public class ConstraintsState implements AbstractState, Graphable, Set<Constrain
 
       constraints.remove(index);
       constraintFormulas.remove(constraintToRemove);
+      partitioning = null;
       index--;
     }
   }
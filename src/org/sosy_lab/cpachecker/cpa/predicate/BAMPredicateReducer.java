@@ -208,6 +208,17 @@ public class BAMPredicateReducer implements Reducer {
     return Triple.of(element.getAbstractionFormula().asRegion(), precision, cpa.getRelevantPredicatesComputer());
   }
 
+  @Override
+  public long getFingerprintForState(
+      AbstractState pElementKey, Precision pPrecisionKey, Object pHashCodeForState) {
+    PredicateAbstractState element = (PredicateAbstractState) pElementKey;
+    // The RelevantPredicatesComputer is not part of the fingerprint,
+    // because its hashCode is expensive and changes after refinements.
+    // Keys that differ only in the RelevantPredicatesComputer are distinguished by equals.
+    return ((long) element.getAbstractionFormula().asRegion().hashCode() << 32)
+        | (pPrecisionKey.hashCode() & 0xFFFFFFFFL);
+  }
+
   @Override
   public Precision getVariableExpandedPrecision(Precision pRootPrecision, Block pRootContext,
       Precision pReducedPrecision) {
@@ -0,0 +1,121 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.predicate;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import org.sosy_lab.cpachecker.cfa.model.CFAEdge;
+import org.sosy_lab.cpachecker.exceptions.CPATransferException;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.PathFormula;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.PathFormulaManager;
+import org.sosy_lab.cpachecker.util.statistics.StatCounter;
+import org.sosy_lab.cpachecker.util.statistics.StatTimer;
+
+/**
+ * Support for constructing path formulas lazily.
+ * Instead of converting each CFA edge into a formula as soon as a successor
+ * is created, only the edge and the predecessor state are recorded in a
+ * {@link PendingPathFormula}. The formula is computed when an operator
+ * (abstraction, satisfiability check, merge, refinement, ...) asks for it.
+ * States that are covered or removed before this happens
+ * never cause any work in the formula manager.
+ * Because the path formula of each state is stored once it has been computed,
+ * states that share a prefix of their path also share the formulas for it.
+ */
+final class LazyPathFormulaBuilder {
+
+  private final PathFormulaManager pfmgr;
+
+  final StatCounter pendingEdges = new StatCounter("Number of deferred edge conversions");
+  final StatCounter materializedEdges = new StatCounter("Number of materialized edges");
+  final StatTimer materializationTime = new StatTimer("Time for materializing path formulas");
+
+  LazyPathFormulaBuilder(PathFormulaManager pPfmgr) {
+    pfmgr = checkNotNull(pPfmgr);
+  }
+
+  /**
+   * Create the pending path formula for the successor of a state along an edge.
+   */
+  PendingPathFormula defer(PredicateAbstractState pPredecessor, CFAEdge pEdge) {
+    pendingEdges.inc();
+    return new PendingPathFormula(pPredecessor, pEdge, pPredecessor.getPathFormulaLength() + 1);
+  }
+
+  private PathFormula convert(PathFormula pPathFormula, CFAEdge pEdge)
+      throws CPATransferException, InterruptedException {
+    materializedEdges.inc();
+    return pfmgr.makeAnd(pPathFormula, pEdge);
+  }
+
+  /** Number of edges whose conversion was deferred and is still outstanding. */
+  long getNeverMaterializedEdges() {
+    return pendingEdges.getValue() - materializedEdges.getValue();
+  }
+
+  /**
+   * The path formula of a predecessor state extended by a single edge,
+   * without having computed the formula for the edge yet.
+   */
+  final class PendingPathFormula {
+
+    private final PredicateAbstractState predecessor;
+    private final CFAEdge edge;
+    private final int length;
+
+    private PendingPathFormula(PredicateAbstractState pPredecessor, CFAEdge pEdge, int pLength) {
+      predecessor = checkNotNull(pPredecessor);
+      edge = checkNotNull(pEdge);
+      length = pLength;
+    }
+
+    PredicateAbstractState getPredecessor() {
+      return predecessor;
+    }
+
+    CFAEdge getEdge() {
+      return edge;
+    }
+
+    /** The length the path formula will have once it is materialized. */
+    int getLength() {
+      return length;
+    }
+
+    /** Compute the path formula given the (materialized) path formula of the predecessor. */
+    PathFormula extend(PathFormula pPredecessorFormula)
+        throws CPATransferException, InterruptedException {
+      return convert(pPredecessorFormula, edge);
+    }
+
+    StatTimer getMaterializationTimer() {
+      return materializationTime;
+    }
+
+    @Override
+    public String toString() {
+      return "pending(" + edge + ")";
+    }
+  }
+}
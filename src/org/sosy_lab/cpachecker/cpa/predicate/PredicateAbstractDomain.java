@@ -84,6 +84,7 @@ public class PredicateAbstractDomain implements AbstractDomain {
 
     } else if (e2.isAbstractionState()) {
       if (symbolicCoverageCheck) {
+        e1.materializePathFormula();
         symbolicCoverageCheckTimer.start();
 
         boolean result = mgr.checkCoverage(e1.getAbstractionFormula(), e1.getPathFormula(), e2.getAbstractionFormula());
@@ -100,11 +101,19 @@ public class PredicateAbstractDomain implements AbstractDomain {
 
     } else {
 
-      if (e1.getPathFormula().equals(e2.getPathFormula())) {
+      // only the fast check which returns true if a merge occurred for this element
+      if (e1.getMergedInto() == e2) {
         return true;
       }
-      // only the fast check which returns true if a merge occurred for this element
-      return e1.getMergedInto() == e2;
+      if (e1.hasPendingPathFormula() || e2.hasPendingPathFormula()) {
+        if (e1.getPathFormulaLength() != e2.getPathFormulaLength()) {
+          // path formulas with different length are never equal, avoid materializing them
+          return false;
+        }
+        e1.materializePathFormula();
+        e2.materializePathFormula();
+      }
+      return e1.getPathFormula().equals(e2.getPathFormula());
     }
 
     } catch (SolverException e) {
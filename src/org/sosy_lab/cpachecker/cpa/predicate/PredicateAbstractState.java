@@ -29,6 +29,7 @@ import static org.sosy_lab.cpachecker.util.AbstractStates.extractStateByType;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Predicate;
 import com.google.common.base.Predicates;
+import org.sosy_lab.common.Classes.UnexpectedCheckedException;
 
 import org.sosy_lab.common.collect.PathCopyingPersistentTreeMap;
 import org.sosy_lab.common.collect.PersistentMap;
@@ -38,13 +39,21 @@ import org.sosy_lab.cpachecker.core.interfaces.FormulaReportingState;
 import org.sosy_lab.cpachecker.core.interfaces.Graphable;
 import org.sosy_lab.cpachecker.core.interfaces.NonMergeableAbstractState;
 import org.sosy_lab.cpachecker.core.interfaces.Partitionable;
+import org.sosy_lab.cpachecker.cpa.predicate.LazyPathFormulaBuilder.PendingPathFormula;
+import org.sosy_lab.cpachecker.exceptions.CPATransferException;
 import org.sosy_lab.cpachecker.util.AbstractStates;
 import org.sosy_lab.cpachecker.util.predicates.AbstractionFormula;
 import org.sosy_lab.cpachecker.util.predicates.pathformula.PathFormula;
 import org.sosy_lab.cpachecker.util.predicates.smt.FormulaManagerView;
+import org.sosy_lab.cpachecker.util.statistics.StatTimer;
 import org.sosy_lab.java_smt.api.BooleanFormula;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import javax.annotation.Nullable;
 
 /**
  * AbstractState for Symbolic Predicate Abstraction CPA
@@ -132,6 +141,11 @@ public abstract class PredicateAbstractState implements AbstractState, Partition
       super(pF, pA, pAbstractionLocations);
     }
 
+    private NonAbstractionState(PendingPathFormula pPending, AbstractionFormula pA,
+        PersistentMap<CFANode, Integer> pAbstractionLocations) {
+      super(pPending, pA, pAbstractionLocations);
+    }
+
     @Override
     public boolean isAbstractionState() {
       return false;
@@ -171,6 +185,15 @@ public abstract class PredicateAbstractState implements AbstractState, Partition
                                         oldState.getAbstractionLocationsOnPath());
   }
 
+  /**
+   * Create a successor state whose path formula is computed only when it is needed.
+   */
+  static PredicateAbstractState mkNonAbstractionStateWithPendingPathFormula(
+      PendingPathFormula pPending, PredicateAbstractState oldState) {
+    return new NonAbstractionState(pPending, oldState.getAbstractionFormula(),
+                                        oldState.getAbstractionLocationsOnPath());
+  }
+
   static PredicateAbstractState mkNonAbstractionState(
       PathFormula pF,
       AbstractionFormula pA,
@@ -180,8 +203,12 @@ public abstract class PredicateAbstractState implements AbstractState, Partition
 
   /** The path formula for the path from the last abstraction node to this node.
    * it is set to true on a new abstraction location and updated with a new
-   * non-abstraction location */
-  private PathFormula pathFormula;
+   * non-abstraction location.
+   * It is null as long as its construction is deferred (cf. {@link #pendingPathFormula}). */
+  private @Nullable PathFormula pathFormula;
+
+  /** The deferred computation of the path formula, only present if {@link #pathFormula} is null. */
+  private transient @Nullable PendingPathFormula pendingPathFormula;
 
   /** The abstraction which is updated only on abstraction locations */
   private AbstractionFormula abstractionFormula;
@@ -196,6 +223,13 @@ public abstract class PredicateAbstractState implements AbstractState, Partition
     this.abstractionLocations = pAbstractionLocations;
   }
 
+  private PredicateAbstractState(PendingPathFormula pPending, AbstractionFormula a,
+      PersistentMap<CFANode, Integer> pAbstractionLocations) {
+    this.pendingPathFormula = checkNotNull(pPending);
+    this.abstractionFormula = a;
+    this.abstractionLocations = pAbstractionLocations;
+  }
+
   public abstract boolean isAbstractionState();
 
   PredicateAbstractState getMergedInto() {
@@ -233,9 +267,67 @@ public abstract class PredicateAbstractState implements AbstractState, Partition
   }
 
   public PathFormula getPathFormula() {
+    if (pathFormula == null) {
+      // Operators of the PredicateCPA call materializePathFormula() beforehand,
+      // so conversion problems should have been reported already.
+      try {
+        materializePathFormula();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new UnexpectedCheckedException("lazy construction of path formula", e);
+      } catch (CPATransferException e) {
+        throw new UnexpectedCheckedException("lazy construction of path formula", e);
+      }
+    }
     return pathFormula;
   }
 
+  /**
+   * Compute the path formula of this state if its construction was deferred,
+   * including the path formulas of all predecessors that are still pending.
+   */
+  void materializePathFormula() throws CPATransferException, InterruptedException {
+    if (pathFormula != null) {
+      return;
+    }
+
+    // iterate instead of recursing, chains inside large blocks can be long
+    Deque<PredicateAbstractState> pendingStates = new ArrayDeque<>();
+    PredicateAbstractState current = this;
+    while (current.pathFormula == null) {
+      pendingStates.push(current);
+      current = current.pendingPathFormula.getPredecessor();
+    }
+
+    PathFormula pf = current.pathFormula;
+    StatTimer timer = pendingPathFormula.getMaterializationTimer();
+    timer.start();
+    try {
+      for (PredicateAbstractState state : pendingStates) {
+        pf = state.pendingPathFormula.extend(pf);
+        state.pathFormula = pf;
+        state.pendingPathFormula = null;
+      }
+    } finally {
+      timer.stop();
+    }
+  }
+
+  /** Whether the path formula of this state has not been computed yet. */
+  boolean hasPendingPathFormula() {
+    return pathFormula == null;
+  }
+
+  /** The length of the path formula, available without materializing it. */
+  int getPathFormulaLength() {
+    return pathFormula != null ? pathFormula.getLength() : pendingPathFormula.getLength();
+  }
+
+  private void writeObject(ObjectOutputStream out) throws IOException {
+    getPathFormula();
+    out.defaultWriteObject();
+  }
+
   protected Object readResolve() {
     if (this instanceof AbstractionState) {
       // consistency check
@@ -25,6 +25,7 @@ package org.sosy_lab.cpachecker.cpa.predicate;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Predicates.equalTo;
+import static com.google.common.collect.FluentIterable.from;
 
 import com.google.common.base.Functions;
 import com.google.common.base.Joiner;
@@ -85,6 +86,7 @@ import org.sosy_lab.cpachecker.util.predicates.regions.RegionCreator;
 import org.sosy_lab.cpachecker.util.predicates.regions.RegionCreator.RegionBuilder;
 import org.sosy_lab.cpachecker.util.predicates.smt.BooleanFormulaManagerView;
 import org.sosy_lab.cpachecker.util.predicates.smt.FormulaManagerView;
+import org.sosy_lab.cpachecker.util.predicates.smt.PooledProverEnvironment;
 import org.sosy_lab.cpachecker.util.predicates.smt.Solver;
 import org.sosy_lab.cpachecker.util.predicates.weakening.InductiveWeakeningManager;
 import org.sosy_lab.cpachecker.util.statistics.StatTimer;
@@ -323,7 +325,8 @@ public class PredicateAbstractionManager {
 
     final BooleanFormula absFormula = abstractionFormula.asInstantiatedFormula();
     final BooleanFormula symbFormula = getFormulaFromPathFormula(pathFormula);
-    BooleanFormula primaryFormula = bfmgr.and(absFormula, symbFormula);
+    final BooleanFormula conjunction = bfmgr.and(absFormula, symbFormula);
+    BooleanFormula primaryFormula = conjunction;
     final SSAMap ssa = pathFormula.getSsa();
 
     // Try to reuse stored abstractions
@@ -360,6 +363,13 @@ public class PredicateAbstractionManager {
 
     final BooleanFormula f = primaryFormula;
 
+    // The assertions for the solver, ordered such that consecutive abstractions
+    // at the same location can share as many of them as possible.
+    final List<BooleanFormula> assertions =
+        f.equals(conjunction)
+            ? ImmutableList.of(absFormula, symbFormula)
+            : ImmutableList.of(absFormula, symbFormula, f);
+
     // caching
     Pair<BooleanFormula, ImmutableSet<BooleanFormula>> absKey = null;
     if (useCache) {
@@ -432,7 +442,10 @@ public class PredicateAbstractionManager {
       abs = rmgr.makeAnd(abs, buildCartesianAbstractionUsingWeakening(f, ssa, remainingPredicates));
 
     } else {
-      abs = rmgr.makeAnd(abs, computeAbstraction(f, remainingPredicates, instantiator));
+      abs =
+          rmgr.makeAnd(
+              abs,
+              computeAbstraction(f, assertions, location, remainingPredicates, instantiator));
     }
 
     AbstractionFormula result = makeAbstractionFormula(abs, ssa, pathFormula);
@@ -493,7 +506,8 @@ public class PredicateAbstractionManager {
     final Collection<AbstractionPredicate> predicates =
         getRelevantPredicates(pPredicates, pF, dummyInstantiator);
 
-    Region abs = computeAbstraction(pF, predicates, dummyInstantiator);
+    Region abs =
+        computeAbstraction(pF, ImmutableList.of(pF), null, predicates, dummyInstantiator);
 
     BooleanFormula symbolicAbs = amgr.convertRegionToFormula(abs);
 
@@ -745,6 +759,9 @@ public class PredicateAbstractionManager {
    * Actually compute an abstraction of a formula, without fancy caching etc.
    *
    * @param f The formula to be abstracted.
+   * @param assertions Formulas whose conjunction is equivalent to f, asserted one by one
+   *     such that a pooled prover environment can reuse them.
+   * @param location The key for the pooled prover environment, or null if no pooling is wanted.
    * @param remainingPredicates The set of predicates.
    *     Each predicate that is handled will be removed from the set.
    * @param instantiator A function that will be applied to instantiate each abstraction predicate,
@@ -753,59 +770,70 @@ public class PredicateAbstractionManager {
    */
   private Region computeAbstraction(
       final BooleanFormula f,
+      final List<BooleanFormula> assertions,
+      final @Nullable CFANode location,
       final Collection<AbstractionPredicate> remainingPredicates,
       final Function<BooleanFormula, BooleanFormula> instantiator)
       throws SolverException, InterruptedException {
     Region abs = rmgr.makeTrue();
 
-    try (ProverEnvironment thmProver = solver.newProverEnvironment()) {
-      thmProver.push(f);
-
-      if (remainingPredicates.isEmpty()) {
-        stats.numSatCheckAbstractions++;
+    try (PooledProverEnvironment pooledProver =
+        solver.newPooledProverEnvironment(location, assertions)) {
+      ProverEnvironment thmProver = pooledProver.getProver();
 
-        stats.abstractionSolveTime.start();
-        boolean feasibility;
-        try {
-          feasibility = !thmProver.isUnsat();
-        } finally {
-          stats.abstractionSolveTime.stop();
-        }
-
-        if (!feasibility) {
-          abs = rmgr.makeFalse();
-        }
+      try {
+        if (remainingPredicates.isEmpty()) {
+          stats.numSatCheckAbstractions++;
 
-      } else {
-        if (abstractionType != AbstractionType.BOOLEAN) {
-          // First do cartesian abstraction if desired
-          stats.cartesianAbstractionTime.start();
+          stats.abstractionSolveTime.start();
+          boolean feasibility;
           try {
-            abs =
-                rmgr.makeAnd(
-                    abs,
-                    computeCartesianAbstraction(f, thmProver, remainingPredicates, instantiator));
+            feasibility = !thmProver.isUnsat();
           } finally {
-            stats.cartesianAbstractionTime.stop();
+            stats.abstractionSolveTime.stop();
           }
-        }
 
-        if (abstractionType != AbstractionType.CARTESIAN && !remainingPredicates.isEmpty()) {
-          // Last do boolean abstraction if desired and necessary
-          stats.numBooleanAbsPredicates += remainingPredicates.size();
-          stats.booleanAbstractionTime.start();
-          try {
-            abs =
-                rmgr.makeAnd(
-                    abs, computeBooleanAbstraction(thmProver, remainingPredicates, instantiator));
-          } finally {
-            stats.booleanAbstractionTime.stop();
+          if (!feasibility) {
+            abs = rmgr.makeFalse();
           }
 
-          // Warning:
-          // buildBooleanAbstraction() does not clean up thmProver, so do not use it here.
-          // remainingPredicates is now empty.
+        } else {
+          if (abstractionType != AbstractionType.BOOLEAN) {
+            // First do cartesian abstraction if desired
+            stats.cartesianAbstractionTime.start();
+            try {
+              abs =
+                  rmgr.makeAnd(
+                      abs,
+                      computeCartesianAbstraction(f, thmProver, remainingPredicates, instantiator));
+            } finally {
+              stats.cartesianAbstractionTime.stop();
+            }
+          }
+
+          if (abstractionType != AbstractionType.CARTESIAN && !remainingPredicates.isEmpty()) {
+            // Last do boolean abstraction if desired and necessary
+            stats.numBooleanAbsPredicates += remainingPredicates.size();
+            stats.booleanAbstractionTime.start();
+            try {
+              abs =
+                  rmgr.makeAnd(
+                      abs,
+                      computeBooleanAbstraction(pooledProver, remainingPredicates, instantiator));
+            } finally {
+              stats.booleanAbstractionTime.stop();
+            }
+
+            // Warning:
+            // buildBooleanAbstraction() does not clean up thmProver if it is not pooled,
+            // so do not use it here.
+            // remainingPredicates is now empty.
+          }
         }
+      } catch (SolverException | InterruptedException | RuntimeException e) {
+        // assertion stack may not have been restored
+        pooledProver.invalidate();
+        throw e;
       }
     }
     return abs;
@@ -984,7 +1012,7 @@ public class PredicateAbstractionManager {
    * Compute a Boolean abstraction of a formula given a set of predicates.
    * The abstracted formula is expected to have been pushed onto the solver stack already.
    *
-   * @param thmProver The solver to use with the input formula on the stack.
+   * @param pooledProver The solver to use with the input formula on the stack.
    * @param predicates The set of predicates.
    *    Each predicate that is handled will be removed from the set
    *    (and Boolean abstraction handles all predicates so the set is empty afterwards!).
@@ -992,7 +1020,7 @@ public class PredicateAbstractionManager {
    * @return A over-approximation of f.
    */
   private Region computeBooleanAbstraction(
-      final ProverEnvironment thmProver,
+      final PooledProverEnvironment pooledProver,
       final Collection<AbstractionPredicate> predicates,
       final Function<BooleanFormula, BooleanFormula> instantiator)
       throws InterruptedException, SolverException {
@@ -1017,12 +1045,16 @@ public class PredicateAbstractionManager {
     }
 
     // the formula is (abstractionFormula & pathFormula & predDef)
+    ProverEnvironment thmProver = pooledProver.getProver();
     thmProver.push(predDef);
     AllSatCallbackImpl callback = new AllSatCallbackImpl();
     Region result = thmProver.allSat(callback, predVars);
 
-    // pop() is actually costly sometimes, and we delete the environment anyway
-    // thmProver.pop();
+    // pop() is actually costly sometimes,
+    // so do it only if the environment will be reused, otherwise we delete it anyway
+    if (pooledProver.isPooled()) {
+      thmProver.pop();
+    }
 
     // update statistics
     int numModels = callback.getCount();
@@ -1247,13 +1279,20 @@ public class PredicateAbstractionManager {
     RegionCreator rManager = amgr.getRegionCreator();
 
     Region newRegion = oldAbstraction.asRegion();
-    for (AbstractionPredicate predicate : removePredicates) {
-      newRegion = rManager.makeExists(newRegion, predicate.getAbstractVariable());
+    if (!removePredicates.isEmpty()) {
+      // quantify all predicates at once, this needs only one pass over the BDD
+      newRegion = rManager.makeExists(newRegion, getAbstractVariables(removePredicates));
     }
 
     return makeAbstractionFormula(newRegion, ssaMap, oldAbstraction.getBlockFormula());
   }
 
+  private static Region[] getAbstractVariables(Collection<AbstractionPredicate> pPredicates) {
+    return from(pPredicates)
+        .transform(AbstractionPredicate::getAbstractVariable)
+        .toArray(Region.class);
+  }
+
   /**
    * Extend an abstraction by a set of predicates.
    * @param reducedAbstraction The abstraction to extend.
@@ -1268,8 +1307,9 @@ public class PredicateAbstractionManager {
       throws InterruptedException {
     RegionCreator rManager = amgr.getRegionCreator();
 
-    for (AbstractionPredicate predicate : relevantPredicates) {
-      sourceAbstraction = rManager.makeExists(sourceAbstraction, predicate.getAbstractVariable());
+    if (!relevantPredicates.isEmpty()) {
+      sourceAbstraction =
+          rManager.makeExists(sourceAbstraction, getAbstractVariables(relevantPredicates));
     }
 
     Region expandedRegion = rManager.makeAnd(reducedAbstraction, sourceAbstraction);
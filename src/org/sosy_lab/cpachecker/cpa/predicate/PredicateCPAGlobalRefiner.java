@@ -27,11 +27,15 @@ import static java.util.Collections.unmodifiableList;
 import static org.sosy_lab.cpachecker.cpa.predicate.PredicateAbstractState.getPredicateState;
 import static org.sosy_lab.cpachecker.util.statistics.StatisticsWriter.writingStatisticsTo;
 
+import com.google.common.base.Throwables;
 import com.google.common.collect.FluentIterable;
 import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.SetMultimap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.io.PrintStream;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
@@ -40,7 +44,18 @@ import java.util.Deque;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
+import javax.annotation.Nullable;
+import org.sosy_lab.common.Classes.UnexpectedCheckedException;
+import org.sosy_lab.common.ShutdownManager;
+import org.sosy_lab.common.ShutdownNotifier;
 import org.sosy_lab.common.configuration.Configuration;
 import org.sosy_lab.common.configuration.IntegerOption;
 import org.sosy_lab.common.configuration.InvalidConfigurationException;
@@ -61,6 +76,7 @@ import org.sosy_lab.cpachecker.exceptions.CPAException;
 import org.sosy_lab.cpachecker.util.AbstractStates;
 import org.sosy_lab.cpachecker.util.predicates.smt.FormulaManagerView;
 import org.sosy_lab.cpachecker.util.predicates.smt.Solver;
+import org.sosy_lab.cpachecker.util.statistics.StatCounter;
 import org.sosy_lab.cpachecker.util.statistics.StatTimer;
 import org.sosy_lab.cpachecker.util.statistics.StatisticsWriter;
 import org.sosy_lab.java_smt.api.BooleanFormula;
@@ -75,7 +91,7 @@ import org.sosy_lab.java_smt.api.SolverException;
  * abstraction, this is left to an instance of {@link GlobalRefinementStrategy}.
  */
 @Options(prefix="cpa.predicate.refinement.global")
-public class PredicateCPAGlobalRefiner implements Refiner, StatisticsProvider {
+public class PredicateCPAGlobalRefiner implements Refiner, StatisticsProvider, AutoCloseable {
 
   @Option(secure = true,
           description = "Instead of updating precision and arg we say that the refinement was not successful"
@@ -84,19 +100,48 @@ public class PredicateCPAGlobalRefiner implements Refiner, StatisticsProvider {
   @IntegerOption(min = 0)
   private int stopAfterNRefinements = 0;
 
+  @Option(
+    secure = true,
+    description =
+        "Number of threads for checking the counterexamples to all target states concurrently."
+            + " Each thread uses its own solver instance, which is created once and reused"
+            + " for all refinements. The interpolants of all infeasible"
+            + " counterexamples are applied to the ARG in one update."
+            + " Use 0 for the sequential tree-based refinement (default)."
+  )
+  @IntegerOption(min = 0)
+  private int parallelPathThreads = 0;
+
   // statistics
   private final StatTimer totalTime = new StatTimer("Time for refinement");
   private final StatTimer interpolationTime = new StatTimer("Time for interpolation");
   private final StatTimer satCheckTime = new StatTimer("Time for sat-checks");
+  private final StatTimer parallelCheckTime =
+      new StatTimer("Time for parallel counterexample checks");
+  private final StatTimer translationTime =
+      new StatTimer("Time for translating formulas between solvers");
+  private final StatCounter parallelPaths = new StatCounter("Number of paths checked in parallel");
+  private final StatCounter infeasiblePaths =
+      new StatCounter("Number of infeasible paths refined in parallel");
 
   private final LogManager logger;
+  private final ShutdownNotifier shutdownNotifier;
+  private final Configuration config;
   private final GlobalRefinementStrategy strategy;
   private final Solver solver;
+  private final FormulaManagerView fmgr;
   private final BooleanFormulaManager bfmgr;
   private final ARGCPA argCPA;
 
+  // Threads and solvers for parallel refinement, created on first use and kept until close().
+  // The solvers use their own shutdown manager such that running checks can be aborted.
+  private @Nullable ExecutorService parallelPathExecutor = null;
+  private @Nullable ShutdownManager parallelPathShutdownManager = null;
+  private final BlockingQueue<Solver> parallelPathSolvers = new LinkedBlockingQueue<>();
+
   public PredicateCPAGlobalRefiner(
       final LogManager pLogger,
+      final ShutdownNotifier pShutdownNotifier,
       final FormulaManagerView pFmgr,
       final GlobalRefinementStrategy pStrategy,
       final Solver pSolver,
@@ -105,6 +150,9 @@ public class PredicateCPAGlobalRefiner implements Refiner, StatisticsProvider {
     pConfig.inject(this);
 
     logger = pLogger;
+    shutdownNotifier = pShutdownNotifier;
+    config = pConfig;
+    fmgr = pFmgr;
     bfmgr = pFmgr.getBooleanFormulaManager();
     solver = pSolver;
     strategy = pStrategy;
@@ -129,7 +177,12 @@ public class PredicateCPAGlobalRefiner implements Refiner, StatisticsProvider {
 
       ARGReachedSet argReachedSet = new ARGReachedSet(pReached, argCPA);
       strategy.initializeGlobalRefinement();
-      Optional<ARGState> errorState = doPathWiseRefinement(argReachedSet, targets);
+      Optional<ARGState> errorState;
+      if (parallelPathThreads > 0) {
+        errorState = doParallelRefinement(argReachedSet, targets);
+      } else {
+        errorState = doPathWiseRefinement(argReachedSet, targets);
+      }
 
       // TODO fix handling of counterexamples
       // + 1 for update count as the current interval is not finished
@@ -143,11 +196,272 @@ public class PredicateCPAGlobalRefiner implements Refiner, StatisticsProvider {
 
     } catch (SolverException e) {
       throw new CPAException("Solver Exception", e);
+    } catch (InvalidConfigurationException e) {
+      throw new CPAException("Could not create solver for parallel refinement", e);
     } finally {
       totalTime.stop();
     }
   }
 
+  /**
+   * Do refinement for a set of target states by checking the counterexample of each target state
+   * on its own and concurrently.
+   *
+   * <p>In contrast to {@link #doPathWiseRefinement(ARGReachedSet, List)}, common prefixes of the
+   * counterexamples are checked once per counterexample, but the checks are distributed over
+   * {@link #parallelPathThreads} threads with a separate {@link Solver} each. Formulas are copied
+   * into and out of these solvers via their SMT-LIB representation, and only the calling thread
+   * accesses the solver of the analysis. The interpolants of all infeasible counterexamples are
+   * handed to the strategy, which applies them in a single update of the ARG.
+   *
+   * @return The first target state (in the order of the given targets) whose counterexample is
+   *     feasible, or absent if all counterexamples are infeasible.
+   */
+  private Optional<ARGState> doParallelRefinement(
+      ARGReachedSet pReached, List<AbstractState> targets)
+      throws CPAException, InterruptedException, SolverException,
+          InvalidConfigurationException {
+    logger.log(Level.FINE, "Starting parallel refinement for", targets.size(), "elements.");
+
+    // The abstraction states of each counterexample (without the root), and the SMT-LIB
+    // representation of their block formulas, dumped only once for states shared by several paths.
+    List<List<ARGState>> traces = new ArrayList<>(targets.size());
+    List<List<String>> pathFormulas = new ArrayList<>(targets.size());
+    Map<ARGState, String> dumpedBlockFormulas = Maps.newHashMap();
+
+    translationTime.start();
+    try {
+      for (AbstractState target : targets) {
+        List<ARGState> trace = new ArrayList<>();
+        ARGState currentState = (ARGState) target;
+        assert currentState.mayCover();
+        while (!currentState.getParents().isEmpty()) {
+          trace.add(currentState);
+          do {
+            currentState = currentState.getParents().iterator().next();
+          } while (!getPredicateState(currentState).isAbstractionState());
+        }
+        trace = Lists.reverse(trace);
+
+        List<String> formulas = new ArrayList<>(trace.size());
+        for (ARGState state : trace) {
+          formulas.add(
+              dumpedBlockFormulas.computeIfAbsent(
+                  state,
+                  s ->
+                      fmgr.dumpFormula(
+                              getPredicateState(s)
+                                  .getAbstractionFormula()
+                                  .getBlockFormula()
+                                  .getFormula())
+                          .toString()));
+        }
+        traces.add(ImmutableList.copyOf(trace));
+        pathFormulas.add(formulas);
+      }
+    } finally {
+      translationTime.stop();
+    }
+
+    List<Optional<List<String>>> results = checkPathsInParallel(pathFormulas);
+
+    for (int i = 0; i < traces.size(); i++) {
+      if (!results.get(i).isPresent()) {
+        // We have found a reachable target state, immediately abort refinement.
+        ARGState target = Iterables.getLast(traces.get(i));
+        logger.log(Level.FINE, "Found reachable target state", target);
+        return Optional.of(target);
+      }
+    }
+
+    for (int i = 0; i < traces.size(); i++) {
+      List<ARGState> trace = traces.get(i);
+      List<BooleanFormula> interpolants = new ArrayList<>(trace.size() - 1);
+
+      translationTime.start();
+      try {
+        for (String itp : results.get(i).get()) {
+          interpolants.add(fmgr.parse(itp));
+        }
+      } finally {
+        translationTime.stop();
+      }
+
+      // fill up interpolants with false as the remaining states are unreachable,
+      // the interpolant for the target state itself is not passed to the strategy
+      while (interpolants.size() < trace.size() - 1) {
+        interpolants.add(bfmgr.makeFalse());
+      }
+
+      infeasiblePaths.inc();
+      strategy.performRefinement(pReached, trace, interpolants, false);
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * Check each of the given paths (in form of SMT-LIB block formulas) for feasibility. The check
+   * of a path stops at the first block that makes the path infeasible.
+   *
+   * @return For each path in the given order, either the SMT-LIB representations of the
+   *     interpolants up to the first infeasible block, or absent if the path is feasible.
+   */
+  private List<Optional<List<String>>> checkPathsInParallel(List<List<String>> pathFormulas)
+      throws InterruptedException, SolverException, InvalidConfigurationException {
+    parallelCheckTime.start();
+    boolean finished = false;
+    try {
+      ExecutorService executor = getParallelPathExecutor();
+      ShutdownNotifier pathShutdownNotifier = parallelPathShutdownManager.getNotifier();
+
+      List<Future<Optional<List<String>>>> futures = new ArrayList<>(pathFormulas.size());
+      for (List<String> formulas : pathFormulas) {
+        parallelPaths.inc();
+        futures.add(
+            executor.submit(
+                () -> {
+                  Solver pathSolver = parallelPathSolvers.take();
+                  try (InterpolatingProverEnvironment<?> itpProver =
+                      pathSolver.newProverEnvironmentWithInterpolation()) {
+                    return checkPath(
+                        formulas,
+                        pathSolver.getFormulaManager(),
+                        itpProver,
+                        pathShutdownNotifier);
+                  } finally {
+                    parallelPathSolvers.add(pathSolver);
+                  }
+                }));
+      }
+
+      List<Optional<List<String>>> results = new ArrayList<>(futures.size());
+      for (Future<Optional<List<String>>> future : futures) {
+        try {
+          results.add(future.get());
+        } catch (ExecutionException e) {
+          Throwable t = e.getCause();
+          Throwables.propagateIfPossible(t, SolverException.class, InterruptedException.class);
+          throw new UnexpectedCheckedException("parallel refinement", t);
+        }
+      }
+      finished = true;
+      return results;
+
+    } finally {
+      parallelCheckTime.stop();
+      if (!finished) {
+        // Refinement was aborted and tasks may still be running,
+        // they are stopped before their solvers are closed.
+        shutdownParallelPathCheck("parallel refinement aborted");
+      }
+    }
+  }
+
+  /**
+   * Get the executor for checking paths in parallel, and create it together with
+   * {@link #parallelPathThreads} solvers if this was not done yet.
+   */
+  private ExecutorService getParallelPathExecutor() throws InvalidConfigurationException {
+    if (parallelPathExecutor == null) {
+      parallelPathShutdownManager = ShutdownManager.createWithParent(shutdownNotifier);
+      try {
+        for (int i = 0; i < parallelPathThreads; i++) {
+          parallelPathSolvers.add(
+              Solver.create(config, logger, parallelPathShutdownManager.getNotifier()));
+        }
+      } catch (InvalidConfigurationException | RuntimeException e) {
+        closeParallelPathSolvers();
+        throw e;
+      }
+      // important to use daemon threads here, if anything goes wrong the pool is not kept alive
+      parallelPathExecutor =
+          Executors.newFixedThreadPool(
+              parallelPathThreads,
+              new ThreadFactoryBuilder()
+                  .setDaemon(true)
+                  .setNameFormat("Predicate refinement thread %d")
+                  .build());
+    }
+    return parallelPathExecutor;
+  }
+
+  /**
+   * Stop all threads for checking paths in parallel and close their solvers. Running checks are
+   * aborted, and this method waits until they have terminated and returned their solver. The
+   * executor and the solvers are created again if needed later.
+   */
+  private void shutdownParallelPathCheck(String pReason) {
+    if (parallelPathExecutor == null) {
+      return;
+    }
+    parallelPathShutdownManager.requestShutdown(pReason);
+    parallelPathExecutor.shutdownNow();
+
+    boolean interrupted = Thread.interrupted();
+    try {
+      while (true) {
+        try {
+          if (parallelPathExecutor.awaitTermination(1, TimeUnit.SECONDS)) {
+            break;
+          }
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+    } finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    // all tasks have terminated and have returned their solver
+    assert parallelPathSolvers.size() == parallelPathThreads;
+    closeParallelPathSolvers();
+    parallelPathExecutor = null;
+    parallelPathShutdownManager = null;
+  }
+
+  private void closeParallelPathSolvers() {
+    Solver pathSolver;
+    while ((pathSolver = parallelPathSolvers.poll()) != null) {
+      pathSolver.close();
+    }
+  }
+
+  @Override
+  public void close() {
+    shutdownParallelPathCheck("refiner closed");
+  }
+
+  /**
+   * Check one path on a separate solver instance. This method is called by the worker threads and
+   * may access only the given formula manager, prover, and shutdown notifier.
+   */
+  private <T> Optional<List<String>> checkPath(
+      List<String> blockFormulas,
+      FormulaManagerView pathFmgr,
+      InterpolatingProverEnvironment<T> itpProver,
+      ShutdownNotifier pathShutdownNotifier)
+      throws InterruptedException, SolverException {
+    List<T> itpStack = new ArrayList<>(blockFormulas.size());
+    for (String blockFormula : blockFormulas) {
+      pathShutdownNotifier.shutdownIfNecessary();
+      itpStack.add(itpProver.push(pathFmgr.parse(blockFormula)));
+
+      if (itpProver.isUnsat()) {
+        // interpolants for all states before the unreachable one,
+        // all following interpolants are false and added by the caller
+        List<String> interpolants = new ArrayList<>(itpStack.size() - 1);
+        for (int i = 1; i < itpStack.size(); i++) {
+          BooleanFormula itp = itpProver.getInterpolant(itpStack.subList(0, i));
+          interpolants.add(pathFmgr.dumpFormula(itp).toString());
+        }
+        return Optional.of(interpolants);
+      }
+    }
+    return Optional.empty();
+  }
+
   /**
    * Do refinement for a set of target states.
    *
@@ -366,6 +680,12 @@ public class PredicateCPAGlobalRefiner implements Refiner, StatisticsProvider {
       w0.put("Number of predicate refinements", numberOfRefinements);
       if (numberOfRefinements > 0) {
         w0.put(totalTime).put(interpolationTime).put(satCheckTime);
+        if (parallelPaths.getValue() > 0) {
+          w0.put(parallelPaths)
+              .put(infeasiblePaths)
+              .put(parallelCheckTime)
+              .put(translationTime);
+        }
       }
     }
 
@@ -311,6 +311,14 @@ class PredicateCPAStatistics implements Statistics {
     if (trans.strengthenCheckTimer.getNumberOfIntervals() > 0) {
       out.println("  Times result was 'false':        " + trans.numStrengthenChecksFalse + " (" + toPercent(trans.numStrengthenChecksFalse, trans.strengthenCheckTimer.getNumberOfIntervals()) + ")");
     }
+    if (trans.lazyBuilder != null) {
+      LazyPathFormulaBuilder lazy = trans.lazyBuilder;
+      int pending = (int) lazy.pendingEdges.getValue();
+      out.println("Number of deferred edge conversions: " + pending);
+      out.println("  Times edge was materialized:     " + valueWithPercentage((int) lazy.materializedEdges.getValue(), pending));
+      out.println("  Times edge was never needed:     " + valueWithPercentage((int) lazy.getNeverMaterializedEdges(), pending));
+      out.println("  Time for materialization:        " + lazy.materializationTime);
+    }
     out.println("Number of coverage checks:         " + domain.coverageCheckTimer.getNumberOfIntervals());
     out.println("  BDD entailment checks:           " + domain.bddCoverageCheckTimer.getNumberOfIntervals());
     if (domain.symbolicCoverageCheckTimer.getNumberOfIntervals() > 0) {
@@ -319,6 +327,7 @@ class PredicateCPAStatistics implements Statistics {
     out.println("Number of SMT sat checks:          " + solver.satChecks);
     out.println("  trivial:                         " + solver.trivialSatChecks);
     out.println("  cached:                          " + solver.cachedSatChecks);
+    solver.printProverPoolStatistics(out);
     out.println();
     out.println("Max ABE block size:                       " + prec.maxBlockSize);
     out.println("Number of predicates discovered:          " + allDistinctPreds);
@@ -31,6 +31,7 @@ import org.sosy_lab.common.time.Timer;
 import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
 import org.sosy_lab.cpachecker.core.interfaces.MergeOperator;
 import org.sosy_lab.cpachecker.core.interfaces.Precision;
+import org.sosy_lab.cpachecker.exceptions.CPAException;
 import org.sosy_lab.cpachecker.util.predicates.pathformula.PathFormula;
 import org.sosy_lab.cpachecker.util.predicates.pathformula.PathFormulaManager;
 
@@ -56,7 +57,8 @@ public class PredicateMergeOperator implements MergeOperator {
 
   @Override
   public AbstractState merge(AbstractState element1,
-                               AbstractState element2, Precision precision) throws InterruptedException {
+                               AbstractState element2, Precision precision)
+      throws CPAException, InterruptedException {
 
     PredicateAbstractState elem1 = (PredicateAbstractState)element1;
     PredicateAbstractState elem2 = (PredicateAbstractState)element2;
@@ -67,10 +69,17 @@ public class PredicateMergeOperator implements MergeOperator {
     if (elem1.isAbstractionState() || elem2.isAbstractionState()) {
       // we don't merge if this is an abstraction location
       merged = elem2;
-    } else {
+    } else if (!elem1.getAbstractionFormula().equals(elem2.getAbstractionFormula())) {
       // don't merge if the elements are in different blocks (they have different abstraction formulas)
-      // or if the path formulas are equal (no new information would be added)
-      if (!elem1.getAbstractionFormula().equals(elem2.getAbstractionFormula()) || elem1.getPathFormula().equals(elem2.getPathFormula())) {
+      merged = elem2;
+
+    } else {
+      // lazily constructed path formulas are needed now
+      elem1.materializePathFormula();
+      elem2.materializePathFormula();
+
+      // don't merge if the path formulas are equal (no new information would be added)
+      if (elem1.getPathFormula().equals(elem2.getPathFormula())) {
         merged = elem2;
 
       } else {
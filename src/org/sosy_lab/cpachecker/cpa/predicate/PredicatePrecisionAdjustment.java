@@ -122,7 +122,7 @@ public class PredicatePrecisionAdjustment implements PrecisionAdjustment {
     if (predicateState.isAbstractionState()) {
       return false;
     }
-    if (blk.isBlockEnd(location, predicateState.getPathFormula().getLength())) {
+    if (blk.isBlockEnd(location, predicateState.getPathFormulaLength())) {
       return true;
     }
     if (AbstractStates.isTargetState(fullState)) {
@@ -144,6 +144,7 @@ public class PredicatePrecisionAdjustment implements PrecisionAdjustment {
 
     AbstractionFormula abstractionFormula = element.getAbstractionFormula();
     PersistentMap<CFANode, Integer> abstractionLocations = element.getAbstractionLocationsOnPath();
+    element.materializePathFormula();
     PathFormula pathFormula = element.getPathFormula();
     Integer newLocInstance = abstractionLocations.getOrDefault(loc, 0) + 1;
     Optional<CallstackStateEqualsWrapper> callstackWrapper =
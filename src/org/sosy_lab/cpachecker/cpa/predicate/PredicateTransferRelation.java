@@ -26,6 +26,7 @@ package org.sosy_lab.cpachecker.cpa.predicate;
 
 import static com.google.common.collect.FluentIterable.from;
 import static org.sosy_lab.cpachecker.cpa.predicate.PredicateAbstractState.mkNonAbstractionStateWithNewPathFormula;
+import static org.sosy_lab.cpachecker.cpa.predicate.PredicateAbstractState.mkNonAbstractionStateWithPendingPathFormula;
 
 import org.sosy_lab.common.collect.PersistentMap;
 import org.sosy_lab.common.configuration.Configuration;
@@ -63,6 +64,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.logging.Level;
+import javax.annotation.Nullable;
 
 /**
  * Transfer relation for symbolic predicate abstraction. First it computes
@@ -91,6 +93,15 @@ public class PredicateTransferRelation extends SingleEdgeTransferRelation {
   @Option(secure = true, description = "Use formula reporting states for strengthening.")
   private boolean strengthenWithFormulaReportingStates = false;
 
+  @Option(
+    secure = true,
+    description =
+        "Defer the conversion of CFA edges into path formulas until the formula is actually "
+            + "needed (for abstraction, satisfiability checks, merge, coverage, or refinement). "
+            + "This saves work for states that are covered or removed before their block ends."
+  )
+  private boolean lazyPathFormulas = false;
+
   // statistics
   final Timer postTimer = new Timer();
   final Timer satCheckTimer = new Timer();
@@ -108,6 +119,9 @@ public class PredicateTransferRelation extends SingleEdgeTransferRelation {
 
   private final BlockOperator blk;
 
+  /** Non-null iff path formulas are constructed lazily. */
+  final @Nullable LazyPathFormulaBuilder lazyBuilder;
+
   private final Map<PredicateAbstractState, PathFormula> computedPathFormulae = new HashMap<>();
 
   private final FormulaManagerView fmgr;
@@ -133,6 +147,7 @@ public class PredicateTransferRelation extends SingleEdgeTransferRelation {
     bfmgr = fmgr.getBooleanFormulaManager();
     blk = pBlk;
     direction = pDirection;
+    lazyBuilder = lazyPathFormulas ? new LazyPathFormulaBuilder(pathFormulaManager) : null;
   }
 
   @Override
@@ -148,12 +163,20 @@ public class PredicateTransferRelation extends SingleEdgeTransferRelation {
       // Such elements might get created when precision adjustment computes an abstraction.
       if (element.getAbstractionFormula().isFalse()) { return Collections.emptySet(); }
 
+      if (lazyBuilder != null
+          && !shouldDoSatCheck(edge, element.getPathFormulaLength() + 1)) {
+        // only record the edge, the path formula is computed when it is needed
+        return Collections.singleton(
+            mkNonAbstractionStateWithPendingPathFormula(lazyBuilder.defer(element, edge), element));
+      }
+
       // calculate strongest post
+      materializePathFormula(element);
       PathFormula pathFormula = convertEdgeToPathFormula(element.getPathFormula(), edge);
       logger.log(Level.ALL, "New path formula is", pathFormula);
 
       // Check whether we should do a SAT check.s
-      boolean satCheck = shouldDoSatCheck(edge, pathFormula);
+      boolean satCheck = shouldDoSatCheck(edge, pathFormula.getLength());
       logger.log(Level.FINEST, "Handling non-abstraction location",
           (satCheck ? "with satisfiability check" : ""));
 
@@ -173,19 +196,35 @@ public class PredicateTransferRelation extends SingleEdgeTransferRelation {
     }
   }
 
-  private boolean shouldDoSatCheck(CFAEdge edge, PathFormula pathFormula) {
-    if ((satCheckBlockSize > 0) && (pathFormula.getLength() >= satCheckBlockSize)) {
+  private boolean shouldDoSatCheck(CFAEdge edge, int pathFormulaLength) {
+    if ((satCheckBlockSize > 0) && (pathFormulaLength >= satCheckBlockSize)) {
       return true;
     }
     if (satCheckAtAbstraction) {
       CFANode loc = getAnalysisSuccessor(edge);
-      if (blk.isBlockEnd(loc, pathFormula.getLength())) {
+      if (blk.isBlockEnd(loc, pathFormulaLength)) {
         return true;
       }
     }
     return false;
   }
 
+  /**
+   * Compute the path formula of a state if its construction was deferred.
+   * The time is counted as time for path-formula computation.
+   */
+  private void materializePathFormula(PredicateAbstractState pElement)
+      throws CPATransferException, InterruptedException {
+    if (pElement.hasPendingPathFormula()) {
+      pathFormulaTimer.start();
+      try {
+        pElement.materializePathFormula();
+      } finally {
+        pathFormulaTimer.stop();
+      }
+    }
+  }
+
   private CFANode getAnalysisSuccessor(CFAEdge pEdge) {
     if (direction == AnalysisDirection.BACKWARD) {
       return pEdge.getPredecessor();
@@ -365,6 +404,13 @@ public class PredicateTransferRelation extends SingleEdgeTransferRelation {
       PredicateAbstractState pElement, AbstractStateWithAssumptions pAssumeElement)
       throws CPATransferException, InterruptedException {
 
+    if (pAssumeElement.getAssumptions().isEmpty()
+        && pAssumeElement.getPreconditionAssumptions().isEmpty()) {
+      // nothing to add, avoid materializing a lazily constructed path formula
+      return pElement;
+    }
+
+    materializePathFormula(pElement);
     PathFormula pf = pElement.getPathFormula();
 
     PathFormula previousPathFormula = pAssumeElement.getPreviousPathFormula(pf);
@@ -422,7 +468,7 @@ public class PredicateTransferRelation extends SingleEdgeTransferRelation {
   }
 
   private PredicateAbstractState strengthen(PredicateAbstractState pElement,
-      AssumptionStorageState pElement2) {
+      AssumptionStorageState pElement2) throws CPATransferException, InterruptedException {
 
     if (pElement2.isAssumptionTrue() || pElement2.isAssumptionFalse()) {
       // we don't add the assumption false in order to not forget the content of the path formula
@@ -432,13 +478,16 @@ public class PredicateTransferRelation extends SingleEdgeTransferRelation {
 
     String asmpt = pElement2.getAssumptionAsString().toString();
 
+    materializePathFormula(pElement);
+
     PathFormula pf = pathFormulaManager.makeAnd(pElement.getPathFormula(), fmgr.parse(asmpt));
 
     return replacePathFormula(pElement, pf);
   }
 
   private PredicateAbstractState strengthen(
-      PredicateAbstractState pElement, FormulaReportingState pFormulaReportingState) {
+      PredicateAbstractState pElement, FormulaReportingState pFormulaReportingState)
+      throws CPATransferException, InterruptedException {
 
     BooleanFormula formula =
         pFormulaReportingState.getFormulaApproximation(fmgr);
@@ -447,6 +496,7 @@ public class PredicateTransferRelation extends SingleEdgeTransferRelation {
       return pElement;
     }
 
+    materializePathFormula(pElement);
     PathFormula previousPathFormula = pElement.getPathFormula();
     PathFormula newPathFormula = pathFormulaManager.makeAnd(previousPathFormula, formula);
 
@@ -463,9 +513,11 @@ public class PredicateTransferRelation extends SingleEdgeTransferRelation {
 
   private PredicateAbstractState strengthenSatCheck(
       PredicateAbstractState pElement, CFANode loc)
-          throws SolverException, InterruptedException {
+          throws SolverException, CPATransferException, InterruptedException {
     logger.log(Level.FINEST, "Checking for feasibility of path because error has been found");
 
+    materializePathFormula(pElement);
+
     strengthenCheckTimer.start();
     PathFormula pathFormula = pElement.getPathFormula();
     boolean unsat = formulaManager.unsat(pElement.getAbstractionFormula(), pathFormula);
@@ -499,6 +551,7 @@ public class PredicateTransferRelation extends SingleEdgeTransferRelation {
       Collection<? extends AbstractState> pSuccessors)
           throws SolverException, CPATransferException, InterruptedException {
     PredicateAbstractState predicateElement = (PredicateAbstractState) pElement;
+    materializePathFormula(predicateElement);
     PathFormula pathFormula = computedPathFormulae.get(predicateElement);
     if (pathFormula == null) {
       pathFormula = pathFormulaManager.makeEmptyPathFormula(predicateElement.getPathFormula());
@@ -44,6 +44,7 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import javax.annotation.Nullable;
 import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.FileOption;
 import org.sosy_lab.common.configuration.InvalidConfigurationException;
 import org.sosy_lab.common.configuration.Option;
 import org.sosy_lab.common.configuration.Options;
@@ -51,6 +52,7 @@ import org.sosy_lab.common.io.IO;
 import org.sosy_lab.common.log.LogManager;
 import org.sosy_lab.common.log.LogManagerWithoutDuplicates;
 import org.sosy_lab.cpachecker.cfa.CFA;
+import org.sosy_lab.cpachecker.cfa.FunctionFingerprints;
 import org.sosy_lab.cpachecker.cfa.model.CFANode;
 import org.sosy_lab.cpachecker.cpa.predicate.PredicatePrecision;
 import org.sosy_lab.cpachecker.cpa.predicate.persistence.PredicatePersistenceUtils.PredicateParsingFailedException;
@@ -85,6 +87,13 @@ import org.sosy_lab.java_smt.api.BooleanFormula;
  *   This line defines where the following predicates are to be used.
  * - The following lines of the section contain SMTLIB2 statements of the form
  *   "(assert ...)". Each asserted term will be used as one predicate.
+ *
+ * If the map was written for a previous revision of the program,
+ * the function fingerprints of that revision can be given
+ * (cf. {@link FunctionFingerprints}).
+ * Then the CFA node ids are translated to the current revision
+ * for all functions that did not change,
+ * and location-specific predicates of changed functions are applied function-wide.
  */
 @Options(prefix="cpa.predicate.abstraction.initialPredicates")
 public class PredicateMapParser {
@@ -103,6 +112,14 @@ public class PredicateMapParser {
   @Option(secure=true, description = "when reading predicates from file, convert them from Integer- to BV-theory or reverse.")
   private PrecisionConverter encodePredicates = PrecisionConverter.DISABLE;
 
+  @Option(secure=true, name="previousFingerprints",
+      description="Function fingerprints of the program revision for which the predicates were "
+          + "written (cf. cfa.fingerprints.export). If given, predicates of unchanged functions "
+          + "are reused at the corresponding locations of the current program, "
+          + "and location-specific predicates of changed functions are applied function-wide.")
+  @FileOption(FileOption.Type.OPTIONAL_INPUT_FILE)
+  private @Nullable Path previousFingerprintsFile = null;
+
   private final CFA cfa;
 
   private final LogManagerWithoutDuplicates logger;
@@ -111,6 +128,9 @@ public class PredicateMapParser {
 
   private final Map<Integer, CFANode> idToNodeMap = Maps.newHashMap();
 
+  /** Mapping of node ids of the previous revision to the current revision, if given. */
+  private @Nullable Map<Integer, Integer> previousToCurrentNodeIds = null;
+
   public PredicateMapParser(Configuration pConfig, CFA pCfa,
       LogManager pLogger,
       FormulaManagerView pFmgr, AbstractionManager pAmgr) throws InvalidConfigurationException {
@@ -166,6 +186,13 @@ public class PredicateMapParser {
       commonDefinitions = str.toString();
     }
 
+    if (previousFingerprintsFile != null && previousToCurrentNodeIds == null) {
+      FunctionFingerprints previous = FunctionFingerprints.read(previousFingerprintsFile);
+      previousToCurrentNodeIds = FunctionFingerprints.of(cfa).mapNodeNumbersFrom(previous);
+    }
+    int reusedLocations = 0;
+    int widenedLocations = 0;
+
     // second, read map of predicates
     List<AbstractionPredicate> globalPredicates = new ArrayList<>();
     ListMultimap<String, AbstractionPredicate> functionPredicates = ArrayListMultimap.create();
@@ -220,6 +247,24 @@ public class PredicateMapParser {
             String function = matcher.group(1);
             int nodeId = Integer.parseInt(matcher.group(2)); // does not fail, we checked with regexp
 
+            if (previousToCurrentNodeIds != null) {
+              Integer currentNodeId = previousToCurrentNodeIds.get(nodeId);
+              if (currentNodeId != null) {
+                // unchanged function, node exists in the current revision
+                nodeId = currentNodeId;
+                reusedLocations++;
+              } else if (!cfa.getAllFunctionNames().contains(function)) {
+                logger.log(Level.WARNING, "Cannot use predicates for function", function + ", this function does not exist.");
+                currentSet = new ArrayList<>(); // temporary list which will be thrown away and ignored
+                continue;
+              } else if (!applyFunctionWide) {
+                // changed function, node ids are meaningless in the current revision
+                currentSet = functionPredicates.get(function);
+                widenedLocations++;
+                continue;
+              }
+            }
+
             if (applyFunctionWide) {
               if (!cfa.getAllFunctionNames().contains(function)) {
                 logger.log(Level.WARNING, "Cannot use predicates for function", function + ", this function does not exist.");
@@ -272,6 +317,12 @@ public class PredicateMapParser {
       }
     }
 
+    if (previousToCurrentNodeIds != null) {
+      logger.log(Level.INFO, "Reused predicates for", reusedLocations,
+          "locations in unchanged functions and applied predicates for", widenedLocations,
+          "locations in changed functions function-wide.");
+    }
+
     return new PredicatePrecision(
         ImmutableSetMultimap.<PredicatePrecision.LocationInstance, AbstractionPredicate>of(),
         localPredicates,
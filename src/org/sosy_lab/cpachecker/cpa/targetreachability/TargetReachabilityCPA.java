@@ -26,6 +26,7 @@ package org.sosy_lab.cpachecker.cpa.targetreachability;
 import com.google.common.collect.ImmutableSet;
 import java.io.PrintStream;
 import java.util.Collection;
+import java.util.Optional;
 import java.util.Set;
 import javax.annotation.Nullable;
 import org.sosy_lab.common.ShutdownNotifier;
@@ -36,6 +37,7 @@ import org.sosy_lab.common.configuration.Options;
 import org.sosy_lab.common.log.LogManager;
 import org.sosy_lab.common.time.Timer;
 import org.sosy_lab.cpachecker.cfa.CFA;
+import org.sosy_lab.cpachecker.cfa.CFAAdjacency;
 import org.sosy_lab.cpachecker.cfa.model.CFANode;
 import org.sosy_lab.cpachecker.core.CPAcheckerResult.Result;
 import org.sosy_lab.cpachecker.core.Specification;
@@ -95,9 +97,16 @@ public class TargetReachabilityCPA extends AbstractCPA implements StatisticsProv
       try {
         Set<CFANode> targetNodes =
             targetProvider.tryGetAutomatonTargetLocations(pCfa.getMainFunction(), pSpecification);
-        for (CFANode target : targetNodes) {
-          builder.addAll(CFATraversal.dfs().backwards()
-              .collectNodesReachableFrom(target));
+        Optional<CFAAdjacency> adjacency = pCfa.getAdjacency();
+        if (adjacency.isPresent()) {
+          // single traversal from all targets
+          builder.addAll(
+              adjacency.get().getNodes(adjacency.get().getBackwardsReachableIds(targetNodes)));
+        } else {
+          for (CFANode target : targetNodes) {
+            builder.addAll(CFATraversal.dfs().backwards()
+                .collectNodesReachableFrom(target));
+          }
         }
       } finally {
         backwardsReachability.stop();
@@ -80,6 +80,15 @@ public class UsageReducer implements Reducer {
         funElement.getWrappedState(), precision.getWrappedPrecision());
   }
 
+  @Override
+  public long getFingerprintForState(
+      AbstractState pElementKey, Precision pPrecisionKey, Object pHashCodeForState) {
+    UsageState funElement = (UsageState) pElementKey;
+    UsagePrecision precision = (UsagePrecision) pPrecisionKey;
+    return wrappedReducer.getFingerprintForState(
+        funElement.getWrappedState(), precision.getWrappedPrecision(), pHashCodeForState);
+  }
+
   @Override
   public Precision getVariableReducedPrecision(Precision pPrecision, Block pContext) {
     UsagePrecision newPrecision =
@@ -103,6 +103,14 @@ class ValueAnalysisReducer extends GenericReducer<ValueAnalysisState, VariableTr
     return Pair.of(pElementKey, pPrecisionKey);
   }
 
+  @Override
+  protected long getFingerprintForState0(
+      ValueAnalysisState pElementKey,
+      VariableTrackingPrecision pPrecisionKey,
+      Object pHashCodeForState) {
+    return ((long) pElementKey.hashCode() << 32) | (pPrecisionKey.hashCode() & 0xFFFFFFFFL);
+  }
+
   @Override
   protected ValueAnalysisState rebuildStateAfterFunctionCall0(
       ValueAnalysisState pRootState,
@@ -23,6 +23,7 @@
  */
 package org.sosy_lab.cpachecker.pcc.strategy;
 
+import com.google.common.base.Throwables;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import java.io.IOException;
 import java.io.InputStream;
@@ -34,12 +35,21 @@ import java.io.PrintStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
+import javax.annotation.Nullable;
 import org.sosy_lab.common.configuration.Configuration;
 import org.sosy_lab.common.configuration.IntegerOption;
 import org.sosy_lab.common.configuration.InvalidConfigurationException;
@@ -53,9 +63,12 @@ import org.sosy_lab.cpachecker.core.interfaces.StatisticsProvider;
 import org.sosy_lab.cpachecker.core.interfaces.pcc.PCCStrategy;
 import org.sosy_lab.cpachecker.core.reachedset.UnmodifiableReachedSet;
 import org.sosy_lab.cpachecker.exceptions.ValidationConfigurationConstructionFailed;
+import org.sosy_lab.cpachecker.pcc.strategy.IndexedProofFile.SectionWriter;
 import org.sosy_lab.cpachecker.pcc.util.ProofStatesInfoCollector;
 import org.sosy_lab.cpachecker.pcc.util.ValidationConfigurationBuilder;
 import org.sosy_lab.cpachecker.util.Triple;
+import org.sosy_lab.cpachecker.util.statistics.ThreadSafeTimerContainer;
+import org.sosy_lab.cpachecker.util.statistics.ThreadSafeTimerContainer.TimerWrapper;
 
 @Options(prefix="pcc")
 public abstract class AbstractStrategy implements PCCStrategy, StatisticsProvider {
@@ -83,6 +96,22 @@ public abstract class AbstractStrategy implements PCCStrategy, StatisticsProvide
       description = "writes the validation configuration required for checking to proof")
   boolean storeConfig = false;
 
+  @Option(secure=true,
+      name="proofFormat",
+      description = "file format for writing the proof. ZIP stores the proof parts as entries of a"
+          + " ZIP archive. INDEXED stores them as separately compressed sections with an index,"
+          + " such that the sections can be read and decoded in parallel. The format of a proof"
+          + " that is read is detected automatically.")
+  private ProofFormat proofFormat = ProofFormat.ZIP;
+
+  public enum ProofFormat {
+    ZIP,
+    INDEXED
+  }
+
+  /** reader for a proof in indexed format, absent for a ZIP proof, or null before first use. */
+  private @Nullable Optional<IndexedProofFile.Reader> indexedProofReader = null;
+
   public AbstractStrategy(Configuration pConfig, LogManager pLogger, Path pProofFile) throws InvalidConfigurationException {
     pConfig.inject(this, AbstractStrategy.class);
     config = pConfig;
@@ -96,7 +125,6 @@ public abstract class AbstractStrategy implements PCCStrategy, StatisticsProvide
   }
 
   @Override
-  @SuppressFBWarnings(value="OS_OPEN_STREAM", justification="Do not close stream o because it wraps stream zos/fos which need to remain open and would be closed if o.close() is called.")
   public void writeProof(UnmodifiableReachedSet pReached) {
 
     Path dir = proofFile.getParent();
@@ -106,54 +134,16 @@ public abstract class AbstractStrategy implements PCCStrategy, StatisticsProvide
         Files.createDirectories(dir);
       }
 
-      try (final OutputStream fos = Files.newOutputStream(proofFile);
-          final ZipOutputStream zos = new ZipOutputStream(fos)) {
-        zos.setLevel(9);
-
-        ZipEntry ze = new ZipEntry(PROOF_ZIPENTRY_NAME);
-        zos.putNextEntry(ze);
-        ObjectOutputStream o = new ObjectOutputStream(zos);
-        //TODO might also want to write used configuration to the file so that proof checker does not need to get it as an argument
-        //write ARG
-        writeProofToStream(o, pReached);
-        o.flush();
-        zos.closeEntry();
-
-        // write additional proof information
-        int index = 0;
-        boolean continueWriting;
-        do {
-          ze = new ZipEntry(ADDITIONAL_PROOFINFO_ZIPENTRY_NAME + index);
-          zos.putNextEntry(ze);
-          o = new ObjectOutputStream(zos);
-          continueWriting = writeAdditionalProofStream(o);
-          o.flush();
-          zos.closeEntry();
-          index++;
-        } while (continueWriting);
-
-        if (storeConfig) {
-          ze = new ZipEntry(CONFIG_ZIPENTRY_NAME);
-          zos.putNextEntry(ze);
-          o = new ObjectOutputStream(zos);
-          try {
-            writeConfiguration(o);
-          } catch (ValidationConfigurationConstructionFailed eIC) {
-            logger.log(Level.WARNING, "Construction of validation configuration failed. Validation configuration is empty.");
-          }
-
-          o.flush();
-          zos.closeEntry();
+      if (proofFormat == ProofFormat.INDEXED) {
+        try (IndexedProofFile.Writer writer = new IndexedProofFile.Writer(proofFile)) {
+          writeProofSections(writer, pReached);
+        }
+      } else {
+        try (final OutputStream fos = Files.newOutputStream(proofFile);
+            final ZipOutputStream zos = new ZipOutputStream(fos)) {
+          zos.setLevel(9);
+          writeProofSections(new ZipSectionWriter(zos), pReached);
         }
-      } catch (NotSerializableException eS) {
-        logger.log(Level.SEVERE, "Proof cannot be written. Class " + eS.getMessage()
-            + " does not implement Serializable interface");
-      } catch (InvalidConfigurationException e) {
-        logger.log(Level.SEVERE, "Proof cannot be constructed due to conflicting configuration.",
-            e.getMessage());
-      } catch (InterruptedException e) {
-        logger.log(Level.SEVERE,
-            "Proof cannot be written due to time out during proof construction");
       }
     } catch (IOException e) {
       throw new RuntimeException(e);
@@ -162,13 +152,75 @@ public abstract class AbstractStrategy implements PCCStrategy, StatisticsProvide
     logger.log(Level.INFO, proofInfo.getInfoAsString());
   }
 
+  @SuppressFBWarnings(value="OS_OPEN_STREAM", justification="Do not close stream o because it wraps stream zos/fos which need to remain open and would be closed if o.close() is called.")
+  private void writeProofSections(SectionWriter pWriter, UnmodifiableReachedSet pReached)
+      throws IOException {
+    try {
+      ObjectOutputStream o = pWriter.startSection(PROOF_ZIPENTRY_NAME);
+      //TODO might also want to write used configuration to the file so that proof checker does not need to get it as an argument
+      //write ARG
+      writeProofToStream(o, pReached);
+      pWriter.finishSection(o);
+
+      // write additional proof information
+      int index = 0;
+      boolean continueWriting;
+      do {
+        o = pWriter.startSection(ADDITIONAL_PROOFINFO_ZIPENTRY_NAME + index);
+        continueWriting = writeAdditionalProofStream(o);
+        pWriter.finishSection(o);
+        index++;
+      } while (continueWriting);
+
+      if (storeConfig) {
+        o = pWriter.startSection(CONFIG_ZIPENTRY_NAME);
+        try {
+          writeConfiguration(o);
+        } catch (ValidationConfigurationConstructionFailed eIC) {
+          logger.log(Level.WARNING, "Construction of validation configuration failed. Validation configuration is empty.");
+        }
+        pWriter.finishSection(o);
+      }
+    } catch (NotSerializableException eS) {
+      logger.log(Level.SEVERE, "Proof cannot be written. Class " + eS.getMessage()
+          + " does not implement Serializable interface");
+    } catch (InvalidConfigurationException e) {
+      logger.log(Level.SEVERE, "Proof cannot be constructed due to conflicting configuration.",
+          e.getMessage());
+    } catch (InterruptedException e) {
+      logger.log(Level.SEVERE,
+          "Proof cannot be written due to time out during proof construction");
+    }
+  }
+
+  private static class ZipSectionWriter implements SectionWriter {
+
+    private final ZipOutputStream zos;
+
+    private ZipSectionWriter(ZipOutputStream pZos) {
+      zos = pZos;
+    }
+
+    @Override
+    public ObjectOutputStream startSection(String pName) throws IOException {
+      zos.putNextEntry(new ZipEntry(pName));
+      return new ObjectOutputStream(zos);
+    }
+
+    @Override
+    public void finishSection(ObjectOutputStream pSection) throws IOException {
+      pSection.flush();
+      zos.closeEntry();
+    }
+  }
+
   protected abstract void writeProofToStream(ObjectOutputStream out, UnmodifiableReachedSet reached)
       throws IOException, InvalidConfigurationException, InterruptedException;
 
 
   @Override
   public void readProof() throws IOException, ClassNotFoundException, InvalidConfigurationException {
-    Triple<InputStream, ZipInputStream, ObjectInputStream> proofStream = openProofStream();
+    Triple<InputStream, InputStream, ObjectInputStream> proofStream = openProofStream();
     readProofFromStream(proofStream.getThird());
     proofStream.getThird().close();
     proofStream.getSecond().close();
@@ -190,7 +242,28 @@ public abstract class AbstractStrategy implements PCCStrategy, StatisticsProvide
   }
 
 
-  protected Triple<InputStream, ZipInputStream, ObjectInputStream> openProofStream() throws IOException {
+  protected boolean writesIndexedProof() {
+    return proofFormat == ProofFormat.INDEXED;
+  }
+
+  /** Returns the reader for the proof file if it is in indexed format, otherwise null. */
+  private synchronized @Nullable IndexedProofFile.Reader getIndexedProofReader()
+      throws IOException {
+    if (indexedProofReader == null) {
+      indexedProofReader =
+          IndexedProofFile.isIndexedProofFile(proofFile)
+              ? Optional.of(IndexedProofFile.Reader.open(proofFile))
+              : Optional.empty();
+    }
+    return indexedProofReader.orElse(null);
+  }
+
+  protected Triple<InputStream, InputStream, ObjectInputStream> openProofStream()
+      throws IOException {
+    IndexedProofFile.Reader reader = getIndexedProofReader();
+    if (reader != null) {
+      return reader.openSection(PROOF_ZIPENTRY_NAME);
+    }
     InputStream fis = Files.newInputStream(proofFile);
     ZipInputStream zis = new ZipInputStream(fis);
     ZipEntry entry = zis.getNextEntry();
@@ -198,9 +271,14 @@ public abstract class AbstractStrategy implements PCCStrategy, StatisticsProvide
     return Triple.of(fis, zis, new ObjectInputStream(zis));
   }
 
-  public Triple<InputStream, ZipInputStream, ObjectInputStream> openAdditionalProofStream(final int index)
-      throws IOException {
+  public Triple<InputStream, InputStream, ObjectInputStream> openAdditionalProofStream(
+      final int index) throws IOException {
     if (index < 0) { throw new IllegalArgumentException("Not a valid index. Indices must be at least zero."); }
+    IndexedProofFile.Reader reader = getIndexedProofReader();
+    if (reader != null) {
+      // direct access via the index instead of reading all previous entries
+      return reader.openSection(ADDITIONAL_PROOFINFO_ZIPENTRY_NAME + index);
+    }
     InputStream fis = Files.newInputStream(proofFile);
     ZipInputStream zis = new ZipInputStream(fis);
     ZipEntry entry = null;
@@ -208,10 +286,57 @@ public abstract class AbstractStrategy implements PCCStrategy, StatisticsProvide
       entry = zis.getNextEntry();
     }
 
-    assert entry.getName().equals("ADDITIONAL_PROOFINFO_ZIPENTRY_NAME " + index);
+    assert entry.getName().equals(ADDITIONAL_PROOFINFO_ZIPENTRY_NAME + index);
     return Triple.of(fis, zis, new ObjectInputStream(zis));
   }
 
+  /**
+   * Read the object in each of the first additional proof parts. The parts are decoded with the
+   * configured number of threads, which is efficient for proofs in indexed format.
+   *
+   * @param pNumParts the number of additional proof parts to read
+   * @return the objects in the order of the proof parts
+   */
+  protected List<Object> readAdditionalProofObjects(final int pNumParts)
+      throws IOException, ClassNotFoundException {
+    Object[] result = new Object[pNumParts];
+    ExecutorService executor =
+        Executors.newFixedThreadPool(Math.max(1, Math.min(numThreads, pNumParts)));
+    try {
+      List<Future<?>> tasks = new ArrayList<>(pNumParts);
+      for (int i = 0; i < pNumParts; i++) {
+        final int index = i;
+        tasks.add(
+            executor.submit(
+                () -> {
+                  TimerWrapper timer = stats.getNewDecodingTimer();
+                  timer.start();
+                  Triple<InputStream, InputStream, ObjectInputStream> streams =
+                      openAdditionalProofStream(index);
+                  try (InputStream first = streams.getFirst();
+                      InputStream second = streams.getSecond();
+                      ObjectInputStream third = streams.getThird()) {
+                    result[index] = third.readObject();
+                    return null;
+                  } finally {
+                    timer.stop();
+                  }
+                }));
+      }
+      for (Future<?> task : tasks) {
+        task.get();
+      }
+    } catch (ExecutionException e) {
+      Throwables.propagateIfPossible(e.getCause(), IOException.class, ClassNotFoundException.class);
+      throw new IOException("Reading proof failed", e.getCause());
+    } catch (InterruptedException e) {
+      throw new IOException("Proof reading failed.");
+    } finally {
+      executor.shutdownNow();
+    }
+    return Arrays.asList(result);
+  }
+
   protected abstract void readProofFromStream(ObjectInputStream in) throws ClassNotFoundException, InvalidConfigurationException, IOException;
 
   protected void addPCCStatistic(final Statistics pPCCStatistic) {
@@ -237,6 +362,8 @@ public abstract class AbstractStrategy implements PCCStrategy, StatisticsProvide
     protected Timer stopTimer = new Timer();
     protected Timer preparationTimer = new Timer();
     protected Timer propertyCheckingTimer = new Timer();
+    protected final ThreadSafeTimerContainer decodingTime =
+        new ThreadSafeTimerContainer("Time for decoding proof parts");
 
     protected int countIterations = 0;
     protected int proofSize = 0;
@@ -271,6 +398,11 @@ public abstract class AbstractStrategy implements PCCStrategy, StatisticsProvide
       return propertyCheckingTimer;
     }
 
+    /** Returns a new timer for decoding proof parts, to be used by a single thread. */
+    public TimerWrapper getNewDecodingTimer() {
+      return decodingTime.getNewTimer();
+    }
+
     public void increaseIteration() {
       countIterations++;
     }
@@ -281,6 +413,10 @@ public abstract class AbstractStrategy implements PCCStrategy, StatisticsProvide
       out.println();
       out.println("Number of proof elements:                     " + proofSize);
       out.println();
+      if (decodingTime.getNumberOfIntervals() > 0) {
+        out.println("  Time for decoding proof parts:                  " + decodingTime
+            + " (Max: " + decodingTime.getMaxTime().formatAs(TimeUnit.SECONDS) + ")");
+      }
       out.println("  Time for preparing proof for checking:          " + preparationTimer);
       out.println("  Time for abstract successor checks:     " + transferTimer + " (Calls: "
           + transferTimer.getNumberOfIntervals() + ")");
@@ -0,0 +1,286 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.pcc.strategy;
+
+import static com.google.common.base.Preconditions.checkState;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.CountingOutputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+import javax.annotation.Nullable;
+import org.sosy_lab.cpachecker.util.Triple;
+
+/**
+ * Binary container for proofs with an index of its sections, as alternative to the ZIP container.
+ * A section corresponds to an entry of the ZIP container and contains Java-serialized data that is
+ * compressed separately. The index at the end of the file gives the position of each section, such
+ * that a section can be read without reading the sections before it, and several sections can be
+ * decoded in parallel from the memory-mapped file.
+ *
+ * <p>Layout of the file: magic number and format version, the sections, the index (number of
+ * sections and name, offset, and length of each section), the offset of the index, and the magic
+ * number again.
+ */
+public final class IndexedProofFile {
+
+  private static final int MAGIC = 0x43504343; // "CPCC"
+  private static final int VERSION = 1;
+  private static final int TRAILER_SIZE = Long.BYTES + Integer.BYTES;
+
+  private IndexedProofFile() {}
+
+  /** Check whether the file starts like a proof in this format (and not like a ZIP file). */
+  public static boolean isIndexedProofFile(Path pFile) throws IOException {
+    try (DataInputStream in = new DataInputStream(Files.newInputStream(pFile))) {
+      return in.readInt() == MAGIC;
+    } catch (EOFException e) {
+      return false;
+    }
+  }
+
+  /** Read the object stored in the given section of the proof file. */
+  public static Object readObject(Path pFile, String pSection)
+      throws IOException, ClassNotFoundException {
+    try (ObjectInputStream in = Reader.open(pFile).openSection(pSection).getThird()) {
+      return in.readObject();
+    }
+  }
+
+  /** Writer for the sections of a proof, used by {@link AbstractStrategy#writeProof}. */
+  interface SectionWriter {
+
+    /** Start a new section. The returned stream must not be closed. */
+    ObjectOutputStream startSection(String pName) throws IOException;
+
+    /** Finish the current section, such that the next one can be started. */
+    void finishSection(ObjectOutputStream pSection) throws IOException;
+  }
+
+  static final class Writer implements SectionWriter, Closeable {
+
+    private final CountingOutputStream out;
+    private final Map<String, Section> index = new LinkedHashMap<>();
+
+    private @Nullable String currentSection = null;
+    private long currentSectionStart;
+    private @Nullable Deflater deflater = null;
+    private @Nullable DeflaterOutputStream deflaterStream = null;
+
+    Writer(Path pFile) throws IOException {
+      out = new CountingOutputStream(new BufferedOutputStream(Files.newOutputStream(pFile)));
+      DataOutputStream header = new DataOutputStream(out);
+      header.writeInt(MAGIC);
+      header.writeInt(VERSION);
+      header.flush();
+    }
+
+    @Override
+    public ObjectOutputStream startSection(String pName) throws IOException {
+      checkState(currentSection == null, "previous section not finished");
+      currentSection = pName;
+      currentSectionStart = out.getCount();
+      deflater = new Deflater(Deflater.BEST_COMPRESSION);
+      deflaterStream = new DeflaterOutputStream(out, deflater);
+      return new ObjectOutputStream(deflaterStream);
+    }
+
+    @Override
+    public void finishSection(ObjectOutputStream pSection) throws IOException {
+      checkState(currentSection != null, "no section started");
+      pSection.flush();
+      deflaterStream.finish();
+      deflater.end();
+      long length = out.getCount() - currentSectionStart;
+      index.put(currentSection, new Section(currentSectionStart, length));
+      currentSection = null;
+      deflaterStream = null;
+      deflater = null;
+    }
+
+    /** Write the index of all finished sections and close the file. */
+    @Override
+    public void close() throws IOException {
+      try {
+        if (deflater != null) {
+          deflater.end();
+        }
+        long indexOffset = out.getCount();
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(index.size());
+        for (Map.Entry<String, Section> section : index.entrySet()) {
+          data.writeUTF(section.getKey());
+          data.writeLong(section.getValue().offset);
+          data.writeLong(section.getValue().length);
+        }
+        data.writeLong(indexOffset);
+        data.writeInt(MAGIC);
+        data.flush();
+      } finally {
+        out.close();
+      }
+    }
+  }
+
+  /**
+   * Reader for the sections of a proof. The file is mapped into memory once, afterwards sections
+   * can be opened concurrently from several threads.
+   */
+  static final class Reader {
+
+    private final ByteBuffer buffer;
+    private final ImmutableMap<String, Section> index;
+
+    private Reader(ByteBuffer pBuffer, ImmutableMap<String, Section> pIndex) {
+      buffer = pBuffer;
+      index = pIndex;
+    }
+
+    static Reader open(Path pFile) throws IOException {
+      ByteBuffer buffer;
+      try (FileChannel channel = FileChannel.open(pFile, StandardOpenOption.READ)) {
+        if (channel.size() > Integer.MAX_VALUE) {
+          throw new IOException("Proof file is too large to be mapped into memory");
+        }
+        // the mapping stays valid after closing the channel
+        buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+      }
+
+      if (buffer.limit() < 2 * Integer.BYTES + TRAILER_SIZE
+          || buffer.getInt(0) != MAGIC
+          || buffer.getInt(buffer.limit() - Integer.BYTES) != MAGIC) {
+        throw new IOException("Proof file is not a complete proof in indexed format");
+      }
+      int version = buffer.getInt(Integer.BYTES);
+      if (version != VERSION) {
+        throw new IOException("Unsupported version " + version + " of indexed proof format");
+      }
+
+      long indexOffset = buffer.getLong(buffer.limit() - TRAILER_SIZE);
+      if (indexOffset < 0 || indexOffset > buffer.limit() - TRAILER_SIZE) {
+        throw new IOException("Invalid index in proof file");
+      }
+      ImmutableMap.Builder<String, Section> index = ImmutableMap.builder();
+      ByteBuffer indexBuffer = slice(buffer, indexOffset, buffer.limit() - indexOffset);
+      try (DataInputStream in = new DataInputStream(new ByteBufferInputStream(indexBuffer))) {
+        int size = in.readInt();
+        for (int i = 0; i < size; i++) {
+          String name = in.readUTF();
+          Section section = new Section(in.readLong(), in.readLong());
+          if (section.offset < 0
+              || section.length < 0
+              || section.offset + section.length > indexOffset) {
+            throw new IOException("Invalid index entry for section " + name);
+          }
+          index.put(name, section);
+        }
+      }
+      return new Reader(buffer, index.build());
+    }
+
+    /**
+     * Open a section for reading. The first stream of the returned triple is the raw section, the
+     * second one the decompressed section, and the third one the deserializing stream.
+     */
+    Triple<InputStream, InputStream, ObjectInputStream> openSection(String pName)
+        throws IOException {
+      Section section = index.get(pName);
+      if (section == null) {
+        throw new IOException("Proof file does not contain section " + pName);
+      }
+      InputStream raw = new ByteBufferInputStream(slice(buffer, section.offset, section.length));
+      InputStream decompressed = new InflaterInputStream(raw);
+      return Triple.of(raw, decompressed, new ObjectInputStream(decompressed));
+    }
+
+    private static ByteBuffer slice(ByteBuffer pBuffer, long pOffset, long pLength) {
+      // duplicates have their own position and limit and can be used concurrently
+      ByteBuffer result = pBuffer.duplicate();
+      result.position((int) pOffset);
+      result.limit((int) (pOffset + pLength));
+      return result.slice();
+    }
+  }
+
+  private static final class Section {
+
+    private final long offset;
+    private final long length;
+
+    private Section(long pOffset, long pLength) {
+      offset = pOffset;
+      length = pLength;
+    }
+  }
+
+  private static final class ByteBufferInputStream extends InputStream {
+
+    private final ByteBuffer buffer;
+
+    private ByteBufferInputStream(ByteBuffer pBuffer) {
+      buffer = pBuffer;
+    }
+
+    @Override
+    public int read() {
+      return buffer.hasRemaining() ? (buffer.get() & 0xFF) : -1;
+    }
+
+    @Override
+    public int read(byte[] pBytes, int pOffset, int pLength) {
+      if (pLength == 0) {
+        return 0;
+      }
+      if (!buffer.hasRemaining()) {
+        return -1;
+      }
+      int length = Math.min(pLength, buffer.remaining());
+      buffer.get(pBytes, pOffset, length);
+      return length;
+    }
+
+    @Override
+    public int available() {
+      return buffer.remaining();
+    }
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.pcc.strategy;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sosy_lab.cpachecker.util.Triple;
+
+public class IndexedProofFileTest {
+
+  @Rule public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+  @Test
+  public void testSectionsReadInAnyOrder() throws IOException, ClassNotFoundException {
+    Path file = tempFolder.newFile().toPath();
+    try (IndexedProofFile.Writer writer = new IndexedProofFile.Writer(file)) {
+      for (int i = 0; i < 3; i++) {
+        ObjectOutputStream out = writer.startSection("Section" + i);
+        out.writeObject("content of section " + i);
+        out.writeInt(i);
+        writer.finishSection(out);
+      }
+    }
+
+    assertThat(IndexedProofFile.isIndexedProofFile(file)).isTrue();
+    IndexedProofFile.Reader reader = IndexedProofFile.Reader.open(file);
+    for (int i = 2; i >= 0; i--) {
+      Triple<InputStream, InputStream, ObjectInputStream> streams =
+          reader.openSection("Section" + i);
+      try (ObjectInputStream in = streams.getThird()) {
+        assertThat(in.readObject()).isEqualTo("content of section " + i);
+        assertThat(in.readInt()).isEqualTo(i);
+      }
+    }
+    assertThat(IndexedProofFile.readObject(file, "Section1")).isEqualTo("content of section 1");
+  }
+
+  @Test
+  public void testZipFileIsNotIndexed() throws IOException {
+    Path file = tempFolder.newFile().toPath();
+    Files.write(file, new byte[] {'P', 'K', 3, 4, 0, 0});
+    assertThat(IndexedProofFile.isIndexedProofFile(file)).isFalse();
+  }
+
+  @Test(expected = IOException.class)
+  public void testIncompleteFile() throws IOException {
+    Path file = tempFolder.newFile().toPath();
+    try (IndexedProofFile.Writer writer = new IndexedProofFile.Writer(file)) {
+      ObjectOutputStream out = writer.startSection("Section");
+      out.writeObject("content");
+      writer.finishSection(out);
+      // writer is not yet closed, thus the index is missing
+      IndexedProofFile.Reader.open(file);
+    }
+  }
+}
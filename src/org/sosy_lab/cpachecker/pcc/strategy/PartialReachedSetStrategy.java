@@ -23,14 +23,19 @@
  */
 package org.sosy_lab.cpachecker.pcc.strategy;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.logging.Level;
 import javax.annotation.Nullable;
 import org.sosy_lab.common.ShutdownNotifier;
 import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.IntegerOption;
 import org.sosy_lab.common.configuration.InvalidConfigurationException;
 import org.sosy_lab.common.configuration.Option;
 import org.sosy_lab.common.configuration.Options;
@@ -58,7 +63,14 @@ public class PartialReachedSetStrategy extends ReachedSetStrategy {
       description = "Enables proper PCC but may not work correctly for heuristics. Stops adding newly computed elements to reached set if size saved in proof is reached. If another element must be added, stops certificate checking and returns false.")
   protected boolean stopAddingAtReachedSetSize = false;
 
+  @Option(secure=true,
+      description = "Number of states per proof part if the proof is written in indexed format "
+          + "(pcc.proofFormat=INDEXED). The proof parts are decoded in parallel when reading.")
+  @IntegerOption(min=1)
+  private int statesPerProofPart = 10000;
+
   protected int savedReachedSetSize;
+  private int nextProofPart;
 
   public PartialReachedSetStrategy(
       Configuration pConfig,
@@ -87,6 +99,56 @@ public class PartialReachedSetStrategy extends ReachedSetStrategy {
     return Pair.of(pReached.size(), reachedSet);
   }
 
+  @Override
+  protected void writeProofToStream(ObjectOutputStream pOut, UnmodifiableReachedSet pReached)
+      throws IOException, InvalidConfigurationException {
+    if (!writesIndexedProof()) {
+      super.writeProofToStream(pOut, pReached);
+      return;
+    }
+    // write only metadata, the states are written as additional proof parts
+    constructInternalProofRepresentation(pReached);
+    pOut.writeObject(Pair.of(pReached.size(), getNumberOfProofParts()));
+    nextProofPart = 0;
+  }
+
+  @Override
+  protected boolean writeAdditionalProofStream(ObjectOutputStream pOut) throws IOException {
+    if (!writesIndexedProof()) {
+      return super.writeAdditionalProofStream(pOut);
+    }
+    int start = nextProofPart * statesPerProofPart;
+    pOut.writeObject(
+        Arrays.copyOfRange(
+            reachedSet, start, Math.min(reachedSet.length, start + statesPerProofPart)));
+    nextProofPart++;
+    return nextProofPart < getNumberOfProofParts();
+  }
+
+  private int getNumberOfProofParts() {
+    return Math.max(1, (reachedSet.length + statesPerProofPart - 1) / statesPerProofPart);
+  }
+
+  @Override
+  protected void readProofFromStream(ObjectInputStream pIn)
+      throws ClassNotFoundException, InvalidConfigurationException, IOException {
+    Object proof = pIn.readObject();
+    if (proof instanceof Pair && ((Pair<?, ?>) proof).getSecond() instanceof Integer) {
+      // proof in indexed format, the states are stored in additional proof parts
+      Pair<?, ?> metadata = (Pair<?, ?>) proof;
+      List<AbstractState> states = new ArrayList<>();
+      for (Object part : readAdditionalProofObjects((Integer) metadata.getSecond())) {
+        if (!(part instanceof AbstractState[])) {
+          throw new InvalidConfigurationException(
+              "Proof Type requires parts of reached set as set of abstract states.");
+        }
+        states.addAll(Arrays.asList((AbstractState[]) part));
+      }
+      proof = Pair.of(metadata.getFirst(), states.toArray(new AbstractState[states.size()]));
+    }
+    prepareForChecking(proof);
+  }
+
   @Override
   protected void prepareForChecking(Object pReadProof) throws InvalidConfigurationException {
     if (CPAs.retrieveCPA(cpa, LocationCPABackwards.class) != null) { throw new InvalidConfigurationException(
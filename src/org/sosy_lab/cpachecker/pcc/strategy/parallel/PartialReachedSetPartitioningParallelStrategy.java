@@ -63,6 +63,7 @@ public class PartialReachedSetPartitioningParallelStrategy extends AbstractStrat
   private final PartitioningIOHelper ioHelper;
   private final PropertyCheckerCPA cpa;
   private final ShutdownNotifier shutdownNotifier;
+  private final WorkStealingPartitionChecker workStealingChecker;
 
   public PartialReachedSetPartitioningParallelStrategy(
       final Configuration pConfig,
@@ -76,6 +77,8 @@ public class PartialReachedSetPartitioningParallelStrategy extends AbstractStrat
     cpa = pCpa;
     ioHelper = new PartitioningIOHelper(pConfig, pLogger, pShutdownNotifier);
     addPCCStatistic(ioHelper.getPartitioningStatistc());
+    workStealingChecker = new WorkStealingPartitionChecker(pConfig, pShutdownNotifier, pLogger);
+    addPCCStatistic(workStealingChecker);
   }
 
   @Override
@@ -99,46 +102,52 @@ public class PartialReachedSetPartitioningParallelStrategy extends AbstractStrat
     AbstractState initialState = pReachedSet.popFromWaitlist();
     Precision initPrec = pReachedSet.getPrecision(initialState);
 
-    logger.log(Level.INFO, "Create and start threads");
-    ExecutorService executor = Executors.newFixedThreadPool(numThreads );
-    try {
-      for (int i = 0; i < numThreads; i++) {
-        executor.execute(new ParallelPartitionChecker(availablePartitions, nextId, checkResult, readButUnprocessed,
-            partitionChecked, lock, ioHelper, partitionNodes, certificate, inOtherPartition, initPrec,
-            cpa.getStopOperator(), cpa.getTransferRelation(), shutdownNotifier, logger));
-      }
-
-      partitionChecked.acquire(ioHelper.getNumPartitions());
-
-      if (!checkResult.get()) { return false; }
-
-      logger.log(Level.INFO, "Add initial state to elements for which it will be checked if they are covered by partition nodes of certificate.");
-      inOtherPartition.add(initialState);
-
-      logger.log(Level.INFO,
-              "Check if initial state and all nodes which should be contained in different partition are covered by certificate (partition node).");
-      if (!PartitioningUtils.areElementsCoveredByPartitionElement(inOtherPartition, partitionNodes, cpa.getStopOperator(),
-          initPrec)) {
-        logger.log(Level.SEVERE,
-            "Initial state or a state which should be in other partition is not covered by certificate.");
+    if (workStealingChecker.isEnabled()) {
+      if (!workStealingChecker.checkPartitions(ioHelper, numThreads, partitionNodes, certificate,
+          inOtherPartition, initPrec, cpa.getStopOperator(), cpa.getTransferRelation())) {
         return false;
       }
-
-      logger.log(Level.INFO, "Check property.");
-      stats.getPropertyCheckingTimer().start();
+    } else {
+      logger.log(Level.INFO, "Create and start threads");
+      ExecutorService executor = Executors.newFixedThreadPool(numThreads );
       try {
-        if (!cpa.getPropChecker().satisfiesProperty(certificate)) {
-          logger.log(Level.SEVERE, "Property violated");
-          return false;
+        for (int i = 0; i < numThreads; i++) {
+          executor.execute(new ParallelPartitionChecker(availablePartitions, nextId, checkResult, readButUnprocessed,
+              partitionChecked, lock, ioHelper, partitionNodes, certificate, inOtherPartition, initPrec,
+              cpa.getStopOperator(), cpa.getTransferRelation(), shutdownNotifier, logger));
         }
+        partitionChecked.acquire(ioHelper.getNumPartitions());
       } finally {
-        stats.getPropertyCheckingTimer().stop();
+        executor.shutdown();
       }
 
-      return true;
+      if (!checkResult.get()) { return false; }
+    }
+
+    logger.log(Level.INFO, "Add initial state to elements for which it will be checked if they are covered by partition nodes of certificate.");
+    inOtherPartition.add(initialState);
+
+    logger.log(Level.INFO,
+            "Check if initial state and all nodes which should be contained in different partition are covered by certificate (partition node).");
+    if (!PartitioningUtils.areElementsCoveredByPartitionElement(inOtherPartition, partitionNodes, cpa.getStopOperator(),
+        initPrec)) {
+      logger.log(Level.SEVERE,
+          "Initial state or a state which should be in other partition is not covered by certificate.");
+      return false;
+    }
+
+    logger.log(Level.INFO, "Check property.");
+    stats.getPropertyCheckingTimer().start();
+    try {
+      if (!cpa.getPropChecker().satisfiesProperty(certificate)) {
+        logger.log(Level.SEVERE, "Property violated");
+        return false;
+      }
     } finally {
-      executor.shutdown();
+      stats.getPropertyCheckingTimer().stop();
     }
+
+    return true;
   }
 
   @Override
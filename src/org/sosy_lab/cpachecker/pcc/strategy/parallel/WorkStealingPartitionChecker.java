@@ -0,0 +1,405 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.pcc.strategy.parallel;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Multimap;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import javax.annotation.Nullable;
+import org.sosy_lab.common.ShutdownNotifier;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.IntegerOption;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.configuration.Option;
+import org.sosy_lab.common.configuration.Options;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.common.time.Timer;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.core.CPAcheckerResult.Result;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.Precision;
+import org.sosy_lab.cpachecker.core.interfaces.Statistics;
+import org.sosy_lab.cpachecker.core.interfaces.StopOperator;
+import org.sosy_lab.cpachecker.core.interfaces.TransferRelation;
+import org.sosy_lab.cpachecker.core.interfaces.pcc.PartitioningCheckingHelper;
+import org.sosy_lab.cpachecker.core.reachedset.UnmodifiableReachedSet;
+import org.sosy_lab.cpachecker.pcc.strategy.partitioning.PartitionChecker;
+import org.sosy_lab.cpachecker.pcc.strategy.partitioning.PartitioningIOHelper;
+import org.sosy_lab.cpachecker.util.statistics.StatCounter;
+import org.sosy_lab.cpachecker.util.statistics.StatisticsWriter;
+
+/**
+ * Checks all partitions of a partitioned certificate with a work-stealing thread pool.
+ *
+ * <p>In contrast to {@link ParallelPartitionChecker}, which lets every thread take the next
+ * partition in the order of the proof, the partitions are handed out largest first, so that the
+ * expensive partitions do not end up in a single thread at the end of the checking phase.
+ * Partitions with more nodes than {@link #maxPartitionSizeForChecking} are split into parts while
+ * checking. The parts are forked as separate tasks and can be stolen by idle threads. The results
+ * of the parts of a partition are merged without duplicates before they are added to the
+ * certificate.
+ */
+@Options(prefix = "pcc.parallel")
+public class WorkStealingPartitionChecker implements Statistics {
+
+  @Option(
+    secure = true,
+    description =
+        "distribute the checks of the partitions of a partitioned certificate dynamically among "
+            + "the threads, largest partitions first, instead of assigning them in proof order"
+  )
+  private boolean workStealing = false;
+
+  @Option(
+    secure = true,
+    description =
+        "partitions with more nodes are split into parts of at most this size which are checked "
+            + "independently when using work stealing. Default value 0 means no splitting."
+  )
+  @IntegerOption(min = 0)
+  private int maxPartitionSizeForChecking = 0;
+
+  private final ShutdownNotifier shutdownNotifier;
+  private final LogManager logger;
+
+  private final Timer checkingTime = new Timer();
+  private final StatCounter checkedParts = new StatCounter("Number of checked partition parts");
+  private final StatCounter splitPartitions = new StatCounter("Number of split partitions");
+  private final Map<String, ThreadUsage> threadUsage = new ConcurrentHashMap<>();
+
+  public WorkStealingPartitionChecker(
+      final Configuration pConfig,
+      final ShutdownNotifier pShutdownNotifier,
+      final LogManager pLogger)
+      throws InvalidConfigurationException {
+    pConfig.inject(this);
+    shutdownNotifier = pShutdownNotifier;
+    logger = pLogger;
+  }
+
+  public boolean isEnabled() {
+    return workStealing;
+  }
+
+  /**
+   * Checks all partitions provided by <code>pIOHelper</code> with <code>pNumThreads</code> threads
+   * and collects the results in <code>pCertificate</code>, <code>pPartitionNodes</code>, and
+   * <code>pInOtherPartition</code> like {@link ParallelPartitionChecker} does.
+   *
+   * @return false if checking one of the partitions failed
+   */
+  public boolean checkPartitions(
+      final PartitioningIOHelper pIOHelper,
+      final int pNumThreads,
+      final Multimap<CFANode, AbstractState> pPartitionNodes,
+      final Collection<AbstractState> pCertificate,
+      final Collection<AbstractState> pInOtherPartition,
+      final Precision pInitPrec,
+      final StopOperator pStop,
+      final TransferRelation pTransfer)
+      throws InterruptedException {
+    checkArgument(pNumThreads > 0);
+
+    // largest partitions first
+    List<Integer> order = new ArrayList<>(pIOHelper.getNumPartitions());
+    for (int i = 0; i < pIOHelper.getNumPartitions(); i++) {
+      order.add(i);
+    }
+    Collections.sort(order, Comparator.comparingInt((Integer i) -> size(pIOHelper, i)).reversed());
+
+    CheckingContext context =
+        new CheckingContext(
+            pIOHelper, order, pPartitionNodes, pCertificate, pInOtherPartition, pInitPrec, pStop,
+            pTransfer);
+
+    logger.log(Level.INFO, "Check partitions with work-stealing thread pool");
+    checkingTime.start();
+    ForkJoinPool pool = new ForkJoinPool(pNumThreads);
+    try {
+      List<ForkJoinTask<?>> workers = new ArrayList<>(pNumThreads);
+      for (int i = 0; i < pNumThreads; i++) {
+        workers.add(pool.submit(new PartitionWorker(context)));
+      }
+      for (ForkJoinTask<?> worker : workers) {
+        worker.get();
+      }
+    } catch (ExecutionException e) {
+      logger.logUserException(Level.SEVERE, e.getCause(), "Checking of partition failed");
+      return false;
+    } finally {
+      pool.shutdownNow();
+      checkingTime.stop();
+    }
+
+    shutdownNotifier.shutdownIfNecessary();
+    return context.checkResult.get();
+  }
+
+  private static int size(final PartitioningIOHelper pIOHelper, final int pIndex) {
+    return pIOHelper.getPartition(pIndex).getFirst().length
+        + pIOHelper.getPartition(pIndex).getSecond().length;
+  }
+
+  private void checkPart(
+      final CheckingContext pContext,
+      final PartitionResult pResult,
+      final int pIndex,
+      final int pFrom,
+      final int pTo) {
+    if (!pContext.checkResult.get()) {
+      return;
+    }
+
+    ThreadUsage usage =
+        threadUsage.computeIfAbsent(Thread.currentThread().getName(), name -> new ThreadUsage());
+    usage.busyTime.start();
+    try {
+      PartitionChecker checker =
+          new PartitionChecker(
+              pContext.initPrec,
+              pContext.stop,
+              pContext.transfer,
+              pContext.ioHelper,
+              pContext,
+              shutdownNotifier,
+              logger);
+      checker.checkPartition(pIndex, pFrom, pTo);
+
+      pResult.mutex.lock();
+      try {
+        checker.addCertificatePartsToCertificate(pResult.certificate);
+        checker.addPartitionElements(pResult.partitionNodes);
+        checker.addElementsCheckedInOtherPartitions(pResult.inOtherPartition);
+      } finally {
+        pResult.mutex.unlock();
+      }
+    } finally {
+      usage.busyTime.stop();
+    }
+    usage.checkedParts++;
+    checkedParts.inc();
+  }
+
+  /**
+   * Adds the merged results of all parts of a partition to the results of the whole check. Every
+   * part adds the adjacent nodes of the whole partition and may compute the same uncovered
+   * successors as another part, so the size of the certificate is only checked here after the
+   * duplicates were removed.
+   */
+  private void addPartitionResult(final CheckingContext pContext, final PartitionResult pResult) {
+    if (!pContext.checkResult.get()) {
+      return;
+    }
+
+    pContext.mutex.lock();
+    try {
+      if (pResult.certificate.size() + pContext.certificate.size()
+          > pContext.ioHelper.getSavedReachedSetSize()) {
+        logger.log(
+            Level.SEVERE,
+            "Checking failed, recomputed certificate bigger than original reached set.");
+        pContext.abortCheckingPreparation();
+        return;
+      }
+      pContext.certificate.addAll(pResult.certificate);
+      pContext.partitionNodes.putAll(pResult.partitionNodes);
+      pContext.inOtherPartition.addAll(pResult.inOtherPartition);
+    } finally {
+      pContext.mutex.unlock();
+    }
+  }
+
+  private class PartitionWorker extends RecursiveAction {
+
+    private static final long serialVersionUID = -3483574296545213186L;
+
+    private final transient CheckingContext context;
+
+    private PartitionWorker(final CheckingContext pContext) {
+      context = pContext;
+    }
+
+    @Override
+    protected void compute() {
+      int next;
+      while (context.checkResult.get()
+          && (next = context.nextPartition.getAndIncrement()) < context.order.size()) {
+        int index = context.order.get(next);
+        int numNodes = context.ioHelper.getPartition(index).getFirst().length;
+        if (maxPartitionSizeForChecking > 0 && numNodes > maxPartitionSizeForChecking) {
+          splitPartitions.inc();
+        }
+        PartitionResult result = new PartitionResult();
+        new PartTask(context, result, index, 0, numNodes).invoke();
+        addPartitionResult(context, result);
+      }
+    }
+  }
+
+  private class PartTask extends RecursiveAction {
+
+    private static final long serialVersionUID = 4213702394937286421L;
+
+    private final transient CheckingContext context;
+    private final transient PartitionResult result;
+    private final int index;
+    private final int from;
+    private final int to;
+
+    private PartTask(
+        final CheckingContext pContext,
+        final PartitionResult pResult,
+        final int pIndex,
+        final int pFrom,
+        final int pTo) {
+      context = pContext;
+      result = pResult;
+      index = pIndex;
+      from = pFrom;
+      to = pTo;
+    }
+
+    @Override
+    protected void compute() {
+      if (maxPartitionSizeForChecking > 0 && to - from > maxPartitionSizeForChecking) {
+        // forked half may be stolen by an idle thread
+        int middle = from + (to - from) / 2;
+        invokeAll(
+            new PartTask(context, result, index, from, middle),
+            new PartTask(context, result, index, middle, to));
+      } else {
+        checkPart(context, result, index, from, to);
+      }
+    }
+  }
+
+  private static class CheckingContext implements PartitioningCheckingHelper {
+
+    private final AtomicBoolean checkResult = new AtomicBoolean(true);
+    private final AtomicInteger nextPartition = new AtomicInteger(0);
+    private final Lock mutex = new ReentrantLock();
+
+    private final PartitioningIOHelper ioHelper;
+    private final List<Integer> order;
+    private final Multimap<CFANode, AbstractState> partitionNodes;
+    private final Collection<AbstractState> certificate;
+    private final Collection<AbstractState> inOtherPartition;
+    private final Precision initPrec;
+    private final StopOperator stop;
+    private final TransferRelation transfer;
+
+    private CheckingContext(
+        final PartitioningIOHelper pIOHelper,
+        final List<Integer> pOrder,
+        final Multimap<CFANode, AbstractState> pPartitionNodes,
+        final Collection<AbstractState> pCertificate,
+        final Collection<AbstractState> pInOtherPartition,
+        final Precision pInitPrec,
+        final StopOperator pStop,
+        final TransferRelation pTransfer) {
+      ioHelper = pIOHelper;
+      order = pOrder;
+      partitionNodes = pPartitionNodes;
+      certificate = pCertificate;
+      inOtherPartition = pInOtherPartition;
+      initPrec = pInitPrec;
+      stop = pStop;
+      transfer = pTransfer;
+    }
+
+    @Override
+    public int getCurrentCertificateSize() {
+      return certificate.size();
+    }
+
+    @Override
+    public void abortCheckingPreparation() {
+      checkResult.set(false);
+    }
+  }
+
+  private static class PartitionResult {
+
+    private final Lock mutex = new ReentrantLock();
+
+    private final Set<AbstractState> certificate = new HashSet<>();
+    private final Multimap<CFANode, AbstractState> partitionNodes = HashMultimap.create();
+    private final Set<AbstractState> inOtherPartition = new HashSet<>();
+  }
+
+  private static class ThreadUsage {
+    private final Timer busyTime = new Timer();
+    private int checkedParts = 0;
+  }
+
+  @Override
+  public void printStatistics(PrintStream pOut, Result pResult, UnmodifiableReachedSet pReached) {
+    if (checkingTime.getNumberOfIntervals() == 0) {
+      return;
+    }
+    StatisticsWriter writer =
+        StatisticsWriter.writingStatisticsTo(pOut)
+            .put("Time for checking partitions", checkingTime)
+            .put(checkedParts)
+            .put(splitPartitions);
+    long wallTime = checkingTime.getSumTime().asMillis();
+    for (Map.Entry<String, ThreadUsage> entry : threadUsage.entrySet()) {
+      ThreadUsage usage = entry.getValue();
+      long busy = usage.busyTime.getSumTime().asMillis();
+      writer.put(
+          "Utilisation of " + entry.getKey(),
+          String.format(
+              "%d parts, busy %s (%.0f%%)",
+              usage.checkedParts,
+              usage.busyTime.getSumTime().formatAs(TimeUnit.SECONDS),
+              wallTime > 0 ? 100.0 * busy / wallTime : 0.0));
+    }
+  }
+
+  @Override
+  public @Nullable String getName() {
+    return "Work-stealing partition checking";
+  }
+}
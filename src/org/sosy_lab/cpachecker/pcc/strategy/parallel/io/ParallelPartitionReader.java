@@ -32,13 +32,13 @@ import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
-import java.util.zip.ZipInputStream;
 
 import org.sosy_lab.cpachecker.util.Triple;
 import org.sosy_lab.common.log.LogManager;
 import org.sosy_lab.cpachecker.pcc.strategy.AbstractStrategy;
 import org.sosy_lab.cpachecker.pcc.strategy.AbstractStrategy.PCStrategyStatistics;
 import org.sosy_lab.cpachecker.pcc.strategy.partitioning.PartitioningIOHelper;
+import org.sosy_lab.cpachecker.util.statistics.ThreadSafeTimerContainer.TimerWrapper;
 
 
 public class ParallelPartitionReader implements Runnable {
@@ -90,12 +90,15 @@ public class ParallelPartitionReader implements Runnable {
 
   @Override
   public void run() {
-    Triple<InputStream, ZipInputStream, ObjectInputStream> streams = null;
+    Triple<InputStream, InputStream, ObjectInputStream> streams = null;
+    TimerWrapper decodingTimer = stats.getNewDecodingTimer();
     int nextId;
     while ((nextId = nextPartition.getAndIncrement()) < ioHelper.getNumPartitions()) {
       try {
+        decodingTimer.start();
         streams = strategy.openAdditionalProofStream(nextId);
         ioHelper.readPartition(streams.getThird(), stats, lock);
+        decodingTimer.stop();
         waitRead.release();
       } catch (IOException | ClassNotFoundException e) {
         logger.logUserException(Level.SEVERE, e, "Partition reading failed. Stop checking");
@@ -104,6 +107,7 @@ public class ParallelPartitionReader implements Runnable {
         logger.logException(Level.SEVERE, e2, "Unexpected failure during proof reading");
         prepareAbortion();
       } finally {
+        decodingTimer.stopIfRunning();
         if (streams != null) {
           try {
             streams.getThird().close();
@@ -66,6 +66,7 @@ public class PartialReachedSetParallelReadingStrategy extends AbstractStrategy {
   private final PartitioningIOHelper ioHelper;
   private final PropertyCheckerCPA cpa;
   private final ShutdownNotifier shutdownNotifier;
+  private final WorkStealingPartitionChecker workStealingChecker;
   private final Lock lock = new ReentrantLock();
 
   @Option(secure=true, description = "enables parallel checking of partial certificate")
@@ -85,6 +86,8 @@ public class PartialReachedSetParallelReadingStrategy extends AbstractStrategy {
     shutdownNotifier = pShutdownNotifier;
     cpa = pCpa;
     addPCCStatistic(ioHelper.getPartitioningStatistc());
+    workStealingChecker = new WorkStealingPartitionChecker(pConfig, pShutdownNotifier, pLogger);
+    addPCCStatistic(workStealingChecker);
   }
 
   @Override
@@ -106,47 +109,53 @@ public class PartialReachedSetParallelReadingStrategy extends AbstractStrategy {
     AbstractState initialState = pReachedSet.popFromWaitlist();
     Precision initPrec = pReachedSet.getPrecision(initialState);
 
-    logger.log(Level.INFO, "Create and start threads");
     int threads = enableParallelCheck ? numThreads : 1;
-    ExecutorService executor = Executors.newFixedThreadPool(threads);
-    try {
-      for (int i = 0; i < threads; i++) {
-        executor.execute(new ParallelPartitionChecker(availablePartitions, id, checkResult, readPartitions,
-            partitionChecked, lock, ioHelper, partitionNodes, certificate, inOtherPartition, initPrec, cpa
-                .getStopOperator(), cpa.getTransferRelation(), shutdownNotifier, logger));
-      }
-
-      partitionChecked.acquire(ioHelper.getNumPartitions());
-
-      if (!checkResult.get()) { return false; }
-
-      logger.log(Level.INFO, "Add initial state to elements for which it will be checked if they are covered by partition nodes of certificate.");
-      inOtherPartition.add(initialState);
-
-      logger.log(Level.INFO,
-              "Check if initial state and all nodes which should be contained in different partition are covered by certificate (partition node).");
-      if (!PartitioningUtils.areElementsCoveredByPartitionElement(inOtherPartition, partitionNodes, cpa.getStopOperator(),
-          initPrec)) {
-        logger.log(Level.SEVERE,
-            "Initial state or a state which should be in other partition is not covered by certificate.");
+    if (workStealingChecker.isEnabled()) {
+      if (!workStealingChecker.checkPartitions(ioHelper, threads, partitionNodes, certificate,
+          inOtherPartition, initPrec, cpa.getStopOperator(), cpa.getTransferRelation())) {
         return false;
       }
-
-      logger.log(Level.INFO, "Check property.");
-      stats.getPropertyCheckingTimer().start();
+    } else {
+      logger.log(Level.INFO, "Create and start threads");
+      ExecutorService executor = Executors.newFixedThreadPool(threads);
       try {
-        if (!cpa.getPropChecker().satisfiesProperty(certificate)) {
-          logger.log(Level.SEVERE, "Property violated");
-          return false;
+        for (int i = 0; i < threads; i++) {
+          executor.execute(new ParallelPartitionChecker(availablePartitions, id, checkResult, readPartitions,
+              partitionChecked, lock, ioHelper, partitionNodes, certificate, inOtherPartition, initPrec, cpa
+                  .getStopOperator(), cpa.getTransferRelation(), shutdownNotifier, logger));
         }
+        partitionChecked.acquire(ioHelper.getNumPartitions());
       } finally {
-        stats.getPropertyCheckingTimer().stop();
+        executor.shutdown();
       }
 
-      return true;
+      if (!checkResult.get()) { return false; }
+    }
+
+    logger.log(Level.INFO, "Add initial state to elements for which it will be checked if they are covered by partition nodes of certificate.");
+    inOtherPartition.add(initialState);
+
+    logger.log(Level.INFO,
+            "Check if initial state and all nodes which should be contained in different partition are covered by certificate (partition node).");
+    if (!PartitioningUtils.areElementsCoveredByPartitionElement(inOtherPartition, partitionNodes, cpa.getStopOperator(),
+        initPrec)) {
+      logger.log(Level.SEVERE,
+          "Initial state or a state which should be in other partition is not covered by certificate.");
+      return false;
+    }
+
+    logger.log(Level.INFO, "Check property.");
+    stats.getPropertyCheckingTimer().start();
+    try {
+      if (!cpa.getPropChecker().satisfiesProperty(certificate)) {
+        logger.log(Level.SEVERE, "Property violated");
+        return false;
+      }
     } finally {
-      executor.shutdown();
+      stats.getPropertyCheckingTimer().stop();
     }
+
+    return true;
   }
 
   @Override
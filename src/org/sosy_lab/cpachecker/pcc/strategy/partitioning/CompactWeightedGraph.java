@@ -0,0 +1,281 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.pcc.strategy.partitioning;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.collect.ImmutableList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import org.sosy_lab.cpachecker.pcc.strategy.partialcertificate.PartialReachedSetDirectedGraph;
+import org.sosy_lab.cpachecker.pcc.strategy.partialcertificate.WeightedEdge;
+import org.sosy_lab.cpachecker.pcc.strategy.partialcertificate.WeightedGraph;
+import org.sosy_lab.cpachecker.pcc.strategy.partialcertificate.WeightedNode;
+
+/**
+ * Undirected, weighted graph stored in compressed sparse row format. The neighbors of node
+ * <code>v</code> are stored at the positions <code>getFirstEdge(v)</code> (inclusive) to
+ * <code>getFirstEdge(v + 1)</code> (exclusive) of the edge arrays, sorted by node number.
+ *
+ * <p>Directed graphs are symmetrized, i.e., an edge between two nodes is contained in the adjacency
+ * of both nodes, and the weights of parallel edges are summed up. Self loops are dropped since they
+ * never contribute to an edge cut. Instances are immutable and may be shared between threads.
+ */
+public final class CompactWeightedGraph {
+
+  private final int[] nodeWeights;
+  private final int[] firstEdge;
+  private final int[] edgeEnds;
+  private final int[] edgeWeights;
+  private final long totalNodeWeight;
+
+  CompactWeightedGraph(
+      final int[] pNodeWeights,
+      final int[] pFirstEdge,
+      final int[] pEdgeEnds,
+      final int[] pEdgeWeights) {
+    checkArgument(pFirstEdge.length == pNodeWeights.length + 1);
+    checkArgument(pEdgeEnds.length == pEdgeWeights.length);
+    checkArgument(pFirstEdge[pNodeWeights.length] == pEdgeEnds.length);
+    nodeWeights = pNodeWeights;
+    firstEdge = pFirstEdge;
+    edgeEnds = pEdgeEnds;
+    edgeWeights = pEdgeWeights;
+
+    long weight = 0;
+    for (int nodeWeight : nodeWeights) {
+      weight += nodeWeight;
+    }
+    totalNodeWeight = weight;
+  }
+
+  /** Creates the graph of a partial reached set, all nodes and edges get weight one. */
+  public static CompactWeightedGraph fromDirectedGraph(
+      final PartialReachedSetDirectedGraph pGraph) {
+    int numNodes = pGraph.getNumNodes();
+    ImmutableList<ImmutableList<Integer>> adjacencyList = pGraph.getAdjacencyList();
+    int numEdges = 0;
+    for (ImmutableList<Integer> successors : adjacencyList) {
+      numEdges += successors.size();
+    }
+
+    int[] sources = new int[numEdges];
+    int[] targets = new int[numEdges];
+    int[] weights = new int[numEdges];
+    int edge = 0;
+    for (int node = 0; node < numNodes; node++) {
+      for (Integer successor : adjacencyList.get(node)) {
+        sources[edge] = node;
+        targets[edge] = successor;
+        weights[edge] = 1;
+        edge++;
+      }
+    }
+
+    int[] nodeWeights = new int[numNodes];
+    Arrays.fill(nodeWeights, 1);
+    return fromEdges(nodeWeights, sources, targets, weights);
+  }
+
+  /** Creates the compact representation of a weighted graph. */
+  public static CompactWeightedGraph fromWeightedGraph(final WeightedGraph pGraph) {
+    int numNodes = pGraph.getNumNodes();
+    int[] nodeWeights = new int[numNodes];
+    int numEdges = 0;
+    for (int node = 0; node < numNodes; node++) {
+      WeightedNode weightedNode = pGraph.getNode(node);
+      nodeWeights[node] = weightedNode == null ? 0 : weightedNode.getWeight();
+      numEdges += pGraph.getOutgoingEdges(node).size();
+    }
+
+    int[] sources = new int[numEdges];
+    int[] targets = new int[numEdges];
+    int[] weights = new int[numEdges];
+    int edge = 0;
+    for (int node = 0; node < numNodes; node++) {
+      for (WeightedEdge outgoing : pGraph.getOutgoingEdges(node)) {
+        sources[edge] = node;
+        targets[edge] = outgoing.getEndNode().getNodeNumber();
+        weights[edge] = outgoing.getWeight();
+        edge++;
+      }
+    }
+    return fromEdges(nodeWeights, sources, targets, weights);
+  }
+
+  /**
+   * Creates a graph from a list of (possibly directed and parallel) edges. The i-th edge leads from
+   * <code>pSources[i]</code> to <code>pTargets[i]</code> and has weight <code>pWeights[i]</code>.
+   */
+  public static CompactWeightedGraph fromEdges(
+      final int[] pNodeWeights, final int[] pSources, final int[] pTargets, final int[] pWeights) {
+    checkArgument(pSources.length == pTargets.length && pSources.length == pWeights.length);
+    int numNodes = pNodeWeights.length;
+
+    // count both directions of every edge
+    int[] degree = new int[numNodes + 1];
+    for (int i = 0; i < pSources.length; i++) {
+      if (pSources[i] != pTargets[i]) {
+        degree[pSources[i]]++;
+        degree[pTargets[i]]++;
+      }
+    }
+    int[] position = new int[numNodes + 1];
+    for (int node = 0; node < numNodes; node++) {
+      position[node + 1] = position[node] + degree[node];
+    }
+
+    long[] entries = new long[position[numNodes]];
+    int[] next = Arrays.copyOf(position, numNodes);
+    for (int i = 0; i < pSources.length; i++) {
+      if (pSources[i] != pTargets[i]) {
+        entries[next[pSources[i]]++] = encode(pTargets[i], pWeights[i]);
+        entries[next[pTargets[i]]++] = encode(pSources[i], pWeights[i]);
+      }
+    }
+
+    // sort adjacency of every node and merge parallel edges
+    int[] firstEdge = new int[numNodes + 1];
+    int size = 0;
+    for (int node = 0; node < numNodes; node++) {
+      firstEdge[node] = size;
+      size = mergeAdjacency(entries, position[node], position[node + 1], entries, size);
+    }
+    firstEdge[numNodes] = size;
+
+    int[] edgeEnds = new int[size];
+    int[] edgeWeights = new int[size];
+    for (int i = 0; i < size; i++) {
+      edgeEnds[i] = decodeNode(entries[i]);
+      edgeWeights[i] = decodeWeight(entries[i]);
+    }
+    return new CompactWeightedGraph(pNodeWeights.clone(), firstEdge, edgeEnds, edgeWeights);
+  }
+
+  /**
+   * Sorts the encoded edges in <code>pEntries</code> between <code>pFrom</code> and
+   * <code>pTo</code>, sums up the weights of edges to the same node, and writes the result to
+   * <code>pTarget</code> beginning at <code>pTargetPos</code>. The target range may overlap the
+   * source range if it does not start behind it.
+   *
+   * @return the position behind the last written entry
+   */
+  static int mergeAdjacency(
+      final long[] pEntries,
+      final int pFrom,
+      final int pTo,
+      final long[] pTarget,
+      final int pTargetPos) {
+    Arrays.sort(pEntries, pFrom, pTo);
+    int pos = pTargetPos;
+    int i = pFrom;
+    while (i < pTo) {
+      int node = decodeNode(pEntries[i]);
+      long weight = 0;
+      while (i < pTo && decodeNode(pEntries[i]) == node) {
+        weight += decodeWeight(pEntries[i]);
+        i++;
+      }
+      pTarget[pos++] = encode(node, (int) Math.min(weight, Integer.MAX_VALUE));
+    }
+    return pos;
+  }
+
+  static long encode(final int pNode, final int pWeight) {
+    return ((long) pNode << 32) | (pWeight & 0xFFFFFFFFL);
+  }
+
+  static int decodeNode(final long pEntry) {
+    return (int) (pEntry >>> 32);
+  }
+
+  static int decodeWeight(final long pEntry) {
+    return (int) pEntry;
+  }
+
+  public int getNumNodes() {
+    return nodeWeights.length;
+  }
+
+  public int getNumEdges() {
+    return edgeEnds.length / 2;
+  }
+
+  public int getNodeWeight(final int pNode) {
+    return nodeWeights[pNode];
+  }
+
+  public long getTotalNodeWeight() {
+    return totalNodeWeight;
+  }
+
+  /** Returns the position of the first edge of <code>pNode</code> in the edge arrays. */
+  public int getFirstEdge(final int pNode) {
+    return firstEdge[pNode];
+  }
+
+  public int getEdgeEnd(final int pEdge) {
+    return edgeEnds[pEdge];
+  }
+
+  public int getEdgeWeight(final int pEdge) {
+    return edgeWeights[pEdge];
+  }
+
+  /**
+   * Computes the total weight of all edges whose end nodes belong to different partitions. Every
+   * undirected edge is counted once with its weight. For a graph created from a directed graph,
+   * whose edges have weight one, this is the number of directed edges between partitions.
+   *
+   * @param pPartitionOf the partition of every node
+   */
+  public long computeEdgeCut(final int[] pPartitionOf) {
+    checkArgument(pPartitionOf.length == getNumNodes());
+    long cut = 0;
+    for (int node = 0; node < getNumNodes(); node++) {
+      for (int edge = firstEdge[node]; edge < firstEdge[node + 1]; edge++) {
+        // count every undirected edge once
+        if (node < edgeEnds[edge] && pPartitionOf[node] != pPartitionOf[edgeEnds[edge]]) {
+          cut += edgeWeights[edge];
+        }
+      }
+    }
+    return cut;
+  }
+
+  /**
+   * Computes the edge cut like {@link #computeEdgeCut(int[])} for a partitioning given as sets of
+   * node numbers.
+   */
+  public long computeEdgeCut(final List<Set<Integer>> pPartitioning) {
+    int[] partitionOf = new int[getNumNodes()];
+    for (int i = 0; i < pPartitioning.size(); i++) {
+      for (Integer node : pPartitioning.get(i)) {
+        partitionOf[node] = i;
+      }
+    }
+    return computeEdgeCut(partitionOf);
+  }
+}
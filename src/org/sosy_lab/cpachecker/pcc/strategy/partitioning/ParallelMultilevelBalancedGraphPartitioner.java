@@ -0,0 +1,706 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.pcc.strategy.partitioning;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.base.Throwables;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntConsumer;
+import java.util.logging.Level;
+import javax.annotation.Nullable;
+import org.sosy_lab.common.ShutdownNotifier;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.IntegerOption;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.configuration.Option;
+import org.sosy_lab.common.configuration.Options;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.core.interfaces.pcc.WeightedBalancedGraphPartitioner;
+import org.sosy_lab.cpachecker.pcc.strategy.partialcertificate.PartialReachedSetDirectedGraph;
+import org.sosy_lab.cpachecker.pcc.strategy.partialcertificate.WeightedGraph;
+import org.sosy_lab.cpachecker.util.statistics.StatTimer;
+
+/**
+ * Multilevel graph partitioning on a {@link CompactWeightedGraph} that uses several threads in
+ * every phase:
+ *
+ * <ul>
+ *   <li>Coarsening: heavy edges are matched in rounds, in which every unmatched node proposes its
+ *       heaviest unmatched neighbor in parallel and mutual proposals become matched. The coarser
+ *       graph is contracted in parallel.
+ *   <li>Initial partitioning: several randomized graph growing partitionings of the coarsest graph
+ *       are computed in parallel and the best one is kept.
+ *   <li>Refinement: after projecting the partitioning to the next finer graph, the gains of moving
+ *       the nodes to their best neighboring partition are computed in parallel, and the moves with
+ *       positive gain are applied in the order of their gain if they still improve the edge cut and
+ *       keep the partitions balanced.
+ * </ul>
+ */
+@Options(prefix = "pcc.partitioning.parallelMultilevel")
+public class ParallelMultilevelBalancedGraphPartitioner
+    implements WeightedBalancedGraphPartitioner {
+
+  private static final int MATCHING_ROUNDS = 3;
+  private static final int MIN_CHUNK_SIZE = 1024;
+  // stop coarsening if a level removes less than 10% of the nodes
+  private static final double MIN_COARSENING_RATIO = 0.9;
+
+  @Option(
+    secure = true,
+    description =
+        "Number of threads used by the parallel multilevel partitioner. "
+            + "Default value 0 means the number of available processors."
+  )
+  @IntegerOption(min = 0)
+  private int numThreads = 0;
+
+  @Option(
+    secure = true,
+    description =
+        "Maximal weight of a partition relative to the average partition weight "
+            + "in the parallel multilevel partitioner"
+  )
+  private double balancePrecision = 1.3d;
+
+  @Option(
+    secure = true,
+    description = "Number of initial partitionings of the coarsest graph computed in parallel"
+  )
+  @IntegerOption(min = 1)
+  private int initialPartitioningTrials = 8;
+
+  @Option(
+    secure = true,
+    description = "Maximal number of refinement rounds on every level of the multilevel partitioner"
+  )
+  @IntegerOption(min = 0)
+  private int maxRefinementRounds = 10;
+
+  private final LogManager logger;
+  private final ShutdownNotifier shutdownNotifier;
+  private final int threads;
+
+  private final StatTimer coarseningTime = new StatTimer("Time for coarsening");
+  private final StatTimer initialPartitioningTime = new StatTimer("Time for initial partitioning");
+  private final StatTimer refinementTime = new StatTimer("Time for refinement");
+
+  public ParallelMultilevelBalancedGraphPartitioner(
+      final Configuration pConfig,
+      final LogManager pLogger,
+      final ShutdownNotifier pShutdownNotifier)
+      throws InvalidConfigurationException {
+    pConfig.inject(this);
+    if (balancePrecision < 1) {
+      throw new InvalidConfigurationException(
+          "Balance precision of parallel multilevel partitioner must be at least 1.");
+    }
+    logger = pLogger;
+    shutdownNotifier = pShutdownNotifier;
+    threads = numThreads > 0 ? numThreads : Runtime.getRuntime().availableProcessors();
+  }
+
+  @Override
+  public List<Set<Integer>> computePartitioning(
+      final int pNumPartitions, final PartialReachedSetDirectedGraph pGraph)
+      throws InterruptedException {
+    return computePartitioning(pNumPartitions, CompactWeightedGraph.fromDirectedGraph(pGraph));
+  }
+
+  @Override
+  public List<Set<Integer>> computePartitioning(
+      final int pNumPartitions, final WeightedGraph pGraph) throws InterruptedException {
+    return computePartitioning(pNumPartitions, CompactWeightedGraph.fromWeightedGraph(pGraph));
+  }
+
+  public List<Set<Integer>> computePartitioning(
+      final int pNumPartitions, final CompactWeightedGraph pGraph) throws InterruptedException {
+    checkArgument(pNumPartitions > 0, "Partitioning must contain at least one partition.");
+    int numNodes = pGraph.getNumNodes();
+
+    int[] partitionOf = new int[numNodes];
+    if (pNumPartitions >= numNodes) { // each node has its own partition
+      for (int node = 0; node < numNodes; node++) {
+        partitionOf[node] = node;
+      }
+    } else if (pNumPartitions > 1) {
+      ExecutorService executor = threads > 1 ? Executors.newFixedThreadPool(threads) : null;
+      try {
+        partitionOf = new MultilevelRun(pGraph, pNumPartitions, executor).compute();
+      } finally {
+        if (executor != null) {
+          executor.shutdownNow();
+        }
+      }
+      logger.log(
+          Level.FINE,
+          String.format(
+              "[Parallel multilevel] Edge cut %d, %s, %s, %s",
+              pGraph.computeEdgeCut(partitionOf),
+              coarseningTime,
+              initialPartitioningTime,
+              refinementTime));
+    }
+
+    List<Set<Integer>> partitioning = new ArrayList<>(pNumPartitions);
+    for (int i = 0; i < Math.min(pNumPartitions, Math.max(numNodes, 1)); i++) {
+      partitioning.add(new HashSet<Integer>());
+    }
+    for (int node = 0; node < numNodes; node++) {
+      partitioning.get(partitionOf[node]).add(node);
+    }
+    // empty partitions may slow down proof checking phase
+    partitioning.removeIf(partition -> partition.isEmpty() && numNodes > 0);
+    return partitioning;
+  }
+
+  /** State of a single partitioning computation. */
+  private class MultilevelRun {
+
+    private final CompactWeightedGraph graph;
+    private final int numPartitions;
+    private final long maxLoad;
+    // moving nodes out of a partition always reduces its cut, so do not let partitions run dry
+    private final long minLoad;
+    private final @Nullable ExecutorService executor;
+
+    private MultilevelRun(
+        final CompactWeightedGraph pGraph,
+        final int pNumPartitions,
+        final @Nullable ExecutorService pExecutor) {
+      graph = pGraph;
+      numPartitions = pNumPartitions;
+      executor = pExecutor;
+      maxLoad =
+          Math.max(
+              (long) Math.ceil(pGraph.getTotalNodeWeight() * balancePrecision / pNumPartitions),
+              1);
+      minLoad = (long) (pGraph.getTotalNodeWeight() / balancePrecision / pNumPartitions);
+    }
+
+    private int[] compute() throws InterruptedException {
+      Deque<CompactWeightedGraph> levels = new ArrayDeque<>();
+      Deque<int[]> coarseMappings = new ArrayDeque<>();
+
+      // same bound as in MultilevelBalancedGraphPartitioner
+      int avgNodes = graph.getNumNodes() / numPartitions + 1;
+      int minGraphSize = (int) (Math.min(((double) avgNodes) / 15 + 1, 15) * numPartitions);
+      // heavier super nodes make it difficult to balance the partitions
+      int maxNodeWeight = (int) Math.max(2, graph.getTotalNodeWeight() / (4L * numPartitions));
+
+      CompactWeightedGraph current = graph;
+      coarseningTime.start();
+      try {
+        while (current.getNumNodes() > minGraphSize) {
+          shutdownNotifier.shutdownIfNecessary();
+          int[] coarseOf = new int[current.getNumNodes()];
+          CompactWeightedGraph coarse = coarsen(current, maxNodeWeight, coarseOf, levels.size());
+          if (coarse.getNumNodes() > MIN_COARSENING_RATIO * current.getNumNodes()) {
+            break;
+          }
+          levels.push(current);
+          coarseMappings.push(coarseOf);
+          current = coarse;
+          logger.log(
+              Level.FINE,
+              String.format(
+                  "[Parallel multilevel] Coarsened graph to %d nodes on level %d",
+                  current.getNumNodes(),
+                  levels.size()));
+        }
+      } finally {
+        coarseningTime.stop();
+      }
+
+      int[] partitionOf;
+      initialPartitioningTime.start();
+      try {
+        partitionOf = computeInitialPartitioning(current);
+      } finally {
+        initialPartitioningTime.stop();
+      }
+
+      refinementTime.start();
+      try {
+        while (!levels.isEmpty()) {
+          shutdownNotifier.shutdownIfNecessary();
+          CompactWeightedGraph finer = levels.pop();
+          final int[] coarseOf = coarseMappings.pop();
+          final int[] coarsePartitionOf = partitionOf;
+          final int[] finerPartitionOf = new int[finer.getNumNodes()];
+          forEach(
+              executor,
+              finer.getNumNodes(),
+              node -> finerPartitionOf[node] = coarsePartitionOf[coarseOf[node]]);
+          refine(finer, finerPartitionOf, executor);
+          partitionOf = finerPartitionOf;
+        }
+      } finally {
+        refinementTime.stop();
+      }
+      return partitionOf;
+    }
+
+    /**
+     * Computes a heavy edge matching of <code>pGraph</code> and returns the graph in which the
+     * matched nodes are contracted.
+     *
+     * @param pCoarseOf is filled with the node of the coarse graph for every node of pGraph
+     */
+    private CompactWeightedGraph coarsen(
+        final CompactWeightedGraph pGraph,
+        final int pMaxNodeWeight,
+        final int[] pCoarseOf,
+        final int pLevel)
+        throws InterruptedException {
+      final int numNodes = pGraph.getNumNodes();
+      final int[] match = new int[numNodes];
+      final int[] proposal = new int[numNodes];
+      Arrays.fill(match, -1);
+
+      for (int round = 0; round < MATCHING_ROUNDS; round++) {
+        final int salt = pLevel * MATCHING_ROUNDS + round;
+        forEach(
+            executor,
+            numNodes,
+            node ->
+                proposal[node] =
+                    match[node] < 0
+                        ? heaviestUnmatchedNeighbor(pGraph, node, match, pMaxNodeWeight, salt)
+                        : -1);
+        forEach(
+            executor,
+            numNodes,
+            node -> {
+              int partner = proposal[node];
+              if (partner >= 0 && proposal[partner] == node) {
+                match[node] = partner;
+              }
+            });
+      }
+
+      // number the super nodes, every super node consists of one or two nodes
+      int numCoarseNodes = 0;
+      final int[] members = new int[2 * numNodes];
+      for (int node = 0; node < numNodes; node++) {
+        if (match[node] < 0 || node < match[node]) {
+          pCoarseOf[node] = numCoarseNodes;
+          members[2 * numCoarseNodes] = node;
+          members[2 * numCoarseNodes + 1] = match[node];
+          if (match[node] >= 0) {
+            pCoarseOf[match[node]] = numCoarseNodes;
+          }
+          numCoarseNodes++;
+        }
+      }
+
+      // contract the matched edges
+      final int[] nodeWeights = new int[numCoarseNodes];
+      final long[][] adjacency = new long[numCoarseNodes][];
+      forEach(
+          executor,
+          numCoarseNodes,
+          coarseNode -> {
+            int first = members[2 * coarseNode];
+            int second = members[2 * coarseNode + 1];
+            int degree = pGraph.getFirstEdge(first + 1) - pGraph.getFirstEdge(first);
+            nodeWeights[coarseNode] = pGraph.getNodeWeight(first);
+            if (second >= 0) {
+              degree += pGraph.getFirstEdge(second + 1) - pGraph.getFirstEdge(second);
+              nodeWeights[coarseNode] += pGraph.getNodeWeight(second);
+            }
+
+            long[] entries = new long[degree];
+            int size = 0;
+            for (int member : new int[] {first, second}) {
+              if (member < 0) {
+                continue;
+              }
+              for (int edge = pGraph.getFirstEdge(member);
+                  edge < pGraph.getFirstEdge(member + 1);
+                  edge++) {
+                int end = pCoarseOf[pGraph.getEdgeEnd(edge)];
+                if (end != coarseNode) {
+                  entries[size++] = CompactWeightedGraph.encode(end, pGraph.getEdgeWeight(edge));
+                }
+              }
+            }
+            size = CompactWeightedGraph.mergeAdjacency(entries, 0, size, entries, 0);
+            adjacency[coarseNode] = Arrays.copyOf(entries, size);
+          });
+
+      final int[] firstEdge = new int[numCoarseNodes + 1];
+      for (int coarseNode = 0; coarseNode < numCoarseNodes; coarseNode++) {
+        firstEdge[coarseNode + 1] = firstEdge[coarseNode] + adjacency[coarseNode].length;
+      }
+      final int[] edgeEnds = new int[firstEdge[numCoarseNodes]];
+      final int[] edgeWeights = new int[firstEdge[numCoarseNodes]];
+      forEach(
+          executor,
+          numCoarseNodes,
+          coarseNode -> {
+            long[] entries = adjacency[coarseNode];
+            int first = firstEdge[coarseNode];
+            for (int i = 0; i < entries.length; i++) {
+              edgeEnds[first + i] = CompactWeightedGraph.decodeNode(entries[i]);
+              edgeWeights[first + i] = CompactWeightedGraph.decodeWeight(entries[i]);
+            }
+          });
+      return new CompactWeightedGraph(nodeWeights, firstEdge, edgeEnds, edgeWeights);
+    }
+
+    /**
+     * Computes several graph growing partitionings in parallel, refines them, and returns the one
+     * with the smallest overload and edge cut.
+     */
+    private int[] computeInitialPartitioning(final CompactWeightedGraph pGraph)
+        throws InterruptedException {
+      List<Callable<int[]>> trials = new ArrayList<>(initialPartitioningTrials);
+      for (int trial = 0; trial < initialPartitioningTrials; trial++) {
+        final Random random = new Random(trial);
+        trials.add(
+            () -> {
+              int[] partitionOf = growPartitions(pGraph, random);
+              refine(pGraph, partitionOf, null);
+              return partitionOf;
+            });
+      }
+
+      int[] best = null;
+      long bestOverload = Long.MAX_VALUE;
+      long bestCut = Long.MAX_VALUE;
+      for (int[] partitionOf : invokeAll(executor, trials)) {
+        long overload = 0;
+        for (long load : computeLoads(pGraph, partitionOf)) {
+          overload = Math.max(overload, load - maxLoad);
+        }
+        long cut = pGraph.computeEdgeCut(partitionOf);
+        if (overload < bestOverload || (overload == bestOverload && cut < bestCut)) {
+          best = partitionOf;
+          bestOverload = overload;
+          bestCut = cut;
+        }
+      }
+      return best;
+    }
+
+    /**
+     * Grows the first partitions one after another in breadth-first order from random start nodes
+     * until they reach the average partition weight. The remaining nodes form the last partition.
+     */
+    private int[] growPartitions(final CompactWeightedGraph pGraph, final Random pRandom) {
+      int numNodes = pGraph.getNumNodes();
+      int[] partitionOf = new int[numNodes];
+      Arrays.fill(partitionOf, -1);
+      long[] loads = new long[numPartitions];
+      long remainingLoad = pGraph.getTotalNodeWeight();
+
+      int[] startNodes = new int[numNodes];
+      for (int node = 0; node < numNodes; node++) {
+        int pos = pRandom.nextInt(node + 1);
+        startNodes[node] = startNodes[pos];
+        startNodes[pos] = node;
+      }
+      int nextStart = 0;
+
+      int[] queue = new int[numNodes];
+      int[] enqueuedFor = new int[numNodes];
+      Arrays.fill(enqueuedFor, -1);
+      for (int partition = 0; partition < numPartitions - 1; partition++) {
+        int head = 0;
+        int tail = 0;
+        // distribute the remaining weight evenly, so that overshooting regions do not starve the
+        // last partitions
+        long targetLoad = remainingLoad / (numPartitions - partition);
+        while (loads[partition] < targetLoad) {
+          if (head == tail) {
+            // region cannot grow any further, continue at a new start node
+            while (nextStart < numNodes && partitionOf[startNodes[nextStart]] >= 0) {
+              nextStart++;
+            }
+            if (nextStart == numNodes) {
+              break;
+            }
+            enqueuedFor[startNodes[nextStart]] = partition;
+            queue[tail++] = startNodes[nextStart];
+          }
+          int node = queue[head++];
+          if (partitionOf[node] >= 0 || loads[partition] + pGraph.getNodeWeight(node) > maxLoad) {
+            continue;
+          }
+          partitionOf[node] = partition;
+          loads[partition] += pGraph.getNodeWeight(node);
+          for (int edge = pGraph.getFirstEdge(node); edge < pGraph.getFirstEdge(node + 1); edge++) {
+            int end = pGraph.getEdgeEnd(edge);
+            if (partitionOf[end] < 0 && enqueuedFor[end] != partition) {
+              enqueuedFor[end] = partition;
+              queue[tail++] = end;
+            }
+          }
+        }
+        remainingLoad -= loads[partition];
+      }
+
+      for (int node = 0; node < numNodes; node++) {
+        if (partitionOf[node] < 0) {
+          int partition = numPartitions - 1;
+          if (loads[partition] + pGraph.getNodeWeight(node) > maxLoad) {
+            for (int other = 0; other < numPartitions; other++) {
+              if (loads[other] < loads[partition]) {
+                partition = other;
+              }
+            }
+          }
+          partitionOf[node] = partition;
+          loads[partition] += pGraph.getNodeWeight(node);
+        }
+      }
+      return partitionOf;
+    }
+
+    /**
+     * Moves nodes to the neighboring partition they are connected to most strongly as long as
+     * this reduces the edge cut without leaving a partition underloaded, or relieves an overloaded
+     * partition.
+     */
+    private void refine(
+        final CompactWeightedGraph pGraph,
+        final int[] pPartitionOf,
+        final @Nullable ExecutorService pExecutor)
+        throws InterruptedException {
+      final int numNodes = pGraph.getNumNodes();
+      final long[] loads = computeLoads(pGraph, pPartitionOf);
+      final int[] targets = new int[numNodes];
+      final int[] gains = new int[numNodes];
+      final ThreadLocal<int[]> connectivity =
+          ThreadLocal.withInitial(() -> new int[numPartitions]);
+
+      for (int round = 0; round < maxRefinementRounds; round++) {
+        shutdownNotifier.shutdownIfNecessary();
+        forEach(
+            pExecutor,
+            numNodes,
+            node ->
+                computeBestMove(
+                    pGraph, pPartitionOf, loads, node, connectivity.get(), targets, gains));
+
+        int numCandidates = 0;
+        long[] candidates = new long[numNodes];
+        for (int node = 0; node < numNodes; node++) {
+          if (targets[node] >= 0) {
+            // highest gain first
+            candidates[numCandidates++] = ((long) -gains[node] << 32) | node;
+          }
+        }
+        Arrays.sort(candidates, 0, numCandidates);
+
+        int moved = 0;
+        for (int i = 0; i < numCandidates; i++) {
+          int node = (int) candidates[i];
+          int from = pPartitionOf[node];
+          int to = targets[node];
+          int weight = pGraph.getNodeWeight(node);
+          // earlier moves may have changed the gain
+          int gain =
+              connection(pGraph, pPartitionOf, node, to)
+                  - connection(pGraph, pPartitionOf, node, from);
+          if ((loads[from] > maxLoad || (gain > 0 && loads[from] - weight >= minLoad))
+              && loads[to] + weight <= maxLoad) {
+            pPartitionOf[node] = to;
+            loads[from] -= weight;
+            loads[to] += weight;
+            moved++;
+          }
+        }
+        if (moved == 0) {
+          break;
+        }
+      }
+    }
+
+    private void computeBestMove(
+        final CompactWeightedGraph pGraph,
+        final int[] pPartitionOf,
+        final long[] pLoads,
+        final int pNode,
+        final int[] pConnectivity,
+        final int[] pTargets,
+        final int[] pGains) {
+      int own = pPartitionOf[pNode];
+      int first = pGraph.getFirstEdge(pNode);
+      int last = pGraph.getFirstEdge(pNode + 1);
+      for (int edge = first; edge < last; edge++) {
+        pConnectivity[pPartitionOf[pGraph.getEdgeEnd(edge)]] += pGraph.getEdgeWeight(edge);
+      }
+
+      int best = -1;
+      int bestConnectivity = -1;
+      for (int edge = first; edge < last; edge++) {
+        int partition = pPartitionOf[pGraph.getEdgeEnd(edge)];
+        if (partition != own
+            && pConnectivity[partition] > bestConnectivity
+            && pLoads[partition] + pGraph.getNodeWeight(pNode) <= maxLoad) {
+          best = partition;
+          bestConnectivity = pConnectivity[partition];
+        }
+      }
+      int ownConnectivity = pConnectivity[own];
+
+      // reset the scratch array for the next node
+      for (int edge = first; edge < last; edge++) {
+        pConnectivity[pPartitionOf[pGraph.getEdgeEnd(edge)]] = 0;
+      }
+
+      if (best >= 0 && (bestConnectivity > ownConnectivity || pLoads[own] > maxLoad)) {
+        pTargets[pNode] = best;
+        pGains[pNode] = bestConnectivity - ownConnectivity;
+      } else {
+        pTargets[pNode] = -1;
+      }
+    }
+
+    private long[] computeLoads(final CompactWeightedGraph pGraph, final int[] pPartitionOf) {
+      long[] loads = new long[numPartitions];
+      for (int node = 0; node < pGraph.getNumNodes(); node++) {
+        loads[pPartitionOf[node]] += pGraph.getNodeWeight(node);
+      }
+      return loads;
+    }
+  }
+
+  private static int connection(
+      final CompactWeightedGraph pGraph,
+      final int[] pPartitionOf,
+      final int pNode,
+      final int pPartition) {
+    int weight = 0;
+    for (int edge = pGraph.getFirstEdge(pNode); edge < pGraph.getFirstEdge(pNode + 1); edge++) {
+      if (pPartitionOf[pGraph.getEdgeEnd(edge)] == pPartition) {
+        weight += pGraph.getEdgeWeight(edge);
+      }
+    }
+    return weight;
+  }
+
+  private static int heaviestUnmatchedNeighbor(
+      final CompactWeightedGraph pGraph,
+      final int pNode,
+      final int[] pMatch,
+      final int pMaxNodeWeight,
+      final int pSalt) {
+    int best = -1;
+    int bestWeight = -1;
+    int bestTieBreaker = Integer.MIN_VALUE;
+    for (int edge = pGraph.getFirstEdge(pNode); edge < pGraph.getFirstEdge(pNode + 1); edge++) {
+      int neighbor = pGraph.getEdgeEnd(edge);
+      if (pMatch[neighbor] >= 0
+          || pGraph.getNodeWeight(pNode) + pGraph.getNodeWeight(neighbor) > pMaxNodeWeight) {
+        continue;
+      }
+      int weight = pGraph.getEdgeWeight(edge);
+      // pseudo-random, but deterministic tie breaking, such that mutual proposals are likely
+      int tieBreaker = hash(neighbor, pSalt);
+      if (weight > bestWeight || (weight == bestWeight && tieBreaker > bestTieBreaker)) {
+        best = neighbor;
+        bestWeight = weight;
+        bestTieBreaker = tieBreaker;
+      }
+    }
+    return best;
+  }
+
+  private static int hash(final int pValue, final int pSalt) {
+    int hash = pValue * 0x9E3779B9 + pSalt * 0x85EBCA6B;
+    hash ^= hash >>> 16;
+    hash *= 0x7FEB352D;
+    hash ^= hash >>> 15;
+    return hash;
+  }
+
+  /** Executes <code>pBody</code> for all values from 0 to pSize - 1, in parallel if possible. */
+  private void forEach(
+      final @Nullable ExecutorService pExecutor, final int pSize, final IntConsumer pBody)
+      throws InterruptedException {
+    int chunks = Math.min(4 * threads, pSize / MIN_CHUNK_SIZE);
+    if (pExecutor == null || chunks <= 1) {
+      for (int i = 0; i < pSize; i++) {
+        pBody.accept(i);
+      }
+      return;
+    }
+
+    List<Callable<Void>> tasks = new ArrayList<>(chunks);
+    for (int chunk = 0; chunk < chunks; chunk++) {
+      final int from = (int) ((long) pSize * chunk / chunks);
+      final int to = (int) ((long) pSize * (chunk + 1) / chunks);
+      tasks.add(
+          () -> {
+            for (int i = from; i < to; i++) {
+              pBody.accept(i);
+            }
+            return null;
+          });
+    }
+    invokeAll(pExecutor, tasks);
+  }
+
+  private static <T> List<T> invokeAll(
+      final @Nullable ExecutorService pExecutor, final List<Callable<T>> pTasks)
+      throws InterruptedException {
+    List<T> results = new ArrayList<>(pTasks.size());
+    if (pExecutor == null) {
+      for (Callable<T> task : pTasks) {
+        try {
+          results.add(task.call());
+        } catch (Exception e) {
+          Throwables.propagateIfPossible(e, InterruptedException.class);
+          throw new AssertionError(e);
+        }
+      }
+      return results;
+    }
+
+    for (Future<T> future : pExecutor.invokeAll(pTasks)) {
+      try {
+        results.add(future.get());
+      } catch (ExecutionException e) {
+        Throwables.propagateIfPossible(e.getCause(), InterruptedException.class);
+        throw new AssertionError(e.getCause());
+      }
+    }
+    return results;
+  }
+}
@@ -0,0 +1,158 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.pcc.strategy.partitioning;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import org.junit.Before;
+import org.junit.Test;
+import org.sosy_lab.common.ShutdownNotifier;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.log.LogManager;
+
+public class ParallelMultilevelBalancedGraphPartitionerTest {
+
+  private static final int GRID_SIZE = 30;
+
+  /** Large enough that the parallel phases split their work into several chunks. */
+  private static final int LARGE_GRID_SIZE = 64;
+
+  private ParallelMultilevelBalancedGraphPartitioner partitioner;
+
+  @Before
+  public void setUp() throws InvalidConfigurationException {
+    Configuration config =
+        Configuration.builder()
+            .setOption("pcc.partitioning.parallelMultilevel.numThreads", "4")
+            .build();
+    partitioner =
+        new ParallelMultilevelBalancedGraphPartitioner(
+            config, LogManager.createTestLogManager(), ShutdownNotifier.createDummy());
+  }
+
+  /** Creates a quadratic grid graph, every node has an edge to its right and lower neighbor. */
+  private static CompactWeightedGraph createGrid(int pSize) {
+    int numEdges = 2 * pSize * (pSize - 1);
+    int[] sources = new int[numEdges];
+    int[] targets = new int[numEdges];
+    int edge = 0;
+    for (int row = 0; row < pSize; row++) {
+      for (int column = 0; column < pSize; column++) {
+        int node = row * pSize + column;
+        if (column + 1 < pSize) {
+          sources[edge] = node;
+          targets[edge++] = node + 1;
+        }
+        if (row + 1 < pSize) {
+          sources[edge] = node;
+          targets[edge++] = node + pSize;
+        }
+      }
+    }
+    int[] nodeWeights = new int[pSize * pSize];
+    int[] edgeWeights = new int[numEdges];
+    Arrays.fill(nodeWeights, 1);
+    Arrays.fill(edgeWeights, 1);
+    return CompactWeightedGraph.fromEdges(nodeWeights, sources, targets, edgeWeights);
+  }
+
+  @Test
+  public void testParallelEdgesAreMerged() {
+    CompactWeightedGraph graph =
+        CompactWeightedGraph.fromEdges(
+            new int[] {1, 2, 3},
+            new int[] {0, 1, 0, 2},
+            new int[] {1, 0, 0, 1},
+            new int[] {1, 2, 5, 4});
+
+    assertThat(graph.getNumNodes()).isEqualTo(3);
+    assertThat(graph.getNumEdges()).isEqualTo(2);
+    assertThat(graph.getTotalNodeWeight()).isEqualTo(6);
+    // node 0 is only connected to node 1, the self loop is dropped
+    assertThat(graph.getFirstEdge(1) - graph.getFirstEdge(0)).isEqualTo(1);
+    assertThat(graph.getEdgeEnd(graph.getFirstEdge(0))).isEqualTo(1);
+    assertThat(graph.getEdgeWeight(graph.getFirstEdge(0))).isEqualTo(3);
+    assertThat(graph.computeEdgeCut(new int[] {0, 0, 1})).isEqualTo(4);
+  }
+
+  /**
+   * Checks that <code>pPartitioning</code> contains every node of <code>pGraph</code> exactly once
+   * and that no partition is larger than allowed by the default balance precision.
+   *
+   * @return the partition of every node
+   */
+  private static int[] checkBalancedAndComplete(
+      CompactWeightedGraph pGraph, List<Set<Integer>> pPartitioning, int pNumPartitions) {
+    int numNodes = pGraph.getNumNodes();
+    int maxPartitionSize = (int) Math.ceil(1.3 * numNodes / pNumPartitions);
+
+    assertThat(pPartitioning).hasSize(pNumPartitions);
+    int[] partitionOf = new int[numNodes];
+    Arrays.fill(partitionOf, -1);
+    for (int i = 0; i < pPartitioning.size(); i++) {
+      assertThat(pPartitioning.get(i).size()).isAtMost(maxPartitionSize);
+      for (int node : pPartitioning.get(i)) {
+        assertThat(partitionOf[node]).isEqualTo(-1);
+        partitionOf[node] = i;
+      }
+    }
+    assertThat(partitionOf).asList().doesNotContain(-1);
+    return partitionOf;
+  }
+
+  @Test
+  public void testPartitioningOfGrid() throws InterruptedException {
+    CompactWeightedGraph graph = createGrid(GRID_SIZE);
+    int numPartitions = 4;
+
+    List<Set<Integer>> partitioning = partitioner.computePartitioning(numPartitions, graph);
+    int[] partitionOf = checkBalancedAndComplete(graph, partitioning, numPartitions);
+
+    // cutting the grid into quarters cuts 2 * GRID_SIZE edges
+    assertThat(graph.computeEdgeCut(partitionOf)).isAtMost(4L * GRID_SIZE);
+  }
+
+  @Test
+  public void testPartitioningOfLargeGrid() throws InterruptedException {
+    CompactWeightedGraph graph = createGrid(LARGE_GRID_SIZE);
+    int numPartitions = 8;
+
+    List<Set<Integer>> partitioning = partitioner.computePartitioning(numPartitions, graph);
+    int[] partitionOf = checkBalancedAndComplete(graph, partitioning, numPartitions);
+
+    assertThat(graph.computeEdgeCut(partitioning)).isEqualTo(graph.computeEdgeCut(partitionOf));
+    // cutting the grid into stripes cuts 7 * LARGE_GRID_SIZE edges
+    assertThat(graph.computeEdgeCut(partitionOf)).isAtMost(2L * 7 * LARGE_GRID_SIZE);
+  }
+
+  @Test
+  public void testMorePartitionsThanNodes() throws InterruptedException {
+    List<Set<Integer>> partitioning = partitioner.computePartitioning(10, createGrid(2));
+    assertThat(partitioning).hasSize(4);
+  }
+}
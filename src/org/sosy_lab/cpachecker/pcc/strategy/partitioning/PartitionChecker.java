@@ -77,13 +77,31 @@ public class PartitionChecker {
   }
 
   public void checkPartition(int pIndex){
+    Pair<AbstractState[], AbstractState[]> partition = ioHelper.getPartition(pIndex);
+    Preconditions.checkNotNull(partition);
+    checkPartition(pIndex, 0, partition.getFirst().length);
+  }
+
+  /**
+   * Checks only the partition nodes at positions <code>pFrom</code> (inclusive) to
+   * <code>pTo</code> (exclusive) of the partition with index <code>pIndex</code>. The remaining
+   * partition nodes are only used for coverage checks and are neither added to the certificate nor
+   * to the partition elements, the caller is responsible to check them in a separate call.
+   */
+  public void checkPartition(int pIndex, int pFrom, int pTo) {
     Multimap<CFANode, AbstractState> statesPerLocation = HashMultimap.create();
     Pair<AbstractState[], AbstractState[]> partition = ioHelper.getPartition(pIndex);
     Preconditions.checkNotNull(partition);
+    Preconditions.checkPositionIndexes(pFrom, pTo, partition.getFirst().length);
 
     // add nodes of partition
-    for (AbstractState internalNode : partition.getFirst()) {
-      addElement(internalNode, true, statesPerLocation);
+    AbstractState[] internalNodes = partition.getFirst();
+    for (int i = 0; i < internalNodes.length; i++) {
+      if (pFrom <= i && i < pTo) {
+        addElement(internalNodes[i], true, statesPerLocation);
+      } else {
+        statesPerLocation.put(AbstractStates.extractLocation(internalNodes[i]), internalNodes[i]);
+      }
     }
 
     // add adjacent nodes of other partition
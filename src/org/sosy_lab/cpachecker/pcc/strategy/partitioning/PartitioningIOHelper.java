@@ -53,6 +53,7 @@ import org.sosy_lab.cpachecker.pcc.strategy.partialcertificate.PartialReachedSet
 import org.sosy_lab.cpachecker.pcc.strategy.partitioning.GraphPartitionerFactory.PartitioningHeuristics;
 import org.sosy_lab.cpachecker.pcc.util.ProofStatesInfoCollector;
 import org.sosy_lab.cpachecker.util.Pair;
+import org.sosy_lab.cpachecker.util.statistics.StatTimer;
 
 @Options(prefix = "pcc.partitioning")
 public class PartitioningIOHelper {
@@ -74,6 +75,8 @@ public class PartitioningIOHelper {
   private List<Pair<AbstractState[], AbstractState[]>> partitions;
   private Statistics currentGraphStatistics;
   private ProofStatesInfoCollector infoCollector;
+  private final StatTimer partitioningTime = new StatTimer("Time for graph partitioning");
+  private long edgeCut = -1;
 
   public PartitioningIOHelper(final Configuration pConfig, final LogManager pLogger,
       final ShutdownNotifier pShutdownNotifier) throws InvalidConfigurationException {
@@ -134,17 +137,24 @@ public class PartitioningIOHelper {
     PartialReachedSetDirectedGraph graph = new PartialReachedSetDirectedGraph(argNodes);
     currentGraphStatistics = graph;
 
+    int numPartitionsToCompute;
     if (useGraphSizeToComputePartitionNumber) {
-      return Pair.of(graph,
-          partitioner.computePartitioning(
-              maxNumElemsPerPartition <= 0 ? 1
-                  : (int) Math.ceil(graph.getNumNodes() / (double) maxNumElemsPerPartition), graph));
+      numPartitionsToCompute = maxNumElemsPerPartition <= 0 ? 1
+          : (int) Math.ceil(graph.getNumNodes() / (double) maxNumElemsPerPartition);
     } else {
-      return Pair.of(graph,
-          partitioner.computePartitioning(
-              maxNumElemsPerPartition <= 0 ? 1 : (int) Math.ceil(pReached.size() / (double) maxNumElemsPerPartition),
-              graph));
+      numPartitionsToCompute = maxNumElemsPerPartition <= 0 ? 1
+          : (int) Math.ceil(pReached.size() / (double) maxNumElemsPerPartition);
     }
+
+    List<Set<Integer>> partitioning;
+    partitioningTime.start();
+    try {
+      partitioning = partitioner.computePartitioning(numPartitionsToCompute, graph);
+    } finally {
+      partitioningTime.stop();
+    }
+    edgeCut = CompactWeightedGraph.fromDirectedGraph(graph).computeEdgeCut(partitioning);
+    return Pair.of(graph, partitioning);
   }
 
   public void readPartition(final ObjectInputStream pIn, final PCStrategyStatistics pStats)
@@ -264,6 +274,10 @@ public class PartitioningIOHelper {
     public void printStatistics(PrintStream pOut, Result pResult, UnmodifiableReachedSet pReached) {
       if (numPartitions > 0 && partitions != null) {
         pOut.format("Number of partitions: %d%n", numPartitions);
+        if (partitioningTime.getUpdateCount() > 0) {
+          pOut.format("%s: %s%n", partitioningTime.getTitle(), partitioningTime);
+          pOut.format("Edge cut: %d%n", edgeCut);
+        }
         pOut.format("The following numbers are given in number of states.%n");
         computeAndPrintDetailedPartitioningStats(pOut);
       }
@@ -42,6 +42,7 @@ import org.sosy_lab.common.configuration.ConfigurationBuilder;
 import org.sosy_lab.common.configuration.InvalidConfigurationException;
 import org.sosy_lab.cpachecker.exceptions.ValidationConfigurationConstructionFailed;
 import org.sosy_lab.cpachecker.pcc.strategy.AbstractStrategy;
+import org.sosy_lab.cpachecker.pcc.strategy.IndexedProofFile;
 
 public class ValidationConfigurationBuilder {
 
@@ -219,6 +220,15 @@ public class ValidationConfigurationBuilder {
   public static Configuration readConfigFromProof(Path proofFile)
       throws IOException, InvalidConfigurationException {
 
+    if (IndexedProofFile.isIndexedProofFile(proofFile)) {
+      try {
+        return writeAndLoadConfig(
+            IndexedProofFile.readObject(proofFile, AbstractStrategy.CONFIG_ZIPENTRY_NAME));
+      } catch (ClassNotFoundException e) {
+        throw new IOException("Failed to read configuration");
+      }
+    }
+
     try (InputStream fis = Files.newInputStream(proofFile);
         ZipInputStream zis = new ZipInputStream(fis);) {
       ZipEntry entry;
@@ -230,17 +240,24 @@ public class ValidationConfigurationBuilder {
 
       if (entry == null) { throw new IOException("Unable to find configuration entry in proof."); }
 
-      Path valConfig = Files.createTempFile("pcc-check-config", "properties");
-
-      try (ObjectInputStream in = new ObjectInputStream(zis);
-          PrintStream out = new PrintStream(new FileOutputStream(valConfig.toFile()), false, "UTF-8")) {
-        out.print(in.readObject());
+      try (ObjectInputStream in = new ObjectInputStream(zis)) {
+        return writeAndLoadConfig(in.readObject());
       } catch (ClassNotFoundException e) {
         throw new IOException("Failed to read configuration");
       }
+    }
+  }
 
-      return Configuration.builder().loadFromFile(valConfig).build();
+  private static Configuration writeAndLoadConfig(Object pConfig)
+      throws IOException, InvalidConfigurationException {
+    Path valConfig = Files.createTempFile("pcc-check-config", "properties");
+
+    try (PrintStream out =
+        new PrintStream(new FileOutputStream(valConfig.toFile()), false, "UTF-8")) {
+      out.print(pConfig);
     }
+
+    return Configuration.builder().loadFromFile(valConfig).build();
   }
 
 }
@@ -23,6 +23,7 @@
  */
 package org.sosy_lab.cpachecker.util;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Predicates.not;
 import static com.google.common.collect.FluentIterable.from;
@@ -37,6 +38,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMultimap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
 import java.io.Serializable;
 import java.util.ArrayDeque;
@@ -46,9 +48,12 @@ import java.util.Deque;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.NavigableSet;
 import java.util.Set;
+import java.util.SortedMap;
 import java.util.SortedSet;
+import java.util.TreeMap;
 import java.util.TreeSet;
 import java.util.function.Function;
 import javax.annotation.Nullable;
@@ -140,6 +145,13 @@ public final class LoopStructure implements Serializable {
                                 .build();
     }
 
+    private Loop(ImmutableSet<CFANode> pLoopHeads, ImmutableSortedSet<CFANode> pNodes) {
+      checkArgument(!pLoopHeads.isEmpty(), "loop without loop heads");
+      checkArgument(pNodes.containsAll(pLoopHeads), "loop heads are not part of the loop");
+      loopHeads = pLoopHeads;
+      nodes = pNodes;
+    }
+
     private void computeSets() {
       if (innerLoopEdges != null) {
         assert incomingEdges != null;
@@ -494,7 +506,7 @@ public final class LoopStructure implements Serializable {
 
   // -------- Code related to retrieving LoopStructure information in gneral case --------
 
-  // wrapper class for Set<CFANode> because Java arrays don't like generics
+  // the set of nodes that were eliminated and merged into an edge
   private static class Edge {
     private final Set<CFANode> nodes = Sets.newHashSetWithExpectedSize(1);
 
@@ -511,6 +523,60 @@ public final class LoopStructure implements Serializable {
     }
   }
 
+  /**
+   * Sparse adjacency structure of the graph that is simplified during loop detection.
+   * Nodes are identified by their array index.
+   * Iff there is an edge from node i to node j, {@link #get(int, int)} returns not null.
+   * This needs memory linear in the number of edges, and the neighbors of each node
+   * can be retrieved without iterating over all nodes.
+   */
+  private static class Graph {
+
+    // successors.get(i).get(j) and predecessors.get(j).get(i) are the edge from i to j,
+    // sorted maps guarantee a deterministic order of iteration
+    private final List<SortedMap<Integer, Edge>> successors;
+    private final List<SortedMap<Integer, Edge>> predecessors;
+
+    private Graph(int size) {
+      successors = new ArrayList<>(size);
+      predecessors = new ArrayList<>(size);
+      for (int i = 0; i < size; i++) {
+        successors.add(new TreeMap<>());
+        predecessors.add(new TreeMap<>());
+      }
+    }
+
+    private @Nullable Edge get(int i, int j) {
+      return successors.get(i).get(j);
+    }
+
+    // get edge, ensuring that it is added if it does not exist yet
+    private Edge getOrCreate(int i, int j) {
+      Edge result = successors.get(i).get(j);
+      if (result == null) {
+        result = new Edge();
+        successors.get(i).put(j, result);
+        predecessors.get(j).put(i, result);
+      }
+      return result;
+    }
+
+    private void remove(int i, int j) {
+      successors.get(i).remove(j);
+      predecessors.get(j).remove(i);
+    }
+
+    /** Indices of all successors of node i in ascending order (copy, may be modified). */
+    private List<Integer> getSuccessors(int i) {
+      return ImmutableList.copyOf(successors.get(i).keySet());
+    }
+
+    /** Indices of all predecessors of node i in ascending order (copy, may be modified). */
+    private List<Integer> getPredecessors(int i) {
+      return ImmutableList.copyOf(predecessors.get(i).keySet());
+    }
+  }
+
   /**
    * Build loop-structure information for a CFA.
    * Do not call this method outside of the frontend,
@@ -526,6 +592,25 @@ public final class LoopStructure implements Serializable {
     return new LoopStructure(loops.build());
   }
 
+  /**
+   * Recreate loop-structure information from loops that were determined before
+   * (e.g., for a CFA that is loaded from the CFA cache,
+   * where loops cannot be searched anew because the supergraph already exists).
+   * Do not call this method outside of the frontend,
+   * use {@link org.sosy_lab.cpachecker.cfa.CFA#getLoopStructure()} instead.
+   * @param pLoops The loop heads and loop nodes of each loop, grouped by function.
+   */
+  public static LoopStructure of(
+      Multimap<String, Pair<ImmutableSet<CFANode>, ImmutableSortedSet<CFANode>>> pLoops) {
+    ImmutableMultimap.Builder<String, Loop> loops = ImmutableMultimap.builder();
+    for (Map.Entry<String, Pair<ImmutableSet<CFANode>, ImmutableSortedSet<CFANode>>> loop :
+        pLoops.entries()) {
+      loops.put(
+          loop.getKey(), new Loop(loop.getValue().getFirst(), loop.getValue().getSecond()));
+    }
+    return new LoopStructure(loops.build());
+  }
+
   /**
    * Find all loops inside a given set of CFA nodes.
    * The nodes in the given set may not be connected
@@ -571,9 +656,10 @@ public final class LoopStructure implements Serializable {
     nodes = new TreeSet<>(nodes); // copy nodes because we change it, it is our working set
     nodes.removeAll(initialChain);
 
-    // We need to store some information per pair of CFANodes.
+    // We need to store some information per pair of connected CFANodes.
     // We could use Map<Pair<CFANode, CFANode>> but it would be very memory
-    // inefficient. Instead we use some arrays.
+    // inefficient. Instead we use an array of nodes and sparse adjacency maps
+    // (a matrix of all pairs would need quadratic memory for large functions).
     // We use the reverse post-order id of each node as the array index for that node,
     // because this id is unique, without gaps, and its minimum is 0.
     // (Note that all removed nodes from initialChain
@@ -588,9 +674,10 @@ public final class LoopStructure implements Serializable {
     final CFANode[] nodesArray = new CFANode[size];
 
     // all edges of the graph
-    // Iff there is an edge from nodes[i] to nodes[j], edges[i][j] is not null.
-    // The set edges[i][j].nodes contains all nodes that were eliminated and merged into this edge.
-    final Edge[][] edges =  new Edge[size][size];
+    // Iff there is an edge from nodes[i] to nodes[j], edges.get(i, j) is not null.
+    // The set edges.get(i, j).nodes contains all nodes that were eliminated and merged into
+    // this edge.
+    final Graph edges = new Graph(size);
 
     List<Loop> loops = new ArrayList<>();
 
@@ -605,7 +692,7 @@ public final class LoopStructure implements Serializable {
       for (CFAEdge edge : leavingEdges(n)) {
         CFANode succ = edge.getSuccessor();
         int j = arrayIndexForNode.apply(succ);
-        edges[i][j] = new Edge();
+        edges.getOrCreate(i, j);
 
         if (i == j) {
           // self-edge
@@ -637,9 +724,7 @@ public final class LoopStructure implements Serializable {
         final int current = arrayIndexForNode.apply(currentNode);
 
         // Mark this node as a loop head
-        if (edges[current][current] == null) {
-          edges[current][current] = new Edge();
-        }
+        edges.getOrCreate(current, current);
         handleLoop(currentNode, current, edges, loops);
 
         // Now merge current into all its successors
@@ -711,7 +796,7 @@ public final class LoopStructure implements Serializable {
 
   private static boolean identifyLoops(boolean reverseMerge, SortedSet<CFANode> nodes,
       final Function<CFANode, Integer> arrayIndexForNode,
-      final CFANode[] nodesArray, final Edge[][] edges, List<Loop> loops) {
+      final CFANode[] nodesArray, final Graph edges, List<Loop> loops) {
 
     boolean changed = false;
 
@@ -735,7 +820,7 @@ public final class LoopStructure implements Serializable {
           if (successor2 == -1) {
             // the current node is a source that is only connected with a sink
             // we can remove it
-            edges[current][successor] = null;
+            edges.remove(current, successor);
             it.remove(); // delete currentNode
           }
 
@@ -745,7 +830,7 @@ public final class LoopStructure implements Serializable {
           if (predecessor2 == -1) {
             // the current node is a sink that is only connected with a source
             // we can remove it
-            edges[predecessor][current] =  null;
+            edges.remove(predecessor, current);
             it.remove(); // delete currentNode
           }
 
@@ -757,11 +842,11 @@ public final class LoopStructure implements Serializable {
           moveOutgoingEdges(currentNode, current, predecessor, edges);
 
           // delete from graph
-          edges[predecessor][current] = null;
+          edges.remove(predecessor, current);
           it.remove(); // delete currentNode
 
           // now predecessor node might have gained a self-edge
-          if (edges[predecessor][predecessor] != null) {
+          if (edges.get(predecessor, predecessor) != null) {
             CFANode pred = nodesArray[predecessor];
             handleLoop(pred, predecessor, edges, loops);
           }
@@ -775,11 +860,11 @@ public final class LoopStructure implements Serializable {
           moveIncomingEdges(currentNode, current, successor, edges);
 
           // delete from graph
-          edges[current][successor] = null;
+          edges.remove(current, successor);
           it.remove(); // delete currentNode
 
           // now successor node might have gained a self-edge
-          if (edges[successor][successor] != null) {
+          if (edges.get(successor, successor) != null) {
             CFANode succ = nodesArray[successor];
             handleLoop(succ, successor, edges, loops);
           }
@@ -790,21 +875,19 @@ public final class LoopStructure implements Serializable {
   }
 
   private static void moveIncomingEdges(final CFANode fromNode, final int from, final int to,
-      final Edge[][] edges) {
-    Edge edgeFromTo = edges[from][to];
-
-    for (int j = 0; j < edges.length; j++) {
-      if (edges[j][from] != null) {
-        // combine three edges (j,current) (current,successor) and (j,successor)
-        // into a single edge (j,successor)
-        Edge targetEdge = getEdge(j, to, edges);
-        targetEdge.add(edges[j][from]);
-        if (edgeFromTo != null) {
-          targetEdge.add(edgeFromTo);
-        }
-        targetEdge.add(fromNode);
-        edges[j][from] = null;
+      final Graph edges) {
+    Edge edgeFromTo = edges.get(from, to);
+
+    for (int j : edges.getPredecessors(from)) {
+      // combine three edges (j,current) (current,successor) and (j,successor)
+      // into a single edge (j,successor)
+      Edge targetEdge = edges.getOrCreate(j, to);
+      targetEdge.add(edges.get(j, from));
+      if (edgeFromTo != null) {
+        targetEdge.add(edgeFromTo);
       }
+      targetEdge.add(fromNode);
+      edges.remove(j, from);
     }
   }
 
@@ -812,124 +895,92 @@ public final class LoopStructure implements Serializable {
    * Copy all outgoing edges of "from" to "to", and delete them from "from" afterwards.
    */
   private static void moveOutgoingEdges(final CFANode fromNode, final int from, final int to,
-      final Edge[][] edges) {
-    Edge edgeToFrom = edges[to][from];
-
-    for (int j = 0; j < edges.length; j++) {
-      if (edges[from][j] != null) {
-        // combine three edges (predecessor,current) (current,j) and (predecessor,j)
-        // into a single edge (predecessor,j)
-        Edge targetEdge = getEdge(to, j, edges);
-        targetEdge.add(edges[from][j]);
-        if (edgeToFrom != null) {
-          targetEdge.add(edgeToFrom);
-        }
-        targetEdge.add(fromNode);
-        edges[from][j] = null;
+      final Graph edges) {
+    Edge edgeToFrom = edges.get(to, from);
+
+    for (int j : edges.getSuccessors(from)) {
+      // combine three edges (predecessor,current) (current,j) and (predecessor,j)
+      // into a single edge (predecessor,j)
+      Edge targetEdge = edges.getOrCreate(to, j);
+      targetEdge.add(edges.get(from, j));
+      if (edgeToFrom != null) {
+        targetEdge.add(edgeToFrom);
       }
+      targetEdge.add(fromNode);
+      edges.remove(from, j);
     }
   }
 
   private static void mergeNodeIntoSuccessors(CFANode currentNode, final int current,
-      final CFANode[] nodesArray, final Edge[][] edges, List<Loop> loops) {
-    List<Integer> predecessors = new ArrayList<>();
-    List<Integer> successors = new ArrayList<>();
-    for (int i = 0; i < edges.length; i++) {
-      if (edges[i][current] != null) {
-        predecessors.add(i);
-      }
-      if (edges[current][i] != null) {
-        successors.add(i);
-      }
-    }
+      final CFANode[] nodesArray, final Graph edges, List<Loop> loops) {
+    List<Integer> predecessors = edges.getPredecessors(current);
+    List<Integer> successors = edges.getSuccessors(current);
 
     for (int successor : successors) {
       for (int predecessor : predecessors) {
         // create edge (pred, succ) from (pred, current) and (current, succ)
-        Edge targetEdge = getEdge(predecessor, successor, edges);
-        targetEdge.add(edges[predecessor][current]);
-        targetEdge.add(edges[current][successor]);
+        Edge targetEdge = edges.getOrCreate(predecessor, successor);
+        targetEdge.add(edges.get(predecessor, current));
+        targetEdge.add(edges.get(current, successor));
         targetEdge.add(currentNode);
 
       }
-      if (edges[successor][successor] != null) {
+      if (edges.get(successor, successor) != null) {
         CFANode succ = nodesArray[successor];
         handleLoop(succ, successor, edges, loops);
       }
     }
 
     for (int predecessor : predecessors) {
-      edges[predecessor][current] = null;
+      edges.remove(predecessor, current);
     }
     for (int successor : successors) {
-      edges[current][successor] = null;
+      edges.remove(current, successor);
     }
   }
 
-  // get edge from edges array, ensuring that it is added if it does not exist yet
-  private static Edge getEdge(int i, int j, Edge[][] edges) {
-    Edge result = edges[i][j];
-    if (edges[i][j] == null) {
-      result = new Edge();
-      edges[i][j] = result;
-    }
-    return result;
-  }
-
   // create a loop from a node with a self-edge
   private static void handleLoop(final CFANode loopHead, int loopHeadIndex,
-      final Edge[][] edges, Collection<Loop> loops) {
+      final Graph edges, Collection<Loop> loops) {
     assert loopHead != null;
 
     // store loop
-    Loop loop = new Loop(loopHead, edges[loopHeadIndex][loopHeadIndex].asNodeSet());
+    Loop loop = new Loop(loopHead, edges.get(loopHeadIndex, loopHeadIndex).asNodeSet());
     loops.add(loop);
 
     // remove this loop from the graph
-    edges[loopHeadIndex][loopHeadIndex] = null;
+    edges.remove(loopHeadIndex, loopHeadIndex);
   }
 
   // find index of single predecessor of node i
   // if there is no successor, -1 is returned
   // if there are several successor, -2 is returned
-  private static int findSingleIncomingEdgeOfNode(int i, Edge[][] edges) {
-    final int size = edges.length;
-
-    int predecessor = -1;
-    for (int j = 0; j < size; j++) {
-      if (edges[j][i] != null) {
-        // i has incoming edge from j
-
-        if (predecessor > -1) {
-          // not the only incoming edge
-          return -2;
-        } else {
-          predecessor = j;
-        }
-      }
+  private static int findSingleIncomingEdgeOfNode(int i, Graph edges) {
+    SortedMap<Integer, Edge> predecessors = edges.predecessors.get(i);
+    switch (predecessors.size()) {
+      case 0:
+        return -1;
+      case 1:
+        return predecessors.firstKey();
+      default:
+        // not the only incoming edge
+        return -2;
     }
-    return predecessor;
   }
 
   // find index of single successor of node i
   // if there is no successor, -1 is returned
   // if there are several successors, -2 is returned
-  private static int findSingleOutgoingEdgeOfNode(int i, Edge[][] edges) {
-    final int size = edges.length;
-
-    int successor = -1;
-    for (int j = 0; j < size; j++) {
-      if (edges[i][j] != null) {
-        // i has outgoing edge to j
-
-        if (successor > -1) {
-          // not the only outgoing edge
-          return -2;
-        } else {
-          successor = j;
-        }
-      }
+  private static int findSingleOutgoingEdgeOfNode(int i, Graph edges) {
+    SortedMap<Integer, Edge> successors = edges.successors.get(i);
+    switch (successors.size()) {
+      case 0:
+        return -1;
+      case 1:
+        return successors.firstKey();
+      default:
+        // not the only outgoing edge
+        return -2;
     }
-    return successor;
   }
 }
@@ -0,0 +1,511 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.dependencegraph;
+
+import com.google.common.collect.HashBasedTable;
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Table;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import javax.annotation.Nullable;
+import org.sosy_lab.common.ShutdownNotifier;
+import org.sosy_lab.cpachecker.cfa.CFA;
+import org.sosy_lab.cpachecker.cfa.ast.c.CArraySubscriptExpression;
+import org.sosy_lab.cpachecker.cfa.ast.c.CAssignment;
+import org.sosy_lab.cpachecker.cfa.ast.c.CAstNode;
+import org.sosy_lab.cpachecker.cfa.ast.c.CExpression;
+import org.sosy_lab.cpachecker.cfa.ast.c.CFieldReference;
+import org.sosy_lab.cpachecker.cfa.ast.c.CFunctionCall;
+import org.sosy_lab.cpachecker.cfa.ast.c.CFunctionCallAssignmentStatement;
+import org.sosy_lab.cpachecker.cfa.ast.c.CIdExpression;
+import org.sosy_lab.cpachecker.cfa.ast.c.CInitializer;
+import org.sosy_lab.cpachecker.cfa.ast.c.CLeftHandSide;
+import org.sosy_lab.cpachecker.cfa.ast.c.CParameterDeclaration;
+import org.sosy_lab.cpachecker.cfa.ast.c.CPointerExpression;
+import org.sosy_lab.cpachecker.cfa.ast.c.CSimpleDeclaration;
+import org.sosy_lab.cpachecker.cfa.ast.c.CStatement;
+import org.sosy_lab.cpachecker.cfa.ast.c.CVariableDeclaration;
+import org.sosy_lab.cpachecker.cfa.model.CFAEdge;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.cfa.model.c.CAssumeEdge;
+import org.sosy_lab.cpachecker.cfa.model.c.CDeclarationEdge;
+import org.sosy_lab.cpachecker.cfa.model.c.CFunctionCallEdge;
+import org.sosy_lab.cpachecker.cfa.model.c.CFunctionEntryNode;
+import org.sosy_lab.cpachecker.cfa.model.c.CFunctionReturnEdge;
+import org.sosy_lab.cpachecker.cfa.model.c.CFunctionSummaryEdge;
+import org.sosy_lab.cpachecker.cfa.model.c.CReturnStatementEdge;
+import org.sosy_lab.cpachecker.cfa.model.c.CStatementEdge;
+import org.sosy_lab.cpachecker.cfa.types.c.CArrayType;
+import org.sosy_lab.cpachecker.cpa.flowdep.FlowDependenceState.FlowDependence;
+import org.sosy_lab.cpachecker.cpa.flowdep.FlowDependenceState.UnknownPointerDependence;
+import org.sosy_lab.cpachecker.util.CFAUtils;
+import org.sosy_lab.cpachecker.util.states.MemoryLocation;
+import org.sosy_lab.cpachecker.util.variableclassification.VariableClassification;
+
+/**
+ * Computes flow dependences with a classic reaching-definitions dataflow analysis on bit sets.
+ *
+ * <p>All memory locations and all definitions (pairs of CFA edge and defined memory location)
+ * are numbered once, and the reaching definitions at each CFA node are stored as a dense {@link
+ * BitSet}. The analysis runs on the supergraph of the CFA and is context-insensitive. Pointer
+ * dereferences are resolved flow-insensitively to all variables whose address is taken (if a
+ * {@link VariableClassification} is present). Otherwise, reading through a pointer is an unknown
+ * pointer dependence and writing through a pointer may define every memory location.
+ *
+ * <p>This is less precise than the analysis with {@link
+ * org.sosy_lab.cpachecker.cpa.flowdep.FlowDependenceCPA}, but much faster and needs much less
+ * memory on large programs.
+ */
+final class BitSetFlowDependences {
+
+  /**
+   * A single definition and use of an edge: the memory location <code>def</code> is defined using
+   * the memory locations <code>uses</code>.
+   */
+  private static final class Operation {
+
+    private final Optional<MemoryLocation> def;
+
+    /** Whether the definition overwrites the whole memory location. */
+    private final boolean strong;
+
+    /**
+     * Whether any memory location may be defined (through a pointer with unknown target). In
+     * this case, <code>def</code> is empty.
+     */
+    private final boolean definesAnything;
+
+    /** Used memory locations, or <code>null</code> if any memory location may be used. */
+    private final @Nullable Set<MemoryLocation> uses;
+
+    private Operation(
+        Optional<MemoryLocation> pDef, boolean pStrong, @Nullable Set<MemoryLocation> pUses) {
+      this(pDef, pStrong, false, pUses);
+    }
+
+    private Operation(
+        Optional<MemoryLocation> pDef,
+        boolean pStrong,
+        boolean pDefinesAnything,
+        @Nullable Set<MemoryLocation> pUses) {
+      assert !pDefinesAnything || (!pDef.isPresent() && !pStrong);
+      def = pDef;
+      strong = pStrong;
+      definesAnything = pDefinesAnything;
+      uses = pUses;
+    }
+  }
+
+  private final ShutdownNotifier shutdownNotifier;
+
+  /** Variables that may be pointed to, or <code>null</code> if unknown. */
+  private final @Nullable ImmutableSet<MemoryLocation> pointees;
+
+  private final Map<MemoryLocation, Integer> memoryLocationIds = new HashMap<>();
+
+  /** Definitions of each memory location, indexed by memory-location id. */
+  private final List<BitSet> definitionsOfMemoryLocation = new ArrayList<>();
+
+  /** Defining edge of each definition, indexed by definition id. */
+  private final List<CFAEdge> definingEdges = new ArrayList<>();
+
+  private BitSetFlowDependences(
+      final Optional<VariableClassification> pVarClassification,
+      final ShutdownNotifier pShutdownNotifier) {
+    shutdownNotifier = pShutdownNotifier;
+    if (pVarClassification.isPresent()) {
+      ImmutableSet.Builder<MemoryLocation> addressedVariables = ImmutableSet.builder();
+      for (String v : pVarClassification.get().getAddressedVariables()) {
+        addressedVariables.add(MemoryLocation.valueOf(v));
+      }
+      pointees = addressedVariables.build();
+    } else {
+      pointees = null;
+    }
+  }
+
+  static Table<CFAEdge, Optional<MemoryLocation>, FlowDependence> create(
+      final CFA pCfa,
+      final Optional<VariableClassification> pVarClassification,
+      final ShutdownNotifier pShutdownNotifier)
+      throws InterruptedException {
+    return new BitSetFlowDependences(pVarClassification, pShutdownNotifier).compute(pCfa);
+  }
+
+  private Table<CFAEdge, Optional<MemoryLocation>, FlowDependence> compute(final CFA pCfa)
+      throws InterruptedException {
+    ImmutableList<CFANode> nodes = getNodesInReversePostorder(pCfa.getMainFunction());
+    Map<CFANode, Integer> nodeIds = new HashMap<>();
+    for (int i = 0; i < nodes.size(); i++) {
+      nodeIds.put(nodes.get(i), i);
+    }
+
+    // number all memory locations once
+    Map<CFAEdge, List<Operation>> operations = new LinkedHashMap<>();
+    for (CFANode node : nodes) {
+      for (CFAEdge edge : CFAUtils.leavingEdges(node)) {
+        List<Operation> edgeOperations = getOperations(edge);
+        if (node == pCfa.getMainFunction() && node instanceof CFunctionEntryNode) {
+          // parameters of the main function are defined when entering it
+          for (CParameterDeclaration param : ((CFunctionEntryNode) node).getFunctionParameters()) {
+            edgeOperations.add(
+                new Operation(
+                    Optional.of(MemoryLocation.valueOf(param.getQualifiedName())),
+                    true,
+                    ImmutableSet.of()));
+          }
+        }
+        for (Operation op : edgeOperations) {
+          if (op.def.isPresent()) {
+            getId(op.def.get());
+          }
+          if (op.uses != null) {
+            op.uses.forEach(this::getId);
+          }
+        }
+        operations.put(edge, edgeOperations);
+      }
+    }
+
+    // number all definitions, an assignment through an unknown pointer defines every location
+    Map<CFAEdge, BitSet> gen = new HashMap<>();
+    for (Map.Entry<CFAEdge, List<Operation>> edgeOperations : operations.entrySet()) {
+      CFAEdge edge = edgeOperations.getKey();
+      BitSet edgeGen = new BitSet();
+      for (Operation op : edgeOperations.getValue()) {
+        if (op.def.isPresent()) {
+          edgeGen.set(addDefinition(edge, getId(op.def.get())));
+        } else if (op.definesAnything) {
+          for (int id = 0; id < definitionsOfMemoryLocation.size(); id++) {
+            edgeGen.set(addDefinition(edge, id));
+          }
+        }
+      }
+      gen.put(edge, edgeGen);
+    }
+
+    // a strong definition kills all other definitions of the same memory location
+    Map<CFAEdge, BitSet> kill = new HashMap<>();
+    for (Map.Entry<CFAEdge, List<Operation>> edgeOperations : operations.entrySet()) {
+      BitSet edgeKill = new BitSet();
+      for (Operation op : edgeOperations.getValue()) {
+        if (op.def.isPresent() && op.strong) {
+          edgeKill.or(definitionsOfMemoryLocation.get(getId(op.def.get())));
+        }
+      }
+      kill.put(edgeOperations.getKey(), edgeKill);
+    }
+
+    // worklist iteration, always picking the node that is first in reverse postorder
+    BitSet[] reachingDefinitions = new BitSet[nodes.size()];
+    for (int i = 0; i < nodes.size(); i++) {
+      reachingDefinitions[i] = new BitSet();
+    }
+    BitSet waitlist = new BitSet(nodes.size());
+    waitlist.set(0, nodes.size());
+    for (int current = waitlist.nextSetBit(0);
+        current >= 0;
+        current = waitlist.nextSetBit(0)) {
+      shutdownNotifier.shutdownIfNecessary();
+      waitlist.clear(current);
+
+      for (CFAEdge edge : CFAUtils.leavingEdges(nodes.get(current))) {
+        Integer succ = nodeIds.get(edge.getSuccessor());
+        BitSet out = (BitSet) reachingDefinitions[current].clone();
+        out.andNot(kill.get(edge));
+        out.or(gen.get(edge));
+
+        BitSet succDefinitions = reachingDefinitions[succ];
+        int oldSize = succDefinitions.cardinality();
+        succDefinitions.or(out);
+        if (succDefinitions.cardinality() != oldSize) {
+          waitlist.set(succ);
+        }
+      }
+    }
+
+    // flow dependences of each edge on the definitions reaching it
+    Table<CFAEdge, Optional<MemoryLocation>, FlowDependence> dependences =
+        HashBasedTable.create();
+    for (int i = 0; i < nodes.size(); i++) {
+      for (CFAEdge edge : CFAUtils.leavingEdges(nodes.get(i))) {
+        for (Operation op : operations.get(edge)) {
+          FlowDependence dependence = getDependence(op, reachingDefinitions[i]);
+          if (dependence.isUnknownPointerDependence() || !dependence.isEmpty()) {
+            if (dependences.contains(edge, op.def)) {
+              dependence = dependences.get(edge, op.def).union(dependence);
+            }
+            dependences.put(edge, op.def, dependence);
+          }
+        }
+      }
+    }
+    return dependences;
+  }
+
+  private FlowDependence getDependence(Operation pOperation, BitSet pReachingDefinitions) {
+    if (pOperation.uses == null) {
+      return UnknownPointerDependence.getInstance();
+    }
+    Multimap<MemoryLocation, CFAEdge> useToDefinitions = HashMultimap.create();
+    for (MemoryLocation use : pOperation.uses) {
+      Integer id = memoryLocationIds.get(use);
+      if (id == null) {
+        continue; // never defined
+      }
+      BitSet definitions = (BitSet) definitionsOfMemoryLocation.get(id).clone();
+      definitions.and(pReachingDefinitions);
+      for (int d = definitions.nextSetBit(0); d >= 0; d = definitions.nextSetBit(d + 1)) {
+        useToDefinitions.put(use, definingEdges.get(d));
+      }
+    }
+    return FlowDependence.copyOf(useToDefinitions);
+  }
+
+  private int addDefinition(CFAEdge pEdge, int pMemoryLocationId) {
+    int definition = definingEdges.size();
+    definingEdges.add(pEdge);
+    definitionsOfMemoryLocation.get(pMemoryLocationId).set(definition);
+    return definition;
+  }
+
+  private int getId(MemoryLocation pMemoryLocation) {
+    Integer id = memoryLocationIds.get(pMemoryLocation);
+    if (id == null) {
+      id = definitionsOfMemoryLocation.size();
+      memoryLocationIds.put(pMemoryLocation, id);
+      definitionsOfMemoryLocation.add(new BitSet());
+    }
+    return id;
+  }
+
+  /** Returns all nodes of the supergraph reachable from the given node, in reverse postorder. */
+  private static ImmutableList<CFANode> getNodesInReversePostorder(CFANode pStart) {
+    List<CFANode> postorder = new ArrayList<>();
+    Set<CFANode> visited = new HashSet<>();
+    Deque<CFANode> stack = new ArrayDeque<>();
+    Deque<Iterator<CFANode>> iterators = new ArrayDeque<>();
+
+    visited.add(pStart);
+    stack.push(pStart);
+    iterators.push(CFAUtils.successorsOf(pStart).iterator());
+    while (!stack.isEmpty()) {
+      Iterator<CFANode> successors = iterators.peek();
+      if (successors.hasNext()) {
+        CFANode succ = successors.next();
+        if (visited.add(succ)) {
+          stack.push(succ);
+          iterators.push(CFAUtils.successorsOf(succ).iterator());
+        }
+      } else {
+        postorder.add(stack.pop());
+        iterators.pop();
+      }
+    }
+    return ImmutableList.copyOf(postorder).reverse();
+  }
+
+  private List<Operation> getOperations(CFAEdge pEdge) {
+    List<Operation> operations = new ArrayList<>(1);
+
+    if (pEdge instanceof CDeclarationEdge) {
+      CSimpleDeclaration decl = ((CDeclarationEdge) pEdge).getDeclaration();
+      if (decl instanceof CVariableDeclaration) {
+        // a declaration without initializer is a non-deterministic definition
+        CInitializer initializer = ((CVariableDeclaration) decl).getInitializer();
+        operations.add(
+            new Operation(
+                Optional.of(MemoryLocation.valueOf(decl.getQualifiedName())),
+                true,
+                initializer == null ? ImmutableSet.of() : getUses(initializer)));
+      }
+
+    } else if (pEdge instanceof CStatementEdge) {
+      CStatement statement = ((CStatementEdge) pEdge).getStatement();
+      if (statement instanceof CAssignment) {
+        CAssignment assignment = (CAssignment) statement;
+        Set<MemoryLocation> uses =
+            combine(
+                getUsesOfLeftHandSide(assignment.getLeftHandSide()),
+                getUses(assignment.getRightHandSide()));
+        addDefinitions(assignment.getLeftHandSide(), uses, operations);
+      }
+
+    } else if (pEdge instanceof CAssumeEdge) {
+      operations.add(
+          new Operation(
+              Optional.empty(), false, getUses(((CAssumeEdge) pEdge).getExpression())));
+
+    } else if (pEdge instanceof CReturnStatementEdge) {
+      com.google.common.base.Optional<CAssignment> assignment =
+          ((CReturnStatementEdge) pEdge).asAssignment();
+      if (assignment.isPresent()) {
+        addDefinitions(
+            assignment.get().getLeftHandSide(),
+            getUses(assignment.get().getRightHandSide()),
+            operations);
+      }
+
+    } else if (pEdge instanceof CFunctionCallEdge) {
+      CFunctionCallEdge callEdge = (CFunctionCallEdge) pEdge;
+      List<CParameterDeclaration> params = callEdge.getSuccessor().getFunctionParameters();
+      List<CExpression> arguments = callEdge.getArguments();
+      // TODO support var args
+      for (int i = 0; i < arguments.size() && i < params.size(); i++) {
+        operations.add(
+            new Operation(
+                Optional.of(MemoryLocation.valueOf(params.get(i).getQualifiedName())),
+                true,
+                getUses(arguments.get(i))));
+      }
+
+    } else if (pEdge instanceof CFunctionReturnEdge) {
+      CFunctionSummaryEdge summaryEdge = ((CFunctionReturnEdge) pEdge).getSummaryEdge();
+      CFunctionCall call = summaryEdge.getExpression();
+      List<CExpression> arguments = call.getFunctionCallExpression().getParameterExpressions();
+      List<CParameterDeclaration> params =
+          call.getFunctionCallExpression().getDeclaration().getParameters();
+
+      // arrays passed to a function may be modified by it
+      for (int i = 0; i < params.size() && i < arguments.size(); i++) {
+        if (params.get(i).getType() instanceof CArrayType
+            && arguments.get(i) instanceof CLeftHandSide) {
+          addDefinitions(
+              (CLeftHandSide) arguments.get(i),
+              ImmutableSet.of(MemoryLocation.valueOf(params.get(i).getQualifiedName())),
+              operations);
+        }
+      }
+
+      com.google.common.base.Optional<CVariableDeclaration> returnVar =
+          summaryEdge.getFunctionEntry().getReturnVariable();
+      if (returnVar.isPresent()) {
+        Set<MemoryLocation> uses =
+            ImmutableSet.of(MemoryLocation.valueOf(returnVar.get().getQualifiedName()));
+        if (call instanceof CFunctionCallAssignmentStatement) {
+          addDefinitions(
+              ((CFunctionCallAssignmentStatement) call).getLeftHandSide(), uses, operations);
+        } else {
+          operations.add(new Operation(Optional.empty(), false, uses));
+        }
+      }
+    }
+
+    return operations;
+  }
+
+  /**
+   * Adds an operation for each memory location that may be defined by an assignment to the given
+   * left-hand side.
+   */
+  private void addDefinitions(
+      CLeftHandSide pLhs, @Nullable Set<MemoryLocation> pUses, List<Operation> pOperations) {
+    boolean strong = pLhs instanceof CIdExpression;
+    Set<MemoryLocation> defs = getDefinitions(pLhs);
+    if (defs == null) {
+      pOperations.add(new Operation(Optional.empty(), false, true, pUses));
+    } else if (defs.isEmpty()) {
+      pOperations.add(new Operation(Optional.empty(), false, pUses));
+    } else {
+      for (MemoryLocation def : defs) {
+        pOperations.add(new Operation(Optional.of(def), strong, pUses));
+      }
+    }
+  }
+
+  /**
+   * Returns the memory locations that may be defined by an assignment to the given left-hand
+   * side, or <code>null</code> if any memory location may be defined.
+   */
+  private @Nullable Set<MemoryLocation> getDefinitions(CLeftHandSide pLhs) {
+    if (pLhs instanceof CPointerExpression
+        || (pLhs instanceof CFieldReference && ((CFieldReference) pLhs).isPointerDereference())) {
+      return pointees;
+    } else if (pLhs instanceof CArraySubscriptExpression) {
+      return getUses(((CArraySubscriptExpression) pLhs).getArrayExpression());
+    } else {
+      return getUses(pLhs);
+    }
+  }
+
+  /** Returns the memory locations used for evaluating the address of a left-hand side. */
+  private @Nullable Set<MemoryLocation> getUsesOfLeftHandSide(CLeftHandSide pLhs) {
+    if (pLhs instanceof CPointerExpression) {
+      return getUses(((CPointerExpression) pLhs).getOperand());
+    } else if (pLhs instanceof CFieldReference
+        && ((CFieldReference) pLhs).isPointerDereference()) {
+      return getUses(((CFieldReference) pLhs).getFieldOwner());
+    } else if (pLhs instanceof CArraySubscriptExpression) {
+      return getUses(((CArraySubscriptExpression) pLhs).getSubscriptExpression());
+    } else {
+      return ImmutableSet.of();
+    }
+  }
+
+  /**
+   * Returns the memory locations used in the given AST node, or <code>null</code> if any memory
+   * location may be used.
+   */
+  private @Nullable Set<MemoryLocation> getUses(CAstNode pNode) {
+    Set<MemoryLocation> uses = new HashSet<>();
+    for (CAstNode node : CFAUtils.traverseRecursively(pNode)) {
+      if (node instanceof CIdExpression) {
+        CSimpleDeclaration decl = ((CIdExpression) node).getDeclaration();
+        if (decl instanceof CVariableDeclaration || decl instanceof CParameterDeclaration) {
+          uses.add(MemoryLocation.valueOf(decl.getQualifiedName()));
+        }
+      } else if (node instanceof CPointerExpression
+          || (node instanceof CFieldReference && ((CFieldReference) node).isPointerDereference())) {
+        if (pointees == null) {
+          return null;
+        }
+        uses.addAll(pointees);
+      }
+    }
+    return uses;
+  }
+
+  private static @Nullable Set<MemoryLocation> combine(
+      @Nullable Set<MemoryLocation> pUses1, @Nullable Set<MemoryLocation> pUses2) {
+    if (pUses1 == null || pUses2 == null) {
+      return null;
+    }
+    Set<MemoryLocation> combined = new HashSet<>(pUses1);
+    combined.addAll(pUses2);
+    return combined;
+  }
+}
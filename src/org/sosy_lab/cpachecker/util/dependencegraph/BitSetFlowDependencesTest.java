@@ -0,0 +1,225 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.dependencegraph;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+
+import com.google.common.collect.Table;
+import com.google.common.collect.Table.Cell;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.Before;
+import org.junit.Test;
+import org.sosy_lab.common.ShutdownNotifier;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.cfa.CFA;
+import org.sosy_lab.cpachecker.cfa.model.CFAEdge;
+import org.sosy_lab.cpachecker.cpa.flowdep.FlowDependenceState.FlowDependence;
+import org.sosy_lab.cpachecker.util.dependencegraph.DGBuilder.FlowDependences;
+import org.sosy_lab.cpachecker.util.states.MemoryLocation;
+import org.sosy_lab.cpachecker.util.test.TestDataTools;
+
+/**
+ * Compares the flow dependences computed on bit sets with those computed by the CPA-based
+ * analysis. The analysis on bit sets is less precise, so it needs to find at least every
+ * dependence that the CPA-based analysis finds.
+ */
+public class BitSetFlowDependencesTest {
+
+  private LogManager logger;
+  private ShutdownNotifier shutdownNotifier;
+
+  @Before
+  public void setUp() {
+    logger = LogManager.createTestLogManager();
+    shutdownNotifier = ShutdownNotifier.createDummy();
+  }
+
+  @Test
+  public void testGlobals() throws Exception {
+    assertBitSetsContainCPADependences(
+        "int g;",
+        "int h = 1;",
+        "void inc() {",
+        "  g = g + h;",
+        "}",
+        "int main() {",
+        "  g = 0;",
+        "  inc();",
+        "  int x = g;",
+        "  if (x > h) {",
+        "    h = x;",
+        "  }",
+        "  inc();",
+        "  return g + h;",
+        "}");
+  }
+
+  @Test
+  public void testPointers() throws Exception {
+    assertBitSetsContainCPADependences(
+        "int main() {",
+        "  int x = 1;",
+        "  int y = 2;",
+        "  int z;",
+        "  int *p = &x;",
+        "  if (z) {",
+        "    p = &y;",
+        "  }",
+        "  *p = 3;",
+        "  int a = *p + x;",
+        "  int *q = &z;",
+        "  *q = a;",
+        "  return y + z;",
+        "}");
+  }
+
+  @Test
+  public void testPointerToGlobal() throws Exception {
+    assertBitSetsContainCPADependences(
+        "int g = 0;",
+        "int main() {",
+        "  int x = 1;",
+        "  int *p = &g;",
+        "  *p = x;",
+        "  x = g;",
+        "  p = &x;",
+        "  g = *p + 1;",
+        "  return x;",
+        "}");
+  }
+
+  @Test
+  public void testArrays() throws Exception {
+    assertBitSetsContainCPADependences(
+        "int a[5];",
+        "int main() {",
+        "  int b[3] = {1, 2, 3};",
+        "  int i = 0;",
+        "  while (i < 3) {",
+        "    a[i] = b[i] + i;",
+        "    i++;",
+        "  }",
+        "  b[a[1]] = a[2];",
+        "  return a[0] + b[1];",
+        "}");
+  }
+
+  @Test
+  public void testFunctionCallsAndReturns() throws Exception {
+    assertBitSetsContainCPADependences(
+        "int square(int n) {",
+        "  return n * n;",
+        "}",
+        "int add(int u, int v) {",
+        "  int r = u + v;",
+        "  return r;",
+        "}",
+        "int main() {",
+        "  int x = 2;",
+        "  int y = square(x);",
+        "  int z = add(x, y);",
+        "  square(z);",
+        "  z = add(square(y), z);",
+        "  if (z > x) {",
+        "    x = add(z, 1);",
+        "  }",
+        "  return x;",
+        "}");
+  }
+
+  /**
+   * Checks that the flow dependences on bit sets (with and without variable classification)
+   * contain all flow dependences of the CPA-based analysis of the given program.
+   */
+  private void assertBitSetsContainCPADependences(String... pProgram) throws Exception {
+    CFA cfa = TestDataTools.makeCFA(pProgram);
+    assertThat(cfa.getVarClassification().isPresent()).isTrue();
+
+    Configuration config = TestDataTools.configurationForTest().build();
+    Table<CFAEdge, Optional<MemoryLocation>, FlowDependence> cpaDependences =
+        FlowDependences.create(cfa, cfa.getVarClassification(), config, logger, shutdownNotifier);
+    assertThat(cpaDependences.isEmpty()).isFalse();
+
+    Configuration bitSetConfig =
+        TestDataTools.configurationForTest()
+            .setOption("dependencegraph.flowdep.useBitSets", "true")
+            .build();
+    Table<CFAEdge, Optional<MemoryLocation>, FlowDependence> withVariableClassification =
+        FlowDependences.create(
+            cfa, cfa.getVarClassification(), bitSetConfig, logger, shutdownNotifier);
+    assertContainsDependences(withVariableClassification, cpaDependences);
+
+    Table<CFAEdge, Optional<MemoryLocation>, FlowDependence> withoutVariableClassification =
+        BitSetFlowDependences.create(cfa, Optional.empty(), shutdownNotifier);
+    assertContainsDependences(withoutVariableClassification, cpaDependences);
+  }
+
+  private static void assertContainsDependences(
+      Table<CFAEdge, Optional<MemoryLocation>, FlowDependence> pActual,
+      Table<CFAEdge, Optional<MemoryLocation>, FlowDependence> pExpected) {
+    for (Cell<CFAEdge, Optional<MemoryLocation>, FlowDependence> cell : pExpected.cellSet()) {
+      CFAEdge edge = cell.getRowKey();
+      Optional<MemoryLocation> def = cell.getColumnKey();
+      FlowDependence expected = cell.getValue();
+
+      // an assignment through a pointer with unknown target has no defined memory location
+      Map<Optional<MemoryLocation>, FlowDependence> actualRow = pActual.row(edge);
+      List<FlowDependence> candidates = new ArrayList<>(2);
+      if (actualRow.containsKey(def)) {
+        candidates.add(actualRow.get(def));
+      }
+      if (def.isPresent() && actualRow.containsKey(Optional.empty())) {
+        candidates.add(actualRow.get(Optional.empty()));
+      }
+
+      if (expected.isUnknownPointerDependence()) {
+        assertWithMessage("unknown pointer dependence of %s for %s", edge, def)
+            .that(candidates.stream().anyMatch(FlowDependence::isUnknownPointerDependence))
+            .isTrue();
+      } else {
+        for (Map.Entry<MemoryLocation, CFAEdge> use : expected.entries()) {
+          assertWithMessage(
+                  "dependence of %s for %s on definition of %s in %s",
+                  edge,
+                  def,
+                  use.getKey(),
+                  use.getValue())
+              .that(
+                  candidates
+                      .stream()
+                      .anyMatch(
+                          d ->
+                              d.isUnknownPointerDependence()
+                                  || d.containsEntry(use.getKey(), use.getValue())))
+              .isTrue();
+        }
+      }
+    }
+  }
+}
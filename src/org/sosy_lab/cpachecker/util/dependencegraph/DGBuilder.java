@@ -26,6 +26,7 @@ package org.sosy_lab.cpachecker.util.dependencegraph;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.FluentIterable;
 import com.google.common.collect.ForwardingTable;
 import com.google.common.collect.HashBasedTable;
@@ -129,6 +130,16 @@ public class DGBuilder implements StatisticsProvider {
   @FileOption(FileOption.Type.OUTPUT_FILE)
   private Path exportDot = Paths.get("DependenceGraph.dot");
 
+  @Option(
+    secure = true,
+    name = "controldeps.usePostDominatorAnalysis",
+    description =
+        "Compute the post-dominators for control dependences with a backwards CPA analysis"
+            + " instead of building the post-dominator tree directly on the CFA."
+            + " The analysis is considerably slower and needs quadratic memory."
+  )
+  private boolean usePostDominatorAnalysis = false;
+
   public DGBuilder(
       final MutableCFA pCfa,
       final Optional<VariableClassification> pVarClassification,
@@ -194,6 +205,52 @@ public class DGBuilder implements StatisticsProvider {
    */
   private void addControlDependences()
       throws InterruptedException, InvalidConfigurationException, CPAException {
+    if (usePostDominatorAnalysis) {
+      addAssumeControlDependencesWithAnalysis();
+    } else {
+      addAssumeControlDependences();
+    }
+    addFunctionCallControlDependences();
+  }
+
+  /**
+   * Adds control dependences on assume edges, based on the post-dominator tree of the CFA.
+   */
+  private void addAssumeControlDependences() throws InterruptedException {
+    PostDominatorTree postDomTree = PostDominatorTree.create(cfa, shutdownNotifier);
+
+    for (CFANode branch : postDomTree.getNodes()) {
+      if (branch.getNumLeavingEdges() <= 1 || !(branch.getLeavingEdge(0) instanceof CAssumeEdge)) {
+        continue;
+      }
+      for (CFAEdge g : CFAUtils.leavingEdges(branch)) {
+        DGNode nodeDependentOn = getDGNode(g, Optional.empty());
+        int controlDepCount = 0;
+        assert getDGNodes(g).size() == 1
+            : "Only using one DG node, but multiple would exist: " + nodeDependentOn;
+        for (CFANode dependentNode : postDomTree.getControlDependentNodes(g)) {
+          // a loop head is control dependent on its own assume edges, but we do not want the
+          // assume edges to depend on themselves
+          if (dependentNode.equals(branch)) {
+            continue;
+          }
+          for (CFAEdge current : CFAUtils.leavingEdges(dependentNode)) {
+            for (DGNode nodeDepending : getDGNodes(current)) {
+              addDependence(nodeDependentOn, nodeDepending, DependenceType.CONTROL);
+              controlDepCount++;
+            }
+          }
+        }
+        controlDependenceNumber.setNextValue(controlDepCount);
+      }
+    }
+  }
+
+  /**
+   * Adds control dependences on assume edges, based on post-dominators computed by a CPA analysis.
+   */
+  private void addAssumeControlDependencesWithAnalysis()
+      throws InterruptedException, InvalidConfigurationException, CPAException {
     PostDominators postDoms = PostDominators.create(cfa, logger, shutdownNotifier);
     Set<CFANode> reachableNodes = postDoms.getNodes();
     List<CFANode> branchingNodes =
@@ -248,7 +305,13 @@ public class DGBuilder implements StatisticsProvider {
         controlDependenceNumber.setNextValue(controlDepCount);
       }
     }
+  }
 
+  /**
+   * Adds control dependences of nodes in a function on the calls of that function, for all nodes
+   * that already are control dependent on some other node.
+   */
+  private void addFunctionCallControlDependences() {
     Collection<FunctionEntryNode> functionEntries = cfa.getAllFunctionHeads();
     CFATraversal traversalInsideFunction = CFATraversal.dfs().ignoreFunctionCalls();
     for (FunctionEntryNode fctEntry : functionEntries) {
@@ -413,7 +476,7 @@ public class DGBuilder implements StatisticsProvider {
    * represents a variable assignment and the assignment is part of node <code>I</code>'s use-def
    * relation.
    */
-  private static class FlowDependences
+  static class FlowDependences
       extends ForwardingTable<CFAEdge, Optional<MemoryLocation>, FlowDependence> {
 
     @Options(prefix = "dependencegraph.flowdep")
@@ -421,8 +484,21 @@ public class DGBuilder implements StatisticsProvider {
       @Option(secure = true, description = "Run flow dependence analysis with constant propagation")
       boolean constantPropagation = false;
 
+      @Option(
+        secure = true,
+        description =
+            "Compute flow dependences with a context-insensitive reaching-definitions analysis"
+                + " on bit sets instead of a CPA analysis. This is less precise, but much faster"
+                + " and needs less memory on large programs."
+      )
+      boolean useBitSets = false;
+
       FlowDependenceConfig(final Configuration pConfig) throws InvalidConfigurationException {
         pConfig.inject(this);
+        if (useBitSets && constantPropagation) {
+          throw new InvalidConfigurationException(
+              "Constant propagation is not supported for flow dependences on bit sets");
+        }
       }
     }
 
@@ -450,19 +526,37 @@ public class DGBuilder implements StatisticsProvider {
       if (pVariableClassification.isPresent()) {
         cfa = pCfa.makeImmutableCFA(pVariableClassification, Optional.empty());
       }
-
-      return createDependences(cfa, pConfig, pLogger, pShutdownNotifier);
+      return create(cfa, pVariableClassification, pConfig, pLogger, pShutdownNotifier);
     }
 
-    private static FlowDependences createDependences(
+    /**
+     * Compute the flow dependences of a CFA that provides the given variable classification
+     * (if present) via {@link CFA#getVarClassification()}.
+     */
+    @VisibleForTesting
+    static FlowDependences create(
         final CFA pCfa,
+        final Optional<VariableClassification> pVariableClassification,
         final Configuration pConfig,
         final LogManager pLogger,
         final ShutdownNotifier pShutdownNotifier)
         throws InvalidConfigurationException, CPAException, InterruptedException {
       FlowDependenceConfig options = new FlowDependenceConfig(pConfig);
+      if (options.useBitSets) {
+        return new FlowDependences(
+            BitSetFlowDependences.create(pCfa, pVariableClassification, pShutdownNotifier));
+      }
+      return createDependences(pCfa, options, pLogger, pShutdownNotifier);
+    }
+
+    private static FlowDependences createDependences(
+        final CFA pCfa,
+        final FlowDependenceConfig pOptions,
+        final LogManager pLogger,
+        final ShutdownNotifier pShutdownNotifier)
+        throws InvalidConfigurationException, CPAException, InterruptedException {
       String configFile;
-      if (options.constantPropagation) {
+      if (pOptions.constantPropagation) {
         configFile = "flowDependences-constantProp.properties";
       } else {
         configFile = "flowDependences.properties";
@@ -0,0 +1,252 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.dependencegraph;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import org.sosy_lab.common.ShutdownNotifier;
+import org.sosy_lab.cpachecker.cfa.CFA;
+import org.sosy_lab.cpachecker.cfa.model.CFAEdge;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.cfa.model.FunctionExitNode;
+import org.sosy_lab.cpachecker.util.CFAUtils;
+
+/**
+ * Post-dominator tree of a {@link CFA}, computed directly on the graph with the iterative
+ * algorithm of Cooper, Harvey and Kennedy ("A Simple, Fast Dominance Algorithm").
+ *
+ * <p>Post-dominance is computed on the supergraph (i.e., including function call and return
+ * edges) with respect to a virtual exit node that succeeds all program sinks. Program sinks are
+ * the exit node of the main function, the heads of endless loops, and all other nodes without
+ * leaving edges (e.g., termination nodes) except function exit nodes. Nodes from which no program
+ * sink is reachable are not part of the tree.
+ *
+ * <p>Node <code>I</code> is post-dominated by node <code>J</code> if every path from <code>I
+ * </code> to the program exit goes through <code>J</code>.
+ */
+final class PostDominatorTree {
+
+  private static final int UNDEFINED = -1;
+
+  /** All nodes of the tree, indexed by their postorder number in the reversed CFA. */
+  private final ImmutableList<CFANode> nodes;
+
+  private final ImmutableMap<CFANode, Integer> ids;
+
+  /**
+   * Immediate post-dominator of each node, by postorder number. The virtual exit node has the
+   * number <code>nodes.size()</code> and is its own immediate post-dominator.
+   */
+  private final int[] immediatePostDominators;
+
+  private PostDominatorTree(
+      ImmutableList<CFANode> pNodes,
+      ImmutableMap<CFANode, Integer> pIds,
+      int[] pImmediatePostDominators) {
+    nodes = pNodes;
+    ids = pIds;
+    immediatePostDominators = pImmediatePostDominators;
+  }
+
+  static PostDominatorTree create(final CFA pCfa, final ShutdownNotifier pShutdownNotifier)
+      throws InterruptedException {
+    return create(
+        pCfa.getAllNodes(),
+        CFAUtils.getProgramSinks(pCfa, pCfa.getLoopStructure().get(), pCfa.getMainFunction()),
+        pShutdownNotifier);
+  }
+
+  /**
+   * Create the post-dominator tree for a graph of the given nodes, in which the given sinks and
+   * all nodes without leaving edges (except function exit nodes) are program sinks.
+   */
+  static PostDominatorTree create(
+      final Collection<CFANode> pAllNodes,
+      final Collection<CFANode> pProgramSinks,
+      final ShutdownNotifier pShutdownNotifier)
+      throws InterruptedException {
+    ImmutableSet.Builder<CFANode> sinkBuilder = ImmutableSet.builder();
+    sinkBuilder.addAll(pProgramSinks);
+    for (CFANode node : pAllNodes) {
+      // exit nodes without leaving edges belong to functions that are never called
+      if (node.getNumLeavingEdges() == 0 && !(node instanceof FunctionExitNode)) {
+        sinkBuilder.add(node);
+      }
+    }
+    Set<CFANode> sinks = sinkBuilder.build();
+
+    ImmutableList<CFANode> nodes = getNodesInPostorder(sinks);
+    ImmutableMap.Builder<CFANode, Integer> idBuilder = ImmutableMap.builder();
+    for (int i = 0; i < nodes.size(); i++) {
+      idBuilder.put(nodes.get(i), i);
+    }
+    ImmutableMap<CFANode, Integer> ids = idBuilder.build();
+
+    final int exit = nodes.size();
+
+    // successors of each node in the CFA, i.e., its predecessors in the reversed CFA
+    int[][] successors = new int[nodes.size()][];
+    for (int i = 0; i < nodes.size(); i++) {
+      CFANode node = nodes.get(i);
+      List<Integer> nodeSuccessors = new ArrayList<>(node.getNumLeavingEdges() + 1);
+      for (CFANode succ : CFAUtils.successorsOf(node)) {
+        Integer succId = ids.get(succ);
+        // successors from which no sink is reachable do not influence post-dominance
+        if (succId != null) {
+          nodeSuccessors.add(succId);
+        }
+      }
+      if (sinks.contains(node)) {
+        nodeSuccessors.add(exit);
+      }
+      successors[i] = nodeSuccessors.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    int[] ipdoms = new int[exit + 1];
+    Arrays.fill(ipdoms, UNDEFINED);
+    ipdoms[exit] = exit;
+
+    boolean changed = true;
+    while (changed) {
+      pShutdownNotifier.shutdownIfNecessary();
+      changed = false;
+
+      // reverse postorder of the reversed CFA, without the virtual exit node
+      for (int node = exit - 1; node >= 0; node--) {
+        int newIpdom = UNDEFINED;
+        for (int succ : successors[node]) {
+          if (ipdoms[succ] != UNDEFINED) {
+            newIpdom = newIpdom == UNDEFINED ? succ : intersect(ipdoms, succ, newIpdom);
+          }
+        }
+        if (ipdoms[node] != newIpdom) {
+          ipdoms[node] = newIpdom;
+          changed = true;
+        }
+      }
+    }
+
+    return new PostDominatorTree(nodes, ids, ipdoms);
+  }
+
+  /**
+   * Compute a depth-first postorder of the reversed CFA, starting at the virtual exit node (which
+   * is not part of the result). Only nodes from which a sink is reachable are visited.
+   */
+  private static ImmutableList<CFANode> getNodesInPostorder(Collection<CFANode> pSinks) {
+    ImmutableList.Builder<CFANode> postorder = ImmutableList.builder();
+    Set<CFANode> visited = new HashSet<>();
+    Deque<CFANode> stack = new ArrayDeque<>();
+    Deque<Iterator<CFANode>> iterators = new ArrayDeque<>();
+
+    for (CFANode sink : pSinks) {
+      if (!visited.add(sink)) {
+        continue;
+      }
+      stack.push(sink);
+      iterators.push(CFAUtils.predecessorsOf(sink).iterator());
+
+      while (!stack.isEmpty()) {
+        Iterator<CFANode> predecessors = iterators.peek();
+        if (predecessors.hasNext()) {
+          CFANode pred = predecessors.next();
+          if (visited.add(pred)) {
+            stack.push(pred);
+            iterators.push(CFAUtils.predecessorsOf(pred).iterator());
+          }
+        } else {
+          postorder.add(stack.pop());
+          iterators.pop();
+        }
+      }
+    }
+    return postorder.build();
+  }
+
+  private static int intersect(int[] pIpdoms, int pNode1, int pNode2) {
+    int finger1 = pNode1;
+    int finger2 = pNode2;
+    while (finger1 != finger2) {
+      while (finger1 < finger2) {
+        finger1 = pIpdoms[finger1];
+      }
+      while (finger2 < finger1) {
+        finger2 = pIpdoms[finger2];
+      }
+    }
+    return finger1;
+  }
+
+  /** Returns all nodes from which a program sink is reachable. */
+  Collection<CFANode> getNodes() {
+    return nodes;
+  }
+
+  /**
+   * Returns the immediate post-dominator of the given node, or an empty optional if the node is
+   * only post-dominated by the virtual exit node.
+   */
+  Optional<CFANode> getImmediatePostDominator(final CFANode pNode) {
+    Integer id = ids.get(pNode);
+    checkArgument(id != null, "Node %s is not part of the post-dominator tree", pNode);
+    int ipdom = immediatePostDominators[id];
+    return ipdom == nodes.size() ? Optional.empty() : Optional.of(nodes.get(ipdom));
+  }
+
+  /**
+   * Returns all nodes that are control dependent on the given edge, i.e., the nodes whose
+   * post-dominance frontier contains the predecessor of the edge because of this edge.
+   *
+   * <p>These are exactly the nodes on the path in the post-dominator tree from the successor of
+   * the edge up to (excluding) the immediate post-dominator of the predecessor of the edge. If
+   * the successor post-dominates the predecessor, the result is empty.
+   */
+  List<CFANode> getControlDependentNodes(final CFAEdge pEdge) {
+    Integer pred = ids.get(pEdge.getPredecessor());
+    Integer succ = ids.get(pEdge.getSuccessor());
+    if (pred == null || succ == null) {
+      return ImmutableList.of();
+    }
+
+    List<CFANode> dependentNodes = new ArrayList<>();
+    int stop = immediatePostDominators[pred];
+    for (int runner = succ; runner != stop; runner = immediatePostDominators[runner]) {
+      dependentNodes.add(nodes.get(runner));
+    }
+    return dependentNodes;
+  }
+}
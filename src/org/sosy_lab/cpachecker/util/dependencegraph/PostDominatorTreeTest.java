@@ -0,0 +1,298 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.dependencegraph;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth8.assertThat;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Table.Cell;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.sosy_lab.common.ShutdownNotifier;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.cpachecker.cfa.CFA;
+import org.sosy_lab.cpachecker.cfa.CFACreationUtils;
+import org.sosy_lab.cpachecker.cfa.ast.FileLocation;
+import org.sosy_lab.cpachecker.cfa.model.AssumeEdge;
+import org.sosy_lab.cpachecker.cfa.model.BlankEdge;
+import org.sosy_lab.cpachecker.cfa.model.CFAEdge;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.cfa.model.CFATerminationNode;
+import org.sosy_lab.cpachecker.cfa.model.FunctionExitNode;
+import org.sosy_lab.cpachecker.util.CFAUtils;
+import org.sosy_lab.cpachecker.util.dependencegraph.DependenceGraph.DependenceType;
+import org.sosy_lab.cpachecker.util.test.TestDataTools;
+
+public class PostDominatorTreeTest {
+
+  private static final String FUNCTION = "main";
+
+  private List<CFANode> nodes;
+  private FunctionExitNode exit;
+
+  @Before
+  public void setUp() {
+    nodes = new ArrayList<>();
+    exit = new FunctionExitNode(FUNCTION);
+    nodes.add(exit);
+  }
+
+  private CFANode newNode() {
+    CFANode node = new CFANode(FUNCTION);
+    nodes.add(node);
+    return node;
+  }
+
+  private CFANode newTerminationNode() {
+    CFANode node = new CFATerminationNode(FUNCTION);
+    nodes.add(node);
+    return node;
+  }
+
+  private static CFAEdge connect(CFANode pPredecessor, CFANode pSuccessor) {
+    CFAEdge edge = new BlankEdge("", FileLocation.DUMMY, pPredecessor, pSuccessor, "");
+    CFACreationUtils.addEdgeUnconditionallyToCFA(edge);
+    return edge;
+  }
+
+  private PostDominatorTree createTree(CFANode... pAdditionalSinks) throws InterruptedException {
+    return PostDominatorTree.create(
+        nodes,
+        ImmutableList.<CFANode>builder().add(exit).add(pAdditionalSinks).build(),
+        ShutdownNotifier.createDummy());
+  }
+
+  @Test
+  public void testIfElse() throws InterruptedException {
+    CFANode branch = newNode();
+    CFANode thenNode = newNode();
+    CFANode elseNode = newNode();
+    CFANode join = newNode();
+    CFAEdge thenEdge = connect(branch, thenNode);
+    CFAEdge elseEdge = connect(branch, elseNode);
+    connect(thenNode, join);
+    connect(elseNode, join);
+    connect(join, exit);
+
+    PostDominatorTree tree = createTree();
+
+    assertThat(tree.getNodes()).containsExactlyElementsIn(nodes);
+    assertThat(tree.getImmediatePostDominator(branch)).hasValue(join);
+    assertThat(tree.getImmediatePostDominator(thenNode)).hasValue(join);
+    assertThat(tree.getImmediatePostDominator(elseNode)).hasValue(join);
+    assertThat(tree.getImmediatePostDominator(join)).hasValue(exit);
+    assertThat(tree.getImmediatePostDominator(exit)).isEmpty();
+
+    assertThat(tree.getControlDependentNodes(thenEdge)).containsExactly(thenNode);
+    assertThat(tree.getControlDependentNodes(elseEdge)).containsExactly(elseNode);
+    assertThat(tree.getControlDependentNodes(CFAUtils.enteringEdges(exit).get(0)))
+        .isEmpty();
+  }
+
+  @Test
+  public void testLoop() throws InterruptedException {
+    CFANode start = newNode();
+    CFANode head = newNode();
+    CFANode body1 = newNode();
+    CFANode body2 = newNode();
+    CFANode after = newNode();
+    connect(start, head);
+    CFAEdge enterLoop = connect(head, body1);
+    CFAEdge leaveLoop = connect(head, after);
+    connect(body1, body2);
+    connect(body2, head);
+    connect(after, exit);
+
+    PostDominatorTree tree = createTree();
+
+    assertThat(tree.getNodes()).containsExactlyElementsIn(nodes);
+    assertThat(tree.getImmediatePostDominator(start)).hasValue(head);
+    assertThat(tree.getImmediatePostDominator(head)).hasValue(after);
+    assertThat(tree.getImmediatePostDominator(body1)).hasValue(body2);
+    assertThat(tree.getImmediatePostDominator(body2)).hasValue(head);
+    assertThat(tree.getImmediatePostDominator(after)).hasValue(exit);
+
+    // the loop head is control dependent on its own edge
+    assertThat(tree.getControlDependentNodes(enterLoop)).containsExactly(body1, body2, head);
+    assertThat(tree.getControlDependentNodes(leaveLoop)).isEmpty();
+  }
+
+  @Test
+  public void testEarlyReturn() throws InterruptedException {
+    CFANode branch = newNode();
+    CFANode rest1 = newNode();
+    CFANode rest2 = newNode();
+    CFAEdge continueEdge = connect(branch, rest1);
+    CFAEdge returnEdge = connect(branch, exit);
+    connect(rest1, rest2);
+    connect(rest2, exit);
+
+    PostDominatorTree tree = createTree();
+
+    assertThat(tree.getImmediatePostDominator(branch)).hasValue(exit);
+    assertThat(tree.getImmediatePostDominator(rest1)).hasValue(rest2);
+    assertThat(tree.getImmediatePostDominator(rest2)).hasValue(exit);
+
+    assertThat(tree.getControlDependentNodes(continueEdge)).containsExactly(rest1, rest2);
+    assertThat(tree.getControlDependentNodes(returnEdge)).isEmpty();
+  }
+
+  @Test
+  public void testAbort() throws InterruptedException {
+    CFANode branch = newNode();
+    CFANode abort = newNode();
+    CFANode termination = newTerminationNode();
+    CFANode rest = newNode();
+    CFAEdge abortEdge = connect(branch, abort);
+    CFAEdge continueEdge = connect(branch, rest);
+    connect(abort, termination);
+    connect(rest, exit);
+
+    PostDominatorTree tree = createTree();
+
+    // the termination node is a sink, too
+    assertThat(tree.getNodes()).containsExactlyElementsIn(nodes);
+    assertThat(tree.getImmediatePostDominator(branch)).isEmpty();
+    assertThat(tree.getImmediatePostDominator(abort)).hasValue(termination);
+    assertThat(tree.getImmediatePostDominator(termination)).isEmpty();
+    assertThat(tree.getImmediatePostDominator(rest)).hasValue(exit);
+
+    assertThat(tree.getControlDependentNodes(abortEdge)).containsExactly(abort, termination);
+    assertThat(tree.getControlDependentNodes(continueEdge)).containsExactly(rest, exit);
+  }
+
+  @Test
+  public void testInfiniteLoop() throws InterruptedException {
+    CFANode branch = newNode();
+    CFANode rest = newNode();
+    CFANode head = newNode();
+    CFANode body = newNode();
+    CFAEdge loopEdge = connect(branch, head);
+    CFAEdge continueEdge = connect(branch, rest);
+    connect(head, body);
+    connect(body, head);
+    connect(rest, exit);
+
+    // without being a sink, no exit is reachable from the loop
+    PostDominatorTree tree = createTree();
+    assertThat(tree.getNodes()).containsExactly(branch, rest, exit);
+    assertThat(tree.getImmediatePostDominator(branch)).hasValue(rest);
+    assertThat(tree.getControlDependentNodes(loopEdge)).isEmpty();
+    assertThat(tree.getControlDependentNodes(continueEdge)).isEmpty();
+
+    // as for endless loops in a CFA, the loop head is a sink
+    tree = createTree(head);
+    assertThat(tree.getNodes()).containsExactlyElementsIn(nodes);
+    assertThat(tree.getImmediatePostDominator(branch)).isEmpty();
+    assertThat(tree.getImmediatePostDominator(head)).isEmpty();
+    assertThat(tree.getImmediatePostDominator(body)).hasValue(head);
+    assertThat(tree.getControlDependentNodes(loopEdge)).containsExactly(head);
+    assertThat(tree.getControlDependentNodes(continueEdge)).containsExactly(rest, exit);
+  }
+
+  @Test
+  public void testControlDependencesOfDependenceGraph() throws Exception {
+    Configuration config =
+        TestDataTools.configurationForTest().setOption("cfa.createDependenceGraph", "true").build();
+    CFA cfa =
+        TestDataTools.makeCFA(
+            config,
+            "int main() {",
+            "  int x = 0;",
+            "  int y;",
+            "  if (y) {",
+            "    x = 1;",
+            "  } else {",
+            "    x = 2;",
+            "  }",
+            "  while (x < 10) {",
+            "    x = x + 2;",
+            "  }",
+            "  if (x == 11) {",
+            "    return 0;",
+            "  }",
+            "  y = x;",
+            "  return y;",
+            "}");
+
+    // edge -> edges it is control dependent on
+    Multimap<CFAEdge, CFAEdge> controlDependences = HashMultimap.create();
+    for (Cell<DGNode, DGNode, DependenceType> dependence :
+        cfa.getDependenceGraph().get().getMatrix().cellSet()) {
+      if (dependence.getValue() == DependenceType.CONTROL) {
+        controlDependences.put(
+            dependence.getColumnKey().getCfaEdge(), dependence.getRowKey().getCfaEdge());
+      }
+    }
+
+    assertThat(controlDependences.get(getEdge(cfa, "int x = 0;"))).isEmpty();
+    assertThat(controlDependences.get(getEdge(cfa, "int y;"))).isEmpty();
+
+    AssumeEdge ifThen = getOnlyAssumeEdge(controlDependences.get(getEdge(cfa, "x = 1;")));
+    AssumeEdge ifElse = getOnlyAssumeEdge(controlDependences.get(getEdge(cfa, "x = 2;")));
+    assertThat(ifThen.getTruthAssumption()).isTrue();
+    assertThat(ifElse.getTruthAssumption()).isFalse();
+    assertThat(ifElse.getPredecessor()).isEqualTo(ifThen.getPredecessor());
+
+    AssumeEdge loop = getOnlyAssumeEdge(controlDependences.get(getEdge(cfa, "x = x + 2;")));
+    assertThat(loop.getTruthAssumption()).isTrue();
+    assertThat(loop.getPredecessor().isLoopStart()).isTrue();
+    // the loop condition does not depend on itself
+    for (CFAEdge loopCondition : CFAUtils.leavingEdges(loop.getPredecessor())) {
+      assertThat(controlDependences.get(loopCondition)).doesNotContain(loop);
+    }
+
+    AssumeEdge earlyReturn = getOnlyAssumeEdge(controlDependences.get(getEdge(cfa, "return 0;")));
+    AssumeEdge noReturn = getOnlyAssumeEdge(controlDependences.get(getEdge(cfa, "y = x;")));
+    assertThat(earlyReturn.getTruthAssumption()).isTrue();
+    assertThat(noReturn.getTruthAssumption()).isFalse();
+    assertThat(noReturn.getPredecessor()).isEqualTo(earlyReturn.getPredecessor());
+    assertThat(controlDependences.get(getEdge(cfa, "return y;"))).containsExactly(noReturn);
+  }
+
+  private static CFAEdge getEdge(CFA pCfa, String pCode) {
+    Collection<CFAEdge> edges =
+        ImmutableSet.copyOf(
+            Iterables.filter(
+                Iterables.concat(Iterables.transform(pCfa.getAllNodes(), CFAUtils::leavingEdges)),
+                e -> e.getCode().equals(pCode)));
+    assertThat(edges).hasSize(1);
+    return Iterables.getOnlyElement(edges);
+  }
+
+  private static AssumeEdge getOnlyAssumeEdge(Collection<CFAEdge> pEdges) {
+    assertThat(pEdges).hasSize(1);
+    CFAEdge edge = Iterables.getOnlyElement(pEdges);
+    assertThat(edge).isInstanceOf(AssumeEdge.class);
+    return (AssumeEdge) edge;
+  }
+}
@@ -60,6 +60,9 @@ import org.sosy_lab.cpachecker.util.predicates.regions.Region;
 import org.sosy_lab.cpachecker.util.predicates.regions.RegionManager;
 import org.sosy_lab.cpachecker.util.predicates.smt.BooleanFormulaManagerView;
 import org.sosy_lab.cpachecker.util.predicates.smt.FormulaManagerView;
+import org.sosy_lab.cpachecker.util.statistics.StatCounter;
+import org.sosy_lab.cpachecker.util.statistics.StatInt;
+import org.sosy_lab.cpachecker.util.statistics.StatKind;
 import org.sosy_lab.cpachecker.util.statistics.StatTimer;
 import org.sosy_lab.java_smt.api.BooleanFormula;
 import org.sosy_lab.java_smt.api.BooleanFormulaManager;
@@ -107,8 +110,19 @@ class SylvanBDDRegionManager implements RegionManager {
   @Option(secure = true, description = "Number of worker threads, 0 for automatic.")
   @IntegerOption(min = 0)
   private int threads = 0;
+  @Option(
+    secure = true,
+    description =
+        "Keep all cubes of an allSat result and build their disjunction with a single"
+            + " parallel union at the end, instead of combining them while they are enumerated."
+            + " This lets all worker threads participate, but keeps more BDDs alive."
+  )
+  private boolean parallelCubeUnion = false;
   private int nextvar = 0;
 
+  private final StatCounter parallelUnions = new StatCounter("Number of parallel unions");
+  private final StatInt unionSize = new StatInt(StatKind.AVG, "Cubes per union");
+
   public SylvanBDDRegionManager(Configuration config, LogManager pLogger)
       throws InvalidConfigurationException {
     config.inject(this);
@@ -196,6 +210,9 @@ class SylvanBDDRegionManager implements RegionManager {
           "Number of BDD freed by GC", cleanupTimer.getUpdateCount())
           .putIfUpdatedAtLeastOnce(cleanupTimer);
     }
+    writingStatisticsTo(out)
+        .putIfUpdatedAtLeastOnce(parallelUnions)
+        .putIfUpdatedAtLeastOnce(unionSize);
   }
 
   @Override
@@ -385,6 +402,13 @@ class SylvanBDDRegionManager implements RegionManager {
     public void finishConjunction() {
       checkState(currentCube != -1);
 
+      if (parallelCubeUnion) {
+        // all cubes are combined in getResult()
+        cubes.add(currentCube);
+        currentCube = -1;
+        return;
+      }
+
       for (int i = 0; i < cubes.size(); i++) {
         Long cubeAtI = cubes.get(i);
 
@@ -417,6 +441,8 @@ class SylvanBDDRegionManager implements RegionManager {
         long[] clauses =
             Longs.toArray(from(cubes).filter(Predicates.notNull())
                 .toList());
+        parallelUnions.inc();
+        unionSize.setNextValue(clauses.length);
         long result = ref(makeUnionPar(clauses));
         for (long bdd : clauses) {
           deref(bdd);
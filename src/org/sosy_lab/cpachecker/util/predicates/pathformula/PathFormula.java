@@ -45,6 +45,11 @@ public final class PathFormula implements Serializable {
   private final int length;
   private final PointerTargetSet pts;
 
+  // Cache hashCode, path formulas are used as keys in caches
+  // and the hash code of the pointer-target set is expensive.
+  // Racy single-check idiom, 0 means "not yet computed".
+  private transient int hashCode = 0;
+
   public PathFormula(BooleanFormula pf, SSAMap ssa, PointerTargetSet pts,
       int pLength) {
     this.formula = checkNotNull(pf);
@@ -93,6 +98,7 @@ public final class PathFormula implements Serializable {
 
     PathFormula other = (PathFormula)obj;
     return (length == other.length)
+        && hashCode() == other.hashCode()
         && formula.equals(other.formula)
         && ssa.equals(other.ssa)
         && pts.equals(other.pts)
@@ -101,12 +107,16 @@ public final class PathFormula implements Serializable {
 
   @Override
   public int hashCode() {
-    final int prime = 31;
-    int result = 1;
-    result = prime * result + formula.hashCode();
-    result = prime * result + length;
-    result = prime * result + pts.hashCode();
-    result = prime * result + ssa.hashCode();
+    int result = hashCode;
+    if (result == 0) {
+      final int prime = 31;
+      result = 1;
+      result = prime * result + formula.hashCode();
+      result = prime * result + length;
+      result = prime * result + pts.hashCode();
+      result = prime * result + ssa.hashCode();
+      hashCode = result;
+    }
     return result;
   }
 
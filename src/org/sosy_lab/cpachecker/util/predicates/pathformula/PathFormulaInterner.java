@@ -0,0 +1,122 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.predicates.pathformula;
+
+import static org.sosy_lab.cpachecker.util.statistics.StatisticsUtils.toPercent;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import java.io.PrintStream;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.pointeraliasing.PointerTargetSet;
+
+/**
+ * Weak canonical table for {@link SSAMap}, {@link PointerTargetSet}, and {@link PathFormula}
+ * instances. Structurally identical instances are replaced by a single shared one, such that
+ * equality checks (e.g., for cache lookups with path formulas as keys) mostly succeed by reference
+ * comparison and duplicate persistent maps can be garbage collected. Instances that are no longer
+ * referenced elsewhere are removed from the table automatically.
+ *
+ * <p>This class is thread-safe, the statistics are only approximate if used from several threads.
+ */
+final class PathFormulaInterner {
+
+  private final Interner<SSAMap> ssaMaps = Interners.newWeakInterner();
+  private final Interner<PointerTargetSet> pointerTargetSets = Interners.newWeakInterner();
+  private final Interner<PathFormula> pathFormulas = Interners.newWeakInterner();
+
+  // stats
+  private int ssaMapLookups = 0;
+  private int ssaMapHits = 0;
+  private long sharedSSAMapEntries = 0;
+  private int ptsLookups = 0;
+  private int ptsHits = 0;
+  private int pathFormulaLookups = 0;
+  private int pathFormulaHits = 0;
+
+  SSAMap intern(SSAMap pSsa) {
+    if (!pSsa.isInternable()) {
+      return pSsa;
+    }
+    ssaMapLookups++;
+    SSAMap result = ssaMaps.intern(pSsa);
+    if (result != pSsa) {
+      ssaMapHits++;
+      sharedSSAMapEntries += pSsa.allVariables().size();
+    }
+    return result;
+  }
+
+  PointerTargetSet intern(PointerTargetSet pPts) {
+    ptsLookups++;
+    PointerTargetSet result = pointerTargetSets.intern(pPts);
+    if (result != pPts) {
+      ptsHits++;
+    }
+    return result;
+  }
+
+  /**
+   * Return the canonical instance of the given path formula, whose SSAMap and pointer-target set
+   * are canonical, too.
+   */
+  PathFormula intern(PathFormula pPathFormula) {
+    SSAMap ssa = intern(pPathFormula.getSsa());
+    PointerTargetSet pts = intern(pPathFormula.getPointerTargetSet());
+    PathFormula pf = pPathFormula;
+    if (ssa != pf.getSsa() || pts != pf.getPointerTargetSet()) {
+      pf = new PathFormula(pf.getFormula(), ssa, pts, pf.getLength());
+    }
+
+    pathFormulaLookups++;
+    PathFormula result = pathFormulas.intern(pf);
+    if (result != pf) {
+      pathFormulaHits++;
+    }
+    return result;
+  }
+
+  void printStatistics(PrintStream out) {
+    out.println(
+        "Number of interned SSA maps:         "
+            + ssaMapLookups
+            + " ("
+            + toPercent(ssaMapHits, ssaMapLookups)
+            + " shared, "
+            + sharedSSAMapEntries
+            + " map entries released)");
+    out.println(
+        "Number of interned pointer-target sets: "
+            + ptsLookups
+            + " ("
+            + toPercent(ptsHits, ptsLookups)
+            + " shared)");
+    out.println(
+        "Number of interned path formulas:    "
+            + pathFormulaLookups
+            + " ("
+            + toPercent(pathFormulaHits, pathFormulaLookups)
+            + " shared)");
+    out.println();
+  }
+}
@@ -0,0 +1,112 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.predicates.pathformula;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.sosy_lab.cpachecker.cfa.types.c.CNumericTypes;
+
+public class PathFormulaInternerTest {
+
+  private PathFormulaInterner interner;
+
+  @Before
+  public void createInterner() {
+    interner = new PathFormulaInterner();
+  }
+
+  @Test
+  public void testEqualMapsAreShared() {
+    SSAMap ssa1 =
+        SSAMap.emptySSAMap()
+            .builder()
+            .setIndex("x", CNumericTypes.INT, 1)
+            .setIndex("y", CNumericTypes.CHAR, 2)
+            .build();
+    SSAMap ssa2 =
+        SSAMap.emptySSAMap()
+            .builder()
+            .setIndex("x", CNumericTypes.INT, 1)
+            .setIndex("y", CNumericTypes.CHAR, 2)
+            .build();
+    assertThat(ssa2).isNotSameAs(ssa1);
+
+    SSAMap interned1 = interner.intern(ssa1);
+    SSAMap interned2 = interner.intern(ssa2);
+
+    assertThat(interned1).isSameAs(ssa1);
+    assertThat(interned2).isSameAs(ssa1);
+  }
+
+  @Test
+  public void testMapsWithDifferentTypesKeepTheirTypes() {
+    SSAMap intMap =
+        SSAMap.emptySSAMap()
+            .builder()
+            .setIndex("x", CNumericTypes.INT, 1)
+            .setIndex("y", CNumericTypes.CHAR, 2)
+            .build();
+    SSAMap longMap =
+        SSAMap.emptySSAMap()
+            .builder()
+            .setIndex("x", CNumericTypes.LONG_INT, 1)
+            .setIndex("y", CNumericTypes.CHAR, 2)
+            .build();
+    // only the types differ
+    assertThat(longMap).isNotEqualTo(intMap);
+    assertThat(intMap).isNotEqualTo(longMap);
+
+    SSAMap internedInt = interner.intern(intMap);
+    SSAMap internedLong = interner.intern(longMap);
+
+    assertThat(internedInt).isSameAs(intMap);
+    assertThat(internedLong).isSameAs(longMap);
+    // types are stored in canonical form
+    assertThat(internedInt.getType("x")).isEqualTo(CNumericTypes.INT.getCanonicalType());
+    assertThat(internedLong.getType("x")).isEqualTo(CNumericTypes.LONG_INT.getCanonicalType());
+    assertThat(internedLong.builder().getType("x"))
+        .isEqualTo(CNumericTypes.LONG_INT.getCanonicalType());
+    assertThat(internedLong.getType("y")).isEqualTo(CNumericTypes.CHAR.getCanonicalType());
+  }
+
+  @Test
+  public void testMapsWithNonDefaultIndexAreNotShared() {
+    SSAMap ssa1 =
+        SSAMap.emptySSAMap()
+            .builder()
+            .setIndex("x", CNumericTypes.INT, 1)
+            .build()
+            .withDefault(5);
+    SSAMap ssa2 =
+        SSAMap.emptySSAMap()
+            .builder()
+            .setIndex("x", CNumericTypes.INT, 1)
+            .build();
+
+    assertThat(interner.intern(ssa1)).isSameAs(ssa1);
+    assertThat(interner.intern(ssa2)).isSameAs(ssa2);
+  }
+}
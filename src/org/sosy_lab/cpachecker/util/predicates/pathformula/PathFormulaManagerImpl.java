@@ -120,6 +120,17 @@ public class PathFormulaManagerImpl implements PathFormulaManager {
   )
   private boolean useNondetFlags = false;
 
+  @Option(
+    secure = true,
+    description =
+        "Share structurally identical SSA maps, pointer-target sets and path formulas"
+            + " via a weak canonical table. This reduces memory usage"
+            + " and makes cache lookups with path formulas as keys cheaper."
+  )
+  private boolean internPathFormulas = false;
+
+  private final @Nullable PathFormulaInterner interner;
+
   public PathFormulaManagerImpl(FormulaManagerView pFmgr,
       Configuration config, LogManager pLogger, ShutdownNotifier pShutdownNotifier,
       CFA pCfa, AnalysisDirection pDirection)
@@ -197,6 +208,12 @@ public class PathFormulaManagerImpl implements PathFormulaManager {
     }
 
     NONDET_FORMULA_TYPE = converter.getFormulaTypeFromCType(NONDET_TYPE);
+
+    interner = internPathFormulas ? new PathFormulaInterner() : null;
+  }
+
+  private PathFormula intern(PathFormula pf) {
+    return interner == null ? pf : interner.intern(pf);
   }
 
   @Override
@@ -241,7 +258,7 @@ public class PathFormulaManagerImpl implements PathFormulaManager {
     if (simplifyGeneratedPathFormulas) {
       pf = pf.updateFormula(fmgr.simplify(pf.getFormula()));
     }
-    return pf;
+    return intern(pf);
   }
 
   @Override
@@ -255,7 +272,8 @@ public class PathFormulaManagerImpl implements PathFormulaManager {
             new CFANode("dummy"),
             pAssumption,
             true);
-    return converter.makeAnd(pPathFormula, fakeEdge, ErrorConditions.dummyInstance(bfmgr));
+    return intern(
+        converter.makeAnd(pPathFormula, fakeEdge, ErrorConditions.dummyInstance(bfmgr)));
   }
 
   @Override
@@ -275,27 +293,27 @@ public class PathFormulaManagerImpl implements PathFormulaManager {
 
   @Override
   public PathFormula makeEmptyPathFormula(PathFormula oldFormula) {
-    return new PathFormula(bfmgr.makeTrue(),
+    return intern(new PathFormula(bfmgr.makeTrue(),
                            oldFormula.getSsa(),
                            oldFormula.getPointerTargetSet(),
-                           0);
+                           0));
   }
 
   @Override
   @Deprecated
   public PathFormula makeNewPathFormula(PathFormula oldFormula, SSAMap m) {
-    return new PathFormula(oldFormula.getFormula(),
+    return intern(new PathFormula(oldFormula.getFormula(),
                            m,
                            oldFormula.getPointerTargetSet(),
-                           oldFormula.getLength());
+                           oldFormula.getLength()));
   }
 
   @Override
   public PathFormula makeNewPathFormula(PathFormula oldFormula, SSAMap m, PointerTargetSet pPts) {
-    return new PathFormula(oldFormula.getFormula(),
+    return intern(new PathFormula(oldFormula.getFormula(),
         m,
         pPts,
-        oldFormula.getLength());
+        oldFormula.getLength()));
   }
 
   @Override
@@ -336,7 +354,7 @@ public class PathFormulaManagerImpl implements PathFormulaManager {
     if (simplifyGeneratedPathFormulas) {
       out = out.updateFormula(fmgr.simplify(out.getFormula()));
     }
-    return out;
+    return intern(out);
   }
 
   @Override
@@ -345,7 +363,7 @@ public class PathFormulaManagerImpl implements PathFormulaManager {
     BooleanFormula otherFormula =  fmgr.instantiate(pOtherFormula, ssa);
     BooleanFormula resultFormula = bfmgr.and(pPathFormula.getFormula(), otherFormula);
     final PointerTargetSet pts = pPathFormula.getPointerTargetSet();
-    return new PathFormula(resultFormula, ssa, pts, pPathFormula.getLength());
+    return intern(new PathFormula(resultFormula, ssa, pts, pPathFormula.getLength()));
   }
 
   @Override
@@ -561,6 +579,9 @@ public class PathFormulaManagerImpl implements PathFormulaManager {
 
   @Override
   public void printStatistics(PrintStream out) {
+    if (interner != null) {
+      interner.printStatistics(out);
+    }
     converter.printStatistics(out);
   }
 
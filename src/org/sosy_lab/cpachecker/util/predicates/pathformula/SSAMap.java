@@ -334,6 +334,15 @@ public class SSAMap implements Serializable {
     return vars.keySet();
   }
 
+  /**
+   * Whether this instance may be replaced by any other instance that is equal to it according to
+   * {@link #equals(Object)}. This is not the case for maps with a non-standard default index,
+   * because the default index is not considered by {@link #equals(Object)}.
+   */
+  boolean isInternable() {
+    return defaultValue == DEFAULT_DEFAULT_IDX;
+  }
+
   private static final Joiner joiner = Joiner.on(" ");
 
   @Override
@@ -355,8 +364,11 @@ public class SSAMap implements Serializable {
     } else {
       SSAMap other = (SSAMap)obj;
       // Do a few cheap checks before the expensive ones.
+      // The types are not part of the hash code, but maps with the same indices
+      // and different types must not be treated as equal (e.g., by the interner).
       return varsHashCode == other.varsHashCode
           && vars.equals(other.vars)
+          && (varTypes == other.varTypes || varTypes.equals(other.varTypes))
           && freshValueProvider.equals(other.freshValueProvider);
     }
   }
@@ -0,0 +1,73 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.predicates.smt;
+
+import javax.annotation.Nullable;
+import org.sosy_lab.java_smt.api.ProverEnvironment;
+
+/**
+ * A prover environment handed out by {@link Solver#newPooledProverEnvironment}. Closing this
+ * instance gives the environment back to the pool (or closes it if it is not pooled).
+ *
+ * <p>Users may push and pop further formulas on the environment, but have to restore the
+ * assertion stack before closing this instance. If this is not possible, {@link #invalidate()} has
+ * to be called, and the environment will not be reused.
+ */
+public final class PooledProverEnvironment implements AutoCloseable {
+
+  private final ProverEnvironment prover;
+  private final @Nullable ProverEnvironmentPool pool;
+  private final @Nullable Object key;
+  private boolean reusable = true;
+
+  PooledProverEnvironment(
+      ProverEnvironment pProver, @Nullable ProverEnvironmentPool pPool, @Nullable Object pKey) {
+    prover = pProver;
+    pool = pPool;
+    key = pKey;
+  }
+
+  public ProverEnvironment getProver() {
+    return prover;
+  }
+
+  /** Whether the environment will be kept alive and reused after this instance is closed. */
+  public boolean isPooled() {
+    return pool != null && reusable;
+  }
+
+  /** Mark the assertion stack of the environment as modified, it will not be reused. */
+  public void invalidate() {
+    reusable = false;
+  }
+
+  @Override
+  public void close() {
+    if (pool == null) {
+      prover.close();
+    } else {
+      pool.release(key, prover, reusable);
+    }
+  }
+}
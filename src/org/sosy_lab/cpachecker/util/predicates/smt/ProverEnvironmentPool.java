@@ -0,0 +1,216 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.predicates.smt;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.sosy_lab.cpachecker.util.statistics.StatisticsUtils.toPercent;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import org.sosy_lab.common.time.TimeSpan;
+import org.sosy_lab.common.time.Timer;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.ProverEnvironment;
+
+/**
+ * A bounded pool of prover environments that are kept alive between queries. Each environment is
+ * associated with a key (e.g., a CFA location) and remembers the formulas that are asserted on its
+ * assertion stack, one formula per level. A new query for the same key pops only those levels that
+ * differ from the new query and pushes the remaining formulas, such that the solver can reuse its
+ * internal state for the common prefix. If the pool is full, the least recently used idle
+ * environment is closed.
+ *
+ * <p>This class is not thread-safe.
+ */
+final class ProverEnvironmentPool implements AutoCloseable {
+
+  private static final class PoolEntry {
+    private final ProverEnvironment prover;
+    private final List<BooleanFormula> assertions = new ArrayList<>();
+    private boolean inUse = false;
+
+    private PoolEntry(ProverEnvironment pProver) {
+      prover = pProver;
+    }
+  }
+
+  private final Supplier<ProverEnvironment> proverFactory;
+  private final int maxSize;
+
+  // in access order, such that we can evict the least recently used environment
+  private final Map<Object, PoolEntry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+  // stats
+  private int requests = 0;
+  private int reusedEnvironments = 0;
+  private int createdEnvironments = 0;
+  private int evictedEnvironments = 0;
+  private int pushedAssertions = 0;
+  private int poppedAssertions = 0;
+  private int reusedAssertions = 0;
+  private final Timer assertionTime = new Timer();
+
+  ProverEnvironmentPool(Supplier<ProverEnvironment> pProverFactory, int pMaxSize) {
+    proverFactory = pProverFactory;
+    maxSize = pMaxSize;
+  }
+
+  /**
+   * Get the pooled environment for the given key, with exactly the given formulas asserted. If the
+   * environment for this key is still in use (nested queries), a fresh environment is returned that
+   * will not be pooled.
+   */
+  PooledProverEnvironment get(Object pKey, List<BooleanFormula> pAssertions)
+      throws InterruptedException {
+    requests++;
+
+    PoolEntry entry = entries.get(pKey);
+    if (entry != null && entry.inUse) {
+      ProverEnvironment prover = proverFactory.get();
+      for (BooleanFormula f : pAssertions) {
+        prover.push(f);
+      }
+      return new PooledProverEnvironment(prover, null, pKey);
+    }
+
+    if (entry == null) {
+      createdEnvironments++;
+      entry = new PoolEntry(proverFactory.get());
+      entries.put(pKey, entry);
+    }
+    entry.inUse = true;
+    evictIfNecessary();
+
+    int common = 0;
+    while (common < entry.assertions.size()
+        && common < pAssertions.size()
+        && entry.assertions.get(common).equals(pAssertions.get(common))) {
+      common++;
+    }
+    if (common > 0) {
+      reusedEnvironments++;
+      reusedAssertions += common;
+    }
+
+    boolean success = false;
+    assertionTime.start();
+    try {
+      while (entry.assertions.size() > common) {
+        entry.prover.pop();
+        entry.assertions.remove(entry.assertions.size() - 1);
+        poppedAssertions++;
+      }
+      for (BooleanFormula f : pAssertions.subList(common, pAssertions.size())) {
+        entry.prover.push(f);
+        entry.assertions.add(f);
+        pushedAssertions++;
+      }
+      success = true;
+    } finally {
+      assertionTime.stop();
+      if (!success) {
+        // assertion stack is in an unknown state
+        entries.remove(pKey);
+        entry.prover.close();
+      }
+    }
+
+    return new PooledProverEnvironment(entry.prover, this, pKey);
+  }
+
+  /**
+   * Give an environment back to the pool.
+   *
+   * @param pReusable whether the environment has the same assertion stack as when it was handed
+   *     out.
+   */
+  void release(Object pKey, ProverEnvironment pProver, boolean pReusable) {
+    PoolEntry entry = entries.get(pKey);
+    if (entry == null || entry.prover != pProver) {
+      // was evicted in the meantime
+      pProver.close();
+      return;
+    }
+
+    if (pReusable) {
+      entry.inUse = false;
+      evictIfNecessary();
+    } else {
+      entries.remove(pKey);
+      pProver.close();
+    }
+  }
+
+  private void evictIfNecessary() {
+    Iterator<PoolEntry> it = entries.values().iterator();
+    while (entries.size() > maxSize && it.hasNext()) {
+      PoolEntry entry = it.next();
+      if (!entry.inUse) {
+        it.remove();
+        entry.prover.close();
+        evictedEnvironments++;
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    for (PoolEntry entry : entries.values()) {
+      entry.prover.close();
+    }
+    entries.clear();
+  }
+
+  void printStatistics(PrintStream out) {
+    out.println("Number of pooled prover requests:  " + requests);
+    out.println(
+        "  with reused assertions:          "
+            + reusedEnvironments
+            + " ("
+            + toPercent(reusedEnvironments, requests)
+            + ")");
+    out.println(
+        "  created/evicted environments:    " + createdEnvironments + "/" + evictedEnvironments);
+    out.println(
+        "  pushed/popped/reused assertions: "
+            + pushedAssertions
+            + "/"
+            + poppedAssertions
+            + "/"
+            + reusedAssertions);
+    out.println("  time for assertions:             " + assertionTime);
+    if (pushedAssertions > 0) {
+      // estimation based on the average time for asserting one formula
+      TimeSpan saved =
+          TimeSpan.ofNanos(
+              assertionTime.getSumTime().asNanos() * reusedAssertions / pushedAssertions);
+      out.println("  estimated saved assertion time:  " + saved.formatAs(SECONDS));
+    }
+  }
+}
@@ -32,6 +32,7 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.io.PrintStream;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -40,6 +41,7 @@ import java.util.Set;
 import javax.annotation.Nullable;
 import org.sosy_lab.common.ShutdownNotifier;
 import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.IntegerOption;
 import org.sosy_lab.common.configuration.InvalidConfigurationException;
 import org.sosy_lab.common.configuration.Option;
 import org.sosy_lab.common.configuration.Options;
@@ -94,8 +96,21 @@ public final class Solver implements AutoCloseable {
   description="Extract and cache unsat cores for satisfiability checking")
   private boolean cacheUnsatCores = true;
 
+  @Option(
+    secure = true,
+    description =
+        "Number of prover environments that are kept alive for reuse by later queries with the"
+            + " same key (e.g., abstraction computations at the same location)."
+            + " A query reuses the assertions of the previous query with the same key"
+            + " as far as they agree, via push and pop. Use 0 to disable pooling."
+  )
+  @IntegerOption(min = 0)
+  private int proverPoolSize = 0;
+
   private final @Nullable UFCheckingProverOptions ufCheckingProverOptions;
 
+  private final @Nullable ProverEnvironmentPool proverPool;
+
   private final FormulaManagerView fmgr;
   private final BooleanFormulaManagerView bfmgr;
 
@@ -157,6 +172,8 @@ public final class Solver implements AutoCloseable {
     } else {
       ufCheckingProverOptions = null;
     }
+
+    proverPool = createProverPool();
   }
 
   /**
@@ -202,6 +219,15 @@ public final class Solver implements AutoCloseable {
     } else {
       ufCheckingProverOptions = null;
     }
+
+    proverPool = createProverPool();
+  }
+
+  private @Nullable ProverEnvironmentPool createProverPool() {
+    if (proverPoolSize > 0) {
+      return new ProverEnvironmentPool(this::newProverEnvironment0, proverPoolSize);
+    }
+    return null;
   }
 
   /**
@@ -247,6 +273,32 @@ public final class Solver implements AutoCloseable {
     return pe;
   }
 
+  /**
+   * Get a prover environment in which exactly the given formulas are asserted, each one on its own
+   * level of the assertion stack. If prover pooling is enabled, the environment is taken from the
+   * pool of environments for the given key, such that assertions that were already made by the
+   * previous query with the same key do not have to be repeated.
+   * The returned instance needs to be closed after it is used,
+   * this gives the environment back to the pool.
+   * It is recommended to use the try-with-resources syntax.
+   *
+   * @param pKey The key for grouping queries, usually a CFANode is a good candidate.
+   *     If null, a fresh environment is created that is not pooled.
+   * @param pAssertions The formulas to assert, formulas that are equal in consecutive queries
+   *     should be at the beginning of the list.
+   */
+  public PooledProverEnvironment newPooledProverEnvironment(
+      @Nullable Object pKey, List<BooleanFormula> pAssertions) throws InterruptedException {
+    if (proverPool != null && pKey != null) {
+      return proverPool.get(pKey, pAssertions);
+    }
+    ProverEnvironment prover = newProverEnvironment0();
+    for (BooleanFormula f : pAssertions) {
+      prover.push(f);
+    }
+    return new PooledProverEnvironment(prover, null, pKey);
+  }
+
   /**
    * Direct reference to the underlying SMT solver for interpolation queries.
    * This creates a fresh, new, environment in the solver.
@@ -468,6 +520,10 @@ public final class Solver implements AutoCloseable {
    */
   @Override
   public void close() {
+    if (proverPool != null) {
+      proverPool.close();
+    }
+
     // Reliably close both formula managers and re-throw exceptions,
     // such that no exception gets lost and both managers get closed.
     // Taken from https://stackoverflow.com/questions/24705055/wrapping-multiple-autocloseables
@@ -494,6 +550,13 @@ public final class Solver implements AutoCloseable {
     }
   }
 
+  /** Print statistics about the reuse of pooled prover environments, if pooling is enabled. */
+  public void printProverPoolStatistics(PrintStream out) {
+    if (proverPool != null) {
+      proverPool.printStatistics(out);
+    }
+  }
+
   public String getVersion() {
     return solvingContext.getVersion();
   }